@@ -7,3 +7,7 @@ tasks.withType<JavaCompile>().configureEach {
     release.set(11)
   }
 }
+
+dependencies {
+  testImplementation("org.assertj:assertj-core")
+}
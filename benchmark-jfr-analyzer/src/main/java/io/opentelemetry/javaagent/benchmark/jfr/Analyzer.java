@@ -5,13 +5,16 @@
 
 package io.opentelemetry.javaagent.benchmark.jfr;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import jdk.jfr.consumer.RecordedEvent;
@@ -20,34 +23,219 @@ import jdk.jfr.consumer.RecordedMethod;
 import jdk.jfr.consumer.RecordedStackTrace;
 import jdk.jfr.consumer.RecordingFile;
 
+/**
+ * Reports the overhead of the agent found in JFR recordings.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ * Analyzer [--agent-jar agent.jar] recording.jfr
+ * Analyzer [--agent-jar agent.jar] [--threshold percent] --diff baseline.jfr candidate.jfr
+ * </pre>
+ *
+ * <p>The first form prints the CPU samples, allocations, monitor contention and thread parking
+ * attributed to each instrumentation module, followed by the tree of agent execution samples. The
+ * second form compares the per module costs of two recordings and flags the modules whose cost grew
+ * by more than the threshold (10% by default).
+ */
 @SuppressWarnings("SystemOut")
 public class Analyzer {
 
-  private static final Node syntheticRootNode = new Node("");
-  private static int totalSamples = 0;
+  // changes below these are considered noise, regardless of the relative threshold
+  private static final double MIN_SHARE_CHANGE_PERCENT = 0.1;
+  private static final double MIN_BLOCKED_CHANGE_MILLIS_PER_SECOND = 1;
 
   public static void main(String[] args) throws Exception {
-    File jfrFile = new File(args[0]);
-    List<RecordedEvent> events =
-        RecordingFile.readAllEvents(jfrFile.toPath()).stream()
-            .filter(e -> e.getEventType().getName().equals("jdk.ExecutionSample"))
-            .collect(Collectors.toList());
+    Path agentJar = null;
+    double thresholdPercent = 10;
+    List<Path> recordings = new ArrayList<>();
+    boolean diff = false;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--agent-jar":
+          agentJar = Paths.get(args[++i]);
+          break;
+        case "--threshold":
+          thresholdPercent = Double.parseDouble(args[++i]);
+          break;
+        case "--diff":
+          diff = true;
+          break;
+        default:
+          recordings.add(Paths.get(args[i]));
+          break;
+      }
+    }
+    if (recordings.size() != (diff ? 2 : 1)) {
+      System.err.println("Usage: Analyzer [--agent-jar agent.jar] recording.jfr");
+      System.err.println(
+          "       Analyzer [--agent-jar agent.jar] [--threshold percent]"
+              + " --diff baseline.jfr candidate.jfr");
+      System.exit(1);
+    }
+
+    ModuleResolver resolver = ModuleResolver.create(agentJar);
+    if (diff) {
+      RecordingAnalysis baseline = RecordingAnalysis.analyze(recordings.get(0), resolver);
+      RecordingAnalysis candidate = RecordingAnalysis.analyze(recordings.get(1), resolver);
+      int regressions = printDiff(baseline, candidate, thresholdPercent);
+      if (regressions > 0) {
+        System.exit(2);
+      }
+    } else {
+      Path jfrFile = recordings.get(0);
+      RecordingAnalysis analysis = RecordingAnalysis.analyze(jfrFile, resolver);
+      printModules(analysis);
+      System.out.println();
+      printExecutionSampleTree(jfrFile, analysis.agentCallers);
+    }
+  }
+
+  private static void printModules(RecordingAnalysis analysis) {
+    ModuleStats total = analysis.total;
+    boolean sampledAllocations = analysis.useSampledAllocations();
+    System.out.println("Total samples: " + total.executionSamples);
+    System.out.format(
+        "Total allocations: %.1f MB (%s)%n",
+        toMegabytes(total.allocationBytes(sampledAllocations)),
+        sampledAllocations ? "jdk.ObjectAllocationSample" : "jdk.ObjectAllocationInNewTLAB");
+    System.out.println();
+    System.out.format(
+        "%-40s %8s %7s %10s %7s %12s %10s%n",
+        "module", "samples", "cpu", "alloc MB", "alloc", "monitor ms", "park ms");
+
+    List<Map.Entry<String, ModuleStats>> modules = new ArrayList<>(analysis.modules.entrySet());
+    modules.sort(
+        Comparator.comparingLong(
+                (Map.Entry<String, ModuleStats> e) -> e.getValue().executionSamples)
+            .thenComparingLong(e -> e.getValue().allocationBytes(sampledAllocations))
+            .reversed());
+    ModuleStats agentTotal = new ModuleStats();
+    for (Map.Entry<String, ModuleStats> module : modules) {
+      printModule(module.getKey(), module.getValue(), total, sampledAllocations);
+      add(agentTotal, module.getValue());
+    }
+    printModule("(all agent modules)", agentTotal, total, sampledAllocations);
+  }
+
+  private static void printModule(
+      String name, ModuleStats stats, ModuleStats total, boolean sampledAllocations) {
+    System.out.format(
+        "%-40s %8d %6.2f%% %10.1f %6.2f%% %12.1f %10.1f%n",
+        name,
+        stats.executionSamples,
+        percent(stats.executionSamples, total.executionSamples),
+        toMegabytes(stats.allocationBytes(sampledAllocations)),
+        percent(
+            stats.allocationBytes(sampledAllocations), total.allocationBytes(sampledAllocations)),
+        stats.monitorEnterNanos / 1_000_000.0,
+        stats.parkNanos / 1_000_000.0);
+  }
+
+  private static int printDiff(
+      RecordingAnalysis baseline, RecordingAnalysis candidate, double thresholdPercent) {
+    Set<String> moduleNames = new TreeSet<>(baseline.modules.keySet());
+    moduleNames.addAll(candidate.modules.keySet());
+
+    System.out.format("%-40s %-22s %-22s %-26s%n", "module", "cpu %", "alloc %", "blocked ms/s");
+    int regressions = 0;
+    for (String moduleName : moduleNames) {
+      ModuleStats before = baseline.modules.getOrDefault(moduleName, new ModuleStats());
+      ModuleStats after = candidate.modules.getOrDefault(moduleName, new ModuleStats());
+
+      double cpuBefore = percent(before.executionSamples, baseline.total.executionSamples);
+      double cpuAfter = percent(after.executionSamples, candidate.total.executionSamples);
+      double allocBefore = allocationPercent(before, baseline);
+      double allocAfter = allocationPercent(after, candidate);
+      double blockedBefore = blockedMillisPerSecond(before, baseline);
+      double blockedAfter = blockedMillisPerSecond(after, candidate);
+
+      List<String> regressed = new ArrayList<>();
+      if (isRegression(cpuBefore, cpuAfter, thresholdPercent, MIN_SHARE_CHANGE_PERCENT)) {
+        regressed.add("cpu");
+      }
+      if (isRegression(allocBefore, allocAfter, thresholdPercent, MIN_SHARE_CHANGE_PERCENT)) {
+        regressed.add("alloc");
+      }
+      if (isRegression(
+          blockedBefore, blockedAfter, thresholdPercent, MIN_BLOCKED_CHANGE_MILLIS_PER_SECOND)) {
+        regressed.add("blocked");
+      }
+      if (!regressed.isEmpty()) {
+        regressions++;
+      }
+      System.out.format(
+          "%-40s %-22s %-22s %-26s%s%n",
+          moduleName,
+          formatChange(cpuBefore, cpuAfter),
+          formatChange(allocBefore, allocAfter),
+          formatChange(blockedBefore, blockedAfter),
+          regressed.isEmpty() ? "" : " REGRESSION (" + String.join(", ", regressed) + ")");
+    }
+    System.out.println();
+    System.out.println(regressions + " module(s) regressed by more than " + thresholdPercent + "%");
+    return regressions;
+  }
+
+  private static boolean isRegression(
+      double before, double after, double thresholdPercent, double minChange) {
+    double change = after - before;
+    return change > minChange && change > before * thresholdPercent / 100;
+  }
+
+  private static String formatChange(double before, double after) {
+    return String.format("%.2f -> %.2f", before, after);
+  }
+
+  private static double allocationPercent(ModuleStats stats, RecordingAnalysis analysis) {
+    boolean sampledAllocations = analysis.useSampledAllocations();
+    return percent(
+        stats.allocationBytes(sampledAllocations),
+        analysis.total.allocationBytes(sampledAllocations));
+  }
+
+  private static double blockedMillisPerSecond(ModuleStats stats, RecordingAnalysis analysis) {
+    long durationMillis = analysis.duration().toMillis();
+    if (durationMillis == 0) {
+      return 0;
+    }
+    return (stats.monitorEnterNanos + stats.parkNanos) / 1_000_000.0 / (durationMillis / 1000.0);
+  }
+
+  private static double percent(long value, long total) {
+    return total == 0 ? 0 : 100 * value / (double) total;
+  }
+
+  private static double toMegabytes(long bytes) {
+    return bytes / (1024.0 * 1024.0);
+  }
 
-    Set<String> agentCallers = getAgentCallers(events);
+  private static void add(ModuleStats sum, ModuleStats stats) {
+    sum.executionSamples += stats.executionSamples;
+    sum.sampledAllocationBytes += stats.sampledAllocationBytes;
+    sum.tlabAllocationBytes += stats.tlabAllocationBytes;
+    sum.monitorEnterNanos += stats.monitorEnterNanos;
+    sum.parkNanos += stats.parkNanos;
+  }
 
-    for (RecordedEvent event : events) {
-      totalSamples++;
-      processStackTrace(event.getStackTrace(), agentCallers);
+  private static void printExecutionSampleTree(Path jfrFile, Set<String> agentCallers)
+      throws IOException {
+    Node syntheticRootNode = new Node("");
+    try (RecordingFile recording = new RecordingFile(jfrFile)) {
+      while (recording.hasMoreEvents()) {
+        RecordedEvent event = recording.readEvent();
+        if (event.getEventType().getName().equals("jdk.ExecutionSample")) {
+          processStackTrace(syntheticRootNode, event.getStackTrace(), agentCallers);
+        }
+      }
     }
 
     int totalAgentSamples = 0;
     for (Node rootNode : syntheticRootNode.getOrderedChildNodes()) {
       totalAgentSamples += rootNode.count;
     }
-
-    System.out.println("Total samples: " + totalSamples);
-    System.out.print("Total agent samples: " + totalAgentSamples);
-    System.out.format(" (%.2f%%)%n", 100 * totalAgentSamples / (double) totalSamples);
+    System.out.println(
+        "Total agent samples (including instrumented callers): " + totalAgentSamples);
     System.out.println();
     for (Node rootNode : syntheticRootNode.getOrderedChildNodes()) {
       printNode(rootNode, 0);
@@ -55,17 +243,13 @@ public class Analyzer {
   }
 
   // getting direct callers since those are likely the instrumented methods
-  private static Set<String> getAgentCallers(List<RecordedEvent> events) {
-    return events.stream()
-        .map(e -> getAgentCaller(e.getStackTrace()))
-        .filter(Objects::nonNull)
-        .collect(Collectors.toSet());
-  }
-
   @Nullable
-  private static String getAgentCaller(RecordedStackTrace stackTrace) {
+  static String getAgentCaller(@Nullable RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return null;
+    }
     List<RecordedFrame> frames = stackTrace.getFrames();
-    for (int i = frames.size() - 1; i >= 0; i--) {
+    for (int i = frames.size() - 2; i >= 0; i--) {
       RecordedFrame frame = frames.get(i);
       RecordedMethod method = frame.getMethod();
       if (isAgentMethod(method)) {
@@ -87,7 +271,11 @@ public class Analyzer {
     }
   }
 
-  private static void processStackTrace(RecordedStackTrace stackTrace, Set<String> agentCallers) {
+  private static void processStackTrace(
+      Node syntheticRootNode, @Nullable RecordedStackTrace stackTrace, Set<String> agentCallers) {
+    if (stackTrace == null) {
+      return;
+    }
     boolean analyze = false;
     int analyzeFromIndex = 0;
     List<RecordedFrame> frames = stackTrace.getFrames();
@@ -129,9 +317,15 @@ public class Analyzer {
     }
   }
 
-  private static boolean isAgentMethod(RecordedMethod method) {
-    String className = method.getType().getName();
-    String methodName = method.getName();
+  static boolean isAgentMethod(RecordedMethod method) {
+    return isAgentMethod(method.getType().getName(), method.getName());
+  }
+
+  static boolean isAgentMethod(String className, String methodName) {
+    // the library instrumentations and the instrumentation API, when they are not shaded
+    if (className.startsWith("io.opentelemetry.instrumentation.")) {
+      return true;
+    }
     return className.startsWith("io.opentelemetry.javaagent.")
         && !className.startsWith("io.opentelemetry.javaagent.benchmark.")
         // this shows up in stack traces because it's part of the filter chain
@@ -0,0 +1,158 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.jfr;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import javax.annotation.Nullable;
+
+/**
+ * Maps class names found in stack frames to the name of the {@code InstrumentationModule} they
+ * belong to.
+ *
+ * <p>When the agent jar is given, the modules listed in its service file are instantiated to read
+ * their {@code instrumentationName()}, and a frame belongs to the module whose package is the
+ * longest prefix of the frame's class. Without the agent jar, the package below {@code
+ * io.opentelemetry.javaagent.instrumentation} is used as the name.
+ */
+class ModuleResolver {
+
+  static final String AGENT_INTERNAL = "(agent internals)";
+
+  private static final String INSTRUMENTATION_PACKAGE =
+      "io.opentelemetry.javaagent.instrumentation.";
+  // classes shared by all the modules
+  private static final String INSTRUMENTATION_API_PACKAGE = INSTRUMENTATION_PACKAGE + "api.";
+  private static final String MODULE_SERVICE_FILE =
+      "inst/META-INF/services/io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule";
+
+  // module package -> module name, longest package first
+  private final Map<String, String> modulesByPackage;
+  private final Map<String, String> cache = new HashMap<>();
+
+  private ModuleResolver(Map<String, String> modulesByPackage) {
+    this.modulesByPackage = modulesByPackage;
+  }
+
+  static ModuleResolver create(@Nullable Path agentJar) throws IOException {
+    if (agentJar == null) {
+      return new ModuleResolver(new LinkedHashMap<>());
+    }
+    List<String[]> modules = new ArrayList<>();
+    try (JarFile jarFile = new JarFile(agentJar.toFile());
+        URLClassLoader bootstrapLoader =
+            new URLClassLoader(
+                new URL[] {agentJar.toUri().toURL()}, ClassLoader.getPlatformClassLoader())) {
+      InstClassLoader instLoader = new InstClassLoader(jarFile, bootstrapLoader);
+      for (String moduleClassName : readModuleClassNames(jarFile)) {
+        String modulePackage = moduleClassName.substring(0, moduleClassName.lastIndexOf('.'));
+        modules.add(new String[] {modulePackage, readModuleName(instLoader, moduleClassName)});
+      }
+    }
+    modules.sort(Comparator.comparingInt((String[] module) -> module[0].length()).reversed());
+    Map<String, String> modulesByPackage = new LinkedHashMap<>();
+    for (String[] module : modules) {
+      modulesByPackage.putIfAbsent(module[0], module[1]);
+    }
+    return new ModuleResolver(modulesByPackage);
+  }
+
+  /**
+   * Returns the module that the agent class belongs to, or {@link #AGENT_INTERNAL} for agent
+   * classes that are not part of any instrumentation module.
+   */
+  String resolve(String agentClassName) {
+    return cache.computeIfAbsent(agentClassName, this::lookup);
+  }
+
+  private String lookup(String className) {
+    for (Map.Entry<String, String> module : modulesByPackage.entrySet()) {
+      if (className.startsWith(module.getKey() + ".")) {
+        return module.getValue();
+      }
+    }
+    if (modulesByPackage.isEmpty()
+        && className.startsWith(INSTRUMENTATION_PACKAGE)
+        && !className.startsWith(INSTRUMENTATION_API_PACKAGE)) {
+      int lastDot = className.lastIndexOf('.');
+      if (lastDot > INSTRUMENTATION_PACKAGE.length()) {
+        return className.substring(INSTRUMENTATION_PACKAGE.length(), lastDot);
+      }
+    }
+    return AGENT_INTERNAL;
+  }
+
+  private static List<String> readModuleClassNames(JarFile jarFile) throws IOException {
+    List<String> classNames = new ArrayList<>();
+    JarEntry entry = jarFile.getJarEntry(MODULE_SERVICE_FILE);
+    if (entry == null) {
+      return classNames;
+    }
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(jarFile.getInputStream(entry), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          classNames.add(line);
+        }
+      }
+    }
+    return classNames;
+  }
+
+  private static String readModuleName(ClassLoader instLoader, String moduleClassName) {
+    try {
+      Object module = instLoader.loadClass(moduleClassName).getConstructor().newInstance();
+      return (String) module.getClass().getMethod("instrumentationName").invoke(module);
+    } catch (Throwable t) {
+      // fall back to a name derived from the package
+      String modulePackage = moduleClassName.substring(0, moduleClassName.lastIndexOf('.'));
+      return modulePackage.startsWith(INSTRUMENTATION_PACKAGE)
+          ? modulePackage.substring(INSTRUMENTATION_PACKAGE.length())
+          : modulePackage;
+    }
+  }
+
+  /** Loads the {@code .classdata} entries that the agent keeps under {@code inst/}. */
+  private static class InstClassLoader extends ClassLoader {
+    private final JarFile jarFile;
+
+    private InstClassLoader(JarFile jarFile, ClassLoader parent) {
+      super(parent);
+      this.jarFile = jarFile;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      JarEntry entry = jarFile.getJarEntry("inst/" + name.replace('.', '/') + ".classdata");
+      if (entry == null) {
+        throw new ClassNotFoundException(name);
+      }
+      try (InputStream in = jarFile.getInputStream(entry)) {
+        byte[] bytes = in.readAllBytes();
+        return defineClass(name, bytes, 0, bytes.length);
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.jfr;
+
+/** Costs attributed to a single instrumentation module (or to the whole recording). */
+class ModuleStats {
+
+  long executionSamples;
+  // jdk.ObjectAllocationSample weights, available since JDK 16
+  long sampledAllocationBytes;
+  // jdk.ObjectAllocationInNewTLAB / jdk.ObjectAllocationOutsideTLAB sizes, used on older JDKs
+  long tlabAllocationBytes;
+  long monitorEnterNanos;
+  long parkNanos;
+
+  long allocationBytes(boolean useSampledAllocations) {
+    return useSampledAllocations ? sampledAllocationBytes : tlabAllocationBytes;
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Attributes CPU samples, allocations, monitor contention and thread parking of a recording to
+ * instrumentation modules. The recording is streamed event by event, so that arbitrarily large
+ * recordings can be analyzed in constant memory.
+ */
+class RecordingAnalysis {
+
+  // the JDK, and the OpenTelemetry API and SDK that the agent uses, either shaded or not: the
+  // instrumentation API and library instrumentations are agent code
+  private static final String[] LIBRARY_PACKAGES = {
+    "java.",
+    "jdk.",
+    "sun.",
+    "com.sun.",
+    "io.opentelemetry.api.",
+    "io.opentelemetry.context.",
+    "io.opentelemetry.semconv.",
+    "io.opentelemetry.sdk.",
+    "io.opentelemetry.exporter.",
+    "io.opentelemetry.extension.",
+    "io.opentelemetry.javaagent.shaded.io.opentelemetry."
+  };
+
+  final Map<String, ModuleStats> modules = new HashMap<>();
+  final ModuleStats total = new ModuleStats();
+  // direct callers of agent code, used to build the execution sample tree
+  final Set<String> agentCallers = new HashSet<>();
+
+  @Nullable private Instant start;
+  @Nullable private Instant end;
+
+  static RecordingAnalysis analyze(Path jfrFile, ModuleResolver resolver) throws IOException {
+    RecordingAnalysis analysis = new RecordingAnalysis();
+    try (RecordingFile recording = new RecordingFile(jfrFile)) {
+      while (recording.hasMoreEvents()) {
+        analysis.accept(recording.readEvent(), resolver);
+      }
+    }
+    return analysis;
+  }
+
+  boolean useSampledAllocations() {
+    return total.sampledAllocationBytes > 0;
+  }
+
+  Duration duration() {
+    if (start == null || end == null) {
+      return Duration.ZERO;
+    }
+    return Duration.between(start, end);
+  }
+
+  private void accept(RecordedEvent event, ModuleResolver resolver) {
+    Instant eventStart = event.getStartTime();
+    if (start == null || eventStart.isBefore(start)) {
+      start = eventStart;
+    }
+    Instant eventEnd = event.getEndTime();
+    if (end == null || eventEnd.isAfter(end)) {
+      end = eventEnd;
+    }
+
+    switch (event.getEventType().getName()) {
+      case "jdk.ExecutionSample":
+        total.executionSamples++;
+        String agentCaller = Analyzer.getAgentCaller(event.getStackTrace());
+        if (agentCaller != null) {
+          agentCallers.add(agentCaller);
+        }
+        ModuleStats executing = moduleStats(event.getStackTrace(), resolver);
+        if (executing != null) {
+          executing.executionSamples++;
+        }
+        break;
+      case "jdk.ObjectAllocationSample":
+        long weight = event.getLong("weight");
+        total.sampledAllocationBytes += weight;
+        ModuleStats allocating = moduleStats(event.getStackTrace(), resolver);
+        if (allocating != null) {
+          allocating.sampledAllocationBytes += weight;
+        }
+        break;
+      case "jdk.ObjectAllocationInNewTLAB":
+        addTlabAllocation(event, event.getLong("tlabSize"), resolver);
+        break;
+      case "jdk.ObjectAllocationOutsideTLAB":
+        addTlabAllocation(event, event.getLong("allocationSize"), resolver);
+        break;
+      case "jdk.JavaMonitorEnter":
+        long monitorNanos = event.getDuration().toNanos();
+        total.monitorEnterNanos += monitorNanos;
+        ModuleStats contending = moduleStats(event.getStackTrace(), resolver);
+        if (contending != null) {
+          contending.monitorEnterNanos += monitorNanos;
+        }
+        break;
+      case "jdk.ThreadPark":
+        long parkNanos = event.getDuration().toNanos();
+        total.parkNanos += parkNanos;
+        ModuleStats parking = moduleStats(event.getStackTrace(), resolver);
+        if (parking != null) {
+          parking.parkNanos += parkNanos;
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void addTlabAllocation(RecordedEvent event, long bytes, ModuleResolver resolver) {
+    total.tlabAllocationBytes += bytes;
+    ModuleStats allocating = moduleStats(event.getStackTrace(), resolver);
+    if (allocating != null) {
+      allocating.tlabAllocationBytes += bytes;
+    }
+  }
+
+  @Nullable
+  private ModuleStats moduleStats(
+      @Nullable RecordedStackTrace stackTrace, ModuleResolver resolver) {
+    if (stackTrace == null) {
+      return null;
+    }
+    List<Frame> frames = new ArrayList<>(stackTrace.getFrames().size());
+    for (RecordedFrame frame : stackTrace.getFrames()) {
+      RecordedMethod method = frame.getMethod();
+      if (method != null) {
+        frames.add(new Frame(method.getType().getName(), method.getName()));
+      }
+    }
+    String module = chargedModule(frames, resolver);
+    return module == null ? null : modules.computeIfAbsent(module, name -> new ModuleStats());
+  }
+
+  /**
+   * Returns the module that is doing the work at the top of the stack trace, or {@code null} when
+   * the top of the stack is application code.
+   *
+   * <p>Starting from the top-most frame, JDK and OpenTelemetry API and SDK frames are skipped (they
+   * are charged to whoever called them) and the first remaining frame decides: application code
+   * means the event is not agent overhead, even if agent code (e.g. a wrapper) is further down the
+   * stack. Otherwise the event is charged to the first instrumentation module frame found before
+   * reaching application code, so that shared agent code such as the {@code Instrumenter} API is
+   * charged to the module calling it, or to {@link ModuleResolver#AGENT_INTERNAL} when there is no
+   * such frame.
+   */
+  // visible for testing
+  @Nullable
+  static String chargedModule(List<Frame> frames, ModuleResolver resolver) {
+    boolean agentFrameSeen = false;
+    for (Frame frame : frames) {
+      if (isLibraryClass(frame.className)) {
+        continue;
+      }
+      if (!Analyzer.isAgentMethod(frame.className, frame.methodName)) {
+        // reached application code
+        break;
+      }
+      agentFrameSeen = true;
+      String module = resolver.resolve(frame.className);
+      if (!ModuleResolver.AGENT_INTERNAL.equals(module)) {
+        return module;
+      }
+    }
+    return agentFrameSeen ? ModuleResolver.AGENT_INTERNAL : null;
+  }
+
+  private static boolean isLibraryClass(String className) {
+    for (String libraryPackage : LIBRARY_PACKAGES) {
+      if (className.startsWith(libraryPackage)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // a frame of a stack trace, top-most first
+  static final class Frame {
+    final String className;
+    final String methodName;
+
+    Frame(String className, String methodName) {
+      this.className = className;
+      this.methodName = methodName;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.javaagent.benchmark.jfr.RecordingAnalysis.Frame;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RecordingAnalysisTest {
+
+  private static final String SERVLET_ADVICE =
+      "io.opentelemetry.javaagent.instrumentation.servlet.v3_0.Servlet3Advice#onEnter";
+  private static final String APPLICATION = "com.example.HelloController#hello";
+
+  private ModuleResolver resolver;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    // the module names are derived from the packages without the agent jar
+    resolver = ModuleResolver.create(null);
+  }
+
+  @Test
+  void chargesSharedAgentCodeToTheCallingModule() {
+    assertThat(
+            chargedModule(
+                "io.opentelemetry.javaagent.shaded.instrumentation.api.instrumenter.Instrumenter#start",
+                SERVLET_ADVICE,
+                APPLICATION))
+        .isEqualTo("servlet.v3_0");
+  }
+
+  @Test
+  void chargesUnshadedInstrumentationApiToTheCallingModule() {
+    assertThat(
+            chargedModule(
+                "io.opentelemetry.instrumentation.api.instrumenter.Instrumenter#start",
+                SERVLET_ADVICE,
+                APPLICATION))
+        .isEqualTo("servlet.v3_0");
+  }
+
+  @Test
+  void skipsJdkApiAndSdkFrames() {
+    assertThat(
+            chargedModule(
+                "java.util.HashMap#put",
+                "io.opentelemetry.sdk.trace.SdkSpanBuilder#startSpan",
+                "io.opentelemetry.javaagent.shaded.io.opentelemetry.api.trace.Span#current",
+                SERVLET_ADVICE,
+                APPLICATION))
+        .isEqualTo("servlet.v3_0");
+  }
+
+  @Test
+  void chargesLibraryInstrumentationWithoutModuleToAgentInternals() {
+    assertThat(
+            chargedModule(
+                "io.opentelemetry.instrumentation.okhttp.v3_0.TracingInterceptor#intercept",
+                "okhttp3.internal.http.RealInterceptorChain#proceed"))
+        .isEqualTo(ModuleResolver.AGENT_INTERNAL);
+  }
+
+  @Test
+  void doesNotChargeApplicationCode() {
+    assertThat(chargedModule("java.lang.String#format", APPLICATION, SERVLET_ADVICE)).isNull();
+  }
+
+  // frames as class#method, top-most first
+  private String chargedModule(String... frames) {
+    List<Frame> stackTrace = new ArrayList<>();
+    for (String frame : frames) {
+      int separator = frame.indexOf('#');
+      stackTrace.add(new Frame(frame.substring(0, separator), frame.substring(separator + 1)));
+    }
+    return RecordingAnalysis.chargedModule(stackTrace, resolver);
+  }
+}
@@ -13,6 +13,13 @@ dependencies {
 
 tasks {
 
+  // the in-process overhead benchmark reads flight recordings through jdk.jfr.consumer
+  withType<JavaCompile>().configureEach {
+    with(options) {
+      release.set(11)
+    }
+  }
+
   // TODO(trask) without disabling errorprone, jmh task fails with
   //  Task :testing-overhead-jmh:jmhCompileGeneratedClasses FAILED
   //   error: plug-in not found: ErrorProne
@@ -82,4 +89,60 @@ tasks {
     // TODO(trask) is this ok? if it's ok, move to otel.jmh-conventions?
     outputs.upToDateWhen { false }
   }
+
+  // runs the docker-free overhead benchmark, e.g.
+  //  ./gradlew :benchmark-overhead-jmh:overheadBenchmark -Poverhead.durationSeconds=30
+  register<JavaExec>("overheadBenchmark") {
+    val shadowTask = project(":javaagent").tasks.named<ShadowJar>("shadowJar").get()
+    inputs.files(layout.files(shadowTask))
+
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("io.opentelemetry.javaagent.benchmark.overhead.OverheadBenchmark")
+
+    systemProperty("overhead.agentJar", shadowTask.archiveFile.get().asFile.absolutePath)
+    systemProperty("overhead.outputDir", "$buildDir/results/overhead")
+    listOf("warmupSeconds", "durationSeconds", "concurrency").forEach {
+      val value = gradle.startParameter.projectProperties["overhead.$it"]
+      if (value != null) {
+        systemProperty("overhead.$it", value)
+      }
+    }
+
+    outputs.upToDateWhen { false }
+  }
+
+  // compares the startup and the time to main of the application without the agent, with the agent,
+  // with the agent initializing the SDK in the background, and with the agent and its class data
+  // sharing archive, on the JVM that built the archive, e.g.
+  //  ./gradlew :benchmark-overhead-jmh:startupBenchmark -Pcds.javaVersion=11
+  //  ./gradlew :benchmark-overhead-jmh:startupBenchmark -Pcds.javaVersion=17
+  register<JavaExec>("startupBenchmark") {
+    val shadowTask = project(":javaagent").tasks.named<ShadowJar>("shadowJar").get()
+    val cdsArchiveTask = project(":javaagent").tasks.named("cdsArchive")
+    dependsOn(cdsArchiveTask)
+    inputs.files(layout.files(shadowTask))
+
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("io.opentelemetry.javaagent.benchmark.overhead.StartupBenchmark")
+
+    systemProperty("startup.agentJar", shadowTask.archiveFile.get().asFile.absolutePath)
+    systemProperty(
+      "startup.cdsArchive",
+      cdsArchiveTask.get().outputs.files.singleFile.absolutePath
+    )
+    systemProperty("startup.outputDir", "$buildDir/results/startup")
+    val iterations = gradle.startParameter.projectProperties["startup.iterations"]
+    if (iterations != null) {
+      systemProperty("startup.iterations", iterations)
+    }
+
+    val cdsJavaVersion = gradle.startParameter.projectProperties["cds.javaVersion"]
+    if (cdsJavaVersion != null) {
+      javaLauncher.set(javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of(cdsJavaVersion))
+      })
+    }
+
+    outputs.upToDateWhen { false }
+  }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.overhead;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Appends one line per benchmark run, in the same columnar shape as the {@code CsvPersister} of the
+ * container based overhead tests: a timestamp followed by all the fields of every agent, with the
+ * agents sorted by name.
+ */
+class CsvResultsWriter {
+
+  private final Path resultsFile;
+
+  CsvResultsWriter(Path resultsFile) {
+    this.resultsFile = resultsFile;
+  }
+
+  void write(List<OverheadResult> results) throws IOException {
+    if (!Files.exists(resultsFile)) {
+      Files.write(resultsFile, createHeaderLine(results).getBytes(StandardCharsets.UTF_8));
+    }
+
+    StringBuilder sb = new StringBuilder().append(System.currentTimeMillis() / 1000);
+    doSorted(
+        results,
+        result -> {
+          sb.append(",").append(result.startupDurationMs);
+          sb.append(",").append(result.minHeapUsed);
+          sb.append(",").append(result.maxHeapUsed);
+          sb.append(",").append(result.getTotalAllocatedMB());
+          sb.append(",").append(result.allocationRate);
+          sb.append(",").append(result.totalGcTime);
+          sb.append(",").append(result.throughput);
+          sb.append(",").append(result.requestAvg);
+          sb.append(",").append(result.requestP99);
+        });
+    sb.append("\n");
+    Files.write(
+        resultsFile, sb.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+  }
+
+  private static String createHeaderLine(List<OverheadResult> results) {
+    StringBuilder sb = new StringBuilder("timestamp");
+    doSorted(
+        results,
+        result -> {
+          String agent = result.getAgentName();
+          sb.append(",").append(agent).append(":startupTimeMs");
+          sb.append(",").append(agent).append(":minHeapUsed");
+          sb.append(",").append(agent).append(":maxHeapUsed");
+          sb.append(",").append(agent).append(":totalAllocatedMB");
+          sb.append(",").append(agent).append(":allocationRateMBps");
+          sb.append(",").append(agent).append(":totalGCTime");
+          sb.append(",").append(agent).append(":throughput");
+          sb.append(",").append(agent).append(":requestAvg");
+          sb.append(",").append(agent).append(":requestP99");
+        });
+    sb.append("\n");
+    return sb.toString();
+  }
+
+  private static void doSorted(List<OverheadResult> results, Consumer<OverheadResult> consumer) {
+    results.stream().sorted(Comparator.comparing(OverheadResult::getAgentName)).forEach(consumer);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.overhead;
+
+import io.opentelemetry.javaagent.benchmark.servlet.app.HelloWorldApplication;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link HelloWorldApplication} in a separate JVM, optionally with the agent attached, so that
+ * the agent only instruments the application under test and never the benchmark harness.
+ */
+class ForkedApplication implements AutoCloseable {
+
+  private static final long STARTUP_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+  private final Process process;
+  private final URL url;
+  private final long startupDurationMs;
+
+  private ForkedApplication(Process process, URL url, long startupDurationMs) {
+    this.process = process;
+    this.url = url;
+    this.startupDurationMs = startupDurationMs;
+  }
+
+  /**
+   * Starts the application and blocks until it answers its first request. The startup duration is
+   * measured from launching the JVM, the same way the container based overhead tests measure it.
+   */
+  static ForkedApplication start(List<String> jvmArgs, Path jfrSettings, Path jfrFile, Path logFile)
+      throws IOException, InterruptedException {
+    List<String> recordingJvmArgs = new ArrayList<>(jvmArgs);
+    recordingJvmArgs.add(
+        "-XX:StartFlightRecording=dumponexit=true,settings="
+            + jfrSettings.toAbsolutePath()
+            + ",filename="
+            + jfrFile.toAbsolutePath());
+    return start(recordingJvmArgs, logFile);
+  }
+
+  /** Starts the application without a flight recording, which would slow its startup down. */
+  static ForkedApplication start(List<String> jvmArgs, Path logFile)
+      throws IOException, InterruptedException {
+    int port = findFreePort();
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmArgs);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(HelloWorldApplication.class.getName());
+    command.add("--server.port=" + port);
+
+    long start = System.nanoTime();
+    Process process =
+        new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(logFile.toFile())
+            .start();
+    URL url = new URL("http://localhost:" + port);
+    try {
+      waitUntilReady(process, url, start);
+    } catch (IOException | InterruptedException | RuntimeException e) {
+      process.destroyForcibly();
+      throw e;
+    }
+    long startupDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    return new ForkedApplication(process, url, startupDurationMs);
+  }
+
+  URL url() {
+    return url;
+  }
+
+  long startupDurationMs() {
+    return startupDurationMs;
+  }
+
+  /** Stops the application gracefully, so that the flight recording is written out. */
+  @Override
+  public void close() throws InterruptedException {
+    process.destroy();
+    if (!process.waitFor(1, TimeUnit.MINUTES)) {
+      process.destroyForcibly();
+    }
+  }
+
+  private static void waitUntilReady(Process process, URL url, long start)
+      throws IOException, InterruptedException {
+    while (System.nanoTime() - start < STARTUP_TIMEOUT_NANOS) {
+      if (!process.isAlive()) {
+        throw new IOException("Application exited with " + process.exitValue());
+      }
+      try {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (connection.getResponseCode() == 200) {
+          connection.getInputStream().close();
+          return;
+        }
+      } catch (IOException e) {
+        // not listening yet
+      }
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    throw new IOException("Application did not start in time");
+  }
+
+  private static int findFreePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.overhead;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for an OpenTelemetry collector that accepts OTLP/HTTP export requests on any path,
+ * drains and counts them, and answers with an empty (successful) response. Nothing is decoded, so
+ * the cost of receiving telemetry stays out of the way of the application under test.
+ */
+class InMemoryCollector implements AutoCloseable {
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+
+  InMemoryCollector() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  String endpoint() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  long requestCount() {
+    return requests.get();
+  }
+
+  long byteCount() {
+    return bytes.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    long received = 0;
+    byte[] buffer = new byte[8192];
+    try (InputStream body = exchange.getRequestBody()) {
+      int read;
+      while ((read = body.read(buffer)) != -1) {
+        received += read;
+      }
+    }
+    requests.incrementAndGet();
+    bytes.addAndGet(received);
+    exchange.getResponseHeaders().set("Content-Type", "application/x-protobuf");
+    exchange.sendResponseHeaders(200, -1);
+    exchange.close();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.overhead;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Reads the allocation, heap and garbage collection figures of a measurement window out of a
+ * recording made with the {@code overhead.jfc} settings.
+ */
+class JfrSummary {
+
+  final long totalAllocatedBytes;
+  final long totalGcTimeMs;
+  final long minHeapUsed;
+  final long maxHeapUsed;
+
+  private JfrSummary(
+      long totalAllocatedBytes, long totalGcTimeMs, long minHeapUsed, long maxHeapUsed) {
+    this.totalAllocatedBytes = totalAllocatedBytes;
+    this.totalGcTimeMs = totalGcTimeMs;
+    this.minHeapUsed = minHeapUsed;
+    this.maxHeapUsed = maxHeapUsed;
+  }
+
+  static JfrSummary read(Path jfrFile, Instant windowStart, Instant windowEnd) throws IOException {
+    // jdk.ThreadAllocationStatistics is cumulative per thread, so the allocation in the window is
+    // the difference between the first and the last sample of each thread inside of it
+    Map<Long, long[]> allocatedByThread = new HashMap<>();
+    long gcTimeNanos = 0;
+    long minHeapUsed = Long.MAX_VALUE;
+    long maxHeapUsed = 0;
+
+    try (RecordingFile recording = new RecordingFile(jfrFile)) {
+      while (recording.hasMoreEvents()) {
+        RecordedEvent event = recording.readEvent();
+        Instant time = event.getStartTime();
+        if (time.isBefore(windowStart) || time.isAfter(windowEnd)) {
+          continue;
+        }
+        switch (event.getEventType().getName()) {
+          case "jdk.ThreadAllocationStatistics":
+            RecordedThread thread = event.getThread("thread");
+            if (thread == null) {
+              break;
+            }
+            long allocated = event.getLong("allocated");
+            long[] minMax =
+                allocatedByThread.computeIfAbsent(
+                    thread.getJavaThreadId(), id -> new long[] {allocated, allocated});
+            minMax[0] = Math.min(minMax[0], allocated);
+            minMax[1] = Math.max(minMax[1], allocated);
+            break;
+          case "jdk.GarbageCollection":
+            gcTimeNanos += event.getDuration("sumOfPauses").toNanos();
+            break;
+          case "jdk.GCHeapSummary":
+            long heapUsed = event.getLong("heapUsed");
+            minHeapUsed = Math.min(minHeapUsed, heapUsed);
+            maxHeapUsed = Math.max(maxHeapUsed, heapUsed);
+            break;
+          default:
+            break;
+        }
+      }
+    }
+
+    long totalAllocated = 0;
+    for (long[] minMax : allocatedByThread.values()) {
+      totalAllocated += minMax[1] - minMax[0];
+    }
+    return new JfrSummary(
+        totalAllocated,
+        gcTimeNanos / 1_000_000,
+        minHeapUsed == Long.MAX_VALUE ? 0 : minHeapUsed,
+        maxHeapUsed);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.overhead;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load generator: a fixed number of threads each issue requests back to back over
+ * keep-alive connections and record every request latency.
+ */
+class LoadGenerator {
+
+  private final URL url;
+  private final int concurrency;
+
+  LoadGenerator(URL url, int concurrency) {
+    this.url = url;
+    this.concurrency = concurrency;
+  }
+
+  Result run(long durationNanos) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+    try {
+      long deadline = System.nanoTime() + durationNanos;
+      List<Future<long[]>> futures = new ArrayList<>(concurrency);
+      for (int i = 0; i < concurrency; i++) {
+        futures.add(executor.submit(() -> runUntil(deadline)));
+      }
+      List<long[]> latencies = new ArrayList<>(concurrency);
+      for (Future<long[]> future : futures) {
+        latencies.add(future.get());
+      }
+      return new Result(merge(latencies), durationNanos);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Load generation failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private long[] runUntil(long deadline) throws IOException {
+    byte[] buffer = new byte[8192];
+    long[] latencies = new long[1024];
+    int count = 0;
+    long now;
+    while ((now = System.nanoTime()) < deadline) {
+      execute(buffer);
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = System.nanoTime() - now;
+    }
+    return Arrays.copyOf(latencies, count);
+  }
+
+  @SuppressWarnings("StatementWithEmptyBody")
+  private void execute(byte[] buffer) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    int status = connection.getResponseCode();
+    if (status != 200) {
+      throw new IOException("Unexpected response status " + status);
+    }
+    try (InputStream inputStream = connection.getInputStream()) {
+      while (inputStream.read(buffer) != -1) {}
+    }
+  }
+
+  private static long[] merge(List<long[]> latencies) {
+    int total = 0;
+    for (long[] threadLatencies : latencies) {
+      total += threadLatencies.length;
+    }
+    long[] merged = new long[total];
+    int offset = 0;
+    for (long[] threadLatencies : latencies) {
+      System.arraycopy(threadLatencies, 0, merged, offset, threadLatencies.length);
+      offset += threadLatencies.length;
+    }
+    Arrays.sort(merged);
+    return merged;
+  }
+
+  static class Result {
+    private final long[] sortedLatencies;
+    private final long durationNanos;
+
+    private Result(long[] sortedLatencies, long durationNanos) {
+      this.sortedLatencies = sortedLatencies;
+      this.durationNanos = durationNanos;
+    }
+
+    long requestCount() {
+      return sortedLatencies.length;
+    }
+
+    double throughputPerSecond() {
+      return sortedLatencies.length / (durationNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    double averageMillis() {
+      if (sortedLatencies.length == 0) {
+        return 0;
+      }
+      double sum = 0;
+      for (long latency : sortedLatencies) {
+        sum += latency;
+      }
+      return sum / sortedLatencies.length / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    double percentileMillis(double percentile) {
+      if (sortedLatencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+      long latency = sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+      return latency / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+  }
+}
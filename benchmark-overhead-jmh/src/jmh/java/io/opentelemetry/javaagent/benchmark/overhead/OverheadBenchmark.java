@@ -0,0 +1,155 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.overhead;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Docker-free counterpart of the {@code benchmark-overhead} tests. For each agent configuration it
+ * starts the servlet benchmark application in a forked JVM, drives it with an in-JVM load generator
+ * while the agent exports to an in-memory stand-in collector, and appends the results to a CSV
+ * file.
+ *
+ * <p>Configured through system properties:
+ *
+ * <ul>
+ *   <li>{@code overhead.agentJar} - the agent to benchmark (required)
+ *   <li>{@code overhead.outputDir} - where results, recordings and logs are written
+ *   <li>{@code overhead.warmupSeconds} - load generated before measuring, defaults to 30
+ *   <li>{@code overhead.durationSeconds} - length of the measurement, defaults to 60
+ *   <li>{@code overhead.concurrency} - number of load generator threads, defaults to 5
+ * </ul>
+ */
+@SuppressWarnings("SystemOut")
+public class OverheadBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    String agentJar = System.getProperty("overhead.agentJar");
+    if (agentJar == null) {
+      throw new IllegalArgumentException("overhead.agentJar system property is required");
+    }
+    Path outputDir = Paths.get(System.getProperty("overhead.outputDir", "build/results/overhead"));
+    long warmupNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("overhead.warmupSeconds", 30));
+    long measurementNanos =
+        TimeUnit.SECONDS.toNanos(Integer.getInteger("overhead.durationSeconds", 60));
+    int concurrency = Integer.getInteger("overhead.concurrency", 5);
+
+    Files.createDirectories(outputDir);
+    Path jfrSettings = copyJfrSettings(outputDir);
+
+    List<OverheadResult> results = new ArrayList<>();
+    try (InMemoryCollector collector = new InMemoryCollector()) {
+      List<String> agentArgs =
+          Arrays.asList(
+              "-javaagent:" + agentJar,
+              "-Dotel.traces.exporter=otlp",
+              "-Dotel.metrics.exporter=none",
+              "-Dotel.exporter.otlp.protocol=http/protobuf",
+              "-Dotel.exporter.otlp.endpoint=" + collector.endpoint());
+
+      results.add(
+          runOnce(
+              "none",
+              Collections.emptyList(),
+              collector,
+              jfrSettings,
+              outputDir,
+              concurrency,
+              warmupNanos,
+              measurementNanos));
+      results.add(
+          runOnce(
+              "snapshot",
+              agentArgs,
+              collector,
+              jfrSettings,
+              outputDir,
+              concurrency,
+              warmupNanos,
+              measurementNanos));
+    }
+
+    new CsvResultsWriter(outputDir.resolve("results.csv")).write(results);
+    for (OverheadResult result : results) {
+      System.out.format(
+          "%-10s startup %6d ms  throughput %9.1f req/s  avg %7.3f ms  p99 %7.3f ms"
+              + "  allocation %8.1f MB/s  gc %5d ms  export requests %d%n",
+          result.agentName,
+          result.startupDurationMs,
+          result.throughput,
+          result.requestAvg,
+          result.requestP99,
+          result.allocationRate,
+          result.totalGcTime,
+          result.exportRequests);
+    }
+  }
+
+  private static OverheadResult runOnce(
+      String agentName,
+      List<String> jvmArgs,
+      InMemoryCollector collector,
+      Path jfrSettings,
+      Path outputDir,
+      int concurrency,
+      long warmupNanos,
+      long measurementNanos)
+      throws IOException, InterruptedException {
+    System.out.println("Running " + agentName + "...");
+    Path jfrFile = outputDir.resolve(agentName + ".jfr");
+    Path logFile = outputDir.resolve(agentName + ".log");
+    Files.deleteIfExists(jfrFile);
+
+    long exportRequestsBefore = collector.requestCount();
+    ForkedApplication app = ForkedApplication.start(jvmArgs, jfrSettings, jfrFile, logFile);
+    LoadGenerator.Result load;
+    Instant windowStart;
+    Instant windowEnd;
+    try {
+      LoadGenerator loadGenerator = new LoadGenerator(app.url(), concurrency);
+      if (warmupNanos > 0) {
+        loadGenerator.run(warmupNanos);
+      }
+      windowStart = Instant.now();
+      load = loadGenerator.run(measurementNanos);
+      windowEnd = Instant.now();
+    } finally {
+      app.close();
+    }
+
+    return new OverheadResult(
+        agentName,
+        app.startupDurationMs(),
+        load,
+        measurementNanos,
+        JfrSummary.read(jfrFile, windowStart, windowEnd),
+        collector.requestCount() - exportRequestsBefore);
+  }
+
+  private static Path copyJfrSettings(Path outputDir) throws IOException {
+    Path jfrSettings = outputDir.resolve("overhead.jfc");
+    try (InputStream in = OverheadBenchmark.class.getResourceAsStream("/overhead.jfc")) {
+      if (in == null) {
+        throw new IllegalStateException("overhead.jfc not found on the classpath");
+      }
+      Files.copy(in, jfrSettings, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return jfrSettings;
+  }
+
+  private OverheadBenchmark() {}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.overhead;
+
+import java.util.concurrent.TimeUnit;
+
+/** Measurements of a single application run with one agent configuration. */
+class OverheadResult {
+
+  final String agentName;
+  final long startupDurationMs;
+  final double throughput;
+  final double requestAvg;
+  final double requestP99;
+  final long totalAllocated;
+  final double allocationRate;
+  final long totalGcTime;
+  final long minHeapUsed;
+  final long maxHeapUsed;
+  final long exportRequests;
+
+  OverheadResult(
+      String agentName,
+      long startupDurationMs,
+      LoadGenerator.Result load,
+      long measurementNanos,
+      JfrSummary jfrSummary,
+      long exportRequests) {
+    this.agentName = agentName;
+    this.startupDurationMs = startupDurationMs;
+    this.throughput = load.throughputPerSecond();
+    this.requestAvg = load.averageMillis();
+    this.requestP99 = load.percentileMillis(99);
+    this.totalAllocated = jfrSummary.totalAllocatedBytes;
+    this.allocationRate =
+        jfrSummary.totalAllocatedBytes
+            / (measurementNanos / (double) TimeUnit.SECONDS.toNanos(1))
+            / (1024.0 * 1024.0);
+    this.totalGcTime = jfrSummary.totalGcTimeMs;
+    this.minHeapUsed = jfrSummary.minHeapUsed;
+    this.maxHeapUsed = jfrSummary.maxHeapUsed;
+    this.exportRequests = exportRequests;
+  }
+
+  double getTotalAllocatedMB() {
+    return totalAllocated / (1024.0 * 1024.0);
+  }
+
+  String getAgentName() {
+    return agentName;
+  }
+}
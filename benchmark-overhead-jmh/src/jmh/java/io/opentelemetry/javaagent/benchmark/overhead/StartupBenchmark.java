@@ -0,0 +1,177 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.overhead;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the servlet benchmark application takes to answer its first request in a forked
+ * JVM, and how long a forked JVM takes to reach the main method of an empty application (time to
+ * main, which is mostly the premain of the agent), without the agent, with the agent, with the
+ * agent initializing the SDK in the background, and with the agent and its class data sharing
+ * archive, and appends the median of each configuration to a CSV file. The forked JVMs use the JVM
+ * that runs the benchmark, which has to be the JVM that built the archive.
+ *
+ * <p>Configured through system properties:
+ *
+ * <ul>
+ *   <li>{@code startup.agentJar} - the agent to benchmark (required)
+ *   <li>{@code startup.cdsArchive} - the class data sharing archive of the agent, the configuration
+ *       with the archive is skipped without it
+ *   <li>{@code startup.outputDir} - where results and logs are written
+ *   <li>{@code startup.iterations} - number of times the application is started with each
+ *       configuration, defaults to 10
+ * </ul>
+ */
+@SuppressWarnings("SystemOut")
+public class StartupBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    String agentJar = System.getProperty("startup.agentJar");
+    if (agentJar == null) {
+      throw new IllegalArgumentException("startup.agentJar system property is required");
+    }
+    String cdsArchive = System.getProperty("startup.cdsArchive");
+    Path outputDir = Paths.get(System.getProperty("startup.outputDir", "build/results/startup"));
+    int iterations = Integer.getInteger("startup.iterations", 10);
+
+    Files.createDirectories(outputDir);
+
+    // the default span exporter, whose initialization is part of the startup
+    List<String> agentArgs =
+        Arrays.asList("-javaagent:" + agentJar, "-Dotel.metrics.exporter=none");
+    Map<String, List<String>> configurations = new LinkedHashMap<>();
+    configurations.put("none", Collections.emptyList());
+    configurations.put("agent", agentArgs);
+    List<String> asyncSdkArgs = new ArrayList<>(agentArgs);
+    asyncSdkArgs.add("-Dotel.javaagent.experimental.async-sdk-initialization.enabled=true");
+    configurations.put("agent-async-sdk", asyncSdkArgs);
+    if (cdsArchive != null && Files.exists(Paths.get(cdsArchive))) {
+      List<String> cdsArgs = new ArrayList<>();
+      // the agent jar has to be on the bootstrap class path that the archive was dumped with
+      cdsArgs.add("-XX:SharedArchiveFile=" + cdsArchive);
+      cdsArgs.add("-Xbootclasspath/a:" + agentJar);
+      cdsArgs.addAll(agentArgs);
+      configurations.put("agent-cds", cdsArgs);
+    } else {
+      System.out.println("No class data sharing archive, skipping agent-cds");
+    }
+
+    Map<String, Long> medians = new LinkedHashMap<>();
+    for (Map.Entry<String, List<String>> configuration : configurations.entrySet()) {
+      String name = configuration.getKey();
+      List<String> jvmArgs = configuration.getValue();
+      // the first starts warm up the file system caches
+      startOnce(name, jvmArgs, outputDir);
+      timeToMainOnce(name, jvmArgs, outputDir);
+      List<Long> startupDurations = new ArrayList<>();
+      List<Long> timesToMain = new ArrayList<>();
+      for (int i = 0; i < iterations; i++) {
+        startupDurations.add(startOnce(name, jvmArgs, outputDir));
+        timesToMain.add(timeToMainOnce(name, jvmArgs, outputDir));
+      }
+      medians.put(name + ":startupTimeMs", median(name + " startup", startupDurations));
+      medians.put(name + ":timeToMainMs", median(name + " time to main", timesToMain));
+    }
+
+    writeCsv(outputDir.resolve("startup.csv"), medians);
+  }
+
+  private static long median(String description, List<Long> durations) {
+    Collections.sort(durations);
+    long median = durations.get(durations.size() / 2);
+    System.out.format(
+        "%-30s median %6d ms  min %6d ms  max %6d ms%n",
+        description, median, durations.get(0), durations.get(durations.size() - 1));
+    return median;
+  }
+
+  private static long startOnce(String name, List<String> jvmArgs, Path outputDir)
+      throws IOException, InterruptedException {
+    ForkedApplication app = ForkedApplication.start(jvmArgs, outputDir.resolve(name + ".log"));
+    app.close();
+    return app.startupDurationMs();
+  }
+
+  // the forked JVM prints the time when its main method was called
+  private static long timeToMainOnce(String name, List<String> jvmArgs, Path outputDir)
+      throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmArgs);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(TimeToMain.class.getName());
+
+    Path logFile = outputDir.resolve(name + "-time-to-main.log");
+    long launchTimeMillis = System.currentTimeMillis();
+    Process process =
+        new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(logFile.toFile())
+            .start();
+    if (!process.waitFor(2, TimeUnit.MINUTES)) {
+      process.destroyForcibly();
+      throw new IllegalStateException("The application didn't exit, see " + logFile);
+    }
+    for (String line : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+      if (line.startsWith(TimeToMain.MARKER)) {
+        return Long.parseLong(line.substring(TimeToMain.MARKER.length())) - launchTimeMillis;
+      }
+    }
+    throw new IllegalStateException("The application didn't reach its main method, see " + logFile);
+  }
+
+  // one line per benchmark run, like the results of the overhead benchmark
+  private static void writeCsv(Path resultsFile, Map<String, Long> medians) throws IOException {
+    if (!Files.exists(resultsFile)) {
+      StringBuilder header = new StringBuilder("timestamp,javaVersion");
+      for (String name : medians.keySet()) {
+        header.append(",").append(name);
+      }
+      header.append("\n");
+      Files.write(resultsFile, header.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    StringBuilder line =
+        new StringBuilder()
+            .append(System.currentTimeMillis() / 1000)
+            .append(",")
+            .append(System.getProperty("java.version"));
+    for (long median : medians.values()) {
+      line.append(",").append(median);
+    }
+    line.append("\n");
+    Files.write(
+        resultsFile, line.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+  }
+
+  /** An empty application, which is started with the agent to measure its time to main. */
+  public static class TimeToMain {
+
+    static final String MARKER = "main called at ";
+
+    public static void main(String[] args) {
+      System.out.println(MARKER + System.currentTimeMillis());
+    }
+
+    private TimeToMain() {}
+  }
+
+  private StartupBenchmark() {}
+}
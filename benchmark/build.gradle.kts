@@ -17,9 +17,17 @@ dependencies {
   jmh("net.bytebuddy:byte-buddy-agent")
 
   jmh(project(":instrumentation-api"))
+  jmh(project(":javaagent-bootstrap"))
   jmh(project(":javaagent-instrumentation-api"))
   jmh(project(":javaagent-tooling"))
   jmh(project(":javaagent-extension-api"))
+  jmh(project(":instrumentation:oshi:library"))
+  jmh(project(":instrumentation:kafka-clients:kafka-clients-common:library"))
+
+  jmh("io.opentelemetry:opentelemetry-sdk")
+  jmh("io.opentelemetry:opentelemetry-sdk-metrics")
+  jmh("com.github.oshi:oshi-core:5.3.1")
+  jmh("org.apache.kafka:kafka-clients:0.11.0.0")
 
   jmh("com.github.ben-manes.caffeine:caffeine:$caffeine2Version")
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.javaagent.bootstrap.AgentClassLoader;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Loads all the classes of the agent jar in a new agent class loader, like the agent does while the
+ * application starts.
+ */
+@Fork(5)
+@Warmup(iterations = 0)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.SingleShotTime)
+@State(Scope.Benchmark)
+public class AgentClassLoaderBenchmark {
+
+  private static final File AGENT_JAR =
+      new File(
+          "/path/to/opentelemetry-java-instrumentation"
+              + "/javaagent/build/libs/opentelemetry-javaagent.jar");
+  private static final String PREFIX = "inst/";
+  private static final String SUFFIX = ".classdata";
+
+  private final List<String> classNames = new ArrayList<>();
+  private URL agentJarUrl;
+
+  @Setup
+  public void setUp() throws IOException {
+    agentJarUrl = AGENT_JAR.toURI().toURL();
+    try (JarFile jarFile = new JarFile(AGENT_JAR)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (name.startsWith(PREFIX) && name.endsWith(SUFFIX) && !name.contains("META-INF/")) {
+          classNames.add(
+              name.substring(PREFIX.length(), name.length() - SUFFIX.length()).replace('/', '.'));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void loadAgentClasses(Blackhole blackhole) throws IOException {
+    // stands in for the bootstrap class loader, which the agent jar is appended to
+    try (URLClassLoader bootstrap = new URLClassLoader(new URL[] {agentJarUrl}, null)) {
+      AgentClassLoader agentClassLoader = new AgentClassLoader(AGENT_JAR, "inst", bootstrap);
+      for (String className : classNames) {
+        try {
+          blackhole.consume(agentClassLoader.loadClass(className));
+        } catch (ClassNotFoundException | LinkageError e) {
+          // optional dependencies of the agent libraries
+          blackhole.consume(e);
+        }
+      }
+    }
+  }
+
+  @Fork(jvmArgsAppend = "-Dotel.javaagent.experimental.indexed-jar.enabled=true")
+  public static class IndexedJar extends AgentClassLoaderBenchmark {}
+}
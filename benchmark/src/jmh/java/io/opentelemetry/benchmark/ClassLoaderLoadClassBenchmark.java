@@ -0,0 +1,68 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loads already loaded classes through a {@link URLClassLoader}, like frameworks that look classes
+ * up reflectively do. With the agent, the {@code internal-class-loader} instrumentation checks each
+ * name against the bootstrap package prefixes.
+ */
+@Fork(3)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class ClassLoaderLoadClassBenchmark {
+
+  @Param({
+    "java.lang.String",
+    "io.opentelemetry.benchmark.classes.A",
+    "io.opentelemetry.api.trace.Span"
+  })
+  public String className;
+
+  private URLClassLoader classLoader;
+
+  @Setup
+  public void setUp() {
+    classLoader =
+        new URLClassLoader(new URL[0], ClassLoaderLoadClassBenchmark.class.getClassLoader());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    classLoader.close();
+  }
+
+  @Benchmark
+  public Class<?> loadClass() throws ClassNotFoundException {
+    return classLoader.loadClass(className);
+  }
+
+  @Fork(
+      jvmArgsAppend =
+          "-javaagent:/path/to/opentelemetry-java-instrumentation"
+              + "/javaagent/build/libs/opentelemetry-javaagent.jar")
+  public static class WithAgent extends ClassLoaderLoadClassBenchmark {}
+}
@@ -5,15 +5,35 @@
 
 package io.opentelemetry.benchmark;
 
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
 import io.opentelemetry.benchmark.classes.TracedClass;
 import io.opentelemetry.benchmark.classes.UntracedClass;
+import io.opentelemetry.javaagent.extension.matcher.AgentElementMatchers;
+import io.opentelemetry.javaagent.tooling.ParallelDiscoveryStrategy;
+import io.opentelemetry.javaagent.tooling.muzzle.AgentCachingPoolStrategy;
 import java.lang.instrument.Instrumentation;
 import java.lang.instrument.UnmodifiableClassException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.agent.ByteBuddyAgent;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
 
 public class ClassRetransformingBenchmark {
 
@@ -22,6 +42,57 @@ public class ClassRetransformingBenchmark {
     private final Instrumentation inst = ByteBuddyAgent.install();
   }
 
+  /**
+   * The classes of an application to which the agent is attached late, matched against as many type
+   * matchers as the agent has type instrumentations.
+   */
+  @State(Scope.Benchmark)
+  public static class LoadedClassesState {
+    private static final int LOADED_CLASSES = 10_000;
+    private static final int TYPE_MATCHERS = 500;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private final Instrumentation inst = ByteBuddyAgent.install();
+    private final List<AgentBuilder.RawMatcher> matchers = new ArrayList<>();
+    // keeps the generated classes loaded
+    private final List<Class<?>> loadedClasses = new ArrayList<>();
+    private ParallelDiscoveryStrategy discoveryStrategy;
+
+    @Setup(Level.Trial)
+    public void loadClasses() throws ClassNotFoundException {
+      Map<String, byte[]> classFiles = new HashMap<>();
+      for (int i = 0; i < LOADED_CLASSES; i++) {
+        String name = "io.opentelemetry.benchmark.generated.Class" + i;
+        classFiles.put(name, new ByteBuddy().subclass(Object.class).name(name).make().getBytes());
+      }
+      ClassLoader classLoader =
+          new ByteArrayClassLoader(
+              null, classFiles, ByteArrayClassLoader.PersistenceHandler.MANIFEST);
+      for (String name : classFiles.keySet()) {
+        loadedClasses.add(Class.forName(name, false, classLoader));
+      }
+      for (int i = 0; i < TYPE_MATCHERS; i++) {
+        matchers.add(
+            new AgentBuilder.RawMatcher.ForElementMatchers(
+                AgentElementMatchers.implementsInterface(named("org.example.Interface" + i))));
+      }
+    }
+
+    // a new type pool each time, like when the agent is installed
+    @Setup(Level.Invocation)
+    public void setUp() {
+      discoveryStrategy =
+          new ParallelDiscoveryStrategy(
+              AgentBuilder.RedefinitionStrategy.DiscoveryStrategy.SinglePass.INSTANCE,
+              matchers,
+              new AgentCachingPoolStrategy(),
+              AgentBuilder.LocationStrategy.ForClassLoader.STRONG,
+              parallelism);
+    }
+  }
+
   @Benchmark
   public void testUntracedRetransform(BenchmarkState state) throws UnmodifiableClassException {
     state.inst.retransformClasses(UntracedClass.class);
@@ -32,6 +103,15 @@ public class ClassRetransformingBenchmark {
     state.inst.retransformClasses(TracedClass.class);
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void testMatchLoadedClasses(LoadedClassesState state, Blackhole blackhole) {
+    for (Iterable<Class<?>> classes : state.discoveryStrategy.resolve(state.inst)) {
+      blackhole.consume(classes);
+    }
+  }
+
   @Fork(
       jvmArgsAppend =
           "-javaagent:/path/to/opentelemetry-java-instrumentation"
@@ -0,0 +1,74 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.ExceptionRecorder;
+import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import io.opentelemetry.instrumentation.api.instrumenter.InstrumenterBuilder;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulates a burst of failures, like during an outage of a downstream service: every request
+ * fails, with the same exception thrown from the same place.
+ */
+@Fork(3)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ExceptionRecordingBenchmark {
+
+  @Param({"default", "rateLimited"})
+  public String recorder;
+
+  private Instrumenter<Void, Void> instrumenter;
+
+  @Setup
+  public void setUp() {
+    // the spans are recorded, but not exported
+    OpenTelemetry openTelemetry =
+        OpenTelemetrySdk.builder().setTracerProvider(SdkTracerProvider.builder().build()).build();
+    InstrumenterBuilder<Void, Void> builder =
+        Instrumenter.builder(openTelemetry, "benchmark", request -> "failing");
+    if (recorder.equals("rateLimited")) {
+      builder.setExceptionRecorder(ExceptionRecorder.rateLimited(10, 64));
+    }
+    instrumenter = builder.newInstrumenter();
+  }
+
+  @Benchmark
+  public Context failingRequest() {
+    Context context = instrumenter.start(Context.root(), null);
+    instrumenter.end(context, null, null, callDownstream());
+    return context;
+  }
+
+  private static Throwable callDownstream() {
+    try {
+      throw new IllegalStateException("Connection refused");
+    } catch (IllegalStateException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.javaagent.extension.matcher.AgentElementMatchers;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Simulates a new web application class loader over a fat jar's libraries being checked by the
+ * {@code hasClassesNamed()} matchers of all the instrumentation modules.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class HasClassesNamedBenchmark {
+
+  private static final int MODULES = 150;
+  private static final int CLASSES_PER_JAR = 2_000;
+
+  @Param({"10", "80"})
+  public int jars;
+
+  private File tempDir;
+  private URL[] urls;
+  private final List<ElementMatcher<ClassLoader>> matchers = new ArrayList<>();
+  private final List<String[]> markerResources = new ArrayList<>();
+
+  @Setup
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("has-classes-named").toFile();
+    urls = new URL[jars];
+    for (int jar = 0; jar < jars; jar++) {
+      File file = new File(tempDir, "library" + jar + ".jar");
+      writeJar(file, jar);
+      urls[jar] = file.toURI().toURL();
+    }
+
+    // most modules look for classes of libraries that the application doesn't use, and many
+    // modules look for the same classes (e.g. the different versions of a library's
+    // instrumentation, or the common servlet and http client classes)
+    for (int module = 0; module < MODULES; module++) {
+      String[] classNames = {markerClassName(module % 50), markerClassName((module * 7) % 50)};
+      String[] resources = new String[classNames.length];
+      for (int i = 0; i < classNames.length; i++) {
+        resources[i] = classNames[i].replace('.', '/') + ".class";
+      }
+      markerResources.add(resources);
+      matchers.add(AgentElementMatchers.hasClassesNamed(classNames));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    for (File file : tempDir.listFiles()) {
+      file.delete();
+    }
+    tempDir.delete();
+  }
+
+  @Benchmark
+  public void hasClassesNamed(Blackhole blackhole) throws IOException {
+    try (URLClassLoader classLoader = new URLClassLoader(urls, null)) {
+      for (ElementMatcher<ClassLoader> matcher : matchers) {
+        blackhole.consume(matcher.matches(classLoader));
+      }
+    }
+  }
+
+  // what each matcher used to do for a class loader it hadn't seen yet
+  @Benchmark
+  public void getResource(Blackhole blackhole) throws IOException {
+    try (URLClassLoader classLoader = new URLClassLoader(urls, null)) {
+      for (String[] resources : markerResources) {
+        boolean found = true;
+        for (String resource : resources) {
+          if (classLoader.getResource(resource) == null) {
+            found = false;
+            break;
+          }
+        }
+        blackhole.consume(found);
+      }
+    }
+  }
+
+  // one in ten marker classes exists
+  private String markerClassName(int marker) {
+    return marker % 10 == 0 ? className(marker % jars, 0) : "org.missing" + marker + ".Client";
+  }
+
+  private static String className(int jar, int index) {
+    return "com.example.library" + jar + ".internal.Class" + index;
+  }
+
+  private static void writeJar(File file, int jar) throws IOException {
+    try (OutputStream out = Files.newOutputStream(file.toPath());
+        JarOutputStream jarOut = new JarOutputStream(out)) {
+      for (int i = 0; i < CLASSES_PER_JAR; i++) {
+        jarOut.putNextEntry(new JarEntry(className(jar, i).replace('.', '/') + ".class"));
+        jarOut.closeEntry();
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.benchmark.classes.A;
+import io.opentelemetry.benchmark.classes.B;
+import io.opentelemetry.benchmark.classes.C;
+import io.opentelemetry.benchmark.classes.D;
+import io.opentelemetry.benchmark.classes.E;
+import io.opentelemetry.benchmark.classes.F;
+import io.opentelemetry.javaagent.tooling.HelperInjector;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ClassInjector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Injects the same helper classes into as many classloaders as an application server with many
+ * webapps has, like the helpers of an instrumentation module are injected into each webapp.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.SingleShotTime)
+@State(Scope.Benchmark)
+public class HelperInjectionBenchmark {
+
+  private static final int CLASS_LOADERS = 500;
+
+  // in dependency order, each class extends the previous ones
+  private static final List<String> HELPER_CLASS_NAMES =
+      Arrays.asList(
+          A.class.getName(),
+          B.class.getName(),
+          C.class.getName(),
+          D.class.getName(),
+          E.class.getName(),
+          F.class.getName());
+
+  private final URLClassLoader[] classLoaders = new URLClassLoader[CLASS_LOADERS];
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    for (int i = 0; i < CLASS_LOADERS; i++) {
+      classLoaders[i] = new URLClassLoader(new URL[0], null);
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDown() throws IOException {
+    for (URLClassLoader classLoader : classLoaders) {
+      classLoader.close();
+    }
+  }
+
+  @Benchmark
+  public void inject() {
+    HelperInjector injector =
+        new HelperInjector(
+            "benchmark",
+            HELPER_CLASS_NAMES,
+            Collections.emptyList(),
+            HelperInjectionBenchmark.class.getClassLoader(),
+            null);
+    for (ClassLoader classLoader : classLoaders) {
+      injector.transform(null, null, classLoader, null);
+    }
+  }
+
+  // the previous injection, reading the helper bytes again for each classloader
+  @Benchmark
+  public void injectReadingBytesPerClassLoader() throws IOException {
+    ClassFileLocator locator =
+        ClassFileLocator.ForClassLoader.of(HelperInjectionBenchmark.class.getClassLoader());
+    for (ClassLoader classLoader : classLoaders) {
+      Map<String, byte[]> classnameToBytes = new LinkedHashMap<>();
+      for (String helperClassName : HELPER_CLASS_NAMES) {
+        classnameToBytes.put(helperClassName, locator.locate(helperClassName).resolve());
+      }
+      new ClassInjector.UsingReflection(classLoader).injectRaw(classnameToBytes);
+    }
+  }
+}
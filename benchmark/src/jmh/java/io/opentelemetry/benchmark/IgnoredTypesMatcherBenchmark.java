@@ -7,8 +7,8 @@ package io.opentelemetry.benchmark;
 
 import io.opentelemetry.instrumentation.api.config.Config;
 import io.opentelemetry.javaagent.tooling.ignore.AdditionalLibraryIgnoredTypesConfigurer;
+import io.opentelemetry.javaagent.tooling.ignore.GlobalIgnoredTypesConfigurer;
 import io.opentelemetry.javaagent.tooling.ignore.IgnoredTypesBuilderImpl;
-import io.opentelemetry.javaagent.tooling.ignore.IgnoredTypesMatcher;
 import java.util.concurrent.TimeUnit;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
@@ -19,6 +19,7 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
 
 @Fork(1)
 @Warmup(iterations = 3, time = 1)
@@ -32,12 +33,49 @@ public class IgnoredTypesMatcherBenchmark {
   private static final TypeDescription testAppType =
       new TypeDescription.Latent("com.example.myapp.Main", 0, null);
 
+  // class names generated by proxying frameworks at application startup
+  private static final TypeDescription[] proxyTypes =
+      types(
+          "com.example.myapp.service.OrderService$$EnhancerBySpringCGLIB$$5f2e1a3b",
+          "com.example.myapp.service.OrderService$$FastClassBySpringCGLIB$$8c41d07e",
+          "com.example.myapp.repository.OrderRepository$$SpringCGLIB$$0",
+          "com.example.myapp.domain.Order$HibernateProxy$RJv0dC8u",
+          "com.example.myapp.domain.Customer$$_javassist_17",
+          "com.example.myapp.web.OrderController$$Lambda$1234/0x0000000800c3a040",
+          "com.example.myapp.config.AppConfig$$anon$2",
+          "com.example.myapp.domain.Order$JaxbAccessorF_id",
+          "com.google.inject.internal.cglib.proxy.$Enhancer$$EnhancerByGuice$$a1b2c3",
+          "org.eclipse.sisu.wire.ProviderModule$__sisu4");
+
+  // class names of regular application and library classes
+  private static final TypeDescription[] regularTypes =
+      types(
+          "com.example.myapp.service.OrderService",
+          "com.example.myapp.service.OrderService$OrderValidator",
+          "com.example.myapp.repository.jdbc.JdbcOrderRepository",
+          "com.example.myapp.web.dto.OrderResponse$Builder",
+          "org.apache.catalina.core.ApplicationFilterChain",
+          "org.apache.kafka.clients.producer.internals.RecordAccumulator",
+          "io.netty.channel.nio.NioEventLoop",
+          "com.fasterxml.jackson.databind.deser.BeanDeserializer",
+          "org.hibernate.internal.SessionImpl",
+          "reactor.core.publisher.FluxFlatMap$FlatMapMain");
+
   private static final ElementMatcher<TypeDescription> ignoredTypesMatcher;
 
   static {
     IgnoredTypesBuilderImpl builder = new IgnoredTypesBuilderImpl();
+    new GlobalIgnoredTypesConfigurer().configure(Config.get(), builder);
     new AdditionalLibraryIgnoredTypesConfigurer().configure(Config.get(), builder);
-    ignoredTypesMatcher = new IgnoredTypesMatcher(builder.buildIgnoredTypesTrie());
+    ignoredTypesMatcher = builder.buildIgnoredTypesMatcher();
+  }
+
+  private static TypeDescription[] types(String... classNames) {
+    TypeDescription[] types = new TypeDescription[classNames.length];
+    for (int i = 0; i < classNames.length; i++) {
+      types[i] = new TypeDescription.Latent(classNames[i], 0, null);
+    }
+    return types;
   }
 
   @Benchmark
@@ -49,4 +87,18 @@ public class IgnoredTypesMatcherBenchmark {
   public boolean appType() {
     return ignoredTypesMatcher.matches(testAppType);
   }
+
+  @Benchmark
+  public void proxyTypes(Blackhole blackhole) {
+    for (TypeDescription type : proxyTypes) {
+      blackhole.consume(ignoredTypesMatcher.matches(type));
+    }
+  }
+
+  @Benchmark
+  public void regularTypes(Blackhole blackhole) {
+    for (TypeDescription type : regularTypes) {
+      blackhole.consume(ignoredTypesMatcher.matches(type));
+    }
+  }
 }
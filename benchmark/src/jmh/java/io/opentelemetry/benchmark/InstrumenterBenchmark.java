@@ -14,6 +14,7 @@ import io.opentelemetry.instrumentation.api.instrumenter.http.HttpSpanNameExtrac
 import io.opentelemetry.instrumentation.api.instrumenter.net.InetSocketAddressNetServerAttributesExtractor;
 import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 import java.net.InetSocketAddress;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -45,6 +46,36 @@ public class InstrumenterBenchmark {
           .addAttributesExtractor(new ConstantNetAttributesExtractor())
           .newInstrumenter();
 
+  // explicit start and end times, like the messaging instrumentations set from their timers
+  private static final Instant START_TIME = Instant.now();
+  private static final long START_EPOCH_NANOS =
+      TimeUnit.SECONDS.toNanos(START_TIME.getEpochSecond()) + START_TIME.getNano();
+  private static final long START_NANO_TIME = System.nanoTime();
+
+  private static final Instrumenter<Void, Void> INSTANT_TIME_INSTRUMENTER =
+      Instrumenter.<Void, Void>builder(
+              OpenTelemetry.noop(),
+              "benchmark",
+              HttpSpanNameExtractor.create(ConstantHttpAttributesExtractor.INSTANCE))
+          .addAttributesExtractor(ConstantHttpAttributesExtractor.INSTANCE)
+          .addAttributesExtractor(new ConstantNetAttributesExtractor())
+          .setTimeExtractors(
+              unused -> START_TIME,
+              (unused, unused2, error) -> START_TIME.plusNanos(System.nanoTime() - START_NANO_TIME))
+          .newInstrumenter();
+
+  private static final Instrumenter<Void, Void> NANOS_TIME_INSTRUMENTER =
+      Instrumenter.<Void, Void>builder(
+              OpenTelemetry.noop(),
+              "benchmark",
+              HttpSpanNameExtractor.create(ConstantHttpAttributesExtractor.INSTANCE))
+          .addAttributesExtractor(ConstantHttpAttributesExtractor.INSTANCE)
+          .addAttributesExtractor(new ConstantNetAttributesExtractor())
+          .setTimeNanosExtractors(
+              unused -> START_EPOCH_NANOS,
+              (unused, unused2, error) -> START_EPOCH_NANOS + System.nanoTime() - START_NANO_TIME)
+          .newInstrumenter();
+
   @Benchmark
   public Context start() {
     return INSTRUMENTER.start(Context.root(), null);
@@ -57,6 +88,20 @@ public class InstrumenterBenchmark {
     return context;
   }
 
+  @Benchmark
+  public Context startEndWithInstantTimes() {
+    Context context = INSTANT_TIME_INSTRUMENTER.start(Context.root(), null);
+    INSTANT_TIME_INSTRUMENTER.end(context, null, null, null);
+    return context;
+  }
+
+  @Benchmark
+  public Context startEndWithNanosTimes() {
+    Context context = NANOS_TIME_INSTRUMENTER.start(Context.root(), null);
+    NANOS_TIME_INSTRUMENTER.end(context, null, null, null);
+    return context;
+  }
+
   static class ConstantHttpAttributesExtractor extends HttpClientAttributesExtractor<Void, Void> {
     static final HttpClientAttributesExtractor<Void, Void> INSTANCE =
         new ConstantHttpAttributesExtractor();
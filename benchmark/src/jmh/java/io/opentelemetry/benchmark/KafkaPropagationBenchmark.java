@@ -0,0 +1,81 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.instrumentation.kafka.internal.KafkaBinaryTraceContextPropagator;
+import io.opentelemetry.instrumentation.kafka.internal.KafkaHeadersGetter;
+import io.opentelemetry.instrumentation.kafka.internal.KafkaHeadersSetter;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Injects the context of a span into the headers of a producer record and extracts it back. */
+@Fork(3)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class KafkaPropagationBenchmark {
+
+  private static final KafkaHeadersSetter SETTER = new KafkaHeadersSetter();
+  private static final KafkaHeadersGetter GETTER = new KafkaHeadersGetter();
+
+  private static final Context CONTEXT =
+      Context.root()
+          .with(
+              Span.wrap(
+                  SpanContext.create(
+                      "ff01020304050600ff0a0b0c0d0e0f00",
+                      "090a0b0c0d0e0f00",
+                      TraceFlags.getSampled(),
+                      TraceState.getDefault())));
+
+  @Param({"text", "binary"})
+  public String format;
+
+  private TextMapPropagator propagator;
+  private Headers injectedHeaders;
+
+  @Setup
+  public void setUp() {
+    propagator = W3CTraceContextPropagator.getInstance();
+    if (format.equals("binary")) {
+      propagator = KafkaBinaryTraceContextPropagator.create(propagator);
+    }
+    injectedHeaders = inject();
+  }
+
+  @Benchmark
+  public Headers inject() {
+    ProducerRecord<String, String> record = new ProducerRecord<>("topic", "value");
+    propagator.inject(CONTEXT, record.headers(), SETTER);
+    return record.headers();
+  }
+
+  @Benchmark
+  public Context extract() {
+    return propagator.extract(Context.root(), injectedHeaders, GETTER);
+  }
+}
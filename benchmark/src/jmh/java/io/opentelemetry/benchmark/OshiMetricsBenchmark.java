@@ -0,0 +1,64 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.instrumentation.oshi.ProcessMetrics;
+import io.opentelemetry.instrumentation.oshi.SystemMetrics;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.testing.InMemoryMetricReader;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full collection cycle of all OSHI system and process metrics. A snapshot TTL of 0
+ * re-reads the hardware values in every callback; for any other TTL every measured collection
+ * starts with an expired snapshot, so it reads them exactly once.
+ */
+@Fork(3)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class OshiMetricsBenchmark {
+
+  @Param({"0", "20"})
+  public long snapshotTtlMillis;
+
+  private InMemoryMetricReader metricReader;
+
+  @Setup
+  public void setUp() {
+    metricReader = new InMemoryMetricReader();
+    SdkMeterProvider.builder().registerMetricReader(metricReader).buildAndRegisterGlobal();
+    SystemMetrics.registerObservers(Duration.ofMillis(snapshotTtlMillis));
+    ProcessMetrics.registerObservers(Duration.ofMillis(snapshotTtlMillis));
+  }
+
+  @Setup(Level.Invocation)
+  public void expireSnapshot() throws InterruptedException {
+    Thread.sleep(snapshotTtlMillis);
+  }
+
+  @Benchmark
+  public Collection<MetricData> collectionCycle() {
+    return metricReader.collectAllMetrics();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.javaagent.tooling.sampler.PerRouteRateLimitingSampler;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@Fork(3)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(4)
+public class PerRouteRateLimitingSamplerBenchmark {
+
+  private static final String TRACE_ID = IdGenerator.random().generateTraceId();
+
+  @State(Scope.Benchmark)
+  public static class SamplerState {
+    @Param({"16", "64", "256"})
+    public int routes;
+
+    Sampler sampler;
+    Attributes[] attributes;
+
+    @Setup
+    public void setUp() {
+      sampler = new PerRouteRateLimitingSampler(100, 1024);
+      attributes = new Attributes[routes];
+      for (int i = 0; i < routes; i++) {
+        attributes[i] = Attributes.of(SemanticAttributes.HTTP_ROUTE, "/route/" + i + "/{id}");
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    int next;
+  }
+
+  @Benchmark
+  public SamplingResult shouldSample(SamplerState samplerState, ThreadState threadState) {
+    Attributes[] attributes = samplerState.attributes;
+    // threads go through the routes from different places
+    int index = threadState.next++ & Integer.MAX_VALUE;
+    return samplerState.sampler.shouldSample(
+        Context.root(),
+        TRACE_ID,
+        "HTTP GET",
+        SpanKind.SERVER,
+        attributes[(index + System.identityHashCode(threadState)) % attributes.length],
+        Collections.emptyList());
+  }
+}
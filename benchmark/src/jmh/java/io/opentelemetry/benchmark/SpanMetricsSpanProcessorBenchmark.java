@@ -0,0 +1,92 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.javaagent.tooling.SpanMetricsSpanProcessor;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Run with {@code -prof gc} to see the allocations of {@link SpanProcessor#onEnd}. */
+@Fork(3)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class SpanMetricsSpanProcessorBenchmark {
+
+  private SpanMetricsSpanProcessor processor;
+  private ReadableSpan serverSpan;
+
+  @Setup
+  public void setUp() {
+    processor =
+        new SpanMetricsSpanProcessor(SdkMeterProvider.builder().build().get("benchmark"), 500);
+    SpanCapturingProcessor capturingProcessor = new SpanCapturingProcessor();
+    SdkTracerProvider.builder()
+        .addSpanProcessor(capturingProcessor)
+        .build()
+        .get("benchmark")
+        .spanBuilder("HTTP GET")
+        .setSpanKind(SpanKind.SERVER)
+        .setAttribute(SemanticAttributes.HTTP_METHOD, "GET")
+        .setAttribute(SemanticAttributes.HTTP_ROUTE, "/orders/{id}")
+        .setAttribute(SemanticAttributes.HTTP_STATUS_CODE, 200L)
+        .startSpan()
+        .end();
+    serverSpan = capturingProcessor.span;
+  }
+
+  @Benchmark
+  public void onEnd() {
+    processor.onEnd(serverSpan);
+  }
+
+  private static class SpanCapturingProcessor implements SpanProcessor {
+    ReadableSpan span;
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+    @Override
+    public boolean isStartRequired() {
+      return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+      this.span = span;
+    }
+
+    @Override
+    public boolean isEndRequired() {
+      return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+  }
+}
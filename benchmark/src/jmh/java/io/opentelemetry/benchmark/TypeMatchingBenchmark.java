@@ -71,4 +71,12 @@ public class TypeMatchingBenchmark {
           "-javaagent:/path/to/opentelemetry-java-instrumentation"
               + "/javaagent/build/libs/opentelemetry-javaagent.jar")
   public static class WithAgent extends TypeMatchingBenchmark {}
+
+  @Fork(
+      jvmArgsAppend = {
+        "-javaagent:/path/to/opentelemetry-java-instrumentation"
+            + "/javaagent/build/libs/opentelemetry-javaagent.jar",
+        "-Dotel.javaagent.experimental.lazy-module-activation.enabled=true"
+      })
+  public static class WithAgentLazyModuleActivation extends TypeMatchingBenchmark {}
 }
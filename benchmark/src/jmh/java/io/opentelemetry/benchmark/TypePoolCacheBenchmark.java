@@ -0,0 +1,205 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.benchmark;
+
+import io.opentelemetry.instrumentation.api.caching.Cache;
+import io.opentelemetry.javaagent.tooling.muzzle.AgentCachingPoolStrategy;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.pool.TypePool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Replays the type resolutions that matching the classes of the benchmark class path against type
+ * hierarchy matchers does, spread over several class loaders, starting from an empty cache each
+ * time like an application that starts.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class TypePoolCacheBenchmark {
+
+  private static final int CLASS_LOADERS = 4;
+  private static final int CLASSES_PER_CLASS_LOADER = 2_000;
+
+  @Param({"partitioned", "shared64"})
+  public String cache;
+
+  private final ClassLoader[] classLoaders = new ClassLoader[CLASS_LOADERS];
+  private final ClassFileLocator[] locators = new ClassFileLocator[CLASS_LOADERS];
+  // the recorded trace, the class loader and name of each type looked up in the cache
+  private final List<Integer> traceClassLoaders = new ArrayList<>();
+  private final List<String> traceNames = new ArrayList<>();
+
+  private AgentBuilder.PoolStrategy poolStrategy;
+
+  @Setup(Level.Trial)
+  public void record() throws IOException {
+    List<List<URL>> urls = new ArrayList<>();
+    List<List<String>> classNames = new ArrayList<>();
+    for (int i = 0; i < CLASS_LOADERS; i++) {
+      urls.add(new ArrayList<>());
+      classNames.add(new ArrayList<>());
+    }
+    int jar = 0;
+    for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!path.endsWith(".jar")) {
+        continue;
+      }
+      int index = jar++ % CLASS_LOADERS;
+      urls.get(index).add(new File(path).toURI().toURL());
+      addClassNames(path, classNames.get(index));
+    }
+
+    RecordingCacheProvider[] recorders = new RecordingCacheProvider[CLASS_LOADERS];
+    TypePool[] recordingPools = new TypePool[CLASS_LOADERS];
+    for (int i = 0; i < CLASS_LOADERS; i++) {
+      classLoaders[i] = new URLClassLoader(urls.get(i).toArray(new URL[0]), null);
+      locators[i] = ClassFileLocator.ForClassLoader.of(classLoaders[i]);
+      recorders[i] = new RecordingCacheProvider();
+      recordingPools[i] =
+          new TypePool.Default.WithLazyResolution(
+              recorders[i], locators[i], TypePool.Default.ReaderMode.FAST);
+    }
+
+    // classes of the different class loaders are loaded concurrently while an application starts
+    for (int i = 0; i < CLASSES_PER_CLASS_LOADER; i++) {
+      for (int loader = 0; loader < CLASS_LOADERS; loader++) {
+        List<String> names = classNames.get(loader);
+        if (i < names.size()) {
+          recorders[loader].trace = new ArrayList<>();
+          walkHierarchy(recordingPools[loader].describe(names.get(i)).resolve());
+          // the class path of the benchmark is missing some optional dependencies
+          for (String name : recorders[loader].trace) {
+            if (recorders[loader].isResolved(name)) {
+              traceClassLoaders.add(loader);
+              traceNames.add(name);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    poolStrategy =
+        cache.equals("partitioned") ? new AgentCachingPoolStrategy() : new SharedPoolStrategy();
+  }
+
+  @Benchmark
+  public void replay(Blackhole blackhole) {
+    for (int i = 0; i < traceNames.size(); i++) {
+      int loader = traceClassLoaders.get(i);
+      TypePool typePool = poolStrategy.typePool(locators[loader], classLoaders[loader]);
+      // resolving the modifiers parses the class file on a cache miss
+      blackhole.consume(typePool.describe(traceNames.get(i)).resolve().getModifiers());
+    }
+  }
+
+  private static void walkHierarchy(TypeDefinition type) {
+    try {
+      type.getModifiers();
+      TypeDefinition superClass = type.getSuperClass();
+      if (superClass != null) {
+        walkHierarchy(superClass.asErasure());
+      }
+      for (TypeDefinition interfaceType : type.getInterfaces()) {
+        walkHierarchy(interfaceType.asErasure());
+      }
+    } catch (RuntimeException e) {
+      // the type is missing from the class path
+    }
+  }
+
+  private static void addClassNames(String path, List<String> classNames) throws IOException {
+    try (JarFile jarFile = new JarFile(path)) {
+      Enumeration<JarEntry> e = jarFile.entries();
+      while (e.hasMoreElements()) {
+        String name = e.nextElement().getName();
+        if (name.endsWith(".class") && !name.endsWith("module-info.class")) {
+          classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+        }
+      }
+    }
+  }
+
+  private static class RecordingCacheProvider extends TypePool.CacheProvider.Simple {
+    private List<String> trace;
+
+    @Override
+    public TypePool.Resolution find(String name) {
+      trace.add(name);
+      return super.find(name);
+    }
+
+    boolean isResolved(String name) {
+      TypePool.Resolution resolution = super.find(name);
+      return resolution != null && resolution.isResolved();
+    }
+  }
+
+  // the previous strategy, a single 64 entries cache shared by all the class loaders
+  private static class SharedPoolStrategy implements AgentBuilder.PoolStrategy {
+    private final Cache<String, TypePool.Resolution> resolutions =
+        Cache.builder().setMaximumSize(64).build();
+
+    @Override
+    public TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
+      String prefix = System.identityHashCode(classLoader) + "/";
+      return new TypePool.Default.WithLazyResolution(
+          new TypePool.CacheProvider() {
+            @Override
+            public TypePool.Resolution find(String name) {
+              return resolutions.get(prefix + name);
+            }
+
+            @Override
+            public TypePool.Resolution register(String name, TypePool.Resolution resolution) {
+              resolutions.put(prefix + name, resolution);
+              return resolution;
+            }
+
+            @Override
+            public void clear() {}
+          },
+          classFileLocator,
+          TypePool.Default.ReaderMode.FAST);
+    }
+
+    @Override
+    public TypePool typePool(
+        ClassFileLocator classFileLocator, ClassLoader classLoader, String name) {
+      return typePool(classFileLocator, classLoader);
+    }
+  }
+}
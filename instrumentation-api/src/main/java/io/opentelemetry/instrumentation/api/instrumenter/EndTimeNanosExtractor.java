@@ -0,0 +1,21 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.instrumenter;
+
+import javax.annotation.Nullable;
+
+/**
+ * Extractor of the end time of response processing, in nanoseconds since the epoch. Unlike {@link
+ * EndTimeExtractor}, it doesn't need to allocate an {@link java.time.Instant} for each request. An
+ * {@link EndTimeNanosExtractor} should always use the same timestamp source as the corresponding
+ * {@link StartTimeNanosExtractor} - extracted timestamps must be comparable.
+ */
+@FunctionalInterface
+public interface EndTimeNanosExtractor<REQUEST, RESPONSE> {
+
+  /** Returns the epoch nanoseconds timestamp marking the end of the response processing. */
+  long extract(REQUEST request, @Nullable RESPONSE response, @Nullable Throwable error);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.instrumenter;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.instrumentation.api.annotations.UnstableApi;
+
+/**
+ * Records the exception of a failed request on its span. The default recorder calls {@link
+ * Span#recordException(Throwable)}, which renders the whole stack trace of every exception.
+ */
+@FunctionalInterface
+public interface ExceptionRecorder {
+
+  void record(Span span, Throwable error);
+
+  /** Returns an {@link ExceptionRecorder} that records every exception with its stack trace. */
+  static ExceptionRecorder getDefault() {
+    return Span::recordException;
+  }
+
+  /**
+   * Returns an {@link ExceptionRecorder} that records the stack traces of at most {@code
+   * maxStackTracesPerSecond} exceptions per second, and only the type and message of the other
+   * ones. The stack traces are cut after {@code maxStackDepth} frames, and reused for exceptions
+   * with the same type and top frames, e.g. thrown by the same failing call.
+   */
+  @UnstableApi
+  static ExceptionRecorder rateLimited(int maxStackTracesPerSecond, int maxStackDepth) {
+    return new RateLimitedExceptionRecorder(maxStackTracesPerSecond, maxStackDepth);
+  }
+}
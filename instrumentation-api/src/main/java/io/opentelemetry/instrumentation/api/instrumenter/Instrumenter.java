@@ -14,8 +14,8 @@ import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.api.InstrumentationVersion;
+import io.opentelemetry.instrumentation.api.internal.OverheadGovernor;
 import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -62,6 +62,7 @@ public class Instrumenter<REQUEST, RESPONSE> {
   }
 
   private static final SupportabilityMetrics supportability = SupportabilityMetrics.instance();
+  private static final OverheadGovernor overheadGovernor = OverheadGovernor.instance();
 
   private final String instrumentationName;
   private final Tracer tracer;
@@ -74,8 +75,9 @@ public class Instrumenter<REQUEST, RESPONSE> {
   private final List<? extends ContextCustomizer<? super REQUEST>> contextCustomizers;
   private final List<? extends RequestListener> requestListeners;
   private final ErrorCauseExtractor errorCauseExtractor;
-  @Nullable private final StartTimeExtractor<REQUEST> startTimeExtractor;
-  @Nullable private final EndTimeExtractor<REQUEST, RESPONSE> endTimeExtractor;
+  private final ExceptionRecorder exceptionRecorder;
+  @Nullable private final StartTimeNanosExtractor<REQUEST> startTimeExtractor;
+  @Nullable private final EndTimeNanosExtractor<REQUEST, RESPONSE> endTimeExtractor;
   private final boolean disabled;
   private final SpanSuppressionStrategy spanSuppressionStrategy;
 
@@ -91,6 +93,7 @@ public class Instrumenter<REQUEST, RESPONSE> {
     this.contextCustomizers = new ArrayList<>(builder.contextCustomizers);
     this.requestListeners = new ArrayList<>(builder.requestListeners);
     this.errorCauseExtractor = builder.errorCauseExtractor;
+    this.exceptionRecorder = builder.exceptionRecorder;
     this.startTimeExtractor = builder.startTimeExtractor;
     this.endTimeExtractor = builder.endTimeExtractor;
     this.disabled = builder.disabled;
@@ -112,8 +115,9 @@ public class Instrumenter<REQUEST, RESPONSE> {
 
     if (suppressed) {
       supportability.recordSuppressedSpan(spanKind, instrumentationName);
+      return false;
     }
-    return !suppressed;
+    return !overheadGovernor.shouldThrottle(instrumentationName, spanKind);
   }
 
   /**
@@ -125,16 +129,17 @@ public class Instrumenter<REQUEST, RESPONSE> {
    */
   public Context start(Context parentContext, REQUEST request) {
     SpanKind spanKind = spanKindExtractor.extract(request);
+    overheadGovernor.recordSpanStart(instrumentationName, spanKind);
     SpanBuilder spanBuilder =
         tracer
             .spanBuilder(spanNameExtractor.extract(request))
             .setSpanKind(spanKind)
             .setParent(parentContext);
 
-    Instant startTime = null;
+    long startNanos = 0;
     if (startTimeExtractor != null) {
-      startTime = startTimeExtractor.extract(request);
-      spanBuilder.setStartTimestamp(startTime);
+      startNanos = startTimeExtractor.extract(request);
+      spanBuilder.setStartTimestamp(startNanos, TimeUnit.NANOSECONDS);
     }
 
     SpanLinksBuilder spanLinksBuilder = new SpanLinksBuilderImpl(spanBuilder);
@@ -155,7 +160,9 @@ public class Instrumenter<REQUEST, RESPONSE> {
     }
 
     if (!requestListeners.isEmpty()) {
-      long startNanos = getNanos(startTime);
+      if (startTimeExtractor == null) {
+        startNanos = System.nanoTime();
+      }
       for (RequestListener requestListener : requestListeners) {
         context = requestListener.start(context, attributes, startNanos);
       }
@@ -180,7 +187,7 @@ public class Instrumenter<REQUEST, RESPONSE> {
 
     if (error != null) {
       error = errorCauseExtractor.extractCause(error);
-      span.recordException(error);
+      exceptionRecorder.record(span, error);
     }
 
     UnsafeAttributes attributes = new UnsafeAttributes();
@@ -189,13 +196,15 @@ public class Instrumenter<REQUEST, RESPONSE> {
     }
     span.setAllAttributes(attributes);
 
-    Instant endTime = null;
+    long endNanos = 0;
     if (endTimeExtractor != null) {
-      endTime = endTimeExtractor.extract(request, response, error);
+      endNanos = endTimeExtractor.extract(request, response, error);
     }
 
     if (!requestListeners.isEmpty()) {
-      long endNanos = getNanos(endTime);
+      if (endTimeExtractor == null) {
+        endNanos = System.nanoTime();
+      }
       for (RequestListener requestListener : requestListeners) {
         requestListener.end(context, attributes, endNanos);
       }
@@ -206,17 +215,10 @@ public class Instrumenter<REQUEST, RESPONSE> {
       span.setStatus(statusCode);
     }
 
-    if (endTime != null) {
-      span.end(endTime);
+    if (endTimeExtractor != null) {
+      span.end(endNanos, TimeUnit.NANOSECONDS);
     } else {
       span.end();
     }
   }
-
-  private static long getNanos(@Nullable Instant time) {
-    if (time == null) {
-      return System.nanoTime();
-    }
-    return TimeUnit.SECONDS.toNanos(time.getEpochSecond()) + time.getNano();
-  }
 }
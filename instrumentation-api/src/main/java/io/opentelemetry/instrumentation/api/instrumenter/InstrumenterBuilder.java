@@ -21,10 +21,12 @@ import io.opentelemetry.instrumentation.api.instrumenter.db.DbAttributesExtracto
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpClientAttributesExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.messaging.MessagingAttributesExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.rpc.RpcAttributesExtractor;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -39,6 +41,16 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
       Config.get()
           .getBoolean("otel.instrumentation.experimental.outgoing-span-suppression-by-type", false);
 
+  // negative to record every exception with its stack trace
+  private static final int MAX_EXCEPTION_STACK_TRACES_PER_SECOND =
+      Config.get()
+          .getInt(
+              "otel.instrumentation.experimental.exception-recording.max-stack-traces-per-second",
+              -1);
+  private static final int MAX_EXCEPTION_STACK_DEPTH =
+      Config.get()
+          .getInt("otel.instrumentation.experimental.exception-recording.max-stack-depth", 64);
+
   final OpenTelemetry openTelemetry;
   final Meter meter;
   final String instrumentationName;
@@ -54,8 +66,14 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
   SpanStatusExtractor<? super REQUEST, ? super RESPONSE> spanStatusExtractor =
       SpanStatusExtractor.getDefault();
   ErrorCauseExtractor errorCauseExtractor = ErrorCauseExtractor.jdk();
-  @Nullable StartTimeExtractor<REQUEST> startTimeExtractor = null;
-  @Nullable EndTimeExtractor<REQUEST, RESPONSE> endTimeExtractor = null;
+  // one per instrumenter, the stack traces are rate limited per instrumentation
+  ExceptionRecorder exceptionRecorder =
+      MAX_EXCEPTION_STACK_TRACES_PER_SECOND < 0
+          ? ExceptionRecorder.getDefault()
+          : ExceptionRecorder.rateLimited(
+              MAX_EXCEPTION_STACK_TRACES_PER_SECOND, MAX_EXCEPTION_STACK_DEPTH);
+  @Nullable StartTimeNanosExtractor<REQUEST> startTimeExtractor = null;
+  @Nullable EndTimeNanosExtractor<REQUEST, RESPONSE> endTimeExtractor = null;
   boolean disabled = false;
 
   private boolean enableSpanSuppressionByType = ENABLE_SPAN_SUPPRESSION_BY_TYPE;
@@ -135,6 +153,13 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
     return this;
   }
 
+  /** Sets the {@link ExceptionRecorder} to record the exception of a failed request on its span. */
+  public InstrumenterBuilder<REQUEST, RESPONSE> setExceptionRecorder(
+      ExceptionRecorder exceptionRecorder) {
+    this.exceptionRecorder = requireNonNull(exceptionRecorder);
+    return this;
+  }
+
   /**
    * Sets the {@link StartTimeExtractor} and the {@link EndTimeExtractor} to extract the timestamp
    * marking the start and end of processing. If unset, the constructed instrumenter will defer
@@ -143,6 +168,24 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
   public InstrumenterBuilder<REQUEST, RESPONSE> setTimeExtractors(
       StartTimeExtractor<REQUEST> startTimeExtractor,
       EndTimeExtractor<REQUEST, RESPONSE> endTimeExtractor) {
+    requireNonNull(startTimeExtractor);
+    requireNonNull(endTimeExtractor);
+    this.startTimeExtractor = request -> toEpochNanos(startTimeExtractor.extract(request));
+    this.endTimeExtractor =
+        (request, response, error) ->
+            toEpochNanos(endTimeExtractor.extract(request, response, error));
+    return this;
+  }
+
+  /**
+   * Sets the {@link StartTimeNanosExtractor} and the {@link EndTimeNanosExtractor} to extract the
+   * epoch nanoseconds timestamp marking the start and end of processing. If unset, the constructed
+   * instrumenter will defer determining start and end timestamps to the OpenTelemetry SDK.
+   */
+  @UnstableApi
+  public InstrumenterBuilder<REQUEST, RESPONSE> setTimeNanosExtractors(
+      StartTimeNanosExtractor<REQUEST> startTimeExtractor,
+      EndTimeNanosExtractor<REQUEST, RESPONSE> endTimeExtractor) {
     this.startTimeExtractor = requireNonNull(startTimeExtractor);
     this.endTimeExtractor = requireNonNull(endTimeExtractor);
     return this;
@@ -153,6 +196,10 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
     return this;
   }
 
+  private static long toEpochNanos(Instant time) {
+    return TimeUnit.SECONDS.toNanos(time.getEpochSecond()) + time.getNano();
+  }
+
   // visible for tests
   /**
    * Enables CLIENT nested span suppression based on the instrumentation type.
@@ -0,0 +1,137 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.instrumenter;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.instrumentation.api.caching.Cache;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records exceptions like {@link Span#recordException(Throwable)} does, limiting the cost of error
+ * storms: when many requests fail at once, most of them fail the same way.
+ *
+ * <p>The rendered frames of the exception and of each of its causes are cached by the frames that
+ * they are rendered from, i.e. the top {@code maxStackDepth} frames and the number of omitted ones.
+ * The lines of the exception and of its causes are always rendered from the recorded exception.
+ */
+final class RateLimitedExceptionRecorder implements ExceptionRecorder {
+
+  private static final String EXCEPTION_EVENT_NAME = "exception";
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Cache<FramesKey, String> renderedFrames =
+      Cache.builder().setMaximumSize(256).build();
+  private final int maxStackTracesPerSecond;
+  private final int maxStackDepth;
+
+  private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+  private final AtomicInteger permits;
+
+  RateLimitedExceptionRecorder(int maxStackTracesPerSecond, int maxStackDepth) {
+    this.maxStackTracesPerSecond = maxStackTracesPerSecond;
+    this.maxStackDepth = maxStackDepth;
+    this.permits = new AtomicInteger(maxStackTracesPerSecond);
+  }
+
+  @Override
+  public void record(Span span, Throwable error) {
+    AttributesBuilder attributes = Attributes.builder();
+    attributes.put(SemanticAttributes.EXCEPTION_TYPE, error.getClass().getName());
+    String message = error.getMessage();
+    if (message != null) {
+      attributes.put(SemanticAttributes.EXCEPTION_MESSAGE, message);
+    }
+    if (tryAcquire()) {
+      attributes.put(SemanticAttributes.EXCEPTION_STACKTRACE, stackTrace(error));
+    }
+    span.addEvent(EXCEPTION_EVENT_NAME, attributes.build());
+  }
+
+  private boolean tryAcquire() {
+    long start = windowStart.get();
+    long now = System.nanoTime();
+    if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+      permits.set(maxStackTracesPerSecond);
+    }
+    // a concurrent window reset may let a few more stack traces through, which is fine
+    return permits.get() > 0 && permits.getAndDecrement() > 0;
+  }
+
+  private String stackTrace(Throwable error) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(error).append(System.lineSeparator());
+    appendFrames(sb, error.getStackTrace());
+    Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    seen.add(error);
+    for (Throwable cause = error.getCause(); cause != null && seen.add(cause); ) {
+      sb.append("Caused by: ").append(cause).append(System.lineSeparator());
+      appendFrames(sb, cause.getStackTrace());
+      cause = cause.getCause();
+    }
+    return sb.toString();
+  }
+
+  private void appendFrames(StringBuilder sb, StackTraceElement[] frames) {
+    int depth = Math.min(maxStackDepth, frames.length);
+    // getStackTrace() returns a copy, which the key can keep
+    FramesKey key =
+        new FramesKey(
+            depth == frames.length ? frames : Arrays.copyOf(frames, depth), frames.length);
+    sb.append(renderedFrames.computeIfAbsent(key, k -> renderFrames(frames, depth)));
+  }
+
+  private static String renderFrames(StackTraceElement[] frames, int depth) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      sb.append("\tat ").append(frames[i]).append(System.lineSeparator());
+    }
+    if (depth < frames.length) {
+      sb.append("\t... ").append(frames.length - depth).append(" more");
+      sb.append(System.lineSeparator());
+    }
+    return sb.toString();
+  }
+
+  // everything that the rendered frames are rendered from
+  private static final class FramesKey {
+    private final StackTraceElement[] renderedFrames;
+    private final int totalFrames;
+    private final int hashCode;
+
+    FramesKey(StackTraceElement[] renderedFrames, int totalFrames) {
+      this.renderedFrames = renderedFrames;
+      this.totalFrames = totalFrames;
+      this.hashCode = 31 * Arrays.hashCode(renderedFrames) + totalFrames;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof FramesKey)) {
+        return false;
+      }
+      FramesKey other = (FramesKey) obj;
+      return totalFrames == other.totalFrames
+          && Arrays.equals(renderedFrames, other.renderedFrames);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
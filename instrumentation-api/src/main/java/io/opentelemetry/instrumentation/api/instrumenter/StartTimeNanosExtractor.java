@@ -0,0 +1,19 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.instrumenter;
+
+/**
+ * Extractor of the start time of request processing, in nanoseconds since the epoch. Unlike {@link
+ * StartTimeExtractor}, it doesn't need to allocate an {@link java.time.Instant} for each request. A
+ * {@link StartTimeNanosExtractor} should always use the same timestamp source as the corresponding
+ * {@link EndTimeNanosExtractor} - extracted timestamps must be comparable.
+ */
+@FunctionalInterface
+public interface StartTimeNanosExtractor<REQUEST> {
+
+  /** Returns the epoch nanoseconds timestamp marking the start of the request processing. */
+  long extract(REQUEST request);
+}
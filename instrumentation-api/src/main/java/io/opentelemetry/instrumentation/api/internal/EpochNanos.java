@@ -0,0 +1,40 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time in nanoseconds since the epoch, measured with {@link System#nanoTime()} from the wall
+ * clock time that is read once, like the clock of the spans of the SDK. It keeps the precision of
+ * {@link System#nanoTime()} and doesn't allocate, but doesn't follow the adjustments of the wall
+ * clock.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+public final class EpochNanos {
+
+  private static final long EPOCH_OFFSET_NANOS = epochOffsetNanos();
+
+  private static long epochOffsetNanos() {
+    Instant now = Instant.now();
+    return TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano() - System.nanoTime();
+  }
+
+  /** Returns the current time in nanoseconds since the epoch. */
+  public static long now() {
+    return fromNanoTime(System.nanoTime());
+  }
+
+  /** Returns the time in nanoseconds since the epoch of a value of {@link System#nanoTime()}. */
+  public static long fromNanoTime(long nanoTime) {
+    return EPOCH_OFFSET_NANOS + nanoTime;
+  }
+
+  private EpochNanos() {}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal;
+
+import io.opentelemetry.api.trace.SpanKind;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Throttles the noisiest instrumentations while the CPU load of the process is over a CPU budget,
+ * and restores them once the load drops.
+ *
+ * <p>The cost of an instrumentation is approximated by the number of INTERNAL spans it started
+ * since the previous {@link #update(double)}: when the load is over the budget, the instrumentation
+ * that started the most of them stops starting INTERNAL spans. One instrumentation is throttled or
+ * restored per update, and they are only restored when the load is well under the budget, so that
+ * the governor doesn't flap around the budget. Only INTERNAL spans are throttled: the other kinds
+ * propagate the context to, or receive it from, other processes, and skipping them would break the
+ * traces.
+ *
+ * <p>The governor is off until the javaagent sets the budget with {@link #setCpuBudget(double)},
+ * and then passes the load that it measures to {@link #update(double)}.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+public final class OverheadGovernor {
+  private static final Logger logger = LoggerFactory.getLogger(OverheadGovernor.class);
+
+  // the load must drop under this part of the budget before an instrumentation is restored
+  private static final double RESTORE_RATIO = 0.8;
+
+  private static final OverheadGovernor INSTANCE = new OverheadGovernor();
+
+  public static OverheadGovernor instance() {
+    return INSTANCE;
+  }
+
+  // not positive while the governor is off
+  private volatile double cpuBudget = -1;
+  private final ConcurrentMap<String, LongAdder> spanCounters = new ConcurrentHashMap<>();
+  // read by every shouldThrottle() call, replaced by update()
+  private volatile Set<String> throttled = Collections.emptySet();
+  // most recently throttled last, only used by the thread calling update()
+  private final Deque<String> throttleOrder = new ArrayDeque<>();
+
+  // visible for testing
+  OverheadGovernor() {}
+
+  /**
+   * Sets the CPU load of the process, between 0 and 1, over which instrumentations are throttled. A
+   * budget that is not positive turns the governor off.
+   */
+  public void setCpuBudget(double cpuBudget) {
+    this.cpuBudget = cpuBudget;
+  }
+
+  /** Returns whether a CPU budget is set. */
+  public boolean isEnabled() {
+    return cpuBudget > 0;
+  }
+
+  /** Counts a span started by the instrumentation, if its kind can be throttled. */
+  public void recordSpanStart(String instrumentationName, SpanKind kind) {
+    if (!isThrottleable(kind) || !isEnabled()) {
+      return;
+    }
+    // avoid locking in computeIfAbsent on java 8 when the counter exists
+    LongAdder counter = spanCounters.get(instrumentationName);
+    if (counter == null) {
+      counter = spanCounters.computeIfAbsent(instrumentationName, k -> new LongAdder());
+    }
+    counter.increment();
+  }
+
+  /** Returns whether the instrumentation should not start a span of this kind. */
+  public boolean shouldThrottle(String instrumentationName, SpanKind kind) {
+    if (!isThrottleable(kind) || !isEnabled()) {
+      return false;
+    }
+    Set<String> throttled = this.throttled;
+    return !throttled.isEmpty() && throttled.contains(instrumentationName);
+  }
+
+  /**
+   * Throttles or restores an instrumentation depending on the CPU load of the process, between 0
+   * and 1, measured since the previous update. A negative load, i.e. not available, is ignored.
+   */
+  public synchronized void update(double cpuLoad) {
+    String noisiest = null;
+    long noisiestCount = 0;
+    for (Map.Entry<String, LongAdder> entry : spanCounters.entrySet()) {
+      long count = entry.getValue().sumThenReset();
+      if (count > noisiestCount && !throttled.contains(entry.getKey())) {
+        noisiest = entry.getKey();
+        noisiestCount = count;
+      }
+    }
+    double cpuBudget = this.cpuBudget;
+    if (cpuLoad < 0 || cpuBudget <= 0) {
+      return;
+    }
+
+    if (cpuLoad > cpuBudget) {
+      if (noisiest != null) {
+        logger.info(
+            "CPU load {} is over the budget of {}, throttling instrumentation {}",
+            cpuLoad,
+            cpuBudget,
+            noisiest);
+        throttleOrder.addLast(noisiest);
+        updateThrottled();
+      }
+    } else if (cpuLoad < cpuBudget * RESTORE_RATIO && !throttleOrder.isEmpty()) {
+      String restored = throttleOrder.removeLast();
+      logger.info(
+          "CPU load {} is under the budget of {}, restoring instrumentation {}",
+          cpuLoad,
+          cpuBudget,
+          restored);
+      updateThrottled();
+    }
+  }
+
+  private void updateThrottled() {
+    throttled =
+        throttleOrder.isEmpty()
+            ? Collections.emptySet()
+            : Collections.unmodifiableSet(new HashSet<>(throttleOrder));
+  }
+
+  // visible for testing
+  Set<String> getThrottled() {
+    return throttled;
+  }
+
+  // CLIENT and PRODUCER spans inject the context into the outgoing requests
+  private static boolean isThrottleable(SpanKind kind) {
+    return kind == SpanKind.INTERNAL;
+  }
+}
@@ -94,6 +94,8 @@ public final class SupportabilityMetrics {
   public static final class CounterNames {
     public static final String SQL_STATEMENT_SANITIZER_CACHE_MISS =
         "SqlStatementSanitizer cache miss";
+    public static final String TYPE_RESOLUTION_CACHE_HIT = "Type resolution cache hit";
+    public static final String TYPE_RESOLUTION_CACHE_MISS = "Type resolution cache miss";
 
     private CounterNames() {}
   }
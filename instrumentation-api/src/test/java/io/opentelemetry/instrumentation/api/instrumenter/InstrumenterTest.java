@@ -38,6 +38,7 @@ import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -434,6 +435,31 @@ class InstrumenterTest {
                     span -> span.hasName("test span").startsAt(startTime).endsAt(endTime)));
   }
 
+  @Test
+  void shouldStartSpanWithGivenStartTimeNanos() {
+    // given
+    Instrumenter<Long, Long> instrumenter =
+        Instrumenter.<Long, Long>builder(
+                otelTesting.getOpenTelemetry(), "test", request -> "test span")
+            .setTimeNanosExtractors(request -> request, (request, response, error) -> response)
+            .newInstrumenter();
+
+    long startTime = TimeUnit.SECONDS.toNanos(100) + 1;
+    long endTime = TimeUnit.SECONDS.toNanos(123) + 2;
+
+    // when
+    Context context = instrumenter.start(Context.root(), startTime);
+    instrumenter.end(context, startTime, endTime, null);
+
+    // then
+    otelTesting
+        .assertTraces()
+        .hasTracesSatisfyingExactly(
+            trace ->
+                trace.hasSpansSatisfyingExactly(
+                    span -> span.hasName("test span").startsAt(startTime).endsAt(endTime)));
+  }
+
   @Test
   void shouldNotAddInvalidLink() {
     // given
@@ -0,0 +1,125 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.instrumenter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.sdk.testing.junit5.OpenTelemetryExtension;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class RateLimitedExceptionRecorderTest {
+
+  @RegisterExtension
+  static final OpenTelemetryExtension otelTesting = OpenTelemetryExtension.create();
+
+  @Test
+  void recordsTypeMessageAndCappedStackTrace() {
+    ExceptionRecorder recorder = ExceptionRecorder.rateLimited(10, 2);
+    IllegalStateException error = new IllegalStateException("boom", new RuntimeException("cause"));
+
+    Attributes attributes = recordedEvents(recorder, error).get(0).getAttributes();
+
+    assertThat(attributes.get(SemanticAttributes.EXCEPTION_TYPE))
+        .isEqualTo(IllegalStateException.class.getName());
+    assertThat(attributes.get(SemanticAttributes.EXCEPTION_MESSAGE)).isEqualTo("boom");
+    String[] lines = attributes.get(SemanticAttributes.EXCEPTION_STACKTRACE).split("\\R");
+    assertThat(lines[0]).isEqualTo(error.toString());
+    assertThat(lines[1]).isEqualTo("\tat " + error.getStackTrace()[0]);
+    assertThat(lines[2]).isEqualTo("\tat " + error.getStackTrace()[1]);
+    assertThat(lines[3]).isEqualTo("\t... " + (error.getStackTrace().length - 2) + " more");
+    assertThat(lines[4]).isEqualTo("Caused by: java.lang.RuntimeException: cause");
+  }
+
+  @Test
+  void recordsOnlyTypeAndMessageAboveTheRateLimit() {
+    ExceptionRecorder recorder = ExceptionRecorder.rateLimited(2, 64);
+
+    for (int i = 0; i < 5; i++) {
+      Span span = otelTesting.getOpenTelemetry().getTracer("test").spanBuilder("span").startSpan();
+      recorder.record(span, new IllegalStateException("boom " + i));
+      span.end();
+    }
+
+    List<Attributes> attributes =
+        otelTesting.getSpans().stream()
+            .map(span -> span.getEvents().get(0).getAttributes())
+            .collect(Collectors.toList());
+    assertThat(attributes).hasSize(5);
+    assertThat(attributes)
+        .allSatisfy(
+            a ->
+                assertThat(a.get(SemanticAttributes.EXCEPTION_TYPE))
+                    .isEqualTo(IllegalStateException.class.getName()));
+    assertThat(attributes)
+        .filteredOn(a -> a.get(SemanticAttributes.EXCEPTION_STACKTRACE) != null)
+        .hasSize(2);
+  }
+
+  @Test
+  void reusesStackTracesOfTheSameFailure() {
+    ExceptionRecorder recorder = ExceptionRecorder.rateLimited(10, 64);
+
+    String[] stackTraces = new String[2];
+    for (int i = 0; i < 2; i++) {
+      // thrown from the same line, with different messages
+      stackTraces[i] = stackTrace(recorder, new IllegalStateException(i == 0 ? "first" : "second"));
+    }
+    String first = stackTraces[0];
+    String second = stackTraces[1];
+
+    assertThat(first).startsWith("java.lang.IllegalStateException: first");
+    assertThat(second).startsWith("java.lang.IllegalStateException: second");
+    assertThat(first.substring(first.indexOf('\n')))
+        .isEqualTo(second.substring(second.indexOf('\n')));
+  }
+
+  @Test
+  void rendersTheCausesOfEachFailure() {
+    ExceptionRecorder recorder = ExceptionRecorder.rateLimited(10, 64);
+
+    String[] stackTraces = new String[2];
+    for (int i = 0; i < 2; i++) {
+      // thrown from the same line, with different causes
+      Throwable cause = i == 0 ? new IllegalArgumentException("first") : newCause();
+      stackTraces[i] = stackTrace(recorder, new IllegalStateException("boom", cause));
+    }
+
+    assertThat(stackTraces[0])
+        .contains("Caused by: java.lang.IllegalArgumentException: first")
+        .doesNotContain("newCause");
+    assertThat(stackTraces[1])
+        .contains("Caused by: java.lang.UnsupportedOperationException: second")
+        .contains("newCause");
+  }
+
+  private static Throwable newCause() {
+    return new UnsupportedOperationException("second");
+  }
+
+  private String stackTrace(ExceptionRecorder recorder, Throwable error) {
+    otelTesting.clearSpans();
+    return recordedEvents(recorder, error)
+        .get(0)
+        .getAttributes()
+        .get(SemanticAttributes.EXCEPTION_STACKTRACE);
+  }
+
+  private List<EventData> recordedEvents(ExceptionRecorder recorder, Throwable error) {
+    Span span = otelTesting.getOpenTelemetry().getTracer("test").spanBuilder("span").startSpan();
+    recorder.record(span, error);
+    span.end();
+    List<EventData> events = otelTesting.getSpans().get(0).getEvents();
+    assertThat(events).extracting(EventData::getName).containsExactly("exception");
+    return events;
+  }
+}
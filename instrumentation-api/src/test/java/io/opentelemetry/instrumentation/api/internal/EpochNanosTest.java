@@ -0,0 +1,35 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class EpochNanosTest {
+
+  @Test
+  void followsTheWallClock() {
+    long before = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    long now = EpochNanos.now();
+    long after = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() + 1);
+
+    // the wall clock time is read once, so allow for the drift of the two clocks since then
+    assertThat(now)
+        .isBetween(before - TimeUnit.SECONDS.toNanos(1), after + TimeUnit.SECONDS.toNanos(1));
+  }
+
+  @Test
+  void keepsTheDurationsOfNanoTime() {
+    long startNanoTime = System.nanoTime();
+    long endNanoTime = startNanoTime + 1234;
+
+    assertThat(EpochNanos.fromNanoTime(endNanoTime) - EpochNanos.fromNanoTime(startNanoTime))
+        .isEqualTo(1234);
+    assertThat(EpochNanos.now()).isGreaterThanOrEqualTo(EpochNanos.fromNanoTime(startNanoTime));
+  }
+}
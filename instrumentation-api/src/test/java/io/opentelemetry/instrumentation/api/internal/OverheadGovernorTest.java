@@ -0,0 +1,122 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.trace.SpanKind;
+import org.junit.jupiter.api.Test;
+
+class OverheadGovernorTest {
+
+  @Test
+  void disabled() {
+    OverheadGovernor governor = new OverheadGovernor();
+
+    recordSpans(governor, "noisy", SpanKind.INTERNAL, 100);
+    governor.update(1.0);
+
+    assertThat(governor.isEnabled()).isFalse();
+    assertThat(governor.shouldThrottle("noisy", SpanKind.INTERNAL)).isFalse();
+  }
+
+  @Test
+  void throttlesNoisiestInstrumentationOverBudget() {
+    OverheadGovernor governor = governorWithBudget(0.5);
+
+    recordSpans(governor, "noisy", SpanKind.INTERNAL, 100);
+    recordSpans(governor, "quiet", SpanKind.INTERNAL, 10);
+    governor.update(0.4);
+
+    assertThat(governor.getThrottled()).isEmpty();
+
+    recordSpans(governor, "noisy", SpanKind.INTERNAL, 100);
+    recordSpans(governor, "quiet", SpanKind.INTERNAL, 10);
+    governor.update(0.9);
+
+    assertThat(governor.getThrottled()).containsExactly("noisy");
+    assertThat(governor.shouldThrottle("noisy", SpanKind.INTERNAL)).isTrue();
+    assertThat(governor.shouldThrottle("noisy", SpanKind.SERVER)).isFalse();
+    assertThat(governor.shouldThrottle("quiet", SpanKind.INTERNAL)).isFalse();
+
+    // still over the budget, the next noisiest one is throttled
+    recordSpans(governor, "quiet", SpanKind.INTERNAL, 10);
+    governor.update(0.9);
+
+    assertThat(governor.getThrottled()).containsExactlyInAnyOrder("noisy", "quiet");
+  }
+
+  @Test
+  void doesNotCountServerSpans() {
+    OverheadGovernor governor = governorWithBudget(0.5);
+
+    recordSpans(governor, "server", SpanKind.SERVER, 100);
+    governor.update(0.9);
+
+    assertThat(governor.getThrottled()).isEmpty();
+  }
+
+  @Test
+  void doesNotThrottlePropagatingSpans() {
+    OverheadGovernor governor = governorWithBudget(0.5);
+
+    recordSpans(governor, "client", SpanKind.CLIENT, 100);
+    recordSpans(governor, "producer", SpanKind.PRODUCER, 100);
+    recordSpans(governor, "mixed", SpanKind.CLIENT, 100);
+    recordSpans(governor, "mixed", SpanKind.INTERNAL, 10);
+    governor.update(0.9);
+
+    // the CLIENT spans of an instrumentation still inject the context into its requests
+    assertThat(governor.getThrottled()).containsExactly("mixed");
+    assertThat(governor.shouldThrottle("mixed", SpanKind.INTERNAL)).isTrue();
+    assertThat(governor.shouldThrottle("mixed", SpanKind.CLIENT)).isFalse();
+  }
+
+  @Test
+  void restoresInstrumentationsWellUnderBudget() {
+    OverheadGovernor governor = governorWithBudget(0.5);
+
+    recordSpans(governor, "first", SpanKind.INTERNAL, 100);
+    governor.update(0.9);
+    recordSpans(governor, "second", SpanKind.INTERNAL, 100);
+    governor.update(0.9);
+    assertThat(governor.getThrottled()).containsExactlyInAnyOrder("first", "second");
+
+    // under the budget, but not enough to restore
+    governor.update(0.45);
+    assertThat(governor.getThrottled()).containsExactlyInAnyOrder("first", "second");
+
+    governor.update(0.1);
+    assertThat(governor.getThrottled()).containsExactly("first");
+
+    governor.update(0.1);
+    assertThat(governor.getThrottled()).isEmpty();
+    assertThat(governor.shouldThrottle("first", SpanKind.INTERNAL)).isFalse();
+  }
+
+  @Test
+  void ignoresUnknownLoad() {
+    OverheadGovernor governor = governorWithBudget(0.5);
+
+    recordSpans(governor, "noisy", SpanKind.INTERNAL, 100);
+    governor.update(-1);
+
+    assertThat(governor.getThrottled()).isEmpty();
+  }
+
+  private static void recordSpans(
+      OverheadGovernor governor, String instrumentationName, SpanKind kind, int count) {
+    for (int i = 0; i < count; i++) {
+      governor.recordSpanStart(instrumentationName, kind);
+    }
+  }
+
+  private static OverheadGovernor governorWithBudget(double cpuBudget) {
+    OverheadGovernor governor = new OverheadGovernor();
+    governor.setCpuBudget(cpuBudget);
+    return governor;
+  }
+}
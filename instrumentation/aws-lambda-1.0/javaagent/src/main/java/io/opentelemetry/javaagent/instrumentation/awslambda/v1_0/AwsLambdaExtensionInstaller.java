@@ -0,0 +1,40 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.instrumentation.awslambda.v1_0;
+
+import com.google.auto.service.AutoService;
+import io.opentelemetry.instrumentation.api.config.Config;
+import io.opentelemetry.instrumentation.awslambda.v1_0.internal.LambdaExtensionFlusher;
+import io.opentelemetry.javaagent.extension.AgentListener;
+import io.opentelemetry.javaagent.instrumentation.api.OpenTelemetrySdkAccess;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link AgentListener} that registers a Lambda extension while the function is initialized,
+ * when {@code otel.instrumentation.aws-lambda.experimental-async-flush} is enabled. The force flush
+ * at the end of each invocation then only signals the extension, which flushes after the response
+ * is returned, before the environment is frozen.
+ */
+@AutoService(AgentListener.class)
+public class AwsLambdaExtensionInstaller implements AgentListener {
+
+  @Override
+  public void afterAgent(Config config) {
+    if (!config.getBoolean("otel.instrumentation.aws-lambda.experimental-async-flush", false)) {
+      return;
+    }
+    OpenTelemetrySdkAccess.internalWrapForceFlush(
+        forceFlush -> {
+          LambdaExtensionFlusher extensionFlusher =
+              LambdaExtensionFlusher.register(
+                  "opentelemetry-javaagent", () -> forceFlush.run(1, TimeUnit.SECONDS));
+          if (extensionFlusher == null) {
+            return forceFlush;
+          }
+          return (timeout, unit) -> extensionFlusher.invocationEnded();
+        });
+  }
+}
@@ -7,14 +7,45 @@ package io.opentelemetry.instrumentation.awslambda.v1_0;
 
 import io.opentelemetry.api.metrics.GlobalMeterProvider;
 import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.instrumentation.awslambda.v1_0.internal.LambdaExtensionFlusher;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.metrics.SdkMeterProvider;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 final class LambdaUtils {
 
+  /**
+   * Returns the Lambda extension that flushes the telemetry of each invocation after its response,
+   * or {@code null} if it isn't enabled or can't be registered.
+   */
+  @Nullable
+  static LambdaExtensionFlusher registerExtensionFlusher(
+      OpenTelemetrySdk openTelemetrySdk, long flushTimeout, TimeUnit unit) {
+    if (!WrapperConfiguration.asyncFlush()) {
+      return null;
+    }
+    return LambdaExtensionFlusher.register(
+        "opentelemetry-java", () -> forceFlush(openTelemetrySdk, flushTimeout, unit));
+  }
+
+  /**
+   * Flushes the telemetry of the invocation that ended, in the Lambda extension if there is one.
+   */
+  static void invocationEnded(
+      @Nullable LambdaExtensionFlusher extensionFlusher,
+      OpenTelemetrySdk openTelemetrySdk,
+      long flushTimeout,
+      TimeUnit unit) {
+    if (extensionFlusher != null) {
+      extensionFlusher.invocationEnded();
+    } else {
+      forceFlush(openTelemetrySdk, flushTimeout, unit);
+    }
+  }
+
   static void forceFlush(OpenTelemetrySdk openTelemetrySdk, long flushTimeout, TimeUnit unit) {
     CompletableResultCode traceFlush = openTelemetrySdk.getSdkTracerProvider().forceFlush();
     MeterProvider meterProvider = GlobalMeterProvider.get();
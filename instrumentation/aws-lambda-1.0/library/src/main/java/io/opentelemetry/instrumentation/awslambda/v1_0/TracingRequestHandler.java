@@ -11,11 +11,13 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import io.opentelemetry.context.Scope;
 import io.opentelemetry.instrumentation.awslambda.v1_0.internal.AwsLambdaFunctionInstrumenter;
 import io.opentelemetry.instrumentation.awslambda.v1_0.internal.AwsLambdaFunctionInstrumenterFactory;
+import io.opentelemetry.instrumentation.awslambda.v1_0.internal.LambdaExtensionFlusher;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * A base class similar to {@link RequestHandler} but will automatically trace invocations of {@link
@@ -29,6 +31,7 @@ public abstract class TracingRequestHandler<I, O> implements RequestHandler<I, O
   private final AwsLambdaFunctionInstrumenter instrumenter;
   private final OpenTelemetrySdk openTelemetrySdk;
   private final long flushTimeoutNanos;
+  @Nullable private final LambdaExtensionFlusher extensionFlusher;
 
   /**
    * Creates a new {@link TracingRequestHandler} which traces using the provided {@link
@@ -62,6 +65,9 @@ public abstract class TracingRequestHandler<I, O> implements RequestHandler<I, O
     this.openTelemetrySdk = openTelemetrySdk;
     this.flushTimeoutNanos = flushTimeout.toNanos();
     this.instrumenter = instrumenter;
+    this.extensionFlusher =
+        LambdaUtils.registerExtensionFlusher(
+            openTelemetrySdk, flushTimeoutNanos, TimeUnit.NANOSECONDS);
   }
 
   private Map<String, String> getHeaders(I input) {
@@ -79,7 +85,14 @@ public abstract class TracingRequestHandler<I, O> implements RequestHandler<I, O
     io.opentelemetry.context.Context parentContext = instrumenter.extract(request);
 
     if (!instrumenter.shouldStart(parentContext, request)) {
-      return doHandleRequest(input, context);
+      try {
+        return doHandleRequest(input, context);
+      } finally {
+        // the extension waits for the end of every invocation
+        if (extensionFlusher != null) {
+          extensionFlusher.invocationEnded();
+        }
+      }
     }
 
     io.opentelemetry.context.Context otelContext = instrumenter.start(parentContext, request);
@@ -93,7 +106,8 @@ public abstract class TracingRequestHandler<I, O> implements RequestHandler<I, O
       throw t;
     } finally {
       instrumenter.end(otelContext, request, output, error);
-      LambdaUtils.forceFlush(openTelemetrySdk, flushTimeoutNanos, TimeUnit.NANOSECONDS);
+      LambdaUtils.invocationEnded(
+          extensionFlusher, openTelemetrySdk, flushTimeoutNanos, TimeUnit.NANOSECONDS);
     }
   }
 
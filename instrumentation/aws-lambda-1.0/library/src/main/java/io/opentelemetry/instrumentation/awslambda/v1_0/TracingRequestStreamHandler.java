@@ -11,12 +11,14 @@ import io.opentelemetry.context.Scope;
 import io.opentelemetry.instrumentation.awslambda.v1_0.internal.ApiGatewayProxyRequest;
 import io.opentelemetry.instrumentation.awslambda.v1_0.internal.AwsLambdaFunctionInstrumenter;
 import io.opentelemetry.instrumentation.awslambda.v1_0.internal.AwsLambdaFunctionInstrumenterFactory;
+import io.opentelemetry.instrumentation.awslambda.v1_0.internal.LambdaExtensionFlusher;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * A base class similar to {@link RequestStreamHandler} but will automatically trace invocations of
@@ -29,6 +31,7 @@ public abstract class TracingRequestStreamHandler implements RequestStreamHandle
   private final OpenTelemetrySdk openTelemetrySdk;
   private final long flushTimeoutNanos;
   private final AwsLambdaFunctionInstrumenter instrumenter;
+  @Nullable private final LambdaExtensionFlusher extensionFlusher;
 
   /**
    * Creates a new {@link TracingRequestStreamHandler} which traces using the provided {@link
@@ -62,6 +65,9 @@ public abstract class TracingRequestStreamHandler implements RequestStreamHandle
     this.openTelemetrySdk = openTelemetrySdk;
     this.flushTimeoutNanos = flushTimeout.toNanos();
     this.instrumenter = instrumenter;
+    this.extensionFlusher =
+        LambdaUtils.registerExtensionFlusher(
+            openTelemetrySdk, flushTimeoutNanos, TimeUnit.NANOSECONDS);
   }
 
   @Override
@@ -74,7 +80,14 @@ public abstract class TracingRequestStreamHandler implements RequestStreamHandle
     io.opentelemetry.context.Context parentContext = instrumenter.extract(request);
 
     if (!instrumenter.shouldStart(parentContext, request)) {
-      doHandleRequest(proxyRequest.freshStream(), output, context);
+      try {
+        doHandleRequest(proxyRequest.freshStream(), output, context);
+      } finally {
+        // the extension waits for the end of every invocation
+        if (extensionFlusher != null) {
+          extensionFlusher.invocationEnded();
+        }
+      }
       return;
     }
 
@@ -86,7 +99,8 @@ public abstract class TracingRequestStreamHandler implements RequestStreamHandle
           context);
     } catch (Throwable t) {
       instrumenter.end(otelContext, request, null, t);
-      LambdaUtils.forceFlush(openTelemetrySdk, flushTimeoutNanos, TimeUnit.NANOSECONDS);
+      LambdaUtils.invocationEnded(
+          extensionFlusher, openTelemetrySdk, flushTimeoutNanos, TimeUnit.NANOSECONDS);
       throw t;
     }
   }
@@ -136,7 +150,8 @@ public abstract class TracingRequestStreamHandler implements RequestStreamHandle
     public void close() throws IOException {
       delegate.close();
       instrumenter.end(otelContext, request, null, null);
-      LambdaUtils.forceFlush(openTelemetrySdk, flushTimeoutNanos, TimeUnit.NANOSECONDS);
+      LambdaUtils.invocationEnded(
+          extensionFlusher, openTelemetrySdk, flushTimeoutNanos, TimeUnit.NANOSECONDS);
     }
   }
 }
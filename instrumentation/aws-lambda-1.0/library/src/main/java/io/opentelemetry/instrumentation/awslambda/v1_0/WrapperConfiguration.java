@@ -15,6 +15,9 @@ public final class WrapperConfiguration {
       "OTEL_INSTRUMENTATION_AWS_LAMBDA_FLUSH_TIMEOUT";
   public static final Duration OTEL_LAMBDA_FLUSH_TIMEOUT_DEFAULT = Duration.ofSeconds(10);
 
+  public static final String OTEL_LAMBDA_ASYNC_FLUSH_ENV_KEY =
+      "OTEL_INSTRUMENTATION_AWS_LAMBDA_EXPERIMENTAL_ASYNC_FLUSH";
+
   public static Duration flushTimeout() {
     String lambdaFlushTimeout = System.getenv(OTEL_LAMBDA_FLUSH_TIMEOUT_ENV_KEY);
     if (lambdaFlushTimeout != null && !lambdaFlushTimeout.isEmpty()) {
@@ -26,4 +29,12 @@ public final class WrapperConfiguration {
     }
     return OTEL_LAMBDA_FLUSH_TIMEOUT_DEFAULT;
   }
+
+  /**
+   * Returns whether the telemetry of an invocation is flushed after the response is returned, by a
+   * Lambda extension, instead of before.
+   */
+  public static boolean asyncFlush() {
+    return Boolean.parseBoolean(System.getenv(OTEL_LAMBDA_ASYNC_FLUSH_ENV_KEY));
+  }
 }
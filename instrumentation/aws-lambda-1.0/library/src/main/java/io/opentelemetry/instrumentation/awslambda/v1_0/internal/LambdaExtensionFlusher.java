@@ -0,0 +1,189 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.awslambda.v1_0.internal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Flushes the telemetry of an invocation after the function has returned its response, as an
+ * internal extension of the <a
+ * href="https://docs.aws.amazon.com/lambda/latest/dg/runtimes-extensions-api.html">Lambda
+ * Extensions API</a>.
+ *
+ * <p>Lambda only freezes the execution environment once the runtime and all the extensions are
+ * waiting for the next event. The extension thread receives the {@code INVOKE} event when an
+ * invocation starts, waits for {@link #invocationEnded()}, which doesn't block the handler, flushes
+ * and only then waits for the next event: the telemetry is exported before the environment is
+ * frozen, but after the response is sent. Internal extensions can't register for the {@code
+ * SHUTDOWN} event, the telemetry of each invocation is flushed before the following one starts.
+ *
+ * <p>If the extension fails, e.g. because the runtime API can't be reached, {@link
+ * #invocationEnded()} flushes synchronously, like when the extension isn't used.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+public final class LambdaExtensionFlusher {
+
+  private static final Logger logger = LoggerFactory.getLogger(LambdaExtensionFlusher.class);
+
+  private static final String RUNTIME_API_ENV = "AWS_LAMBDA_RUNTIME_API";
+  private static final String EXTENSION_API = "/2020-01-01/extension";
+  private static final String EXTENSION_NAME_HEADER = "Lambda-Extension-Name";
+  private static final String EXTENSION_ID_HEADER = "Lambda-Extension-Identifier";
+  private static final Pattern EVENT_TYPE = Pattern.compile("\"eventType\"\\s*:\\s*\"(\\w+)\"");
+  private static final Pattern DEADLINE = Pattern.compile("\"deadlineMs\"\\s*:\\s*(\\d+)");
+
+  private final String runtimeApi;
+  private final String extensionId;
+  private final Runnable flush;
+  // released by every end of an invocation
+  private final Semaphore invocationsEnded = new Semaphore(0);
+  private volatile boolean failed;
+
+  private LambdaExtensionFlusher(String runtimeApi, String extensionId, Runnable flush) {
+    this.runtimeApi = runtimeApi;
+    this.extensionId = extensionId;
+    this.flush = flush;
+  }
+
+  /**
+   * Registers an internal extension named {@code name} with the runtime API of the {@code
+   * AWS_LAMBDA_RUNTIME_API} environment variable, which runs {@code flush} after each invocation.
+   * Extensions can only be registered while the function is initialized, e.g. when the handler is
+   * created. Returns {@code null} if the function doesn't run in Lambda or the extension can't be
+   * registered.
+   */
+  @Nullable
+  public static LambdaExtensionFlusher register(String name, Runnable flush) {
+    String runtimeApi = System.getenv(RUNTIME_API_ENV);
+    if (runtimeApi == null || runtimeApi.isEmpty()) {
+      return null;
+    }
+    return register(runtimeApi, name, flush);
+  }
+
+  // visible for testing
+  @Nullable
+  static LambdaExtensionFlusher register(String runtimeApi, String name, Runnable flush) {
+    String extensionId;
+    try {
+      HttpURLConnection connection = open(runtimeApi, "/register");
+      connection.setRequestMethod("POST");
+      connection.setRequestProperty(EXTENSION_NAME_HEADER, name);
+      connection.setDoOutput(true);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write("{\"events\":[\"INVOKE\"]}".getBytes(UTF_8));
+      }
+      readResponse(connection);
+      extensionId = connection.getHeaderField(EXTENSION_ID_HEADER);
+    } catch (IOException e) {
+      logger.warn("Failed to register the Lambda extension, flushing synchronously", e);
+      return null;
+    }
+    if (extensionId == null) {
+      logger.warn("The Lambda extension wasn't given an identifier, flushing synchronously");
+      return null;
+    }
+
+    LambdaExtensionFlusher flusher = new LambdaExtensionFlusher(runtimeApi, extensionId, flush);
+    Thread thread = new Thread(flusher::run, "otel-lambda-extension");
+    thread.setDaemon(true);
+    thread.start();
+    return flusher;
+  }
+
+  /**
+   * Signals the end of the current invocation, its telemetry is flushed before the next one.
+   * Doesn't block, unless the extension failed.
+   */
+  public void invocationEnded() {
+    if (failed) {
+      flush.run();
+    } else {
+      invocationsEnded.release();
+    }
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        String event = nextEvent();
+        Matcher eventType = EVENT_TYPE.matcher(event);
+        if (!eventType.find() || !"INVOKE".equals(eventType.group(1))) {
+          // SHUTDOWN, if ever sent, ends the environment
+          flush.run();
+          return;
+        }
+        // the invocation can't go on past its deadline, wait at most until then
+        Matcher deadline = DEADLINE.matcher(event);
+        long timeoutMillis =
+            deadline.find()
+                ? Long.parseLong(deadline.group(1)) - System.currentTimeMillis()
+                : Long.MAX_VALUE;
+        invocationsEnded.tryAcquire(Math.max(timeoutMillis, 0), TimeUnit.MILLISECONDS);
+        // nested handlers may end the invocation more than once, and the next invocation can't
+        // start before the next event is requested
+        invocationsEnded.drainPermits();
+        flush.run();
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.warn("The Lambda extension failed, flushing synchronously", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    failed = true;
+    // an invocation may have ended while the extension was failing
+    if (invocationsEnded.drainPermits() > 0) {
+      flush.run();
+    }
+  }
+
+  // blocks until the next event, the environment may be frozen in the meantime
+  private String nextEvent() throws IOException {
+    HttpURLConnection connection = open(runtimeApi, "/event/next");
+    connection.setRequestProperty(EXTENSION_ID_HEADER, extensionId);
+    return readResponse(connection);
+  }
+
+  private static HttpURLConnection open(String runtimeApi, String path) throws IOException {
+    HttpURLConnection connection =
+        (HttpURLConnection) new URL("http://" + runtimeApi + EXTENSION_API + path).openConnection();
+    // the next event only comes with the next invocation
+    connection.setReadTimeout(0);
+    return connection;
+  }
+
+  private static String readResponse(HttpURLConnection connection) throws IOException {
+    int status = connection.getResponseCode();
+    if (status != HttpURLConnection.HTTP_OK) {
+      throw new IOException("Unexpected response status " + status + " from the runtime API");
+    }
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try (InputStream in = connection.getInputStream()) {
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        body.write(buffer, 0, read);
+      }
+    }
+    return new String(body.toByteArray(), UTF_8);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.awslambda.v1_0.internal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LambdaExtensionFlusherTest {
+
+  private static final String INVOKE =
+      "{\"eventType\":\"INVOKE\",\"deadlineMs\":%d,\"requestId\":\"request\"}";
+
+  // a stand-in for the runtime API, which records the calls of the extension
+  private HttpServer runtimeApi;
+  private ExecutorService executor;
+  private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+  private final List<String> calls = new CopyOnWriteArrayList<>();
+  private volatile int registerStatus = 200;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    runtimeApi = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    runtimeApi.createContext(
+        "/2020-01-01/extension/register",
+        exchange -> {
+          calls.add("register " + exchange.getRequestHeaders().getFirst("Lambda-Extension-Name"));
+          exchange.getResponseHeaders().add("Lambda-Extension-Identifier", "extension-id");
+          respond(exchange, registerStatus, "{}");
+        });
+    runtimeApi.createContext(
+        "/2020-01-01/extension/event/next",
+        exchange -> {
+          calls.add("next " + exchange.getRequestHeaders().getFirst("Lambda-Extension-Identifier"));
+          try {
+            respond(exchange, 200, events.take());
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    // next event requests block until there is an event
+    executor = Executors.newCachedThreadPool();
+    runtimeApi.setExecutor(executor);
+    runtimeApi.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    runtimeApi.stop(0);
+    executor.shutdownNow();
+  }
+
+  @Test
+  void flushesAfterInvocationEndsBeforeNextEvent() throws InterruptedException {
+    CountDownLatch flushed = new CountDownLatch(1);
+    LambdaExtensionFlusher flusher =
+        register(
+            () -> {
+              calls.add("flush");
+              flushed.countDown();
+            });
+    assertThat(flusher).isNotNull();
+
+    events.add(invokeEvent(TimeUnit.MINUTES.toMillis(1)));
+    Thread.sleep(100);
+    assertThat(calls).doesNotContain("flush");
+
+    flusher.invocationEnded();
+
+    assertThat(flushed.await(10, TimeUnit.SECONDS)).isTrue();
+    awaitCalls(4);
+    // the environment is only frozen once the extension asks for the next event
+    assertThat(calls)
+        .containsExactly(
+            "register test-extension", "next extension-id", "flush", "next extension-id");
+  }
+
+  @Test
+  void flushesAtDeadlineWhenInvocationDoesNotEnd() throws InterruptedException {
+    CountDownLatch flushed = new CountDownLatch(1);
+    register(flushed::countDown);
+
+    events.add(invokeEvent(0));
+
+    assertThat(flushed.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void flushesInvocationsThatEndedSeveralTimesOnce() throws InterruptedException {
+    CountDownLatch flushed = new CountDownLatch(2);
+    LambdaExtensionFlusher flusher = register(flushed::countDown);
+
+    // e.g. nested handlers
+    flusher.invocationEnded();
+    flusher.invocationEnded();
+    events.add(invokeEvent(TimeUnit.MINUTES.toMillis(1)));
+    awaitCalls(3);
+    events.add(invokeEvent(TimeUnit.MINUTES.toMillis(1)));
+
+    // the second invocation didn't end
+    assertThat(flushed.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    assertThat(flushed.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void returnsNullWhenRegistrationFails() {
+    registerStatus = 403;
+
+    assertThat(register(() -> {})).isNull();
+  }
+
+  private LambdaExtensionFlusher register(Runnable flush) {
+    return LambdaExtensionFlusher.register(
+        "localhost:" + runtimeApi.getAddress().getPort(), "test-extension", flush);
+  }
+
+  private static String invokeEvent(long millisToDeadline) {
+    return String.format(INVOKE, System.currentTimeMillis() + millisToDeadline);
+  }
+
+  private void awaitCalls(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (calls.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -71,7 +71,8 @@ public class ClassLoaderInstrumentation implements TypeInstrumentation {
   }
 
   public static class Holder {
-    public static final List<String> bootstrapPackagesPrefixes = findBootstrapPackagePrefixes();
+    public static final PackagePrefixTrie bootstrapPackagesPrefixes =
+        PackagePrefixTrie.create(findBootstrapPackagePrefixes());
 
     /**
      * We have to make sure that {@link BootstrapPackagePrefixesHolder} is loaded from bootstrap
@@ -112,13 +113,11 @@ public class ClassLoaderInstrumentation implements TypeInstrumentation {
       }
 
       try {
-        for (String prefix : Holder.bootstrapPackagesPrefixes) {
-          if (name.startsWith(prefix)) {
-            try {
-              return Class.forName(name, false, null);
-            } catch (ClassNotFoundException ignored) {
-              // Ignore
-            }
+        if (Holder.bootstrapPackagesPrefixes.matches(name)) {
+          try {
+            return Class.forName(name, false, null);
+          } catch (ClassNotFoundException ignored) {
+            // Ignore
           }
         }
       } finally {
@@ -0,0 +1,107 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.instrumentation.internal.classloader;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * A prefix tree of the bootstrap package prefixes, checking whether a class name starts with any of
+ * them in a single pass over the name. The chains of characters that are shared by all the prefixes
+ * below a node (like {@code "io.opentelemetry.javaagent."}) are compared at once, so most class
+ * names, which don't match, are rejected by a single {@link String#startsWith(String, int)}.
+ *
+ * <p>This class is injected as a helper into every instrumented classloader, so it can't use the
+ * {@code Trie} of the agent.
+ */
+public final class PackagePrefixTrie {
+
+  private final String label;
+  private final char[] chars;
+  private final PackagePrefixTrie[] children;
+  private final boolean isPrefix;
+
+  private PackagePrefixTrie(
+      String label, char[] chars, PackagePrefixTrie[] children, boolean isPrefix) {
+    this.label = label;
+    this.chars = chars;
+    this.children = children;
+    this.isPrefix = isPrefix;
+  }
+
+  public static PackagePrefixTrie create(List<String> prefixes) {
+    NodeBuilder root = new NodeBuilder();
+    for (String prefix : prefixes) {
+      NodeBuilder node = root;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new NodeBuilder());
+      }
+      node.isPrefix = true;
+    }
+    return root.build();
+  }
+
+  /** Returns whether {@code name} starts with any of the prefixes. */
+  public boolean matches(String name) {
+    PackagePrefixTrie node = this;
+    int offset = 0;
+    while (true) {
+      if (!name.startsWith(node.label, offset)) {
+        return false;
+      }
+      offset += node.label.length();
+      if (node.isPrefix) {
+        return true;
+      }
+      if (offset == name.length()) {
+        return false;
+      }
+      node = node.next(name.charAt(offset++));
+      if (node == null) {
+        return false;
+      }
+    }
+  }
+
+  @Nullable
+  private PackagePrefixTrie next(char c) {
+    // there are few prefixes, nodes have a couple of children at most
+    for (int i = 0; i < chars.length; i++) {
+      if (chars[i] == c) {
+        return children[i];
+      }
+    }
+    return null;
+  }
+
+  private static final class NodeBuilder {
+    // sorted, to build the same trie for the same prefixes
+    final Map<Character, NodeBuilder> children = new TreeMap<>();
+    boolean isPrefix;
+
+    PackagePrefixTrie build() {
+      // collapse the chain of nodes that have a single child into the label of the first one
+      StringBuilder label = new StringBuilder();
+      NodeBuilder node = this;
+      while (!node.isPrefix && node.children.size() == 1) {
+        Map.Entry<Character, NodeBuilder> child = node.children.entrySet().iterator().next();
+        label.append(child.getKey().charValue());
+        node = child.getValue();
+      }
+
+      char[] chars = new char[node.children.size()];
+      PackagePrefixTrie[] nodes = new PackagePrefixTrie[node.children.size()];
+      int i = 0;
+      for (Map.Entry<Character, NodeBuilder> entry : node.children.entrySet()) {
+        chars[i] = entry.getKey();
+        nodes[i++] = entry.getValue().build();
+      }
+      return new PackagePrefixTrie(label.toString(), chars, nodes, node.isPrefix);
+    }
+  }
+}
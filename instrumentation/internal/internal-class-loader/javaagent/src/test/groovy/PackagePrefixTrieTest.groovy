@@ -0,0 +1,40 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import io.opentelemetry.javaagent.instrumentation.internal.classloader.PackagePrefixTrie
+import spock.lang.Specification
+
+class PackagePrefixTrieTest extends Specification {
+  static final List<String> PREFIXES = [
+    "io.opentelemetry.javaagent.bootstrap",
+    "io.opentelemetry.javaagent.shaded",
+    "io.opentelemetry.javaagent.instrumentation.api",
+    "io.opentelemetry.javaagent.bootstrap.field",
+    "org.example"
+  ]
+
+  def "matches like String.startsWith for #name"() {
+    expect:
+    PackagePrefixTrie.create(PREFIXES).matches(name) == PREFIXES.any { name.startsWith(it) }
+
+    where:
+    name << [
+      "java.lang.String",
+      "io.opentelemetry.javaagent.bootstrap.AgentClassLoader",
+      "io.opentelemetry.javaagent.bootstrapping.Foo",
+      "io.opentelemetry.javaagent.shade",
+      "io.opentelemetry.javaagent.instrumentation.apache.Foo",
+      "io.opentelemetry.api.trace.Span",
+      "org.example",
+      "org.exampl",
+      "",
+    ]
+  }
+
+  def "matches nothing without prefixes"() {
+    expect:
+    !PackagePrefixTrie.create([]).matches("java.lang.String")
+  }
+}
@@ -8,6 +8,7 @@ package io.opentelemetry.javaagent.instrumentation.httpclient;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 public final class CompletableFutureWrapper {
 
@@ -18,18 +19,29 @@ public final class CompletableFutureWrapper {
       return future;
     }
 
-    CompletableFuture<T> result = new CompletableFuture<>();
-    future.whenComplete(
-        (T value, Throwable throwable) -> {
-          try (Scope ignored = context.makeCurrent()) {
-            if (throwable != null) {
-              result.completeExceptionally(throwable);
-            } else {
-              result.complete(value);
-            }
-          }
-        });
-
+    ContextPropagatingFuture<T> result = new ContextPropagatingFuture<>(context);
+    future.whenComplete(result);
     return result;
   }
+
+  // the returned future is also the completion callback, which saves allocating a lambda
+  private static final class ContextPropagatingFuture<T> extends CompletableFuture<T>
+      implements BiConsumer<T, Throwable> {
+    private final Context context;
+
+    ContextPropagatingFuture(Context context) {
+      this.context = context;
+    }
+
+    @Override
+    public void accept(T value, Throwable throwable) {
+      try (Scope ignored = context.makeCurrent()) {
+        if (throwable != null) {
+          completeExceptionally(throwable);
+        } else {
+          complete(value);
+        }
+      }
+    }
+  }
 }
@@ -10,10 +10,16 @@ import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.context.propagation.TextMapSetter;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
 
 // TODO should this class implement TextMapSetter at all?
 /** Context propagation is initiated via {@link HttpHeadersInstrumentation}. */
@@ -31,15 +37,99 @@ public class HttpHeadersSetter implements TextMapSetter<HttpRequest> {
   }
 
   public HttpHeaders inject(HttpHeaders original) {
-    Map<String, List<String>> headerMap = new HashMap<>(original.map());
-
+    // case insensitive like HttpHeaders, a propagated header replaces the original one
+    Map<String, List<String>> propagated = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     contextPropagators
         .getTextMapPropagator()
         .inject(
             Context.current(),
-            headerMap,
+            propagated,
             (carrier, key, value) -> carrier.put(key, Collections.singletonList(value)));
+    if (propagated.isEmpty()) {
+      return original;
+    }
+
+    // HttpHeaders is final and copies the map it's created from, overlay the propagated headers on
+    // the original ones instead of copying them into another map first
+    return HttpHeaders.of(new OverlayMap(original.map(), propagated), (s, s2) -> true);
+  }
+
+  private static final class OverlayMap extends AbstractMap<String, List<String>> {
+    private final Map<String, List<String>> original;
+    private final Map<String, List<String>> propagated;
+
+    OverlayMap(Map<String, List<String>> original, Map<String, List<String>> propagated) {
+      this.original = original;
+      this.propagated = propagated;
+    }
+
+    private boolean isReplaced(String key) {
+      return propagated.containsKey(key);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super List<String>> action) {
+      original.forEach(
+          (key, value) -> {
+            if (!isReplaced(key)) {
+              action.accept(key, value);
+            }
+          });
+      propagated.forEach(action);
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+      return new AbstractSet<Entry<String, List<String>>>() {
+        @Override
+        public Iterator<Entry<String, List<String>>> iterator() {
+          return new OverlayIterator();
+        }
+
+        @Override
+        public int size() {
+          int size = propagated.size();
+          for (String key : original.keySet()) {
+            if (!isReplaced(key)) {
+              size++;
+            }
+          }
+          return size;
+        }
+      };
+    }
+
+    private final class OverlayIterator implements Iterator<Entry<String, List<String>>> {
+      private final Iterator<Entry<String, List<String>>> originalEntries =
+          original.entrySet().iterator();
+      private final Iterator<Entry<String, List<String>>> propagatedEntries =
+          propagated.entrySet().iterator();
+      private Entry<String, List<String>> next = advance();
+
+      private Entry<String, List<String>> advance() {
+        while (originalEntries.hasNext()) {
+          Entry<String, List<String>> entry = originalEntries.next();
+          if (!isReplaced(entry.getKey())) {
+            return entry;
+          }
+        }
+        return propagatedEntries.hasNext() ? propagatedEntries.next() : null;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
 
-    return HttpHeaders.of(headerMap, (s, s2) -> true);
+      @Override
+      public Entry<String, List<String>> next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        Entry<String, List<String>> current = next;
+        next = advance();
+        return current;
+      }
+    }
   }
 }
@@ -11,7 +11,7 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.BDDMockito.given;
 
 import io.opentelemetry.instrumentation.api.instrumenter.messaging.MessageOperation;
-import java.time.Instant;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import javax.jms.Destination;
 import javax.jms.JMSException;
@@ -31,7 +31,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
 class MessageWithDestinationTest {
-  private static final Instant START_TIME = Instant.ofEpochSecond(42);
+  private static final long START_TIME = TimeUnit.SECONDS.toNanos(42);
 
   @Mock Message message;
   @Mock Topic topic;
@@ -43,7 +43,7 @@ class MessageWithDestinationTest {
 
   @BeforeEach
   void setUp() {
-    given(timer.startTime()).willReturn(START_TIME);
+    given(timer.startEpochNanos()).willReturn(START_TIME);
   }
 
   @Test
@@ -143,6 +143,6 @@ class MessageWithDestinationTest {
     assertEquals(expectedDestinationKind, actual.destinationKind());
     assertEquals(expectedDestinationName, actual.destinationName());
     assertEquals(expectedTemporary, actual.isTemporaryDestination());
-    assertEquals(START_TIME, actual.startTime());
+    assertEquals(START_TIME, actual.startEpochNanos());
   }
 }
@@ -45,8 +45,9 @@ public final class JmsSingletons {
     return Instrumenter.<MessageWithDestination, Void>builder(
             GlobalOpenTelemetry.get(), INSTRUMENTATION_NAME, spanNameExtractor)
         .addAttributesExtractor(attributesExtractor)
-        .setTimeExtractors(
-            MessageWithDestination::startTime, (request, response, error) -> request.endTime())
+        .setTimeNanosExtractors(
+            MessageWithDestination::startEpochNanos,
+            (request, response, error) -> request.endEpochNanos())
         .setDisabled(ExperimentalConfig.get().suppressMessagingReceiveSpans())
         .newInstrumenter(SpanKindExtractor.alwaysConsumer());
   }
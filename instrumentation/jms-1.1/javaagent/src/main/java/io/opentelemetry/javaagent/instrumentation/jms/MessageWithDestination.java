@@ -6,7 +6,6 @@
 package io.opentelemetry.javaagent.instrumentation.jms;
 
 import com.google.auto.value.AutoValue;
-import java.time.Instant;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
@@ -31,12 +30,12 @@ public abstract class MessageWithDestination {
 
   abstract Timer timer();
 
-  public Instant startTime() {
-    return timer().startTime();
+  public long startEpochNanos() {
+    return timer().startEpochNanos();
   }
 
-  public Instant endTime() {
-    return timer().endTime();
+  public long endEpochNanos() {
+    return timer().endEpochNanos();
   }
 
   public static MessageWithDestination create(Message message, Destination fallbackDestination) {
@@ -51,9 +51,19 @@ tasks {
     jvmArgs("-Dotel.instrumentation.common.experimental.suppress-messaging-receive-spans=true")
   }
 
+  val testBinaryPropagation by registering(Test::class) {
+    filter {
+      includeTestsMatching("KafkaClientDefaultTest")
+      isFailOnNoMatchingTests = false
+    }
+    include("**/KafkaClientDefaultTest.*")
+    jvmArgs("-Dotel.instrumentation.kafka.experimental-binary-propagation.enabled=true")
+  }
+
   test {
     dependsOn(testPropagationDisabled)
     dependsOn(testReceiveSpansDisabled)
+    dependsOn(testBinaryPropagation)
     filter {
       excludeTestsMatching("KafkaClientPropagationDisabledTest")
       excludeTestsMatching("KafkaClientSuppressReceiveSpansTest")
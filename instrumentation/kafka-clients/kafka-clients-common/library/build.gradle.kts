@@ -6,4 +6,6 @@ dependencies {
   compileOnly("org.apache.kafka:kafka-clients:0.11.0.0")
   compileOnly("com.google.auto.value:auto-value-annotations")
   annotationProcessor("com.google.auto.value:auto-value")
+
+  testImplementation("org.apache.kafka:kafka-clients:0.11.0.0")
 }
@@ -62,7 +62,8 @@ public final class KafkaInstrumenterFactory {
             openTelemetry, instrumentationName, spanNameExtractor)
         .addAttributesExtractor(attributesExtractor)
         .addAttributesExtractors(extractors)
-        .setTimeExtractors(ReceivedRecords::startTime, (request, response, error) -> request.now())
+        .setTimeNanosExtractors(
+            ReceivedRecords::startEpochNanos, (request, response, error) -> request.nowEpochNanos())
         .setDisabled(ExperimentalConfig.get().suppressMessagingReceiveSpans())
         .newInstrumenter(SpanKindExtractor.alwaysConsumer());
   }
@@ -88,7 +89,9 @@ public final class KafkaInstrumenterFactory {
 
     InstrumenterBuilder<ConsumerRecord<?, ?>, Void> builder =
         Instrumenter.<ConsumerRecord<?, ?>, Void>builder(
-                openTelemetry, instrumentationName, spanNameExtractor)
+                KafkaPropagation.consumerOpenTelemetry(openTelemetry),
+                instrumentationName,
+                spanNameExtractor)
             .addAttributesExtractor(attributesExtractor)
             .addAttributesExtractor(new KafkaConsumerAdditionalAttributesExtractor())
             .addAttributesExtractors(extractors);
@@ -103,7 +106,8 @@ public final class KafkaInstrumenterFactory {
     } else {
       builder.addSpanLinksExtractor(
           SpanLinksExtractor.fromUpstreamRequest(
-              GlobalOpenTelemetry.getPropagators(), new KafkaConsumerRecordGetter()));
+              KafkaPropagation.consumerPropagators(GlobalOpenTelemetry.getPropagators()),
+              new KafkaConsumerRecordGetter()));
       return builder.newInstrumenter(SpanKindExtractor.alwaysConsumer());
     }
   }
@@ -6,7 +6,10 @@
 package io.opentelemetry.instrumentation.kafka.internal;
 
 import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.TracerProvider;
 import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.instrumentation.api.config.Config;
 import org.apache.kafka.clients.ApiVersions;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -19,10 +22,56 @@ public final class KafkaPropagation {
   private static final boolean CLIENT_PROPAGATION_ENABLED =
       Config.get().getBoolean("otel.instrumentation.kafka.client-propagation.enabled", true);
 
+  private static final boolean BINARY_PROPAGATION_ENABLED =
+      Config.get()
+          .getBoolean("otel.instrumentation.kafka.experimental-binary-propagation.enabled", false);
+
   public static boolean isPropagationEnabled() {
     return CLIENT_PROPAGATION_ENABLED;
   }
 
+  /**
+   * Returns whether the span context is propagated in a binary header instead of the text headers
+   * of the configured propagators, see {@link KafkaBinaryTraceContextPropagator}.
+   */
+  public static boolean isBinaryPropagationEnabled() {
+    return BINARY_PROPAGATION_ENABLED;
+  }
+
+  /**
+   * Returns the propagators to extract the context of consumed records with, which read the binary
+   * header when binary propagation is enabled.
+   */
+  public static ContextPropagators consumerPropagators(ContextPropagators propagators) {
+    if (!BINARY_PROPAGATION_ENABLED) {
+      return propagators;
+    }
+    return ContextPropagators.create(
+        KafkaBinaryTraceContextPropagator.create(propagators.getTextMapPropagator()));
+  }
+
+  /**
+   * Returns an {@link OpenTelemetry} that extracts the context of consumed records with the {@link
+   * #consumerPropagators(ContextPropagators)}.
+   */
+  public static OpenTelemetry consumerOpenTelemetry(OpenTelemetry openTelemetry) {
+    if (!BINARY_PROPAGATION_ENABLED) {
+      return openTelemetry;
+    }
+    ContextPropagators propagators = consumerPropagators(openTelemetry.getPropagators());
+    return new OpenTelemetry() {
+      @Override
+      public TracerProvider getTracerProvider() {
+        return openTelemetry.getTracerProvider();
+      }
+
+      @Override
+      public ContextPropagators getPropagators() {
+        return propagators;
+      }
+    };
+  }
+
   // Do not inject headers for batch versions below 2
   // This is how similar check is being done in Kafka client itself:
   // https://github.com/apache/kafka/blob/05fcfde8f69b0349216553f711fdfc3f0259c601/clients/src/main/java/org/apache/kafka/common/record/MemoryRecordsBuilder.java#L411-L412
@@ -56,6 +105,10 @@ public final class KafkaPropagation {
   }
 
   private static <K, V> void inject(Context context, ProducerRecord<K, V> record) {
+    if (BINARY_PROPAGATION_ENABLED) {
+      KafkaBinaryTraceContextPropagator.inject(context, record.headers());
+      return;
+    }
     GlobalOpenTelemetry.getPropagators()
         .getTextMapPropagator()
         .inject(context, record.headers(), SETTER);
@@ -6,7 +6,6 @@
 package io.opentelemetry.instrumentation.kafka.internal;
 
 import com.google.auto.value.AutoValue;
-import java.time.Instant;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 
 @AutoValue
@@ -20,11 +19,11 @@ public abstract class ReceivedRecords {
 
   abstract Timer timer();
 
-  public Instant startTime() {
-    return timer().startTime();
+  public long startEpochNanos() {
+    return timer().startEpochNanos();
   }
 
-  public Instant now() {
-    return timer().now();
+  public long nowEpochNanos() {
+    return timer().nowEpochNanos();
   }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.kafka.internal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import java.util.Arrays;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+class KafkaBinaryTraceContextPropagatorTest {
+
+  private static final SpanContext SPAN_CONTEXT =
+      SpanContext.create(
+          "0af7651916cd43dd8448eb211c80319c",
+          "b7ad6b7169203331",
+          TraceFlags.getSampled(),
+          TraceState.getDefault());
+  private static final String TRACEPARENT =
+      "00-ff000000000000000000000000000041-ff00000000000041-01";
+
+  private final TextMapPropagator propagator =
+      KafkaBinaryTraceContextPropagator.create(W3CTraceContextPropagator.getInstance());
+  private final KafkaHeadersSetter setter = new KafkaHeadersSetter();
+  private final KafkaHeadersGetter getter = new KafkaHeadersGetter();
+
+  @Test
+  void roundTrip() {
+    Headers headers = new RecordHeaders();
+    propagator.inject(Context.root().with(Span.wrap(SPAN_CONTEXT)), headers, setter);
+
+    assertThat(headers.toArray()).hasSize(1);
+    assertThat(headers.lastHeader(KafkaBinaryTraceContextPropagator.HEADER).value()).hasSize(25);
+
+    SpanContext extracted = extract(headers);
+    assertThat(extracted.getTraceId()).isEqualTo(SPAN_CONTEXT.getTraceId());
+    assertThat(extracted.getSpanId()).isEqualTo(SPAN_CONTEXT.getSpanId());
+    assertThat(extracted.getTraceFlags()).isEqualTo(SPAN_CONTEXT.getTraceFlags());
+    assertThat(extracted.isRemote()).isTrue();
+  }
+
+  @Test
+  void replacesExistingHeader() {
+    Headers headers = new RecordHeaders();
+    headers.add(KafkaBinaryTraceContextPropagator.HEADER, new byte[25]);
+    propagator.inject(Context.root().with(Span.wrap(SPAN_CONTEXT)), headers, setter);
+
+    assertThat(headers.headers(KafkaBinaryTraceContextPropagator.HEADER)).hasSize(1);
+    assertThat(extract(headers).getSpanId()).isEqualTo(SPAN_CONTEXT.getSpanId());
+  }
+
+  @Test
+  void doesNotInjectInvalidSpanContext() {
+    Headers headers = new RecordHeaders();
+    propagator.inject(Context.root(), headers, setter);
+
+    assertThat(headers.toArray()).isEmpty();
+  }
+
+  @Test
+  void ignoresShortAndLongHeaders() {
+    for (int length : new int[] {0, 24, 26}) {
+      Headers headers = new RecordHeaders();
+      headers.add(KafkaBinaryTraceContextPropagator.HEADER, Arrays.copyOf(validValue(), length));
+
+      assertThat(extract(headers).isValid()).isFalse();
+    }
+  }
+
+  @Test
+  void ignoresHeaderWithoutValue() {
+    Headers headers = new RecordHeaders();
+    headers.add(KafkaBinaryTraceContextPropagator.HEADER, null);
+
+    assertThat(extract(headers).isValid()).isFalse();
+  }
+
+  @Test
+  void ignoresHeaderWithInvalidIds() {
+    // all zero trace and span ids
+    Headers headers = new RecordHeaders();
+    headers.add(KafkaBinaryTraceContextPropagator.HEADER, new byte[25]);
+
+    assertThat(extract(headers).isValid()).isFalse();
+  }
+
+  @Test
+  void fallsBackToTextHeadersOfMalformedHeader() {
+    Headers headers = new RecordHeaders();
+    headers.add(KafkaBinaryTraceContextPropagator.HEADER, new byte[] {1, 2, 3});
+    headers.add("traceparent", TRACEPARENT.getBytes(UTF_8));
+
+    SpanContext extracted = extract(headers);
+    assertThat(extracted.getTraceId()).isEqualTo("ff000000000000000000000000000041");
+    assertThat(extracted.getSpanId()).isEqualTo("ff00000000000041");
+  }
+
+  @Test
+  void prefersBinaryHeader() {
+    Headers headers = new RecordHeaders();
+    headers.add("traceparent", TRACEPARENT.getBytes(UTF_8));
+    headers.add(KafkaBinaryTraceContextPropagator.HEADER, validValue());
+
+    assertThat(extract(headers).getSpanId()).isEqualTo(SPAN_CONTEXT.getSpanId());
+  }
+
+  private SpanContext extract(Headers headers) {
+    return Span.fromContext(propagator.extract(Context.root(), headers, getter)).getSpanContext();
+  }
+
+  private static byte[] validValue() {
+    Headers headers = new RecordHeaders();
+    KafkaBinaryTraceContextPropagator.inject(Context.root().with(Span.wrap(SPAN_CONTEXT)), headers);
+    return headers.lastHeader(KafkaBinaryTraceContextPropagator.HEADER).value();
+  }
+}
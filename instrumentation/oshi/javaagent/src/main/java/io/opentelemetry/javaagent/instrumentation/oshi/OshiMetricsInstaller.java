@@ -8,6 +8,7 @@ package io.opentelemetry.javaagent.instrumentation.oshi;
 import com.google.auto.service.AutoService;
 import io.opentelemetry.instrumentation.api.config.Config;
 import io.opentelemetry.javaagent.extension.AgentListener;
+import io.opentelemetry.javaagent.instrumentation.api.OpenTelemetrySdkAccess;
 import java.lang.reflect.Method;
 import java.util.Collections;
 
@@ -21,17 +22,21 @@ public class OshiMetricsInstaller implements AgentListener {
   public void afterAgent(Config config) {
     if (config.isInstrumentationEnabled(
         Collections.singleton("oshi"), /* defaultEnabled= */ true)) {
-      try {
-        // Call oshi.SystemInfo.getCurrentPlatformEnum() to activate SystemMetrics.
-        // Oshi instrumentation will intercept this call and enable SystemMetrics.
-        Class<?> oshiSystemInfoClass =
-            ClassLoader.getSystemClassLoader().loadClass("oshi.SystemInfo");
-        Method getCurrentPlatformEnumMethod =
-            oshiSystemInfoClass.getMethod("getCurrentPlatformEnum");
-        getCurrentPlatformEnumMethod.invoke(null);
-      } catch (Throwable ex) {
-        // OK
-      }
+      // the metrics are registered with the meter provider of the SDK
+      OpenTelemetrySdkAccess.whenSdkInitialized(OshiMetricsInstaller::activateSystemMetrics);
+    }
+  }
+
+  private static void activateSystemMetrics() {
+    try {
+      // Call oshi.SystemInfo.getCurrentPlatformEnum() to activate SystemMetrics.
+      // Oshi instrumentation will intercept this call and enable SystemMetrics.
+      Class<?> oshiSystemInfoClass =
+          ClassLoader.getSystemClassLoader().loadClass("oshi.SystemInfo");
+      Method getCurrentPlatformEnumMethod = oshiSystemInfoClass.getMethod("getCurrentPlatformEnum");
+      getCurrentPlatformEnumMethod.invoke(null);
+    } catch (Throwable ex) {
+      // OK
     }
   }
 }
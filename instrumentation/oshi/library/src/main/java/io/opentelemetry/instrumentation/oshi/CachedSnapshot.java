@@ -0,0 +1,52 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.oshi;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Holds the most recently captured snapshot for up to the configured time-to-live, so that all the
+ * metric callbacks of a single collection cycle read the same values instead of querying the
+ * operating system again.
+ */
+final class CachedSnapshot<T> implements Supplier<T> {
+
+  // Visible for testing
+  static final Duration DEFAULT_TTL = Duration.ofSeconds(1);
+
+  private final Supplier<T> capture;
+  private final long ttlNanos;
+  private final LongSupplier nanoClock;
+
+  @Nullable private T snapshot;
+  private long capturedAtNanos;
+
+  CachedSnapshot(Supplier<T> capture, Duration ttl) {
+    this(capture, ttl, System::nanoTime);
+  }
+
+  // Visible for testing
+  CachedSnapshot(Supplier<T> capture, Duration ttl, LongSupplier nanoClock) {
+    this.capture = capture;
+    this.ttlNanos = ttl.toNanos();
+    this.nanoClock = nanoClock;
+  }
+
+  @Override
+  public synchronized T get() {
+    long now = nanoClock.getAsLong();
+    T current = snapshot;
+    if (current == null || now - capturedAtNanos >= ttlNanos) {
+      current = capture.get();
+      snapshot = current;
+      capturedAtNanos = now;
+    }
+    return current;
+  }
+}
@@ -9,22 +9,40 @@ import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.metrics.GlobalMeterProvider;
 import io.opentelemetry.api.metrics.Meter;
+import java.time.Duration;
+import java.util.function.Supplier;
 import oshi.SystemInfo;
-import oshi.software.os.OSProcess;
 import oshi.software.os.OperatingSystem;
 
 /** Java Runtime Metrics Utility. */
 public class ProcessMetrics {
   private static final AttributeKey<String> TYPE_KEY = AttributeKey.stringKey("type");
+  private static final AttributeKey<String> DIRECTION_KEY = AttributeKey.stringKey("direction");
+
+  private static final Attributes ATTRIBUTES_RSS = Attributes.of(TYPE_KEY, "rss");
+  private static final Attributes ATTRIBUTES_VMS = Attributes.of(TYPE_KEY, "vms");
+  private static final Attributes ATTRIBUTES_USER = Attributes.of(TYPE_KEY, "user");
+  private static final Attributes ATTRIBUTES_SYSTEM = Attributes.of(TYPE_KEY, "system");
+  private static final Attributes ATTRIBUTES_READ = Attributes.of(DIRECTION_KEY, "read");
+  private static final Attributes ATTRIBUTES_WRITE = Attributes.of(DIRECTION_KEY, "write");
 
   private ProcessMetrics() {}
 
   /** Register observers for java runtime metrics. */
   public static void registerObservers() {
+    registerObservers(CachedSnapshot.DEFAULT_TTL);
+  }
+
+  /**
+   * Register observers for java runtime metrics. The process values are read once and shared by all
+   * observers for {@code snapshotTtl}, which should be shorter than the metric collection interval.
+   */
+  public static void registerObservers(Duration snapshotTtl) {
     Meter meter = GlobalMeterProvider.get().get(ProcessMetrics.class.getName());
     SystemInfo systemInfo = new SystemInfo();
     OperatingSystem osInfo = systemInfo.getOperatingSystem();
-    OSProcess processInfo = osInfo.getProcess(osInfo.getProcessId());
+    Supplier<ProcessSnapshot> snapshots =
+        new CachedSnapshot<>(new ProcessSnapshot.Capture(osInfo), snapshotTtl);
 
     meter
         .gaugeBuilder("runtime.java.memory")
@@ -33,9 +51,9 @@ public class ProcessMetrics {
         .setUnit("bytes")
         .buildWithCallback(
             r -> {
-              processInfo.updateAttributes();
-              r.observe(processInfo.getResidentSetSize(), Attributes.of(TYPE_KEY, "rss"));
-              r.observe(processInfo.getVirtualSize(), Attributes.of(TYPE_KEY, "vms"));
+              ProcessSnapshot snapshot = snapshots.get();
+              r.observe(snapshot.residentSetSize, ATTRIBUTES_RSS);
+              r.observe(snapshot.virtualSize, ATTRIBUTES_VMS);
             });
 
     meter
@@ -44,9 +62,27 @@ public class ProcessMetrics {
         .setUnit("seconds")
         .buildWithCallback(
             r -> {
-              processInfo.updateAttributes();
-              r.observe(processInfo.getUserTime() * 1000, Attributes.of(TYPE_KEY, "user"));
-              r.observe(processInfo.getKernelTime() * 1000, Attributes.of(TYPE_KEY, "system"));
+              ProcessSnapshot snapshot = snapshots.get();
+              r.observe(snapshot.userTimeMillis * 1000, ATTRIBUTES_USER);
+              r.observe(snapshot.kernelTimeMillis * 1000, ATTRIBUTES_SYSTEM);
+            });
+
+    meter
+        .gaugeBuilder("runtime.java.cpu_utilization")
+        .setDescription("Runtime Java CPU utilization since the previous observation")
+        .setUnit("1")
+        .buildWithCallback(r -> r.observe(snapshots.get().cpuUtilization));
+
+    meter
+        .gaugeBuilder("runtime.java.disk.io")
+        .ofLongs()
+        .setDescription("Runtime Java disk IO")
+        .setUnit("By")
+        .buildWithCallback(
+            r -> {
+              ProcessSnapshot snapshot = snapshots.get();
+              r.observe(snapshot.bytesRead, ATTRIBUTES_READ);
+              r.observe(snapshot.bytesWritten, ATTRIBUTES_WRITE);
             });
   }
 }
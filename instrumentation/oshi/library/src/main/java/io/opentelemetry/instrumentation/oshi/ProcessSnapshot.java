@@ -0,0 +1,57 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.oshi;
+
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import oshi.software.os.OSProcess;
+import oshi.software.os.OperatingSystem;
+
+/** Process values read from OSHI once per collection cycle and shared by all process metrics. */
+final class ProcessSnapshot {
+  final long residentSetSize;
+  final long virtualSize;
+  final long userTimeMillis;
+  final long kernelTimeMillis;
+  final double cpuUtilization;
+  final long bytesRead;
+  final long bytesWritten;
+
+  private ProcessSnapshot(OSProcess process, double cpuUtilization) {
+    residentSetSize = process.getResidentSetSize();
+    virtualSize = process.getVirtualSize();
+    userTimeMillis = process.getUserTime();
+    kernelTimeMillis = process.getKernelTime();
+    bytesRead = process.getBytesRead();
+    bytesWritten = process.getBytesWritten();
+    this.cpuUtilization = cpuUtilization;
+  }
+
+  /**
+   * Captures {@link ProcessSnapshot}s of the current process. The CPU utilization is computed
+   * between two consecutive captures, so the first snapshot reports the utilization since the
+   * process started.
+   */
+  static final class Capture implements Supplier<ProcessSnapshot> {
+    private final OperatingSystem os;
+    private final int processId;
+    // only accessed from get(), which CachedSnapshot calls while holding its lock
+    @Nullable private OSProcess previous;
+
+    Capture(OperatingSystem os) {
+      this.os = os;
+      this.processId = os.getProcessId();
+    }
+
+    @Override
+    public ProcessSnapshot get() {
+      OSProcess current = os.getProcess(processId);
+      double cpuUtilization = current.getProcessCpuLoadBetweenTicks(previous);
+      previous = current;
+      return new ProcessSnapshot(current, cpuUtilization);
+    }
+  }
+}
@@ -9,17 +9,13 @@ import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.metrics.GlobalMeterProvider;
 import io.opentelemetry.api.metrics.Meter;
+import java.time.Duration;
+import java.util.function.Supplier;
 import oshi.SystemInfo;
-import oshi.hardware.GlobalMemory;
-import oshi.hardware.HWDiskStore;
 import oshi.hardware.HardwareAbstractionLayer;
-import oshi.hardware.NetworkIF;
 
 /** System Metrics Utility. */
 public class SystemMetrics {
-  private static final AttributeKey<String> DEVICE_KEY = AttributeKey.stringKey("device");
-  private static final AttributeKey<String> DIRECTION_KEY = AttributeKey.stringKey("direction");
-
   private static final AttributeKey<String> STATE_KEY = AttributeKey.stringKey("state");
 
   private static final Attributes ATTRIBUTES_USED = Attributes.of(STATE_KEY, "used");
@@ -29,9 +25,19 @@ public class SystemMetrics {
 
   /** Register observers for system metrics. */
   public static void registerObservers() {
+    registerObservers(CachedSnapshot.DEFAULT_TTL);
+  }
+
+  /**
+   * Register observers for system metrics. The hardware values are read once and shared by all
+   * observers for {@code snapshotTtl}, which should be shorter than the metric collection interval.
+   */
+  public static void registerObservers(Duration snapshotTtl) {
     Meter meter = GlobalMeterProvider.get().get("io.opentelemetry.instrumentation.oshi");
     SystemInfo systemInfo = new SystemInfo();
     HardwareAbstractionLayer hal = systemInfo.getHardware();
+    Supplier<SystemSnapshot> snapshots =
+        new CachedSnapshot<>(new SystemSnapshot.Capture(hal), snapshotTtl);
 
     meter
         .gaugeBuilder("system.memory.usage")
@@ -40,9 +46,9 @@ public class SystemMetrics {
         .setUnit("By")
         .buildWithCallback(
             r -> {
-              GlobalMemory mem = hal.getMemory();
-              r.observe(mem.getTotal() - mem.getAvailable(), ATTRIBUTES_USED);
-              r.observe(mem.getAvailable(), ATTRIBUTES_FREE);
+              SystemSnapshot snapshot = snapshots.get();
+              r.observe(snapshot.memoryTotal - snapshot.memoryAvailable, ATTRIBUTES_USED);
+              r.observe(snapshot.memoryAvailable, ATTRIBUTES_FREE);
             });
 
     meter
@@ -51,11 +57,13 @@ public class SystemMetrics {
         .setUnit("1")
         .buildWithCallback(
             r -> {
-              GlobalMemory mem = hal.getMemory();
+              SystemSnapshot snapshot = snapshots.get();
               r.observe(
-                  ((double) (mem.getTotal() - mem.getAvailable())) / mem.getTotal(),
+                  ((double) (snapshot.memoryTotal - snapshot.memoryAvailable))
+                      / snapshot.memoryTotal,
                   ATTRIBUTES_USED);
-              r.observe(((double) mem.getAvailable()) / mem.getTotal(), ATTRIBUTES_FREE);
+              r.observe(
+                  ((double) snapshot.memoryAvailable) / snapshot.memoryTotal, ATTRIBUTES_FREE);
             });
 
     meter
@@ -65,13 +73,9 @@ public class SystemMetrics {
         .setUnit("By")
         .buildWithCallback(
             r -> {
-              for (NetworkIF networkIf : hal.getNetworkIFs()) {
-                networkIf.updateAttributes();
-                long recv = networkIf.getBytesRecv();
-                long sent = networkIf.getBytesSent();
-                String device = networkIf.getName();
-                r.observe(recv, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "receive"));
-                r.observe(sent, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "transmit"));
+              for (SystemSnapshot.NetworkSnapshot networkIf : snapshots.get().networkInterfaces) {
+                r.observe(networkIf.bytesReceived, networkIf.receiveAttributes);
+                r.observe(networkIf.bytesSent, networkIf.transmitAttributes);
               }
             });
 
@@ -82,13 +86,9 @@ public class SystemMetrics {
         .setUnit("packets")
         .buildWithCallback(
             r -> {
-              for (NetworkIF networkIf : hal.getNetworkIFs()) {
-                networkIf.updateAttributes();
-                long recv = networkIf.getPacketsRecv();
-                long sent = networkIf.getPacketsSent();
-                String device = networkIf.getName();
-                r.observe(recv, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "receive"));
-                r.observe(sent, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "transmit"));
+              for (SystemSnapshot.NetworkSnapshot networkIf : snapshots.get().networkInterfaces) {
+                r.observe(networkIf.packetsReceived, networkIf.receiveAttributes);
+                r.observe(networkIf.packetsSent, networkIf.transmitAttributes);
               }
             });
 
@@ -99,13 +99,9 @@ public class SystemMetrics {
         .setUnit("errors")
         .buildWithCallback(
             r -> {
-              for (NetworkIF networkIf : hal.getNetworkIFs()) {
-                networkIf.updateAttributes();
-                long recv = networkIf.getInErrors();
-                long sent = networkIf.getOutErrors();
-                String device = networkIf.getName();
-                r.observe(recv, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "receive"));
-                r.observe(sent, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "transmit"));
+              for (SystemSnapshot.NetworkSnapshot networkIf : snapshots.get().networkInterfaces) {
+                r.observe(networkIf.inErrors, networkIf.receiveAttributes);
+                r.observe(networkIf.outErrors, networkIf.transmitAttributes);
               }
             });
 
@@ -116,12 +112,9 @@ public class SystemMetrics {
         .setUnit("By")
         .buildWithCallback(
             r -> {
-              for (HWDiskStore diskStore : hal.getDiskStores()) {
-                long read = diskStore.getReadBytes();
-                long write = diskStore.getWriteBytes();
-                String device = diskStore.getName();
-                r.observe(read, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "read"));
-                r.observe(write, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "write"));
+              for (SystemSnapshot.DiskSnapshot diskStore : snapshots.get().diskStores) {
+                r.observe(diskStore.readBytes, diskStore.readAttributes);
+                r.observe(diskStore.writeBytes, diskStore.writeAttributes);
               }
             });
 
@@ -132,12 +125,33 @@ public class SystemMetrics {
         .setUnit("operations")
         .buildWithCallback(
             r -> {
-              for (HWDiskStore diskStore : hal.getDiskStores()) {
-                long read = diskStore.getReads();
-                long write = diskStore.getWrites();
-                String device = diskStore.getName();
-                r.observe(read, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "read"));
-                r.observe(write, Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "write"));
+              for (SystemSnapshot.DiskSnapshot diskStore : snapshots.get().diskStores) {
+                r.observe(diskStore.reads, diskStore.readAttributes);
+                r.observe(diskStore.writes, diskStore.writeAttributes);
+              }
+            });
+
+    meter
+        .gaugeBuilder("system.disk.io_time")
+        .ofLongs()
+        .setDescription("Time spent by the system disk on IO")
+        .setUnit("ms")
+        .buildWithCallback(
+            r -> {
+              for (SystemSnapshot.DiskSnapshot diskStore : snapshots.get().diskStores) {
+                r.observe(diskStore.transferTimeMillis, diskStore.deviceAttributes);
+              }
+            });
+
+    meter
+        .gaugeBuilder("system.disk.pending_operations")
+        .ofLongs()
+        .setDescription("System disk operations waiting in the queue")
+        .setUnit("operations")
+        .buildWithCallback(
+            r -> {
+              for (SystemSnapshot.DiskSnapshot diskStore : snapshots.get().diskStores) {
+                r.observe(diskStore.queueLength, diskStore.deviceAttributes);
               }
             });
   }
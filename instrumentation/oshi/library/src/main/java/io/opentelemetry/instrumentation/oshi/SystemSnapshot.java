@@ -0,0 +1,142 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.oshi;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import oshi.hardware.GlobalMemory;
+import oshi.hardware.HWDiskStore;
+import oshi.hardware.HardwareAbstractionLayer;
+import oshi.hardware.NetworkIF;
+
+/** Hardware values read from OSHI once per collection cycle and shared by all system metrics. */
+final class SystemSnapshot {
+  static final AttributeKey<String> DEVICE_KEY = AttributeKey.stringKey("device");
+  static final AttributeKey<String> DIRECTION_KEY = AttributeKey.stringKey("direction");
+
+  final long memoryTotal;
+  final long memoryAvailable;
+  final List<NetworkSnapshot> networkInterfaces;
+  final List<DiskSnapshot> diskStores;
+
+  private SystemSnapshot(
+      long memoryTotal,
+      long memoryAvailable,
+      List<NetworkSnapshot> networkInterfaces,
+      List<DiskSnapshot> diskStores) {
+    this.memoryTotal = memoryTotal;
+    this.memoryAvailable = memoryAvailable;
+    this.networkInterfaces = networkInterfaces;
+    this.diskStores = diskStores;
+  }
+
+  static final class NetworkSnapshot {
+    final Attributes receiveAttributes;
+    final Attributes transmitAttributes;
+    final long bytesReceived;
+    final long bytesSent;
+    final long packetsReceived;
+    final long packetsSent;
+    final long inErrors;
+    final long outErrors;
+
+    private NetworkSnapshot(Attributes[] attributes, NetworkIF networkIf) {
+      receiveAttributes = attributes[0];
+      transmitAttributes = attributes[1];
+      bytesReceived = networkIf.getBytesRecv();
+      bytesSent = networkIf.getBytesSent();
+      packetsReceived = networkIf.getPacketsRecv();
+      packetsSent = networkIf.getPacketsSent();
+      inErrors = networkIf.getInErrors();
+      outErrors = networkIf.getOutErrors();
+    }
+  }
+
+  static final class DiskSnapshot {
+    final Attributes deviceAttributes;
+    final Attributes readAttributes;
+    final Attributes writeAttributes;
+    final long readBytes;
+    final long writeBytes;
+    final long reads;
+    final long writes;
+    final long transferTimeMillis;
+    final long queueLength;
+
+    private DiskSnapshot(Attributes[] attributes, HWDiskStore diskStore) {
+      deviceAttributes = attributes[0];
+      readAttributes = attributes[1];
+      writeAttributes = attributes[2];
+      readBytes = diskStore.getReadBytes();
+      writeBytes = diskStore.getWriteBytes();
+      reads = diskStore.getReads();
+      writes = diskStore.getWrites();
+      transferTimeMillis = diskStore.getTransferTime();
+      queueLength = diskStore.getCurrentQueueLength();
+    }
+  }
+
+  /**
+   * Captures {@link SystemSnapshot}s from a {@link HardwareAbstractionLayer}. Attributes are built
+   * once per device name and reused by subsequent snapshots, so that a collection cycle only
+   * allocates the snapshot itself.
+   */
+  static final class Capture implements Supplier<SystemSnapshot> {
+    private final HardwareAbstractionLayer hal;
+    // only accessed from get(), which CachedSnapshot calls while holding its lock
+    private final Map<String, Attributes[]> networkAttributes = new HashMap<>();
+    private final Map<String, Attributes[]> diskAttributes = new HashMap<>();
+
+    Capture(HardwareAbstractionLayer hal) {
+      this.hal = hal;
+    }
+
+    @Override
+    public SystemSnapshot get() {
+      GlobalMemory memory = hal.getMemory();
+
+      List<NetworkIF> networkIfs = hal.getNetworkIFs();
+      List<NetworkSnapshot> networkSnapshots = new ArrayList<>(networkIfs.size());
+      for (NetworkIF networkIf : networkIfs) {
+        networkIf.updateAttributes();
+        networkSnapshots.add(
+            new NetworkSnapshot(
+                networkAttributes.computeIfAbsent(
+                    networkIf.getName(),
+                    device ->
+                        new Attributes[] {
+                          Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "receive"),
+                          Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "transmit")
+                        }),
+                networkIf));
+      }
+
+      List<HWDiskStore> diskStores = hal.getDiskStores();
+      List<DiskSnapshot> diskSnapshots = new ArrayList<>(diskStores.size());
+      for (HWDiskStore diskStore : diskStores) {
+        diskSnapshots.add(
+            new DiskSnapshot(
+                diskAttributes.computeIfAbsent(
+                    diskStore.getName(),
+                    device ->
+                        new Attributes[] {
+                          Attributes.of(DEVICE_KEY, device),
+                          Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "read"),
+                          Attributes.of(DEVICE_KEY, device, DIRECTION_KEY, "write")
+                        }),
+                diskStore));
+      }
+
+      return new SystemSnapshot(
+          memory.getTotal(), memory.getAvailable(), networkSnapshots, diskSnapshots);
+    }
+  }
+}
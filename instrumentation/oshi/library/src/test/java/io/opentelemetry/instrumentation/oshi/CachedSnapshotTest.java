@@ -0,0 +1,42 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.oshi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CachedSnapshotTest {
+
+  @Test
+  void reusesSnapshotWithinTtl() {
+    AtomicInteger captures = new AtomicInteger();
+    AtomicLong nanoTime = new AtomicLong();
+    CachedSnapshot<Integer> snapshots =
+        new CachedSnapshot<>(captures::incrementAndGet, Duration.ofNanos(100), nanoTime::get);
+
+    assertThat(snapshots.get()).isEqualTo(1);
+    nanoTime.set(99);
+    assertThat(snapshots.get()).isEqualTo(1);
+    nanoTime.set(100);
+    assertThat(snapshots.get()).isEqualTo(2);
+    nanoTime.set(150);
+    assertThat(snapshots.get()).isEqualTo(2);
+  }
+
+  @Test
+  void zeroTtlAlwaysCaptures() {
+    AtomicInteger captures = new AtomicInteger();
+    CachedSnapshot<Integer> snapshots =
+        new CachedSnapshot<>(captures::incrementAndGet, Duration.ZERO, () -> 0);
+
+    assertThat(snapshots.get()).isEqualTo(1);
+    assertThat(snapshots.get()).isEqualTo(2);
+  }
+}
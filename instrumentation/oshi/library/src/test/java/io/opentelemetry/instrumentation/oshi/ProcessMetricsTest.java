@@ -29,6 +29,8 @@ public class ProcessMetricsTest extends AbstractMetricsTest {
                 .hasUnit("seconds")
                 .hasDoubleGauge()
                 .points()
-                .anySatisfy(point -> assertThat(point.getValue()).isPositive()));
+                .anySatisfy(point -> assertThat(point.getValue()).isPositive()),
+        metric -> metric.hasName("runtime.java.cpu_utilization").hasUnit("1").hasDoubleGauge(),
+        metric -> metric.hasName("runtime.java.disk.io").hasUnit("By").hasLongGauge());
   }
 }
@@ -33,6 +33,9 @@ public class SystemMetricsTest extends AbstractMetricsTest {
         metric -> metric.hasName("system.network.io").hasUnit("By").hasLongGauge(),
         metric -> metric.hasName("system.network.packets").hasUnit("packets").hasLongGauge(),
         metric -> metric.hasName("system.network.errors").hasUnit("errors").hasLongGauge(),
-        metric -> metric.hasName("system.disk.operations").hasUnit("operations").hasLongGauge());
+        metric -> metric.hasName("system.disk.operations").hasUnit("operations").hasLongGauge(),
+        metric -> metric.hasName("system.disk.io_time").hasUnit("ms").hasLongGauge(),
+        metric ->
+            metric.hasName("system.disk.pending_operations").hasUnit("operations").hasLongGauge());
   }
 }
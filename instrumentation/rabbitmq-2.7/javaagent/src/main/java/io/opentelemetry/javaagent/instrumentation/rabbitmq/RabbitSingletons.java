@@ -64,7 +64,8 @@ public class RabbitSingletons {
     return Instrumenter.<ReceiveRequest, GetResponse>builder(
             GlobalOpenTelemetry.get(), instrumentationName, ReceiveRequest::spanName)
         .addAttributesExtractors(extractors)
-        .setTimeExtractors(ReceiveRequest::startTime, (request, response, error) -> request.now())
+        .setTimeNanosExtractors(
+            ReceiveRequest::startEpochNanos, (request, response, error) -> request.nowEpochNanos())
         .newInstrumenter(SpanKindExtractor.alwaysClient());
   }
 
@@ -8,7 +8,6 @@ package io.opentelemetry.javaagent.instrumentation.rabbitmq;
 import com.google.auto.value.AutoValue;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.GetResponse;
-import java.time.Instant;
 import javax.annotation.Nullable;
 
 @AutoValue
@@ -33,11 +32,11 @@ public abstract class ReceiveRequest {
     return (queue.startsWith("amq.gen-") ? "<generated>" : queue) + " receive";
   }
 
-  Instant startTime() {
-    return getTimer().startTime();
+  long startEpochNanos() {
+    return getTimer().startEpochNanos();
   }
 
-  Instant now() {
-    return getTimer().now();
+  long nowEpochNanos() {
+    return getTimer().nowEpochNanos();
   }
 }
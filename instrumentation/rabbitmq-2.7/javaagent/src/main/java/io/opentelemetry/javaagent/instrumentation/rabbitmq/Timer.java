@@ -5,28 +5,25 @@
 
 package io.opentelemetry.javaagent.instrumentation.rabbitmq;
 
-import java.time.Instant;
+import io.opentelemetry.instrumentation.api.internal.EpochNanos;
 
 public final class Timer {
 
   public static Timer start() {
-    return new Timer(Instant.now(), System.nanoTime());
+    return new Timer(System.nanoTime());
   }
 
-  private final Instant startTime;
   private final long startNanoTime;
 
-  private Timer(Instant startTime, long startNanoTime) {
-    this.startTime = startTime;
+  private Timer(long startNanoTime) {
     this.startNanoTime = startNanoTime;
   }
 
-  public Instant startTime() {
-    return startTime;
+  public long startEpochNanos() {
+    return EpochNanos.fromNanoTime(startNanoTime);
   }
 
-  public Instant now() {
-    long durationNanos = System.nanoTime() - startNanoTime;
-    return startTime().plusNanos(durationNanos);
+  public long nowEpochNanos() {
+    return EpochNanos.now();
   }
 }
@@ -7,9 +7,11 @@ package io.opentelemetry.instrumentation.javaagent.runtimemetrics;
 
 import com.google.auto.service.AutoService;
 import io.opentelemetry.instrumentation.api.config.Config;
+import io.opentelemetry.instrumentation.runtimemetrics.GarbageCollectionEvents;
 import io.opentelemetry.instrumentation.runtimemetrics.GarbageCollector;
 import io.opentelemetry.instrumentation.runtimemetrics.MemoryPools;
 import io.opentelemetry.javaagent.extension.AgentListener;
+import io.opentelemetry.javaagent.instrumentation.api.OpenTelemetrySdkAccess;
 import java.util.Collections;
 
 /** An {@link AgentListener} that enables runtime metrics during agent startup. */
@@ -19,8 +21,17 @@ public class RuntimeMetricsInstaller implements AgentListener {
   public void afterAgent(Config config) {
     if (config.isInstrumentationEnabled(
         Collections.singleton("runtime-metrics"), /* defaultEnabled= */ true)) {
-      GarbageCollector.registerObservers();
-      MemoryPools.registerObservers();
+      // the observers are registered with the meter provider of the SDK
+      OpenTelemetrySdkAccess.whenSdkInitialized(
+          () -> {
+            GarbageCollector.registerObservers();
+            MemoryPools.registerObservers();
+            if (config.getBoolean(
+                "otel.instrumentation.runtime-metrics.gc-events.enabled",
+                /* defaultValue= */ true)) {
+              GarbageCollectionEvents.registerObservers();
+            }
+          });
     }
   }
 }
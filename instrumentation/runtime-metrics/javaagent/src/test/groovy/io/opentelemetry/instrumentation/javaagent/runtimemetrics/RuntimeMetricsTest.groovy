@@ -13,11 +13,14 @@ class RuntimeMetricsTest extends AgentInstrumentationSpecification {
   def "test runtime metrics is enabled"() {
     when:
     def conditions = new PollingConditions(timeout: 10, initialDelay: 1.5, factor: 1.25)
+    // make sure that at least one collection notification is delivered
+    System.gc()
 
     then:
     conditions.eventually {
       assert getMetrics().any { it.name == "runtime.jvm.gc.time" }
       assert getMetrics().any { it.name == "runtime.jvm.gc.count" }
+      assert getMetrics().any { it.name == "runtime.jvm.gc.pause" }
       assert getMetrics().any { it.name == "runtime.jvm.memory.area" }
       assert getMetrics().any { it.name == "runtime.jvm.memory.pool" }
     }
@@ -0,0 +1,121 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.runtimemetrics;
+
+import io.opentelemetry.api.metrics.GlobalMeterProvider;
+import io.opentelemetry.api.metrics.Meter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.NotificationEmitter;
+
+/**
+ * Registers listeners and observers that generate metrics from individual JVM garbage collection
+ * events, as opposed to the cumulative values exported by {@link GarbageCollector}.
+ *
+ * <p>Collections are reported through {@code com.sun.management.GarbageCollectionNotificationInfo}
+ * notifications, so the per-collection metrics are only available on JVMs that emit them (HotSpot
+ * and OpenJ9 do). The work done for each notification is a constant number of metric recordings per
+ * heap memory pool.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * GarbageCollectionEvents.registerObservers();
+ * }</pre>
+ *
+ * <p>Example metrics being exported:
+ *
+ * <pre>
+ *   runtime.jvm.gc.pause{gc="G1 Young Generation",action="end of minor GC"} histogram
+ *   runtime.jvm.gc.memory.allocated{pool="G1 Eden Space"} 25165824
+ *   runtime.jvm.gc.memory.promoted{pool="G1 Old Gen"} 1048576
+ *   runtime.jvm.threads.allocation_rate 2.4E7
+ * </pre>
+ */
+public final class GarbageCollectionEvents {
+
+  private static final String GC_NOTIFICATION_INFO_CLASS =
+      "com.sun.management.GarbageCollectionNotificationInfo";
+  private static final String SUN_THREAD_MX_BEAN_CLASS = "com.sun.management.ThreadMXBean";
+
+  /** Register all listeners and observers provided by this module. */
+  public static void registerObservers() {
+    Meter meter = GlobalMeterProvider.get().get(GarbageCollectionEvents.class.getName());
+    registerCollectionListeners(meter);
+    registerThreadAllocationRateObserver(meter);
+  }
+
+  /**
+   * Register only the per-collection pause and memory pool metrics, driven by garbage collection
+   * notifications.
+   */
+  public static void registerCollectionListeners() {
+    registerCollectionListeners(
+        GlobalMeterProvider.get().get(GarbageCollectionEvents.class.getName()));
+  }
+
+  /** Register only the thread allocation rate gauge. */
+  public static void registerThreadAllocationRateObserver() {
+    registerThreadAllocationRateObserver(
+        GlobalMeterProvider.get().get(GarbageCollectionEvents.class.getName()));
+  }
+
+  private static void registerCollectionListeners(Meter meter) {
+    if (!isClassAvailable(GC_NOTIFICATION_INFO_CLASS)) {
+      return;
+    }
+    List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        heapPools.add(pool);
+      }
+    }
+    GcNotificationListener listener = GcNotificationListener.create(meter, heapPools);
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (gc instanceof NotificationEmitter) {
+        ((NotificationEmitter) gc)
+            .addNotificationListener(listener, GcNotificationListener.FILTER, null);
+      }
+    }
+  }
+
+  private static void registerThreadAllocationRateObserver(Meter meter) {
+    if (!isClassAvailable(SUN_THREAD_MX_BEAN_CLASS)) {
+      return;
+    }
+    ThreadAllocationRate allocationRate = ThreadAllocationRate.create();
+    if (allocationRate == null) {
+      return;
+    }
+    meter
+        .gaugeBuilder("runtime.jvm.threads.allocation_rate")
+        .setDescription(
+            "Bytes allocated per second by live JVM threads since the previous observation.")
+        .setUnit("By/s")
+        .buildWithCallback(
+            measurement -> {
+              double rate = allocationRate.sample(System.nanoTime());
+              if (rate >= 0) {
+                measurement.observe(rate);
+              }
+            });
+  }
+
+  private static boolean isClassAvailable(String className) {
+    try {
+      Class.forName(className, false, GarbageCollectionEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  private GarbageCollectionEvents() {}
+}
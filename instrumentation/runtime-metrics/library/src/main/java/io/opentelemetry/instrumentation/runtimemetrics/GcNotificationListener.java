@@ -0,0 +1,147 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.runtimemetrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.Notification;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Records pause durations and per-pool memory movement for every garbage collection notification.
+ * Only references {@code com.sun.management} types, so it must not be loaded before checking that
+ * they are available.
+ */
+final class GcNotificationListener implements NotificationListener {
+
+  // Visible for testing
+  static final AttributeKey<String> GC_KEY = AttributeKey.stringKey("gc");
+  // Visible for testing
+  static final AttributeKey<String> ACTION_KEY = AttributeKey.stringKey("action");
+  // Visible for testing
+  static final AttributeKey<String> POOL_KEY = AttributeKey.stringKey("pool");
+
+  static final NotificationFilter FILTER =
+      notification ->
+          GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(
+              notification.getType());
+
+  static GcNotificationListener create(Meter meter, List<MemoryPoolMXBean> heapPools) {
+    DoubleHistogram pause =
+        meter
+            .histogramBuilder("runtime.jvm.gc.pause")
+            .setDescription("Duration of individual JVM garbage collections in milliseconds.")
+            .setUnit("ms")
+            .build();
+    LongCounter allocated =
+        meter
+            .counterBuilder("runtime.jvm.gc.memory.allocated")
+            .setDescription(
+                "Bytes a given JVM memory pool grew by between the end of one garbage collection"
+                    + " and the start of the next.")
+            .setUnit("By")
+            .build();
+    LongCounter promoted =
+        meter
+            .counterBuilder("runtime.jvm.gc.memory.promoted")
+            .setDescription(
+                "Bytes a given JVM memory pool grew by during garbage collections, e.g. objects"
+                    + " promoted to the old generation.")
+            .setUnit("By")
+            .build();
+    return new GcNotificationListener(pause, allocated, promoted, heapPools);
+  }
+
+  private final DoubleHistogram pause;
+  private final LongCounter allocated;
+  private final LongCounter promoted;
+  private final String[] poolNames;
+  private final Attributes[] poolAttributes;
+  // pool usage after the previous collection, shared by all collectors since they operate on the
+  // same pools, starting with the usage when the listener was registered
+  private final long[] usedAfterLastCollection;
+  private final Map<String, Map<String, Attributes>> pauseAttributes = new ConcurrentHashMap<>();
+
+  // Visible for testing
+  GcNotificationListener(
+      DoubleHistogram pause,
+      LongCounter allocated,
+      LongCounter promoted,
+      List<MemoryPoolMXBean> heapPools) {
+    this.pause = pause;
+    this.allocated = allocated;
+    this.promoted = promoted;
+    int poolCount = heapPools.size();
+    poolNames = new String[poolCount];
+    poolAttributes = new Attributes[poolCount];
+    usedAfterLastCollection = new long[poolCount];
+    for (int i = 0; i < poolCount; i++) {
+      MemoryPoolMXBean pool = heapPools.get(i);
+      poolNames[i] = pool.getName();
+      poolAttributes[i] = Attributes.of(POOL_KEY, poolNames[i]);
+      usedAfterLastCollection[i] = pool.getUsage().getUsed();
+    }
+  }
+
+  @Override
+  public void handleNotification(Notification notification, Object handback) {
+    GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    GcInfo gcInfo = info.getGcInfo();
+    onCollection(
+        info.getGcName(),
+        info.getGcAction(),
+        gcInfo.getDuration(),
+        gcInfo.getMemoryUsageBeforeGc(),
+        gcInfo.getMemoryUsageAfterGc());
+  }
+
+  // Visible for testing
+  synchronized void onCollection(
+      String gcName,
+      String gcAction,
+      long durationMillis,
+      Map<String, MemoryUsage> usageBefore,
+      Map<String, MemoryUsage> usageAfter) {
+    pause.record(durationMillis, pauseAttributes(gcName, gcAction));
+
+    for (int i = 0; i < poolNames.length; i++) {
+      MemoryUsage before = usageBefore.get(poolNames[i]);
+      MemoryUsage after = usageAfter.get(poolNames[i]);
+      if (before == null || after == null) {
+        continue;
+      }
+      long allocatedBytes = before.getUsed() - usedAfterLastCollection[i];
+      if (allocatedBytes > 0) {
+        allocated.add(allocatedBytes, poolAttributes[i]);
+      }
+      long promotedBytes = after.getUsed() - before.getUsed();
+      if (promotedBytes > 0) {
+        promoted.add(promotedBytes, poolAttributes[i]);
+      }
+      usedAfterLastCollection[i] = after.getUsed();
+    }
+  }
+
+  private Attributes pauseAttributes(String gcName, String gcAction) {
+    // both the collector names and the actions are a small, fixed set so this does not grow
+    return pauseAttributes
+        .computeIfAbsent(gcName, unused -> new ConcurrentHashMap<>())
+        .computeIfAbsent(gcAction, action -> Attributes.of(GC_KEY, gcName, ACTION_KEY, action));
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.runtimemetrics;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Computes the rate at which live threads allocate memory from {@link
+ * ThreadMXBean#getThreadAllocatedBytes(long[])}. Only references {@code com.sun.management} types,
+ * so it must not be loaded before checking that they are available.
+ */
+final class ThreadAllocationRate {
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Nullable
+  static ThreadAllocationRate create() {
+    java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!(threadBean instanceof ThreadMXBean)) {
+      return null;
+    }
+    ThreadMXBean sunThreadBean = (ThreadMXBean) threadBean;
+    if (!sunThreadBean.isThreadAllocatedMemorySupported()
+        || !sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+      return null;
+    }
+    return new ThreadAllocationRate(sunThreadBean);
+  }
+
+  private final ThreadMXBean threadBean;
+  // allocated bytes per thread id at the previous sample; threads that died in the meantime are
+  // dropped so that their bytes don't turn into a negative rate
+  private Map<Long, Long> previousAllocatedBytes = new HashMap<>();
+  private boolean hasPreviousSample;
+  private long previousSampleNanos;
+
+  private ThreadAllocationRate(ThreadMXBean threadBean) {
+    this.threadBean = threadBean;
+  }
+
+  /**
+   * Returns the bytes per second allocated since the previous call, or a negative value when there
+   * is no previous sample to compare against.
+   */
+  synchronized double sample(long nanoTime) {
+    long[] threadIds = threadBean.getAllThreadIds();
+    long[] allocatedBytes = threadBean.getThreadAllocatedBytes(threadIds);
+
+    Map<Long, Long> currentAllocatedBytes = new HashMap<>(threadIds.length * 2);
+    long delta = 0;
+    for (int i = 0; i < threadIds.length; i++) {
+      long bytes = allocatedBytes[i];
+      // -1 is returned for threads that terminated between the two calls above
+      if (bytes < 0) {
+        continue;
+      }
+      currentAllocatedBytes.put(threadIds[i], bytes);
+      Long previous = previousAllocatedBytes.get(threadIds[i]);
+      delta += previous == null ? bytes : bytes - previous;
+    }
+
+    long elapsedNanos = nanoTime - previousSampleNanos;
+    boolean first = !hasPreviousSample;
+    previousAllocatedBytes = currentAllocatedBytes;
+    previousSampleNanos = nanoTime;
+    hasPreviousSample = true;
+    if (first || elapsedNanos <= 0) {
+      return -1;
+    }
+    return delta * NANOS_PER_SECOND / elapsedNanos;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.runtimemetrics;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class GcNotificationListenerTest {
+
+  private static final Attributes EDEN =
+      Attributes.of(GcNotificationListener.POOL_KEY, "Eden Space");
+  private static final Attributes OLD = Attributes.of(GcNotificationListener.POOL_KEY, "Old Gen");
+
+  private final DoubleHistogram pause = mock(DoubleHistogram.class);
+  private final LongCounter allocated = mock(LongCounter.class);
+  private final LongCounter promoted = mock(LongCounter.class);
+
+  // usage when the listener is registered
+  private final GcNotificationListener listener =
+      new GcNotificationListener(
+          pause, allocated, promoted, Arrays.asList(pool("Eden Space", 30), pool("Old Gen", 40)));
+
+  @Test
+  void recordsPauseAndPoolMovement() {
+    listener.onCollection(
+        "Young",
+        "end of minor GC",
+        12,
+        usage("Eden Space", 100, "Old Gen", 50),
+        usage("Eden Space", 0, "Old Gen", 70));
+
+    verify(pause)
+        .record(
+            12,
+            Attributes.of(
+                GcNotificationListener.GC_KEY,
+                "Young",
+                GcNotificationListener.ACTION_KEY,
+                "end of minor GC"));
+    // the first collection counts the growth since the listener was registered
+    verify(allocated).add(70, EDEN);
+    verify(allocated).add(10, OLD);
+    verify(promoted).add(20, OLD);
+    verifyNoMoreInteractions(pause, allocated, promoted);
+  }
+
+  @Test
+  void allocationIsMeasuredFromPreviousCollection() {
+    listener.onCollection(
+        "Young",
+        "end of minor GC",
+        12,
+        usage("Eden Space", 100, "Old Gen", 50),
+        usage("Eden Space", 10, "Old Gen", 70));
+    listener.onCollection(
+        "Old",
+        "end of major GC",
+        30,
+        usage("Eden Space", 40, "Old Gen", 70),
+        usage("Eden Space", 0, "Old Gen", 20));
+
+    verify(allocated).add(70, EDEN);
+    verify(allocated).add(10, OLD);
+    verify(promoted).add(20, OLD);
+    // only the growth since the end of the previous collection is counted
+    verify(allocated).add(30, EDEN);
+  }
+
+  @Test
+  void ignoresUnknownPools() {
+    listener.onCollection(
+        "Young", "end of minor GC", 1, usage("Metaspace", 10), usage("Metaspace", 20));
+
+    verifyNoMoreInteractions(allocated, promoted);
+  }
+
+  private static MemoryPoolMXBean pool(String name, long used) {
+    MemoryPoolMXBean pool = mock(MemoryPoolMXBean.class);
+    when(pool.getName()).thenReturn(name);
+    when(pool.getUsage()).thenReturn(new MemoryUsage(-1, used, used, -1));
+    return pool;
+  }
+
+  private static Map<String, MemoryUsage> usage(String pool, long used) {
+    Map<String, MemoryUsage> usage = new HashMap<>();
+    usage.put(pool, new MemoryUsage(-1, used, used, -1));
+    return usage;
+  }
+
+  private static Map<String, MemoryUsage> usage(
+      String pool1, long used1, String pool2, long used2) {
+    Map<String, MemoryUsage> usage = usage(pool1, used1);
+    usage.put(pool2, new MemoryUsage(-1, used2, used2, -1));
+    return usage;
+  }
+}
@@ -10,6 +10,7 @@ import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
 import io.opentelemetry.instrumentation.api.instrumenter.SpanKindExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.SpanNameExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.messaging.MessagingSpanNameExtractor;
+import io.opentelemetry.instrumentation.kafka.internal.KafkaPropagation;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 
@@ -30,7 +31,8 @@ public final class SpringKafkaSingletons {
             GlobalOpenTelemetry.get(), INSTRUMENTATION_NAME, spanNameExtractor)
         .addAttributesExtractor(attributesExtractor)
         .addSpanLinksExtractor(
-            new KafkaBatchProcessSpanLinksExtractor(GlobalOpenTelemetry.getPropagators()))
+            new KafkaBatchProcessSpanLinksExtractor(
+                KafkaPropagation.consumerPropagators(GlobalOpenTelemetry.getPropagators())))
         .setErrorCauseExtractor(new KafkaBatchErrorCauseExtractor())
         .newInstrumenter(SpanKindExtractor.alwaysConsumer());
   }
@@ -10,7 +10,9 @@ import io.opentelemetry.javaagent.bootstrap.InstrumentationHolder;
 import java.io.File;
 import java.io.IOException;
 import java.lang.instrument.Instrumentation;
+import java.net.JarURLConnection;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.security.CodeSource;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -59,13 +61,10 @@ public final class OpenTelemetryAgent {
   private static synchronized File installBootstrapJar(Instrumentation inst)
       throws IOException, URISyntaxException {
 
-    CodeSource codeSource = OpenTelemetryAgent.class.getProtectionDomain().getCodeSource();
-
-    if (codeSource == null) {
-      throw new IllegalStateException("could not get agent jar location");
-    }
-
-    File javaagentFile = new File(codeSource.getLocation().toURI());
+    // the agent jar is already on the bootstrap class path when it is also passed with
+    // -Xbootclasspath/a, which lets a class data sharing archive include the bootstrap classes
+    boolean onBootstrapClassPath = OpenTelemetryAgent.class.getClassLoader() == null;
+    File javaagentFile = onBootstrapClassPath ? getBootstrapJarFile() : getCodeSourceJarFile();
 
     if (!javaagentFile.isFile()) {
       throw new IllegalStateException(
@@ -75,12 +74,36 @@ public final class OpenTelemetryAgent {
     // passing verify false for vendors who sign the agent jar, because jar file signature
     // verification is very slow before the JIT compiler starts up, which on Java 8 is not until
     // after premain executes
-    JarFile agentJar = new JarFile(javaagentFile, false);
-    verifyJarManifestMainClassIsThis(javaagentFile, agentJar);
-    inst.appendToBootstrapClassLoaderSearch(agentJar);
+    // the jar is appended by its name, so it doesn't have to stay open
+    try (JarFile agentJar = new JarFile(javaagentFile, false)) {
+      verifyJarManifestMainClassIsThis(javaagentFile, agentJar);
+      // appending the jar again would disable class data sharing for the other class loaders
+      if (!onBootstrapClassPath) {
+        inst.appendToBootstrapClassLoaderSearch(agentJar);
+      }
+    }
     return javaagentFile;
   }
 
+  private static File getCodeSourceJarFile() throws URISyntaxException {
+    CodeSource codeSource = OpenTelemetryAgent.class.getProtectionDomain().getCodeSource();
+
+    if (codeSource == null) {
+      throw new IllegalStateException("could not get agent jar location");
+    }
+
+    return new File(codeSource.getLocation().toURI());
+  }
+
+  // classes of the bootstrap class loader don't have a code source
+  private static File getBootstrapJarFile() throws IOException, URISyntaxException {
+    URL classUrl = OpenTelemetryAgent.class.getResource("OpenTelemetryAgent.class");
+    if (classUrl == null || !"jar".equals(classUrl.getProtocol())) {
+      throw new IllegalStateException("could not get agent jar location");
+    }
+    return new File(((JarURLConnection) classUrl.openConnection()).getJarFileURL().toURI());
+  }
+
   // this protects against the case where someone adds the contents of opentelemetry-javaagent.jar
   // by mistake to their application's "uber.jar"
   //
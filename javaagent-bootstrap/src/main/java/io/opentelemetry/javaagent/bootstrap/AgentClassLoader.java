@@ -42,6 +42,10 @@ public class AgentClassLoader extends URLClassLoader {
   private static final String AGENT_INITIALIZER_JAR =
       System.getProperty("otel.javaagent.experimental.initializer.jar", "");
 
+  // Experimental: read the classes of the agent jar through an index of the memory mapped jar
+  private static final boolean INDEXED_JAR_ENABLED =
+      Boolean.getBoolean("otel.javaagent.experimental.indexed-jar.enabled");
+
   private static final String META_INF = "META-INF/";
   private static final String META_INF_VERSIONS = META_INF + "versions/";
 
@@ -63,6 +67,7 @@ public class AgentClassLoader extends URLClassLoader {
   private final String jarEntryPrefix;
   private final CodeSource codeSource;
   private final Manifest manifest;
+  @Nullable private final AgentJarIndex jarIndex;
 
   /**
    * Construct a new AgentClassLoader.
@@ -72,6 +77,11 @@ public class AgentClassLoader extends URLClassLoader {
    * @param parent Classloader parent. Should null (bootstrap), or the platform classloader for java
    */
   public AgentClassLoader(File javaagentFile, String internalJarFileName, ClassLoader parent) {
+    this(javaagentFile, internalJarFileName, parent, INDEXED_JAR_ENABLED);
+  }
+
+  AgentClassLoader(
+      File javaagentFile, String internalJarFileName, ClassLoader parent, boolean indexJar) {
     super(new URL[] {}, parent);
     if (javaagentFile == null) {
       throw new IllegalArgumentException("Agent jar location should be set");
@@ -97,6 +107,8 @@ public class AgentClassLoader extends URLClassLoader {
     } catch (IOException e) {
       throw new IllegalStateException("Unable to open agent jar", e);
     }
+    // falls back to the jar file when the jar can't be indexed
+    jarIndex = indexJar ? AgentJarIndex.create(javaagentFile, jarEntryPrefix) : null;
 
     if (!AGENT_INITIALIZER_JAR.isEmpty()) {
       URL url;
@@ -135,15 +147,13 @@ public class AgentClassLoader extends URLClassLoader {
 
   @Override
   protected Class<?> findClass(String name) throws ClassNotFoundException {
-    JarEntry jarEntry = findJarEntry(name.replace('.', '/') + ".class");
-    if (jarEntry != null) {
-      byte[] bytes;
-      try {
-        bytes = getJarEntryBytes(jarEntry);
-      } catch (IOException exception) {
-        throw new ClassNotFoundException(name, exception);
-      }
-
+    byte[] bytes;
+    try {
+      bytes = getClassBytes(name.replace('.', '/') + ".class");
+    } catch (IOException exception) {
+      throw new ClassNotFoundException(name, exception);
+    }
+    if (bytes != null) {
       definePackageIfNeeded(name);
       return defineClass(name, bytes);
     }
@@ -152,6 +162,15 @@ public class AgentClassLoader extends URLClassLoader {
     return super.findClass(name);
   }
 
+  @Nullable
+  private byte[] getClassBytes(String resourceName) throws IOException {
+    if (jarIndex != null) {
+      return jarIndex.read(findIndexedEntryName(resourceName + getClassSuffix()));
+    }
+    JarEntry jarEntry = findJarEntry(resourceName);
+    return jarEntry == null ? null : getJarEntryBytes(jarEntry);
+  }
+
   public Class<?> defineClass(String name, byte[] bytes) {
     return defineClass(name, bytes, 0, bytes.length, codeSource);
   }
@@ -230,6 +249,23 @@ public class AgentClassLoader extends URLClassLoader {
     return jarEntry;
   }
 
+  // same lookup as findJarEntry() and findVersionedJarEntry(), the names of the index don't have
+  // the jar entry prefix
+  @Nullable
+  private String findIndexedEntryName(String name) {
+    if (MULTI_RELEASE_JAR_ENABLE && jarIndex.hasVersionedEntries() && !name.startsWith(META_INF)) {
+      int version = JAVA_VERSION;
+      while (version >= MIN_MULTI_RELEASE_JAR_JAVA_VERSION) {
+        String versionedName = META_INF_VERSIONS + version + "/" + name;
+        if (jarIndex.contains(versionedName)) {
+          return versionedName;
+        }
+        version--;
+      }
+    }
+    return jarIndex.contains(name) ? name : null;
+  }
+
   @Override
   public URL getResource(String resourceName) {
     URL bootstrapResource = bootstrapProxy.getResource(resourceName);
@@ -0,0 +1,262 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.bootstrap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import javax.annotation.Nullable;
+
+/**
+ * An index of the entries of the agent jar under a prefix, read from the central directory of the
+ * memory mapped jar when the {@link AgentClassLoader} is created. Entry bytes are then sliced from
+ * the mapped jar, without the entry lookups, {@link java.util.jar.JarEntry} and stream allocations,
+ * and synchronization of {@link java.util.jar.JarFile}.
+ *
+ * <p>Only the plain zip format is supported: {@link #create(File, String)} returns {@code null} for
+ * zip64 and encrypted jars, and for jars larger than 2GB.
+ */
+final class AgentJarIndex {
+
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+  private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+  private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int ZIP64_MAGIC = 0xFFFFFFFF;
+  private static final int ENCRYPTED_FLAG = 1;
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+
+  private static final String META_INF_VERSIONS = "META-INF/versions/";
+  private static final int MAX_POOLED_INFLATERS = 4;
+
+  // little endian, only read with absolute gets or through duplicates
+  private final ByteBuffer jar;
+  private final Map<String, Entry> entries;
+  private final boolean hasVersionedEntries;
+  // like JarFile, reuse the inflaters, creating one is expensive
+  private final Deque<Inflater> inflaters = new ArrayDeque<>();
+
+  private AgentJarIndex(ByteBuffer jar, Map<String, Entry> entries) {
+    this.jar = jar;
+    this.entries = entries;
+    boolean hasVersionedEntries = false;
+    for (String name : entries.keySet()) {
+      if (name.startsWith(META_INF_VERSIONS)) {
+        hasVersionedEntries = true;
+        break;
+      }
+    }
+    this.hasVersionedEntries = hasVersionedEntries;
+  }
+
+  /**
+   * Returns the index of the entries of {@code file} whose name starts with {@code prefix}, keyed
+   * by their name without the prefix, or {@code null} if the jar can't be indexed.
+   */
+  @Nullable
+  static AgentJarIndex create(File file, String prefix) {
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+      FileChannel channel = randomAccessFile.getChannel();
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        return null;
+      }
+      // the mapping stays valid after the channel is closed
+      ByteBuffer jar =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+      Map<String, Entry> entries = readCentralDirectory(jar, prefix);
+      return entries == null ? null : new AgentJarIndex(jar, entries);
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  @Nullable
+  private static Map<String, Entry> readCentralDirectory(ByteBuffer jar, String prefix) {
+    int endOfCentralDirectory = findEndOfCentralDirectory(jar);
+    if (endOfCentralDirectory == -1) {
+      return null;
+    }
+    int centralDirectorySize = jar.getInt(endOfCentralDirectory + 12);
+    int centralDirectoryOffset = jar.getInt(endOfCentralDirectory + 16);
+    if (centralDirectorySize == ZIP64_MAGIC || centralDirectoryOffset == ZIP64_MAGIC) {
+      return null;
+    }
+
+    byte[] prefixBytes = prefix.getBytes(UTF_8);
+    Map<String, Entry> entries = new HashMap<>();
+    int offset = centralDirectoryOffset;
+    int end = centralDirectoryOffset + centralDirectorySize;
+    while (offset < end) {
+      if (jar.getInt(offset) != CENTRAL_DIRECTORY_HEADER_SIGNATURE) {
+        return null;
+      }
+      int flags = jar.getShort(offset + 8) & 0xFFFF;
+      int method = jar.getShort(offset + 10) & 0xFFFF;
+      int compressedSize = jar.getInt(offset + 20);
+      int size = jar.getInt(offset + 24);
+      int nameLength = jar.getShort(offset + 28) & 0xFFFF;
+      int extraLength = jar.getShort(offset + 30) & 0xFFFF;
+      int commentLength = jar.getShort(offset + 32) & 0xFFFF;
+      int localHeaderOffset = jar.getInt(offset + 42);
+      if ((flags & ENCRYPTED_FLAG) != 0
+          || compressedSize == ZIP64_MAGIC
+          || size == ZIP64_MAGIC
+          || localHeaderOffset == ZIP64_MAGIC) {
+        return null;
+      }
+
+      int nameOffset = offset + CENTRAL_DIRECTORY_HEADER_SIZE;
+      if (startsWith(jar, nameOffset, nameLength, prefixBytes)
+          && jar.get(nameOffset + nameLength - 1) != '/') {
+        byte[] name = new byte[nameLength - prefixBytes.length];
+        ByteBuffer nameBuffer = jar.duplicate();
+        nameBuffer.position(nameOffset + prefixBytes.length);
+        nameBuffer.get(name);
+        // like JarFile, names are always decoded as UTF-8
+        entries.put(
+            new String(name, UTF_8), new Entry(method, compressedSize, size, localHeaderOffset));
+      }
+      offset = nameOffset + nameLength + extraLength + commentLength;
+    }
+    return entries;
+  }
+
+  private static int findEndOfCentralDirectory(ByteBuffer jar) {
+    int last = jar.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+    int first = Math.max(0, last - MAX_COMMENT_SIZE);
+    for (int offset = last; offset >= first; offset--) {
+      if (jar.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+        return offset;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean startsWith(ByteBuffer jar, int offset, int length, byte[] prefix) {
+    if (length <= prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (jar.get(offset + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean contains(String name) {
+    return entries.containsKey(name);
+  }
+
+  /** Returns whether there are multi release jar entries under the prefix. */
+  boolean hasVersionedEntries() {
+    return hasVersionedEntries;
+  }
+
+  /** Returns the uncompressed bytes of the entry, or {@code null} if there is no such entry. */
+  @Nullable
+  byte[] read(@Nullable String name) throws IOException {
+    Entry entry = name == null ? null : entries.get(name);
+    if (entry == null) {
+      return null;
+    }
+    int localHeaderOffset = entry.localHeaderOffset;
+    if (jar.getInt(localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+      throw new ZipException("Invalid local header of jar entry " + name);
+    }
+    // the name and extra field lengths of the local header may differ from the central directory
+    int dataOffset =
+        localHeaderOffset
+            + LOCAL_HEADER_SIZE
+            + (jar.getShort(localHeaderOffset + 26) & 0xFFFF)
+            + (jar.getShort(localHeaderOffset + 28) & 0xFFFF);
+
+    ByteBuffer data = jar.duplicate();
+    data.position(dataOffset);
+    if (entry.method == STORED) {
+      byte[] bytes = new byte[entry.size];
+      data.get(bytes);
+      return bytes;
+    }
+    if (entry.method != DEFLATED) {
+      throw new ZipException("Unsupported compression method of jar entry " + name);
+    }
+    // nowrap inflation needs an extra dummy byte at the end of the input
+    byte[] compressed = new byte[entry.compressedSize + 1];
+    data.get(compressed, 0, entry.compressedSize);
+    Inflater inflater = getInflater();
+    try {
+      inflater.setInput(compressed);
+      byte[] bytes = new byte[entry.size];
+      int offset = 0;
+      while (offset < bytes.length) {
+        int inflated = inflater.inflate(bytes, offset, bytes.length - offset);
+        if (inflated == 0
+            && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+          throw new ZipException("Truncated jar entry " + name);
+        }
+        offset += inflated;
+      }
+      return bytes;
+    } catch (DataFormatException e) {
+      throw new ZipException("Invalid jar entry " + name + ": " + e.getMessage());
+    } finally {
+      releaseInflater(inflater);
+    }
+  }
+
+  private Inflater getInflater() {
+    synchronized (inflaters) {
+      Inflater inflater = inflaters.poll();
+      if (inflater != null) {
+        return inflater;
+      }
+    }
+    return new Inflater(true);
+  }
+
+  private void releaseInflater(Inflater inflater) {
+    inflater.reset();
+    synchronized (inflaters) {
+      if (inflaters.size() < MAX_POOLED_INFLATERS) {
+        inflaters.push(inflater);
+        return;
+      }
+    }
+    inflater.end();
+  }
+
+  private static final class Entry {
+    final int method;
+    final int compressedSize;
+    final int size;
+    final int localHeaderOffset;
+
+    Entry(int method, int compressedSize, int size, int localHeaderOffset) {
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+}
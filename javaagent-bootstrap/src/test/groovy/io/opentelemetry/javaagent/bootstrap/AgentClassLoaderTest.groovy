@@ -53,12 +53,12 @@ class AgentClassLoaderTest extends Specification {
     applicationDidNotDeadlock
   }
 
-  def "multi release jar"() {
+  def "multi release jar (indexed: #indexJar)"() {
     setup:
     boolean jdk8 = "1.8" == System.getProperty("java.specification.version")
     // sdk is a multi release jar
     URL multiReleaseJar = JavaVersionSpecific.getProtectionDomain().getCodeSource().getLocation()
-    AgentClassLoader loader = new AgentClassLoader(new File(multiReleaseJar.toURI()), "", null) {
+    AgentClassLoader loader = new AgentClassLoader(new File(multiReleaseJar.toURI()), "", null, indexJar) {
       @Override
       protected String getClassSuffix() {
         return ""
@@ -83,5 +83,8 @@ class AgentClassLoaderTest extends Specification {
     Object javaVersionSpecific = field.get(null)
     // expect a versioned class on java 9+
     jdk8 != javaVersionSpecific.getClass().getName().endsWith("Java9VersionSpecific")
+
+    where:
+    indexJar << [false, true]
   }
 }
@@ -38,6 +38,18 @@ public interface IgnoredTypesBuilder {
    */
   IgnoredTypesBuilder allowClass(String classNameOrPrefix);
 
+  /**
+   * Ignore all the classes whose name contains {@code substring} and exclude them from being
+   * instrumented. This is meant for generated classes (e.g. bytecode proxies) that cannot be
+   * identified by a prefix; it is checked after the {@link #ignoreClass(String)} and {@link
+   * #allowClass(String)} settings, so an allowed class is never ignored because of its name.
+   *
+   * <p>{@code substring} is matched literally (ex. {@code $$EnhancerByProxool$$}).
+   *
+   * @return {@code this}
+   */
+  IgnoredTypesBuilder ignoreClassesContaining(String substring);
+
   /**
    * Ignore the class loader specified by {@code classNameOrPrefix} and exclude it from being
    * instrumented. Calling this will overwrite any previous settings for passed prefix.
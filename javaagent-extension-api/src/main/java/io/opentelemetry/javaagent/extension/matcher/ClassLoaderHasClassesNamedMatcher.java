@@ -5,24 +5,24 @@
 
 package io.opentelemetry.javaagent.extension.matcher;
 
-import io.opentelemetry.instrumentation.api.caching.Cache;
-import io.opentelemetry.javaagent.instrumentation.api.internal.ClassLoaderMatcherCacheHolder;
-import io.opentelemetry.javaagent.instrumentation.api.internal.InClassLoaderMatcher;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import net.bytebuddy.matcher.ElementMatcher;
 
-class ClassLoaderHasClassesNamedMatcher extends ElementMatcher.Junction.AbstractBase<ClassLoader> {
-
-  private final Cache<ClassLoader, Boolean> cache =
-      Cache.builder().setWeakKeys().setMaximumSize(25).build();
+class ClassLoaderHasClassesNamedMatcher extends ElementMatcher.Junction.AbstractBase<ClassLoader>
+    implements ClassLoaderRequiringClassesMatcher {
 
+  private final Set<String> classNames;
   private final String[] resources;
 
   ClassLoaderHasClassesNamedMatcher(String... classNames) {
+    this.classNames = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(classNames)));
     resources = classNames;
     for (int i = 0; i < resources.length; i++) {
       resources[i] = resources[i].replace(".", "/") + ".class";
     }
-    ClassLoaderMatcherCacheHolder.addCache(cache);
   }
 
   @Override
@@ -31,20 +31,81 @@ class ClassLoaderHasClassesNamedMatcher extends ElementMatcher.Junction.Abstract
       // Can't match the bootstrap classloader.
       return false;
     }
-    return cache.computeIfAbsent(cl, this::hasResources);
+    // the lookups are cached per class loader and shared with all the other matchers
+    for (String resource : resources) {
+      if (!ClassLoaderResourceIndex.hasResource(cl, resource)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public Set<String> requiredClassNames() {
+    return classNames;
+  }
+
+  @Override
+  public <U extends ClassLoader> Junction<U> and(ElementMatcher<? super U> other) {
+    return RequiringConjunction.create(this, other);
+  }
+
+  @Override
+  public String toString() {
+    return "hasClassesNamed(" + classNames + ")";
   }
 
-  private boolean hasResources(ClassLoader cl) {
-    boolean priorValue = InClassLoaderMatcher.getAndSet(true);
-    try {
-      for (String resource : resources) {
-        if (cl.getResource(resource) == null) {
-          return false;
-        }
+  /** A conjunction that keeps track of the classes required by its left-hand side. */
+  private static final class RequiringConjunction
+      extends ElementMatcher.Junction.AbstractBase<ClassLoader>
+      implements ClassLoaderRequiringClassesMatcher {
+
+    private final Set<String> requiredClassNames;
+    private final ElementMatcher<ClassLoader> left;
+    private final ElementMatcher<? super ClassLoader> right;
+
+    private RequiringConjunction(
+        Set<String> requiredClassNames,
+        ElementMatcher<ClassLoader> left,
+        ElementMatcher<? super ClassLoader> right) {
+      this.requiredClassNames = requiredClassNames;
+      this.left = left;
+      this.right = right;
+    }
+
+    // the right-hand side may be narrower than ClassLoader, but it is only ever passed class
+    // loaders
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <U extends ClassLoader> Junction<U> create(
+        ClassLoaderRequiringClassesMatcher left, ElementMatcher<?> right) {
+      Set<String> requiredClassNames = new LinkedHashSet<>(left.requiredClassNames());
+      if (right instanceof ClassLoaderRequiringClassesMatcher) {
+        requiredClassNames.addAll(
+            ((ClassLoaderRequiringClassesMatcher) right).requiredClassNames());
       }
-    } finally {
-      InClassLoaderMatcher.set(priorValue);
+      return (Junction)
+          new RequiringConjunction(
+              Collections.unmodifiableSet(requiredClassNames), left, (ElementMatcher) right);
+    }
+
+    @Override
+    public boolean matches(ClassLoader target) {
+      return left.matches(target) && right.matches(target);
+    }
+
+    @Override
+    public Set<String> requiredClassNames() {
+      return requiredClassNames;
+    }
+
+    @Override
+    public <U extends ClassLoader> Junction<U> and(ElementMatcher<? super U> other) {
+      return create(this, other);
+    }
+
+    @Override
+    public String toString() {
+      return "(" + left + " and " + right + ")";
     }
-    return true;
   }
 }
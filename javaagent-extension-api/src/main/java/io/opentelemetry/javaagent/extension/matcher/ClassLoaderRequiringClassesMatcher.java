@@ -0,0 +1,23 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.extension.matcher;
+
+import java.util.Set;
+import net.bytebuddy.matcher.ElementMatcher;
+
+/**
+ * A class loader matcher that can only match class loaders containing all of its {@link
+ * #requiredClassNames()}. Returned by {@link AgentElementMatchers#hasClassesNamed(String...)} and
+ * by its conjunctions with other matchers.
+ *
+ * <p>The javaagent uses it to find the classes an instrumentation module is waiting for; it is not
+ * meant to be implemented by instrumentation or extensions.
+ */
+public interface ClassLoaderRequiringClassesMatcher extends ElementMatcher.Junction<ClassLoader> {
+
+  /** Returns the names of the classes that a class loader must contain to be matched. */
+  Set<String> requiredClassNames();
+}
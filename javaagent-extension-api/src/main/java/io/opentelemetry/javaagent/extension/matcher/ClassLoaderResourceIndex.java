@@ -0,0 +1,57 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.extension.matcher;
+
+import io.opentelemetry.instrumentation.api.caching.Cache;
+import io.opentelemetry.javaagent.instrumentation.api.internal.ClassLoaderMatcherCacheHolder;
+import io.opentelemetry.javaagent.instrumentation.api.internal.InClassLoaderMatcher;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Answers whether a resource is visible through a class loader, shared by all the {@link
+ * ClassLoaderHasClassesNamedMatcher}s so that each marker class is looked up at most once per class
+ * loader, no matter how many instrumentation modules check for it. Negative answers are the common
+ * case, and they are the expensive ones: the class loader has to search its whole class path (and
+ * its parents) before giving up.
+ *
+ * <p>The index of a class loader is dropped through {@link ClassLoaderMatcherCacheHolder} when its
+ * class path changes.
+ */
+final class ClassLoaderResourceIndex {
+
+  private static final Cache<ClassLoader, ClassLoaderResourceIndex> indexes =
+      Cache.builder().setWeakKeys().build();
+
+  static {
+    ClassLoaderMatcherCacheHolder.addCache(indexes);
+  }
+
+  private final ConcurrentMap<String, Boolean> resources = new ConcurrentHashMap<>();
+
+  private ClassLoaderResourceIndex() {}
+
+  static boolean hasResource(ClassLoader classLoader, String resource) {
+    return indexes
+        .computeIfAbsent(classLoader, unused -> new ClassLoaderResourceIndex())
+        .lookup(classLoader, resource);
+  }
+
+  // the class loader is passed in rather than stored, as the index is the value of a weak key cache
+  private boolean lookup(ClassLoader classLoader, String resource) {
+    Boolean found = resources.get(resource);
+    if (found == null) {
+      boolean priorValue = InClassLoaderMatcher.getAndSet(true);
+      try {
+        found = classLoader.getResource(resource) != null;
+      } finally {
+        InClassLoaderMatcher.set(priorValue);
+      }
+      resources.put(resource, found);
+    }
+    return found;
+  }
+}
@@ -5,7 +5,7 @@
 
 package io.opentelemetry.javaagent.extension.matcher;
 
-import static io.opentelemetry.javaagent.extension.matcher.SafeHasSuperTypeMatcher.safeGetSuperClass;
+import static io.opentelemetry.javaagent.extension.matcher.SuperTypes.safeGetSuperClass;
 import static net.bytebuddy.matcher.ElementMatchers.hasSignature;
 
 import java.util.HashSet;
@@ -5,9 +5,6 @@
 
 package io.opentelemetry.javaagent.extension.matcher;
 
-import static io.opentelemetry.javaagent.extension.matcher.SafeHasSuperTypeMatcher.safeGetSuperClass;
-
-import net.bytebuddy.description.type.TypeDefinition;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
 
@@ -21,14 +18,14 @@ class SafeExtendsClassMatcher extends ElementMatcher.Junction.AbstractBase<TypeD
 
   @Override
   public boolean matches(TypeDescription target) {
-    // We do not use foreach loop and iterator interface here because we need to catch exceptions
-    // in {@code getSuperClass} calls
-    TypeDefinition typeDefinition = target;
-    while (typeDefinition != null) {
-      if (matcher.matches(typeDefinition.asGenericType())) {
+    if (matcher.matches(target.asGenericType())) {
+      return true;
+    }
+    // the super classes are computed once per type and shared by all the matchers
+    for (TypeDescription.Generic superClass : SuperTypes.of(target).superClasses(target)) {
+      if (matcher.matches(superClass)) {
         return true;
       }
-      typeDefinition = safeGetSuperClass(typeDefinition);
     }
     return false;
   }
@@ -0,0 +1,218 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.extension.matcher;
+
+import static io.opentelemetry.javaagent.extension.matcher.SafeErasureMatcher.safeAsErasure;
+import static io.opentelemetry.javaagent.extension.matcher.Utils.safeTypeDefinitionName;
+
+import io.opentelemetry.instrumentation.api.caching.Cache;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The transitive super classes and interfaces of a type, shared by all the {@link
+ * SafeHasSuperTypeMatcher}s and {@link SafeExtendsClassMatcher}s so that the type hierarchy of a
+ * class is walked once, and not once per matcher.
+ *
+ * <p>The super types are cached by type description identity. The type pool of the agent hands out
+ * the same description for a class name and class loader for as long as it caches it, so the super
+ * types of a common base class or interface are also computed only once per class loader.
+ *
+ * <p>Only the erasures of the super types are kept: the generic super types of a type reference the
+ * type itself (as their type variable source), which would keep the weak key of the cache alive.
+ */
+final class SuperTypes {
+
+  private static final Logger logger = LoggerFactory.getLogger(SuperTypes.class);
+
+  private static final Cache<TypeDescription, SuperTypes> cache =
+      Cache.builder().setWeakKeys().build();
+
+  // the super types whose interfaces the current thread is computing, guards against cyclic
+  // (invalid) hierarchies
+  private static final ThreadLocal<Set<SuperTypes>> computingInterfaces =
+      ThreadLocal.withInitial(HashSet::new);
+
+  // Computed without locking, as computing them twice gives the same result, and published as
+  // unmodifiable collections once they are complete, as they are read by other threads.
+  @Nullable private volatile List<TypeDescription.Generic> superClasses;
+  @Nullable private volatile Set<TypeDescription.Generic> interfaces;
+
+  private SuperTypes() {}
+
+  static SuperTypes of(TypeDescription type) {
+    // not computeIfAbsent(), walking the hierarchy of a type looks up the super types of its super
+    // types
+    SuperTypes superTypes = cache.get(type);
+    if (superTypes == null) {
+      superTypes = new SuperTypes();
+      cache.put(type, superTypes);
+    }
+    return superTypes;
+  }
+
+  /** Returns the super classes of {@code type}, starting with its direct super class. */
+  List<TypeDescription.Generic> superClasses(TypeDefinition type) {
+    List<TypeDescription.Generic> result = superClasses;
+    if (result == null) {
+      TypeDescription superClass = erasure(safeGetSuperClass(type));
+      if (superClass == null) {
+        result = Collections.emptyList();
+      } else {
+        List<TypeDescription.Generic> list = new ArrayList<>();
+        list.add(superClass.asGenericType());
+        list.addAll(of(superClass).superClasses(superClass));
+        result = Collections.unmodifiableList(list);
+      }
+      superClasses = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the interfaces implemented by {@code type}, directly or through its super classes and
+   * super interfaces.
+   */
+  Set<TypeDescription.Generic> interfaces(TypeDefinition type) {
+    Set<TypeDescription.Generic> result = interfaces;
+    if (result != null) {
+      return result;
+    }
+    Set<SuperTypes> computing = computingInterfaces.get();
+    if (!computing.add(this)) {
+      return Collections.emptySet();
+    }
+    try {
+      Set<TypeDescription.Generic> set = new LinkedHashSet<>();
+      addInterfaces(type, set);
+      TypeDescription superClass = firstErasure(superClasses(type));
+      if (superClass != null) {
+        set.addAll(of(superClass).interfaces(superClass));
+      }
+      result = Collections.unmodifiableSet(set);
+      interfaces = result;
+      return result;
+    } finally {
+      computing.remove(this);
+    }
+  }
+
+  private static void addInterfaces(TypeDefinition type, Set<TypeDescription.Generic> set) {
+    for (TypeDefinition interfaceType : safeGetInterfaces(type)) {
+      TypeDescription erasure = safeAsErasure(interfaceType);
+      if (erasure != null && set.add(erasure.asGenericType())) {
+        set.addAll(of(erasure).interfaces(erasure));
+      }
+    }
+  }
+
+  @Nullable
+  private static TypeDescription firstErasure(List<TypeDescription.Generic> types) {
+    return types.isEmpty() ? null : types.get(0).asErasure();
+  }
+
+  @Nullable
+  private static TypeDescription erasure(@Nullable TypeDefinition type) {
+    return type == null ? null : safeAsErasure(type);
+  }
+
+  @Nullable
+  static TypeDefinition safeGetSuperClass(TypeDefinition typeDefinition) {
+    try {
+      return typeDefinition.getSuperClass();
+    } catch (Throwable e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            "{} trying to get super class for target {}: {}",
+            e.getClass().getSimpleName(),
+            safeTypeDefinitionName(typeDefinition),
+            e.getMessage());
+      }
+      return null;
+    }
+  }
+
+  private static Iterable<TypeDefinition> safeGetInterfaces(TypeDefinition typeDefinition) {
+    return new SafeInterfaceIterator(typeDefinition);
+  }
+
+  /**
+   * TypeDefinition#getInterfaces() produces an iterator which may throw an exception during
+   * iteration if an interface is absent from the classpath.
+   *
+   * <p>The caller MUST call hasNext() before calling next().
+   *
+   * <p>This wrapper exists to allow getting interfaces even if the lookup on one fails.
+   */
+  // Private class, let's save the allocation
+  @SuppressWarnings("IterableAndIterator")
+  private static class SafeInterfaceIterator
+      implements Iterator<TypeDefinition>, Iterable<TypeDefinition> {
+    private final TypeDefinition typeDefinition;
+    @Nullable private final Iterator<TypeDescription.Generic> it;
+    private TypeDefinition next;
+
+    private SafeInterfaceIterator(TypeDefinition typeDefinition) {
+      this.typeDefinition = typeDefinition;
+      Iterator<TypeDescription.Generic> it = null;
+      try {
+        it = typeDefinition.getInterfaces().iterator();
+      } catch (Throwable e) {
+        logException(typeDefinition, e);
+      }
+      this.it = it;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (null != it && it.hasNext()) {
+        try {
+          next = it.next();
+          return true;
+        } catch (Throwable e) {
+          logException(typeDefinition, e);
+          return false;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public TypeDefinition next() {
+      return next;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<TypeDefinition> iterator() {
+      return this;
+    }
+
+    private static void logException(TypeDefinition typeDefinition, Throwable e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            "{} trying to get interfaces for target {}: {}",
+            e.getClass().getSimpleName(),
+            safeTypeDefinitionName(typeDefinition),
+            e.getMessage());
+      }
+    }
+  }
+}
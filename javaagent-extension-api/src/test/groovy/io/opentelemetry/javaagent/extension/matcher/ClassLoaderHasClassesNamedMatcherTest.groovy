@@ -0,0 +1,134 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.extension.matcher
+
+import io.opentelemetry.javaagent.instrumentation.api.internal.ClassLoaderMatcherCacheHolder
+import java.util.jar.Attributes
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import static io.opentelemetry.javaagent.extension.matcher.AgentElementMatchers.hasClassesNamed
+import static net.bytebuddy.matcher.ElementMatchers.isBootstrapClassLoader
+import static net.bytebuddy.matcher.ElementMatchers.not
+
+class ClassLoaderHasClassesNamedMatcherTest extends Specification {
+
+  @TempDir
+  File tempDir
+
+  def "matches classes in jars"() {
+    setup:
+    def jar = createJar("lib.jar", null, "com/example/First.class", "com/example/Second.class")
+    def loader = new URLClassLoader([jar.toURI().toURL()] as URL[], (ClassLoader) null)
+
+    expect:
+    hasClassesNamed("com.example.First").matches(loader)
+    hasClassesNamed("com.example.First", "com.example.Second").matches(loader)
+    !hasClassesNamed("com.example.First", "com.example.Missing").matches(loader)
+    !hasClassesNamed("com.example.Missing").matches(loader)
+  }
+
+  def "matches classes in directories and manifest class path"() {
+    setup:
+    def dir = new File(tempDir, "classes")
+    new File(dir, "com/example").mkdirs()
+    new File(dir, "com/example/InDirectory.class").bytes = new byte[0]
+    createJar("referenced.jar", null, "com/example/Referenced.class")
+    def jar = createJar("main.jar", "referenced.jar", "com/example/Main.class")
+    def loader = new URLClassLoader(
+      [dir.toURI().toURL(), jar.toURI().toURL()] as URL[], (ClassLoader) null)
+
+    expect:
+    hasClassesNamed("com.example.InDirectory", "com.example.Main", "com.example.Referenced")
+      .matches(loader)
+  }
+
+  def "matches classes of parent class loader"() {
+    setup:
+    def parentJar = createJar("parent.jar", null, "com/example/Parent.class")
+    def childJar = createJar("child.jar", null, "com/example/Child.class")
+    def parent = new URLClassLoader([parentJar.toURI().toURL()] as URL[], (ClassLoader) null)
+    def child = new URLClassLoader([childJar.toURI().toURL()] as URL[], parent)
+
+    expect:
+    hasClassesNamed("com.example.Parent", "com.example.Child").matches(child)
+    !hasClassesNamed("com.example.Child").matches(parent)
+  }
+
+  def "matches classes of class loaders that compute their resources"() {
+    setup:
+    def loader = new ClassLoader(null) {
+      @Override
+      protected URL findResource(String name) {
+        return name == "com/example/Computed.class" ? new URL("file:/computed") : null
+      }
+    }
+
+    expect:
+    hasClassesNamed("com.example.Computed").matches(loader)
+    !hasClassesNamed("com.example.Missing").matches(loader)
+  }
+
+  def "matches classes added after invalidation"() {
+    setup:
+    def loader = new TestClassLoader()
+    def matcher = hasClassesNamed("com.example.Added")
+
+    expect:
+    !matcher.matches(loader)
+
+    when:
+    loader.resources.add("com/example/Added.class")
+    ClassLoaderMatcherCacheHolder.invalidateAllCachesForClassLoader(loader)
+
+    then:
+    matcher.matches(loader)
+  }
+
+  def "exposes required class names of conjunctions"() {
+    setup:
+    def matcher = hasClassesNamed("com.example.First")
+      .and(not(isBootstrapClassLoader()))
+      .and(hasClassesNamed("com.example.Second", "com.example.First"))
+
+    expect:
+    matcher instanceof ClassLoaderRequiringClassesMatcher
+    (matcher as ClassLoaderRequiringClassesMatcher).requiredClassNames() as List ==
+      ["com.example.First", "com.example.Second"]
+  }
+
+  File createJar(String name, String classPath, String... entries) {
+    def manifest = new Manifest()
+    manifest.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0")
+    if (classPath != null) {
+      manifest.mainAttributes.put(Attributes.Name.CLASS_PATH, classPath)
+    }
+    def file = new File(tempDir, name)
+    new JarOutputStream(new FileOutputStream(file), manifest).withCloseable { out ->
+      for (String entry : entries) {
+        out.putNextEntry(new JarEntry(entry))
+        out.closeEntry()
+      }
+    }
+    return file
+  }
+
+  static class TestClassLoader extends ClassLoader {
+    final Set<String> resources = new HashSet<>()
+
+    TestClassLoader() {
+      super(null)
+    }
+
+    @Override
+    protected URL findResource(String name) {
+      return resources.contains(name) ? new URL("file:/" + name) : null
+    }
+  }
+}
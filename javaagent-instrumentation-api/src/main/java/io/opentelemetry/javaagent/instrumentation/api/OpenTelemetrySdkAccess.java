@@ -6,6 +6,8 @@
 package io.opentelemetry.javaagent.instrumentation.api;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * A helper to facilitate accessing OpenTelemetry SDK methods from instrumentation. Because
@@ -26,6 +28,7 @@ public final class OpenTelemetrySdkAccess {
   }
 
   private static volatile ForceFlusher forceFlush;
+  private static volatile Consumer<Runnable> whenSdkInitialized = Runnable::run;
 
   /** Forces flushing of pending spans. */
   public static void forceFlush(int timeout, TimeUnit unit) {
@@ -45,5 +48,35 @@ public final class OpenTelemetrySdkAccess {
     OpenTelemetrySdkAccess.forceFlush = forceFlush;
   }
 
+  /**
+   * Replaces the {@link ForceFlusher} set by {@link #internalSetForceFlush(ForceFlusher)} with the
+   * one {@code wrapper} returns for it, e.g. to flush in the background. This is called from the
+   * agent classloader. Instrumentation must not call this.
+   */
+  public static void internalWrapForceFlush(UnaryOperator<ForceFlusher> wrapper) {
+    ForceFlusher forceFlush = OpenTelemetrySdkAccess.forceFlush;
+    if (forceFlush != null) {
+      OpenTelemetrySdkAccess.forceFlush = wrapper.apply(forceFlush);
+    }
+  }
+
+  /**
+   * Runs {@code action} once the SDK is initialized: right away, unless the SDK is initialized in
+   * the background, in which case the action runs on the thread that initialized it. Agent
+   * listeners that use the SDK, e.g. to register metrics with the global meter provider, have to
+   * call it from {@code afterAgent()}.
+   */
+  public static void whenSdkInitialized(Runnable action) {
+    whenSdkInitialized.accept(action);
+  }
+
+  /**
+   * Sets how {@link #whenSdkInitialized(Runnable)} runs the actions while the SDK is initialized in
+   * the background. This is called from the agent classloader. Instrumentation must not call this.
+   */
+  public static void internalSetWhenSdkInitialized(Consumer<Runnable> whenSdkInitialized) {
+    OpenTelemetrySdkAccess.whenSdkInitialized = whenSdkInitialized;
+  }
+
   private OpenTelemetrySdkAccess() {}
 }
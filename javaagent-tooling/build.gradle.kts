@@ -28,6 +28,8 @@ dependencies {
   // Only the logging exporter is included in our slim distribution so we include it here.
   // Other exporters are in javaagent-exporters
   implementation("io.opentelemetry:opentelemetry-exporter-logging")
+  // The OTLP exporter is in both distributions, it is wrapped by the disk buffering exporter
+  compileOnly("io.opentelemetry:opentelemetry-exporter-otlp")
 
   api("net.bytebuddy:byte-buddy-dep")
   implementation("org.slf4j:slf4j-api")
@@ -40,6 +42,13 @@ dependencies {
   testImplementation("org.assertj:assertj-core")
   testImplementation("org.mockito:mockito-core")
   testImplementation("org.mockito:mockito-junit-jupiter")
+  // a collector for the disk buffering exporter
+  testImplementation(platform("io.grpc:grpc-bom:1.41.0"))
+  testImplementation("io.opentelemetry:opentelemetry-exporter-otlp")
+  testImplementation("io.opentelemetry:opentelemetry-proto")
+  testImplementation("io.grpc:grpc-netty-shaded")
+  testImplementation("io.grpc:grpc-protobuf")
+  testImplementation("io.grpc:grpc-stub")
 
   // this only exists to make Intellij happy since it doesn't (currently at least) understand our
   // inclusion of this artifact inside of :instrumentation-api
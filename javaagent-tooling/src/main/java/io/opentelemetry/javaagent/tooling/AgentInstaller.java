@@ -25,10 +25,11 @@ import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModul
 import io.opentelemetry.javaagent.instrumentation.api.internal.InstrumentedTaskClasses;
 import io.opentelemetry.javaagent.tooling.asyncannotationsupport.WeakRefAsyncOperationEndStrategies;
 import io.opentelemetry.javaagent.tooling.bootstrap.BootstrapPackagesBuilderImpl;
+import io.opentelemetry.javaagent.tooling.cds.ClassListWriter;
 import io.opentelemetry.javaagent.tooling.config.ConfigInitializer;
 import io.opentelemetry.javaagent.tooling.ignore.IgnoredClassLoadersMatcher;
 import io.opentelemetry.javaagent.tooling.ignore.IgnoredTypesBuilderImpl;
-import io.opentelemetry.javaagent.tooling.ignore.IgnoredTypesMatcher;
+import io.opentelemetry.javaagent.tooling.instrumentation.InstrumentationLoader;
 import io.opentelemetry.javaagent.tooling.muzzle.AgentTooling;
 import io.opentelemetry.javaagent.tooling.util.Trie;
 import java.lang.instrument.Instrumentation;
@@ -39,6 +40,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -65,6 +67,12 @@ public class AgentInstaller {
   private static final String FORCE_SYNCHRONOUS_AGENT_LISTENERS_CONFIG =
       "otel.javaagent.experimental.force-synchronous-agent-listeners";
 
+  // Experimental: the number of threads that match the classes that are already loaded when the
+  // agent is installed, 1 leaves the matching to byte buddy
+  private static final String RETRANSFORMATION_PARALLELISM_CONFIG =
+      "otel.javaagent.experimental.retransformation.parallelism";
+  private static final int RETRANSFORMATION_BATCH_SIZE = 100;
+
   private static final String STRICT_CONTEXT_STRESSOR_MILLIS =
       "otel.javaagent.testing.strict-context-stressor-millis";
 
@@ -107,6 +115,7 @@ public class AgentInstaller {
     Config config = Config.get();
     if (config.getBoolean(JAVAAGENT_ENABLED_CONFIG, true)) {
       setupUnsafe(inst);
+      ClassListWriter.registerIfEnabled(inst, config);
       List<AgentListener> agentListeners = loadOrdered(AgentListener.class);
       installBytebuddyAgent(inst, agentListeners);
     } else {
@@ -157,6 +166,8 @@ public class AgentInstaller {
     }
 
     int numberOfLoadedExtensions = 0;
+    // null when an extension transforms classes that the type matchers don't know about
+    List<AgentBuilder.RawMatcher> typeMatchers = new ArrayList<>();
     for (AgentExtension agentExtension : loadOrdered(AgentExtension.class)) {
       logger.debug(
           "Loading extension {} [class {}]",
@@ -165,6 +176,11 @@ public class AgentInstaller {
       try {
         agentBuilder = agentExtension.extend(agentBuilder);
         numberOfLoadedExtensions++;
+        if (typeMatchers != null && agentExtension instanceof InstrumentationLoader) {
+          typeMatchers.addAll(((InstrumentationLoader) agentExtension).typeMatchers());
+        } else {
+          typeMatchers = null;
+        }
       } catch (Exception | LinkageError e) {
         logger.error(
             "Unable to load extension {} [class {}]",
@@ -175,9 +191,16 @@ public class AgentInstaller {
     }
     logger.debug("Installed {} extension(s)", numberOfLoadedExtensions);
 
+    int retransformationParallelism = config.getInt(RETRANSFORMATION_PARALLELISM_CONFIG, 1);
+    if (retransformationParallelism > 1 && typeMatchers != null) {
+      agentBuilder =
+          configureParallelRetransformation(
+              agentBuilder, typeMatchers, retransformationParallelism);
+    }
+
     ResettableClassFileTransformer resettableClassFileTransformer = agentBuilder.installOn(inst);
     ClassFileTransformerHolder.setClassFileTransformer(resettableClassFileTransformer);
-    runAfterAgentListeners(agentListeners, config);
+    runAfterAgentListeners(inst, agentListeners, config);
     return resettableClassFileTransformer;
   }
 
@@ -215,11 +238,32 @@ public class AgentInstaller {
 
     return agentBuilder
         .ignore(any(), new IgnoredClassLoadersMatcher(builder.buildIgnoredClassLoadersTrie()))
-        .or(new IgnoredTypesMatcher(builder.buildIgnoredTypesTrie()));
+        .or(builder.buildIgnoredTypesMatcher());
+  }
+
+  private static AgentBuilder configureParallelRetransformation(
+      AgentBuilder agentBuilder, List<AgentBuilder.RawMatcher> typeMatchers, int parallelism) {
+    AgentBuilder.RedefinitionListenable redefinitionAgentBuilder =
+        agentBuilder
+            .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+            .with(
+                AgentBuilder.RedefinitionStrategy.BatchAllocator.ForFixedSize.ofSize(
+                    RETRANSFORMATION_BATCH_SIZE))
+            .with(
+                new ParallelDiscoveryStrategy(
+                    new RedefinitionDiscoveryStrategy(),
+                    typeMatchers,
+                    AgentTooling.poolStrategy(),
+                    AgentTooling.locationStrategy(Utils.getBootstrapProxy()),
+                    parallelism));
+    if (logger.isDebugEnabled()) {
+      redefinitionAgentBuilder = redefinitionAgentBuilder.with(new RedefinitionLoggingListener());
+    }
+    return redefinitionAgentBuilder;
   }
 
   private static void runAfterAgentListeners(
-      Iterable<AgentListener> agentListeners, Config config) {
+      Instrumentation inst, Iterable<AgentListener> agentListeners, Config config) {
     // java.util.logging.LogManager maintains a final static LogManager, which is created during
     // class initialization. Some AgentListener implementations may use JRE bootstrap classes
     // which touch this class (e.g. JFR classes or some MBeans).
@@ -242,8 +286,13 @@ public class AgentInstaller {
         && isJavaBefore9()
         && isAppUsingCustomLogManager()) {
       logger.debug("Custom JUL LogManager detected: delaying AgentListener#afterAgent() calls");
-      registerClassLoadCallback(
-          "java.util.logging.LogManager", new DelayedAfterAgentCallback(config, agentListeners));
+      DelayedAfterAgentCallback callback = new DelayedAfterAgentCallback(config, agentListeners);
+      registerClassLoadCallback("java.util.logging.LogManager", callback);
+      // another thread, e.g. the one that initializes the SDK in the background, may have loaded
+      // it before the callback was registered
+      if (isLoaded(inst, "java.util.logging.LogManager")) {
+        callback.run();
+      }
     } else {
       for (AgentListener agentListener : agentListeners) {
         agentListener.afterAgent(config);
@@ -343,9 +392,19 @@ public class AgentInstaller {
     }
   }
 
+  private static boolean isLoaded(Instrumentation inst, String className) {
+    for (Class<?> type : inst.getAllLoadedClasses()) {
+      if (type.getName().equals(className)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private static class DelayedAfterAgentCallback implements Runnable {
     private final Iterable<AgentListener> agentListeners;
     private final Config config;
+    private final AtomicBoolean started = new AtomicBoolean();
 
     private DelayedAfterAgentCallback(Config config, Iterable<AgentListener> agentListeners) {
       this.agentListeners = agentListeners;
@@ -354,6 +413,9 @@ public class AgentInstaller {
 
     @Override
     public void run() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
       /*
        * This callback is called from within bytecode transformer. This can be a problem if callback tries
        * to load classes being transformed. To avoid this we start a thread here that calls the callback.
@@ -6,12 +6,18 @@
 package io.opentelemetry.javaagent.tooling;
 
 import com.google.auto.service.AutoService;
+import io.opentelemetry.api.metrics.GlobalMeterProvider;
 import io.opentelemetry.exporter.logging.LoggingSpanExporter;
 import io.opentelemetry.instrumentation.api.config.Config;
+import io.opentelemetry.javaagent.tooling.deferred.HandoverIdGenerator;
+import io.opentelemetry.javaagent.tooling.deferred.HandoverSampler;
 import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigurationException;
+import io.opentelemetry.sdk.autoconfigure.spi.traces.ConfigurableSamplerProvider;
 import io.opentelemetry.sdk.autoconfigure.spi.traces.SdkTracerProviderConfigurer;
 import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
 import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +26,10 @@ public class AgentTracerProviderConfigurer implements SdkTracerProviderConfigure
   private static final Logger logger = LoggerFactory.getLogger(AgentTracerProviderConfigurer.class);
 
   private static final String ADD_THREAD_DETAILS = "otel.javaagent.add-thread-details";
+  private static final String SPAN_METRICS_ENABLED =
+      "otel.javaagent.experimental.span-metrics.enabled";
+  private static final String SPAN_METRICS_MAX_OPERATIONS =
+      "otel.javaagent.experimental.span-metrics.max-operations";
 
   @Override
   public void configure(
@@ -33,9 +43,79 @@ public class AgentTracerProviderConfigurer implements SdkTracerProviderConfigure
       sdkTracerProviderBuilder.addSpanProcessor(new AddThreadDetailsSpanProcessor());
     }
 
+    boolean asyncSdk =
+        Config.get().getBoolean(OpenTelemetryInstaller.JAVAAGENT_ASYNC_SDK_CONFIG, false);
+    boolean spanMetrics = Config.get().getBoolean(SPAN_METRICS_ENABLED, false);
+    // a sampler that an extension sets replaces this one: then it decides again for the spans that
+    // were started before the SDK was initialized, and the metrics only cover the spans it records
+    if (asyncSdk || spanMetrics) {
+      Sampler sampler = configuredSampler(config);
+      if (asyncSdk) {
+        sampler = new HandoverSampler(sampler);
+      }
+      if (spanMetrics) {
+        sampler = new SpanMetricsSampler(sampler);
+      }
+      sdkTracerProviderBuilder.setSampler(sampler);
+    }
+
+    // keep the ids of the spans that were started before the SDK was initialized
+    if (asyncSdk) {
+      sdkTracerProviderBuilder.setIdGenerator(HandoverIdGenerator.getInstance());
+    }
+
+    if (spanMetrics) {
+      enableSpanMetrics(sdkTracerProviderBuilder);
+    }
     maybeEnableLoggingExporter(sdkTracerProviderBuilder);
   }
 
+  /**
+   * Returns the sampler that the SDK autoconfiguration sets for {@code otel.traces.sampler}, which
+   * the tracer provider builder doesn't expose.
+   */
+  static Sampler configuredSampler(ConfigProperties config) {
+    String sampler = config.getString("otel.traces.sampler");
+    if (sampler == null) {
+      // the default of the tracer provider
+      return Sampler.parentBased(Sampler.alwaysOn());
+    }
+    switch (sampler) {
+      case "always_on":
+        return Sampler.alwaysOn();
+      case "always_off":
+        return Sampler.alwaysOff();
+      case "traceidratio":
+        return Sampler.traceIdRatioBased(samplerRatio(config));
+      case "parentbased_always_on":
+        return Sampler.parentBased(Sampler.alwaysOn());
+      case "parentbased_always_off":
+        return Sampler.parentBased(Sampler.alwaysOff());
+      case "parentbased_traceidratio":
+        return Sampler.parentBased(Sampler.traceIdRatioBased(samplerRatio(config)));
+      default:
+        for (ConfigurableSamplerProvider provider :
+            SafeServiceLoader.load(ConfigurableSamplerProvider.class)) {
+          if (provider.getName().equals(sampler)) {
+            return provider.createSampler(config);
+          }
+        }
+        throw new ConfigurationException("Unrecognized value for otel.traces.sampler: " + sampler);
+    }
+  }
+
+  private static double samplerRatio(ConfigProperties config) {
+    Double ratio = config.getDouble("otel.traces.sampler.arg");
+    return ratio == null ? 1.0d : ratio;
+  }
+
+  private static void enableSpanMetrics(SdkTracerProviderBuilder builder) {
+    builder.addSpanProcessor(
+        new SpanMetricsSpanProcessor(
+            GlobalMeterProvider.get().get("io.opentelemetry.javaagent.span-metrics"),
+            Config.get().getInt(SPAN_METRICS_MAX_OPERATIONS, 500)));
+  }
+
   private static void maybeEnableLoggingExporter(SdkTracerProviderBuilder builder) {
     if (Config.get().isAgentDebugEnabled()) {
       // don't install another instance if the user has already explicitly requested it.
@@ -7,6 +7,7 @@ package io.opentelemetry.javaagent.tooling;
 
 import com.google.auto.service.AutoService;
 import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.metrics.GlobalMeterProvider;
 import io.opentelemetry.api.metrics.MeterProvider;
 import io.opentelemetry.extension.noopapi.NoopOpenTelemetry;
@@ -14,11 +15,17 @@ import io.opentelemetry.instrumentation.api.config.Config;
 import io.opentelemetry.javaagent.extension.AgentListener;
 import io.opentelemetry.javaagent.instrumentation.api.OpenTelemetrySdkAccess;
 import io.opentelemetry.javaagent.tooling.config.ConfigPropertiesAdapter;
+import io.opentelemetry.javaagent.tooling.deferred.DeferredOpenTelemetry;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.autoconfigure.OpenTelemetrySdkAutoConfiguration;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +35,10 @@ public class OpenTelemetryInstaller implements AgentListener {
 
   static final String JAVAAGENT_ENABLED_CONFIG = "otel.javaagent.enabled";
   static final String JAVAAGENT_NOOP_CONFIG = "otel.javaagent.experimental.use-noop-api";
+  static final String JAVAAGENT_ASYNC_SDK_CONFIG =
+      "otel.javaagent.experimental.async-sdk-initialization.enabled";
+  private static final String ASYNC_SDK_MAX_BUFFERED_SPANS_CONFIG =
+      "otel.javaagent.experimental.async-sdk-initialization.max-buffered-spans";
 
   @Override
   public void beforeAgent(Config config) {
@@ -48,25 +59,112 @@ public class OpenTelemetryInstaller implements AgentListener {
       } else {
         System.setProperty("io.opentelemetry.context.contextStorageProvider", "default");
 
-        OpenTelemetrySdk sdk =
-            OpenTelemetrySdkAutoConfiguration.initialize(true, new ConfigPropertiesAdapter(config));
-        OpenTelemetrySdkAccess.internalSetForceFlush(
-            (timeout, unit) -> {
-              CompletableResultCode traceResult = sdk.getSdkTracerProvider().forceFlush();
-              MeterProvider meterProvider = GlobalMeterProvider.get();
-              final CompletableResultCode metricsResult;
-              if (meterProvider instanceof SdkMeterProvider) {
-                metricsResult = ((SdkMeterProvider) meterProvider).forceFlush();
-              } else {
-                metricsResult = CompletableResultCode.ofSuccess();
-              }
-              CompletableResultCode.ofAll(Arrays.asList(traceResult, metricsResult))
-                  .join(timeout, unit);
-            });
+        if (config.getBoolean(JAVAAGENT_ASYNC_SDK_CONFIG, false)) {
+          installDeferredSdk(config);
+        } else {
+          OpenTelemetrySdk sdk =
+              OpenTelemetrySdkAutoConfiguration.initialize(
+                  true, new ConfigPropertiesAdapter(config));
+          OpenTelemetrySdkAccess.internalSetForceFlush(
+              (timeout, unit) -> forceFlush(sdk, timeout, unit));
+        }
       }
 
     } else {
       logger.info("Tracing is disabled.");
     }
   }
+
+  // the instrumentations are installed while the SDK is built: the spans that they start meanwhile
+  // are buffered and handed over to the SDK once it is ready
+  private static void installDeferredSdk(Config config) {
+    DeferredOpenTelemetry deferredOpenTelemetry =
+        new DeferredOpenTelemetry(
+            config.getInt(ASYNC_SDK_MAX_BUFFERED_SPANS_CONFIG, 2048), bufferedSpanSampler(config));
+    GlobalOpenTelemetry.set(deferredOpenTelemetry);
+
+    CompletableFuture<OpenTelemetrySdk> sdkFuture = new CompletableFuture<>();
+    OpenTelemetrySdkAccess.internalSetWhenSdkInitialized(action -> whenComplete(sdkFuture, action));
+    OpenTelemetrySdkAccess.internalSetForceFlush(
+        (timeout, unit) -> {
+          // the time spent waiting for the SDK counts towards the timeout of the flush
+          long deadline = System.nanoTime() + unit.toNanos(timeout);
+          OpenTelemetrySdk sdk;
+          try {
+            sdk = sdkFuture.get(timeout, unit);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          } catch (ExecutionException | TimeoutException e) {
+            return;
+          }
+          long remainingNanos = deadline - System.nanoTime();
+          if (remainingNanos > 0) {
+            forceFlush(sdk, remainingNanos, TimeUnit.NANOSECONDS);
+          }
+        });
+
+    Thread thread =
+        new Thread(
+            () -> {
+              long startTime = System.nanoTime();
+              try {
+                OpenTelemetrySdk sdk =
+                    OpenTelemetrySdkAutoConfiguration.initialize(
+                        false, new ConfigPropertiesAdapter(config));
+                deferredOpenTelemetry.setDelegate(sdk);
+                logger.debug(
+                    "Initialized the OpenTelemetry SDK in {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                sdkFuture.complete(sdk);
+              } catch (Throwable t) {
+                logger.error("Failed to initialize the OpenTelemetry SDK", t);
+                deferredOpenTelemetry.setDelegate(OpenTelemetry.noop());
+                sdkFuture.completeExceptionally(t);
+              }
+            });
+    thread.setName("otel-sdk-initializer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  // the sampler that the SDK is configured with samples the spans that are buffered until then, so
+  // that they propagate its decisions
+  private static Sampler bufferedSpanSampler(Config config) {
+    try {
+      return AgentTracerProviderConfigurer.configuredSampler(new ConfigPropertiesAdapter(config));
+    } catch (RuntimeException e) {
+      // the SDK fails to initialize with the same configuration, and then nothing is exported
+      return Sampler.alwaysOff();
+    }
+  }
+
+  // runs the action right away if the SDK is initialized, otherwise on the thread that initializes
+  // it, once it is
+  static void whenComplete(CompletableFuture<?> sdkFuture, Runnable action) {
+    if (sdkFuture.isDone()) {
+      action.run();
+      return;
+    }
+    sdkFuture.whenComplete(
+        (sdk, error) -> {
+          try {
+            action.run();
+          } catch (RuntimeException e) {
+            logger.error("Failed to run after the SDK initialization", e);
+          }
+        });
+  }
+
+  private static void forceFlush(OpenTelemetrySdk sdk, long timeout, TimeUnit unit) {
+    CompletableResultCode traceResult = sdk.getSdkTracerProvider().forceFlush();
+    MeterProvider meterProvider = GlobalMeterProvider.get();
+    final CompletableResultCode metricsResult;
+    if (meterProvider instanceof SdkMeterProvider) {
+      metricsResult = ((SdkMeterProvider) meterProvider).forceFlush();
+    } else {
+      metricsResult = CompletableResultCode.ofSuccess();
+    }
+    CompletableResultCode.ofAll(Arrays.asList(traceResult, metricsResult)).join(timeout, unit);
+  }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import com.google.auto.service.AutoService;
+import io.opentelemetry.instrumentation.api.config.Config;
+import io.opentelemetry.instrumentation.api.internal.OverheadGovernor;
+import io.opentelemetry.javaagent.extension.AgentListener;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link AgentListener} that periodically measures the CPU load of the process and passes it to
+ * the {@link OverheadGovernor}, when a CPU budget is configured. It runs after the agent is
+ * installed, because reading the load initializes the management beans, which must not happen
+ * before an application sets its custom JUL LogManager.
+ */
+@AutoService(AgentListener.class)
+public class OverheadGovernorInstaller implements AgentListener {
+  private static final Logger logger = LoggerFactory.getLogger(OverheadGovernorInstaller.class);
+
+  private static final String CPU_BUDGET_CONFIG =
+      "otel.javaagent.experimental.overhead-governor.cpu-budget";
+  private static final String INTERVAL_CONFIG =
+      "otel.javaagent.experimental.overhead-governor.interval";
+
+  @Override
+  public void afterAgent(Config config) {
+    double cpuBudget = config.getDouble(CPU_BUDGET_CONFIG, -1);
+    if (cpuBudget <= 0) {
+      return;
+    }
+    ProcessCpuLoad cpuLoad = isProcessCpuTimeAvailable() ? ProcessCpuLoad.create() : null;
+    if (cpuLoad == null) {
+      logger.warn("The CPU load of the process is not available, the overhead governor is off");
+      return;
+    }
+
+    OverheadGovernor governor = OverheadGovernor.instance();
+    governor.setCpuBudget(cpuBudget);
+    long intervalMillis = config.getDuration(INTERVAL_CONFIG, Duration.ofSeconds(10)).toMillis();
+    Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread result = new Thread(runnable, "otel-overhead-governor");
+              result.setDaemon(true);
+              result.setContextClassLoader(null);
+              return result;
+            })
+        .scheduleAtFixedRate(
+            () -> governor.update(cpuLoad.sample()),
+            intervalMillis,
+            intervalMillis,
+            TimeUnit.MILLISECONDS);
+  }
+
+  private static boolean isProcessCpuTimeAvailable() {
+    try {
+      Class.forName(
+          "com.sun.management.OperatingSystemMXBean",
+          false,
+          OverheadGovernorInstaller.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+}
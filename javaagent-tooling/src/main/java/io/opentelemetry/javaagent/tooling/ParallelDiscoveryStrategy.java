@@ -0,0 +1,128 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import static java.util.stream.Collectors.toList;
+
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.utility.JavaModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Narrows down the loaded classes discovered by a delegate strategy to the ones that match the type
+ * matchers of the instrumentations, matching the classes on several threads.
+ *
+ * <p>Byte Buddy matches the discovered classes on the thread that installs the agent, which is what
+ * makes installing the agent slow when many classes are already loaded. The classes returned by
+ * this strategy are matched again by Byte Buddy before they are retransformed, but there are few of
+ * them, and the type descriptions and muzzle verdicts they need are already cached.
+ *
+ * <p>The matchers must not miss a class that any transformation of the agent applies to: a class
+ * that fails to match (e.g. because its class file can't be located) is kept.
+ */
+public final class ParallelDiscoveryStrategy
+    implements AgentBuilder.RedefinitionStrategy.DiscoveryStrategy {
+
+  private static final Logger logger = LoggerFactory.getLogger(ParallelDiscoveryStrategy.class);
+
+  private final AgentBuilder.RedefinitionStrategy.DiscoveryStrategy delegate;
+  private final List<AgentBuilder.RawMatcher> matchers;
+  private final AgentBuilder.PoolStrategy poolStrategy;
+  private final AgentBuilder.LocationStrategy locationStrategy;
+  // shared by all passes, its idle threads are stopped by the pool itself
+  private final ForkJoinPool pool;
+
+  public ParallelDiscoveryStrategy(
+      AgentBuilder.RedefinitionStrategy.DiscoveryStrategy delegate,
+      List<AgentBuilder.RawMatcher> matchers,
+      AgentBuilder.PoolStrategy poolStrategy,
+      AgentBuilder.LocationStrategy locationStrategy,
+      int parallelism) {
+    this.delegate = delegate;
+    this.matchers = matchers;
+    this.poolStrategy = poolStrategy;
+    this.locationStrategy = locationStrategy;
+    this.pool =
+        new ForkJoinPool(
+            parallelism,
+            forkJoinPool -> {
+              ForkJoinWorkerThread thread =
+                  ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+              thread.setName("otel-javaagent-retransformation-" + thread.getPoolIndex());
+              return thread;
+            },
+            null,
+            false);
+  }
+
+  @Override
+  public Iterable<Iterable<Class<?>>> resolve(Instrumentation instrumentation) {
+    return () -> {
+      Iterator<Iterable<Class<?>>> passes = delegate.resolve(instrumentation).iterator();
+      return new Iterator<Iterable<Class<?>>>() {
+        @Override
+        public boolean hasNext() {
+          return passes.hasNext();
+        }
+
+        @Override
+        public Iterable<Class<?>> next() {
+          return matching(instrumentation, passes.next());
+        }
+      };
+    };
+  }
+
+  private List<Class<?>> matching(Instrumentation instrumentation, Iterable<Class<?>> classes) {
+    List<Class<?>> candidates = new ArrayList<>();
+    for (Class<?> clazz : classes) {
+      if (instrumentation.isModifiableClass(clazz)) {
+        candidates.add(clazz);
+      }
+    }
+    try {
+      return pool.submit(() -> candidates.parallelStream().filter(this::matches).collect(toList()))
+          .get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return candidates;
+    } catch (ExecutionException e) {
+      logger.debug("Failed to match the loaded classes, retransforming all of them", e);
+      return candidates;
+    }
+  }
+
+  private boolean matches(Class<?> clazz) {
+    try {
+      ClassLoader classLoader = clazz.getClassLoader();
+      JavaModule module = JavaModule.ofType(clazz);
+      TypeDescription typeDescription =
+          poolStrategy
+              .typePool(locationStrategy.classFileLocator(classLoader, module), classLoader)
+              .describe(clazz.getName())
+              .resolve();
+      for (AgentBuilder.RawMatcher matcher : matchers) {
+        if (matcher.matches(
+            typeDescription, classLoader, module, clazz, clazz.getProtectionDomain())) {
+          return true;
+        }
+      }
+      return false;
+    } catch (Throwable t) {
+      // leave it to byte buddy
+      return true;
+    }
+  }
+}
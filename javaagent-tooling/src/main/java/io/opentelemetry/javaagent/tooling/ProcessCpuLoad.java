@@ -0,0 +1,60 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import com.sun.management.OperatingSystemMXBean;
+import java.lang.management.ManagementFactory;
+import javax.annotation.Nullable;
+
+/**
+ * Computes the CPU load of the process from {@link OperatingSystemMXBean#getProcessCpuTime()}. Only
+ * references {@code com.sun.management} types, so it must not be loaded before checking that they
+ * are available.
+ */
+final class ProcessCpuLoad {
+
+  @Nullable
+  static ProcessCpuLoad create() {
+    java.lang.management.OperatingSystemMXBean osBean =
+        ManagementFactory.getOperatingSystemMXBean();
+    if (!(osBean instanceof OperatingSystemMXBean)) {
+      return null;
+    }
+    OperatingSystemMXBean sunOsBean = (OperatingSystemMXBean) osBean;
+    if (sunOsBean.getProcessCpuTime() < 0) {
+      return null;
+    }
+    return new ProcessCpuLoad(sunOsBean);
+  }
+
+  private final OperatingSystemMXBean osBean;
+  private final int availableProcessors = Runtime.getRuntime().availableProcessors();
+  private long previousCpuTime;
+  private long previousSampleNanos;
+
+  private ProcessCpuLoad(OperatingSystemMXBean osBean) {
+    this.osBean = osBean;
+    previousCpuTime = osBean.getProcessCpuTime();
+    previousSampleNanos = System.nanoTime();
+  }
+
+  /**
+   * Returns the CPU time used by the process since the previous call, as a part of the CPU time of
+   * all the available processors, between 0 and 1, or a negative value if it's not available.
+   */
+  synchronized double sample() {
+    long cpuTime = osBean.getProcessCpuTime();
+    long sampleNanos = System.nanoTime();
+    long elapsedNanos = sampleNanos - previousSampleNanos;
+    if (cpuTime < 0 || elapsedNanos <= 0) {
+      return -1;
+    }
+    double load = (double) (cpuTime - previousCpuTime) / elapsedNanos / availableProcessors;
+    previousCpuTime = cpuTime;
+    previousSampleNanos = sampleNanos;
+    return Math.min(load, 1);
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+
+/**
+ * Records the server and client spans that the configured sampler drops, without sampling them, so
+ * that the {@link SpanMetricsSpanProcessor} aggregates all of them. The span processors only see
+ * the spans that are recorded; the spans that are recorded but not sampled are not exported, and
+ * they propagate the same unsampled flag as the dropped spans would.
+ */
+final class SpanMetricsSampler implements Sampler {
+
+  private static final SamplingResult RECORD_ONLY =
+      SamplingResult.create(SamplingDecision.RECORD_ONLY);
+
+  private final Sampler delegate;
+
+  SpanMetricsSampler(Sampler delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public SamplingResult shouldSample(
+      Context parentContext,
+      String traceId,
+      String name,
+      SpanKind spanKind,
+      Attributes attributes,
+      List<LinkData> parentLinks) {
+    SamplingResult result =
+        delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    if (result.getDecision() != SamplingDecision.DROP
+        || (spanKind != SpanKind.SERVER && spanKind != SpanKind.CLIENT)) {
+      return result;
+    }
+    Attributes resultAttributes = result.getAttributes();
+    return resultAttributes.isEmpty()
+        ? RECORD_ONLY
+        : SamplingResult.create(SamplingDecision.RECORD_ONLY, resultAttributes);
+  }
+
+  @Override
+  public String getDescription() {
+    return "SpanMetricsSampler{" + delegate.getDescription() + "}";
+  }
+
+  @Override
+  public String toString() {
+    return getDescription();
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.metrics.BoundDoubleHistogram;
+import io.opentelemetry.api.metrics.BoundLongCounter;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates the server and client spans into request rate, error rate and duration metrics per
+ * operation. An operation is identified by the low cardinality semantic attributes of the span: the
+ * method and route of HTTP servers, the method and peer name of HTTP clients, the service and
+ * method of RPCs, and the system and operation of database clients.
+ *
+ * <p>The metrics are the {@code span.server.duration} and {@code span.client.duration} histograms
+ * in milliseconds, whose counts are the number of spans, and the {@code span.server.errors} and
+ * {@code span.client.errors} counters of the spans with an error status. The instruments are bound
+ * to the attributes of each operation, so that recording a span only looks up its operation once.
+ *
+ * <p>Only spans that are recorded reach span processors: the {@link SpanMetricsSampler} records the
+ * server and client spans that the configured sampler drops, so that the metrics cover all of them.
+ */
+public final class SpanMetricsSpanProcessor implements SpanProcessor {
+
+  private static final List<AttributeKey<String>> SERVER_OPERATION_KEYS =
+      Arrays.asList(
+          SemanticAttributes.HTTP_METHOD,
+          SemanticAttributes.HTTP_ROUTE,
+          SemanticAttributes.RPC_SYSTEM,
+          SemanticAttributes.RPC_SERVICE,
+          SemanticAttributes.RPC_METHOD);
+  private static final List<AttributeKey<String>> CLIENT_OPERATION_KEYS =
+      Arrays.asList(
+          SemanticAttributes.HTTP_METHOD,
+          SemanticAttributes.NET_PEER_NAME,
+          SemanticAttributes.RPC_SYSTEM,
+          SemanticAttributes.RPC_SERVICE,
+          SemanticAttributes.RPC_METHOD,
+          SemanticAttributes.DB_SYSTEM,
+          SemanticAttributes.DB_OPERATION);
+
+  private static final double NANOS_PER_MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Instruments serverInstruments;
+  private final Instruments clientInstruments;
+
+  /**
+   * Creates a processor that reports the metrics with {@code meter}, for at most {@code
+   * maxOperations} operations of each span kind; the spans of the other operations are reported
+   * without attributes.
+   */
+  public SpanMetricsSpanProcessor(Meter meter, int maxOperations) {
+    serverInstruments = new Instruments(meter, "server", SERVER_OPERATION_KEYS, maxOperations);
+    clientInstruments = new Instruments(meter, "client", CLIENT_OPERATION_KEYS, maxOperations);
+  }
+
+  @Override
+  public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+  @Override
+  public boolean isStartRequired() {
+    return false;
+  }
+
+  @Override
+  public void onEnd(ReadableSpan span) {
+    SpanKind kind = span.getKind();
+    Instruments instruments;
+    if (kind == SpanKind.SERVER) {
+      instruments = serverInstruments;
+    } else if (kind == SpanKind.CLIENT) {
+      instruments = clientInstruments;
+    } else {
+      return;
+    }
+    // ReadableSpan doesn't expose the status. The SpanData of an ended span is a thin wrapper that
+    // doesn't copy the span, and its attributes are read without locking the span.
+    SpanData spanData = span.toSpanData();
+    boolean error = spanData.getStatus().getStatusCode() == StatusCode.ERROR;
+    instruments
+        .getOperation(spanData.getAttributes())
+        .record(span.getLatencyNanos() / NANOS_PER_MS, error);
+  }
+
+  @Override
+  public boolean isEndRequired() {
+    return true;
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return CompletableResultCode.ofSuccess();
+  }
+
+  @Override
+  public CompletableResultCode forceFlush() {
+    return CompletableResultCode.ofSuccess();
+  }
+
+  private static final class Instruments {
+    private final List<AttributeKey<String>> operationKeys;
+    private final int maxOperations;
+    private final DoubleHistogram duration;
+    private final LongCounter errors;
+    private final ConcurrentMap<Attributes, Operation> operations = new ConcurrentHashMap<>();
+    private final Operation otherOperations;
+
+    Instruments(
+        Meter meter, String kind, List<AttributeKey<String>> operationKeys, int maxOperations) {
+      this.operationKeys = operationKeys;
+      this.maxOperations = maxOperations;
+      duration =
+          meter
+              .histogramBuilder("span." + kind + ".duration")
+              .setDescription("The duration of the " + kind + " spans")
+              .setUnit("ms")
+              .build();
+      errors =
+          meter
+              .counterBuilder("span." + kind + ".errors")
+              .setDescription("The number of " + kind + " spans with an error status")
+              .setUnit("spans")
+              .build();
+      otherOperations = new Operation(Attributes.empty());
+    }
+
+    Operation getOperation(Attributes spanAttributes) {
+      AttributesBuilder builder = Attributes.builder();
+      for (AttributeKey<String> key : operationKeys) {
+        String value = spanAttributes.get(key);
+        if (value != null) {
+          builder.put(key, value);
+        }
+      }
+      Attributes attributes = builder.build();
+      Operation operation = operations.get(attributes);
+      if (operation != null) {
+        return operation;
+      }
+      if (operations.size() >= maxOperations) {
+        return otherOperations;
+      }
+      return operations.computeIfAbsent(attributes, Operation::new);
+    }
+
+    private final class Operation {
+      private final BoundDoubleHistogram duration;
+      private final BoundLongCounter errors;
+
+      Operation(Attributes attributes) {
+        duration = Instruments.this.duration.bind(attributes);
+        errors = Instruments.this.errors.bind(attributes);
+      }
+
+      void record(double durationMs, boolean error) {
+        duration.record(durationMs);
+        if (error) {
+          errors.add(1);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.cds;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.opentelemetry.instrumentation.api.config.Config;
+import io.opentelemetry.javaagent.bootstrap.AgentClassLoader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.instrument.Instrumentation;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the classes loaded by a training run of the agent as the class list of a static class data
+ * sharing (AppCDS) archive, when the JVM exits.
+ *
+ * <p>The classes of the bootstrap, platform and system class loaders, which include the bootstrap
+ * classes of the agent when the agent jar is on the {@code -Xbootclasspath/a}, are listed by name:
+ * the JVM loads them itself when the archive is dumped. The classes of the {@link AgentClassLoader}
+ * are listed with their super class, interfaces and source, like the classes of any custom class
+ * loader. Their {@code x-internal-jar} resources can't be read by the JVM, so they are copied into
+ * a plain jar, which is the source of the class list and is only needed to dump the archive: at run
+ * time the classes that the agent class loader defines are matched with the archived classes by
+ * their bytes.
+ *
+ * <p>Enabled by {@code otel.javaagent.experimental.cds.training-directory}, where {@value
+ * #CLASS_LIST_FILE} and {@value #CLASSES_JAR_FILE} are written.
+ */
+public final class ClassListWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(ClassListWriter.class);
+
+  private static final String TRAINING_DIRECTORY_CONFIG =
+      "otel.javaagent.experimental.cds.training-directory";
+  static final String CLASS_LIST_FILE = "opentelemetry-javaagent.classlist";
+  static final String CLASSES_JAR_FILE = "opentelemetry-javaagent-classes.jar";
+
+  private final Instrumentation inst;
+  private final Path directory;
+  private final Map<Class<?>, Integer> ids = new IdentityHashMap<>();
+  private final List<String> lines = new ArrayList<>();
+
+  /** Writes the class list when the JVM exits, if a training directory is configured. */
+  public static void registerIfEnabled(Instrumentation inst, Config config) {
+    String directory = config.getString(TRAINING_DIRECTORY_CONFIG);
+    if (directory == null || directory.isEmpty()) {
+      return;
+    }
+    ClassListWriter writer = new ClassListWriter(inst, Paths.get(directory));
+    Runtime.getRuntime().addShutdownHook(new Thread(writer::write, "cds-class-list-writer"));
+  }
+
+  // visible for testing
+  ClassListWriter(Instrumentation inst, Path directory) {
+    this.inst = inst;
+    this.directory = directory;
+  }
+
+  // visible for testing
+  void write() {
+    try {
+      Files.createDirectories(directory);
+      Path classesJar = directory.resolve(CLASSES_JAR_FILE).toAbsolutePath();
+      try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(classesJar))) {
+        for (Class<?> clazz : inst.getAllLoadedClasses()) {
+          add(clazz, jar, classesJar);
+        }
+      }
+      try (Writer writer =
+          new BufferedWriter(
+              new OutputStreamWriter(
+                  Files.newOutputStream(directory.resolve(CLASS_LIST_FILE)), UTF_8))) {
+        for (String line : lines) {
+          writer.write(line);
+          writer.write('\n');
+        }
+      }
+      logger.info("Wrote the class list of {} classes to {}", lines.size(), directory);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to write the class list to {}", directory, e);
+    }
+  }
+
+  // returns the id of the class, or null if it can't be archived; super types are listed first
+  @Nullable
+  private Integer add(Class<?> clazz, JarOutputStream jar, Path classesJar) throws IOException {
+    Integer id = ids.get(clazz);
+    if (id != null) {
+      return id;
+    }
+    // hidden classes and lambdas are generated at run time
+    if (clazz.isArray() || clazz.isPrimitive() || clazz.getName().indexOf('/') != -1) {
+      return null;
+    }
+    String name = clazz.getName().replace('.', '/');
+    ClassLoader classLoader = clazz.getClassLoader();
+    if (isBuiltin(classLoader)) {
+      return addLine(clazz, name, "");
+    }
+    if (!(classLoader instanceof AgentClassLoader)) {
+      return null;
+    }
+
+    // the class file lists java.lang.Object as the super class of interfaces
+    Class<?> superclass = clazz.isInterface() ? Object.class : clazz.getSuperclass();
+    Integer superId = add(superclass, jar, classesJar);
+    if (superId == null) {
+      return null;
+    }
+    StringBuilder interfaceIds = new StringBuilder();
+    for (Class<?> interfaceClass : clazz.getInterfaces()) {
+      Integer interfaceId = add(interfaceClass, jar, classesJar);
+      if (interfaceId == null) {
+        return null;
+      }
+      interfaceIds.append(' ').append(interfaceId);
+    }
+    byte[] bytes = readClassFile((AgentClassLoader) classLoader, name);
+    if (bytes == null) {
+      return null;
+    }
+    jar.putNextEntry(new ZipEntry(name + ".class"));
+    jar.write(bytes);
+    jar.closeEntry();
+
+    StringBuilder attributes = new StringBuilder(" super: ").append(superId);
+    if (interfaceIds.length() > 0) {
+      attributes.append(" interfaces:").append(interfaceIds);
+    }
+    attributes.append(" source: ").append(classesJar);
+    return addLine(clazz, name, attributes.toString());
+  }
+
+  private int addLine(Class<?> clazz, String name, String attributes) {
+    int id = ids.size();
+    ids.put(clazz, id);
+    lines.add(name + " id: " + id + attributes);
+    return id;
+  }
+
+  private static boolean isBuiltin(@Nullable ClassLoader classLoader) {
+    ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+    // the platform class loader on Java 9+, the extension class loader before
+    return classLoader == null
+        || classLoader == systemClassLoader
+        || classLoader == systemClassLoader.getParent();
+  }
+
+  // the same bytes that the agent class loader defined the class with, read from its x-internal-jar
+  // resources
+  @Nullable
+  private static byte[] readClassFile(AgentClassLoader classLoader, String name)
+      throws IOException {
+    URL url = classLoader.findResource(name + ".class");
+    if (url == null) {
+      return null;
+    }
+    try (InputStream in = url.openStream()) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.internal.EpochNanos;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * A span that was started before the SDK was initialized. It has its own span context, which its
+ * children use as their parent, and records the calls with their timestamps until it is handed over
+ * to a span of the SDK, which gets the same ids when the SDK uses the {@link HandoverIdGenerator}.
+ * Afterwards, the calls are delegated to that span.
+ *
+ * <p>A root span is sampled when it is started, by the sampler that the SDK is configured with, and
+ * its children inherit the decision, which is also what is propagated to other services. The {@link
+ * HandoverSampler} of the SDK keeps these decisions when the spans are handed over.
+ */
+final class BufferedSpan implements Span {
+
+  private static final AttributeKey<String> EXCEPTION_TYPE = stringKey("exception.type");
+  private static final AttributeKey<String> EXCEPTION_MESSAGE = stringKey("exception.message");
+  private static final AttributeKey<String> EXCEPTION_STACKTRACE =
+      stringKey("exception.stacktrace");
+
+  private final BufferedSpanBuilder spanBuilder;
+  private final SpanContext parentSpanContext;
+  private final SpanContext spanContext;
+  // like the clock of the SDK, the timestamps are measured with System.nanoTime() from the start
+  private final long startEpochNanos;
+  private final long startNanoTime;
+
+  // guarded by this
+  private final List<Consumer<Span>> operations = new ArrayList<>();
+  private boolean ended;
+  private long endEpochNanos;
+  @Nullable private Span delegate;
+
+  BufferedSpan(
+      BufferedSpanBuilder spanBuilder,
+      SpanContext parentSpanContext,
+      long startEpochNanos,
+      Sampler sampler) {
+    this.spanBuilder = spanBuilder;
+    this.parentSpanContext = parentSpanContext;
+    this.startNanoTime = System.nanoTime();
+    this.startEpochNanos =
+        startEpochNanos != 0 ? startEpochNanos : EpochNanos.fromNanoTime(startNanoTime);
+
+    IdGenerator idGenerator = IdGenerator.random();
+    if (parentSpanContext.isValid()) {
+      spanContext =
+          SpanContext.create(
+              parentSpanContext.getTraceId(),
+              idGenerator.generateSpanId(),
+              parentSpanContext.getTraceFlags(),
+              parentSpanContext.getTraceState());
+    } else {
+      String traceId = idGenerator.generateTraceId();
+      SamplingResult result = spanBuilder.sampleRoot(sampler, traceId);
+      spanContext =
+          SpanContext.create(
+              traceId,
+              idGenerator.generateSpanId(),
+              result.getDecision() == SamplingDecision.RECORD_AND_SAMPLE
+                  ? TraceFlags.getSampled()
+                  : TraceFlags.getDefault(),
+              result.getUpdatedTraceState(TraceState.getDefault()));
+    }
+  }
+
+  @Override
+  public synchronized <T> Span setAttribute(AttributeKey<T> key, T value) {
+    if (delegate != null) {
+      delegate.setAttribute(key, value);
+    } else if (!ended) {
+      operations.add(span -> span.setAttribute(key, value));
+    }
+    return this;
+  }
+
+  @Override
+  public Span addEvent(String name, Attributes attributes) {
+    return addEvent(name, attributes, now(), NANOSECONDS);
+  }
+
+  @Override
+  public synchronized Span addEvent(
+      String name, Attributes attributes, long timestamp, TimeUnit unit) {
+    if (delegate != null) {
+      delegate.addEvent(name, attributes, timestamp, unit);
+    } else if (!ended) {
+      operations.add(span -> span.addEvent(name, attributes, timestamp, unit));
+    }
+    return this;
+  }
+
+  @Override
+  public synchronized Span setStatus(StatusCode statusCode, String description) {
+    if (delegate != null) {
+      delegate.setStatus(statusCode, description);
+    } else if (!ended) {
+      operations.add(span -> span.setStatus(statusCode, description));
+    }
+    return this;
+  }
+
+  @Override
+  public synchronized Span recordException(Throwable exception, Attributes additionalAttributes) {
+    if (delegate != null) {
+      delegate.recordException(exception, additionalAttributes);
+      return this;
+    }
+    // the same event as the SDK, which would otherwise use the time of the hand over
+    AttributesBuilder attributes = Attributes.builder();
+    attributes.put(EXCEPTION_TYPE, exception.getClass().getCanonicalName());
+    if (exception.getMessage() != null) {
+      attributes.put(EXCEPTION_MESSAGE, exception.getMessage());
+    }
+    StringWriter stackTrace = new StringWriter();
+    try (PrintWriter printWriter = new PrintWriter(stackTrace)) {
+      exception.printStackTrace(printWriter);
+    }
+    attributes.put(EXCEPTION_STACKTRACE, stackTrace.toString());
+    attributes.putAll(additionalAttributes);
+    return addEvent("exception", attributes.build());
+  }
+
+  @Override
+  public synchronized Span updateName(String name) {
+    if (delegate != null) {
+      delegate.updateName(name);
+    } else if (!ended) {
+      operations.add(span -> span.updateName(name));
+    }
+    return this;
+  }
+
+  @Override
+  public void end() {
+    end(now(), NANOSECONDS);
+  }
+
+  @Override
+  public synchronized void end(long timestamp, TimeUnit unit) {
+    if (delegate != null) {
+      delegate.end(timestamp, unit);
+    } else if (!ended) {
+      ended = true;
+      endEpochNanos = unit.toNanos(timestamp);
+    }
+  }
+
+  @Override
+  public synchronized SpanContext getSpanContext() {
+    return delegate != null ? delegate.getSpanContext() : spanContext;
+  }
+
+  @Override
+  public synchronized boolean isRecording() {
+    return delegate != null ? delegate.isRecording() : !ended;
+  }
+
+  // starts the span on the delegate tracer, with the parent that it was started with, or its
+  // delegate when the parent is a buffered span that was handed over, by its span id
+  synchronized void handOver(Map<String, SpanContext> handedOverSpanContexts) {
+    SpanBuilder builder = spanBuilder.replay();
+    if (parentSpanContext.isValid()) {
+      SpanContext parent = handedOverSpanContexts.get(parentSpanContext.getSpanId());
+      builder.setParent(
+          Context.root().with(Span.wrap(parent != null ? parent : parentSpanContext)));
+    } else {
+      builder.setNoParent();
+    }
+    builder.setStartTimestamp(startEpochNanos, NANOSECONDS);
+    Span span = HandoverIdGenerator.startSpan(builder, spanContext);
+    for (Consumer<Span> operation : operations) {
+      operation.accept(span);
+    }
+    operations.clear();
+    if (ended) {
+      span.end(endEpochNanos, NANOSECONDS);
+    }
+    delegate = span;
+    handedOverSpanContexts.put(spanContext.getSpanId(), span.getSpanContext());
+  }
+
+  private long now() {
+    return startEpochNanos + (System.nanoTime() - startNanoTime);
+  }
+}
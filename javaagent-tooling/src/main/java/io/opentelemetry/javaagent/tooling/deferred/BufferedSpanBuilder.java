@@ -0,0 +1,170 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+// records the calls, which are replayed on a span builder of the delegate tracer
+final class BufferedSpanBuilder implements SpanBuilder {
+
+  private final DeferredTracer tracer;
+  private final DeferredTracerProvider tracerProvider;
+  private final String spanName;
+  private final List<Consumer<SpanBuilder>> operations = new ArrayList<>();
+  // what the sampler of a root span gets
+  private final AttributesBuilder attributes = Attributes.builder();
+  private final List<LinkData> links = new ArrayList<>();
+  private SpanKind spanKind = SpanKind.INTERNAL;
+
+  // the current context when the span is started if neither is set
+  @Nullable private Context parent;
+  private boolean noParent;
+  private long startEpochNanos;
+
+  BufferedSpanBuilder(
+      DeferredTracer tracer, DeferredTracerProvider tracerProvider, String spanName) {
+    this.tracer = tracer;
+    this.tracerProvider = tracerProvider;
+    this.spanName = spanName;
+  }
+
+  @Override
+  public SpanBuilder setParent(Context context) {
+    parent = context;
+    noParent = false;
+    return this;
+  }
+
+  @Override
+  public SpanBuilder setNoParent() {
+    parent = null;
+    noParent = true;
+    return this;
+  }
+
+  @Override
+  public SpanBuilder addLink(SpanContext spanContext) {
+    links.add(LinkData.create(spanContext));
+    operations.add(builder -> builder.addLink(spanContext));
+    return this;
+  }
+
+  @Override
+  public SpanBuilder addLink(SpanContext spanContext, Attributes attributes) {
+    links.add(LinkData.create(spanContext, attributes));
+    operations.add(builder -> builder.addLink(spanContext, attributes));
+    return this;
+  }
+
+  @Override
+  public SpanBuilder setAttribute(String key, String value) {
+    attributes.put(key, value);
+    operations.add(builder -> builder.setAttribute(key, value));
+    return this;
+  }
+
+  @Override
+  public SpanBuilder setAttribute(String key, long value) {
+    attributes.put(key, value);
+    operations.add(builder -> builder.setAttribute(key, value));
+    return this;
+  }
+
+  @Override
+  public SpanBuilder setAttribute(String key, double value) {
+    attributes.put(key, value);
+    operations.add(builder -> builder.setAttribute(key, value));
+    return this;
+  }
+
+  @Override
+  public SpanBuilder setAttribute(String key, boolean value) {
+    attributes.put(key, value);
+    operations.add(builder -> builder.setAttribute(key, value));
+    return this;
+  }
+
+  @Override
+  public <T> SpanBuilder setAttribute(AttributeKey<T> key, T value) {
+    attributes.put(key, value);
+    operations.add(builder -> builder.setAttribute(key, value));
+    return this;
+  }
+
+  @Override
+  public SpanBuilder setSpanKind(SpanKind spanKind) {
+    this.spanKind = spanKind;
+    operations.add(builder -> builder.setSpanKind(spanKind));
+    return this;
+  }
+
+  @Override
+  public SpanBuilder setStartTimestamp(long startTimestamp, TimeUnit unit) {
+    startEpochNanos = unit.toNanos(startTimestamp);
+    operations.add(builder -> builder.setStartTimestamp(startTimestamp, unit));
+    return this;
+  }
+
+  @Override
+  public Span startSpan() {
+    return tracerProvider.startSpan(this);
+  }
+
+  SpanContext getParentSpanContext() {
+    return Span.fromContext(getParentContext()).getSpanContext();
+  }
+
+  private Context getParentContext() {
+    if (noParent) {
+      return Context.root();
+    }
+    return parent != null ? parent : Context.current();
+  }
+
+  BufferedSpan buffer(Sampler sampler) {
+    return new BufferedSpan(this, getParentSpanContext(), startEpochNanos, sampler);
+  }
+
+  // the decision for a root span, with what the sampler of the SDK would get for it
+  SamplingResult sampleRoot(Sampler sampler, String traceId) {
+    return sampler.shouldSample(
+        getParentContext(), traceId, spanName, spanKind, attributes.build(), links);
+  }
+
+  // a span builder of the delegate tracer with the recorded calls, only called after the hand over
+  SpanBuilder replay() {
+    Tracer delegate = tracer.getDelegate();
+    if (delegate == null) {
+      throw new IllegalStateException("The tracer provider has no delegate");
+    }
+    SpanBuilder builder = delegate.spanBuilder(spanName);
+    if (noParent) {
+      builder.setNoParent();
+    } else if (parent != null) {
+      builder.setParent(parent);
+    }
+    for (Consumer<SpanBuilder> operation : operations) {
+      operation.accept(builder);
+    }
+    return builder;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * An {@link OpenTelemetry} that is installed before the SDK is built, so that the SDK can be built
+ * in the background while the application starts.
+ *
+ * <p>Until {@link #setDelegate(OpenTelemetry)} is called, spans are buffered (see {@link
+ * DeferredTracerProvider}) and the W3C trace context and baggage are propagated. The buffered spans
+ * are then started, updated and ended on the delegate, with the same ids and timestamps, and
+ * everything else is delegated.
+ *
+ * <p>The buffered root spans are sampled by the sampler that the SDK is configured with, and the
+ * SDK keeps these decisions when its sampler is wrapped in a {@link HandoverSampler}.
+ */
+public final class DeferredOpenTelemetry implements OpenTelemetry {
+
+  private final DeferredTracerProvider tracerProvider;
+  private final DeferredTextMapPropagator textMapPropagator = new DeferredTextMapPropagator();
+  private final ContextPropagators propagators = ContextPropagators.create(textMapPropagator);
+
+  public DeferredOpenTelemetry(int maxBufferedSpans, Sampler sampler) {
+    tracerProvider = new DeferredTracerProvider(maxBufferedSpans, sampler);
+  }
+
+  @Override
+  public TracerProvider getTracerProvider() {
+    return tracerProvider;
+  }
+
+  @Override
+  public ContextPropagators getPropagators() {
+    return propagators;
+  }
+
+  /** Hands the buffered spans over to the delegate and delegates to it from now on. */
+  public void setDelegate(OpenTelemetry delegate) {
+    textMapPropagator.setDelegate(delegate.getPropagators().getTextMapPropagator());
+    tracerProvider.setDelegate(delegate.getTracerProvider());
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import java.util.Collection;
+import javax.annotation.Nullable;
+
+// the default propagators of the autoconfiguration until the configured ones are known
+final class DeferredTextMapPropagator implements TextMapPropagator {
+
+  private volatile TextMapPropagator delegate =
+      TextMapPropagator.composite(
+          W3CTraceContextPropagator.getInstance(), W3CBaggagePropagator.getInstance());
+
+  void setDelegate(TextMapPropagator delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Collection<String> fields() {
+    return delegate.fields();
+  }
+
+  @Override
+  public <C> void inject(Context context, @Nullable C carrier, TextMapSetter<C> setter) {
+    delegate.inject(context, carrier, setter);
+  }
+
+  @Override
+  public <C> Context extract(Context context, @Nullable C carrier, TextMapGetter<C> getter) {
+    return delegate.extract(context, carrier, getter);
+  }
+}
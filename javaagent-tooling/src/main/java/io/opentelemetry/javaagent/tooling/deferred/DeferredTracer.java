@@ -0,0 +1,64 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerBuilder;
+import io.opentelemetry.api.trace.TracerProvider;
+import javax.annotation.Nullable;
+
+final class DeferredTracer implements Tracer {
+
+  private final DeferredTracerProvider tracerProvider;
+  private final String instrumentationName;
+  @Nullable private final String instrumentationVersion;
+  @Nullable private final String schemaUrl;
+
+  @Nullable private volatile Tracer delegate;
+
+  DeferredTracer(
+      DeferredTracerProvider tracerProvider,
+      String instrumentationName,
+      @Nullable String instrumentationVersion,
+      @Nullable String schemaUrl) {
+    this.tracerProvider = tracerProvider;
+    this.instrumentationName = instrumentationName;
+    this.instrumentationVersion = instrumentationVersion;
+    this.schemaUrl = schemaUrl;
+  }
+
+  @Override
+  public SpanBuilder spanBuilder(String spanName) {
+    Tracer tracer = getDelegate();
+    if (tracer != null) {
+      return tracer.spanBuilder(spanName);
+    }
+    return new BufferedSpanBuilder(this, tracerProvider, spanName);
+  }
+
+  // null until the tracer provider has a delegate
+  @Nullable
+  Tracer getDelegate() {
+    Tracer tracer = delegate;
+    if (tracer == null) {
+      TracerProvider delegateProvider = tracerProvider.getDelegate();
+      if (delegateProvider == null) {
+        return null;
+      }
+      TracerBuilder builder = delegateProvider.tracerBuilder(instrumentationName);
+      if (instrumentationVersion != null) {
+        builder.setInstrumentationVersion(instrumentationVersion);
+      }
+      if (schemaUrl != null) {
+        builder.setSchemaUrl(schemaUrl);
+      }
+      tracer = builder.build();
+      delegate = tracer;
+    }
+    return tracer;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerBuilder;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TracerProvider} that buffers the spans that are started before its delegate is set, and
+ * hands them over to the delegate when it is. At most {@code maxBufferedSpans} spans are buffered,
+ * further spans are dropped and only propagate the context of their parent. The root spans are
+ * sampled by {@code sampler}.
+ */
+final class DeferredTracerProvider implements TracerProvider {
+
+  private static final Logger logger = LoggerFactory.getLogger(DeferredTracerProvider.class);
+
+  private final Object lock = new Object();
+  private final int maxBufferedSpans;
+  private final Sampler sampler;
+
+  @Nullable private volatile TracerProvider delegate;
+
+  // guarded by lock, null once the spans were handed over
+  @Nullable private List<BufferedSpan> bufferedSpans = new ArrayList<>();
+  private boolean droppedSpans;
+
+  DeferredTracerProvider(int maxBufferedSpans, Sampler sampler) {
+    this.maxBufferedSpans = maxBufferedSpans;
+    this.sampler = sampler;
+  }
+
+  @Override
+  public Tracer get(String instrumentationName) {
+    return new DeferredTracer(this, instrumentationName, null, null);
+  }
+
+  @Override
+  public Tracer get(String instrumentationName, String instrumentationVersion) {
+    return new DeferredTracer(this, instrumentationName, instrumentationVersion, null);
+  }
+
+  @Override
+  public TracerBuilder tracerBuilder(String instrumentationName) {
+    return new DeferredTracerBuilder(instrumentationName);
+  }
+
+  @Nullable
+  TracerProvider getDelegate() {
+    return delegate;
+  }
+
+  void setDelegate(TracerProvider delegate) {
+    List<BufferedSpan> spans;
+    synchronized (lock) {
+      if (bufferedSpans == null) {
+        return;
+      }
+      this.delegate = delegate;
+      spans = bufferedSpans;
+      bufferedSpans = null;
+    }
+    logger.debug("Handing {} buffered span(s) over to the SDK", spans.size());
+    // the parents are handed over before their children, which were started after them
+    Map<String, SpanContext> handedOverSpanContexts = new HashMap<>();
+    for (BufferedSpan span : spans) {
+      span.handOver(handedOverSpanContexts);
+    }
+  }
+
+  Span startSpan(BufferedSpanBuilder spanBuilder) {
+    synchronized (lock) {
+      if (bufferedSpans != null) {
+        if (bufferedSpans.size() >= maxBufferedSpans) {
+          if (!droppedSpans) {
+            droppedSpans = true;
+            logger.warn(
+                "More than {} spans were started before the SDK was initialized, dropping spans",
+                maxBufferedSpans);
+          }
+          return Span.wrap(spanBuilder.getParentSpanContext());
+        }
+        BufferedSpan span = spanBuilder.buffer(sampler);
+        bufferedSpans.add(span);
+        return span;
+      }
+    }
+    // the spans were handed over since the span builder was created
+    return spanBuilder.replay().startSpan();
+  }
+
+  private final class DeferredTracerBuilder implements TracerBuilder {
+
+    private final String instrumentationName;
+    @Nullable private String instrumentationVersion;
+    @Nullable private String schemaUrl;
+
+    private DeferredTracerBuilder(String instrumentationName) {
+      this.instrumentationName = instrumentationName;
+    }
+
+    @Override
+    public TracerBuilder setSchemaUrl(String schemaUrl) {
+      this.schemaUrl = schemaUrl;
+      return this;
+    }
+
+    @Override
+    public TracerBuilder setInstrumentationVersion(String instrumentationVersion) {
+      this.instrumentationVersion = instrumentationVersion;
+      return this;
+    }
+
+    @Override
+    public Tracer build() {
+      return new DeferredTracer(
+          DeferredTracerProvider.this, instrumentationName, instrumentationVersion, schemaUrl);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import javax.annotation.Nullable;
+
+/**
+ * Generates random ids, except for the spans that are handed over from the {@link
+ * DeferredOpenTelemetry}, which keep the ids that their children already use.
+ */
+public final class HandoverIdGenerator implements IdGenerator {
+
+  private static final HandoverIdGenerator INSTANCE = new HandoverIdGenerator();
+
+  private static final ThreadLocal<SpanContext> handedOverSpanContext = new ThreadLocal<>();
+
+  private final IdGenerator random = IdGenerator.random();
+
+  public static IdGenerator getInstance() {
+    return INSTANCE;
+  }
+
+  static Span startSpan(SpanBuilder spanBuilder, SpanContext spanContext) {
+    handedOverSpanContext.set(spanContext);
+    try {
+      return spanBuilder.startSpan();
+    } finally {
+      handedOverSpanContext.remove();
+    }
+  }
+
+  // the span context of the span that is being handed over on this thread, if any
+  @Nullable
+  static SpanContext getHandedOverSpanContext() {
+    return handedOverSpanContext.get();
+  }
+
+  @Override
+  public String generateSpanId() {
+    SpanContext spanContext = handedOverSpanContext.get();
+    return spanContext != null ? spanContext.getSpanId() : random.generateSpanId();
+  }
+
+  @Override
+  public String generateTraceId() {
+    SpanContext spanContext = handedOverSpanContext.get();
+    return spanContext != null ? spanContext.getTraceId() : random.generateTraceId();
+  }
+
+  private HandoverIdGenerator() {}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+
+/**
+ * Keeps the sampling decisions of the spans that are handed over from the {@link
+ * DeferredOpenTelemetry}, which they have already propagated to their children and to other
+ * services, when the delegate decides otherwise. The other spans are sampled by the delegate.
+ */
+public final class HandoverSampler implements Sampler {
+
+  private static final SamplingResult RECORD_AND_SAMPLE =
+      SamplingResult.create(SamplingDecision.RECORD_AND_SAMPLE);
+  private static final SamplingResult DROP = SamplingResult.create(SamplingDecision.DROP);
+
+  private final Sampler delegate;
+
+  public HandoverSampler(Sampler delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public SamplingResult shouldSample(
+      Context parentContext,
+      String traceId,
+      String name,
+      SpanKind spanKind,
+      Attributes attributes,
+      List<LinkData> parentLinks) {
+    SamplingResult result =
+        delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    SpanContext handedOverSpanContext = HandoverIdGenerator.getHandedOverSpanContext();
+    if (handedOverSpanContext == null
+        || handedOverSpanContext.isSampled()
+            == (result.getDecision() == SamplingDecision.RECORD_AND_SAMPLE)) {
+      return result;
+    }
+    return handedOverSpanContext.isSampled() ? RECORD_AND_SAMPLE : DROP;
+  }
+
+  @Override
+  public String getDescription() {
+    return "HandoverSampler{" + delegate.getDescription() + "}";
+  }
+
+  @Override
+  public String toString() {
+    return getDescription();
+  }
+}
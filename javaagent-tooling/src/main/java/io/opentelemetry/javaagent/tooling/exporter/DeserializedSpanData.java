@@ -0,0 +1,157 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.exporter;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import java.util.List;
+
+/** A span read back from the disk buffer by {@link SpanDataSerializer}. */
+final class DeserializedSpanData implements SpanData {
+  private final Resource resource;
+  private final InstrumentationLibraryInfo instrumentationLibraryInfo;
+  private final SpanContext spanContext;
+  private final SpanContext parentSpanContext;
+  private final String name;
+  private final SpanKind kind;
+  private final long startEpochNanos;
+  private final long endEpochNanos;
+  private final boolean ended;
+  private final Attributes attributes;
+  private final int totalAttributeCount;
+  private final List<EventData> events;
+  private final int totalRecordedEvents;
+  private final List<LinkData> links;
+  private final int totalRecordedLinks;
+  private final StatusData status;
+
+  DeserializedSpanData(
+      Resource resource,
+      InstrumentationLibraryInfo instrumentationLibraryInfo,
+      SpanContext spanContext,
+      SpanContext parentSpanContext,
+      String name,
+      SpanKind kind,
+      long startEpochNanos,
+      long endEpochNanos,
+      boolean ended,
+      Attributes attributes,
+      int totalAttributeCount,
+      List<EventData> events,
+      int totalRecordedEvents,
+      List<LinkData> links,
+      int totalRecordedLinks,
+      StatusData status) {
+    this.resource = resource;
+    this.instrumentationLibraryInfo = instrumentationLibraryInfo;
+    this.spanContext = spanContext;
+    this.parentSpanContext = parentSpanContext;
+    this.name = name;
+    this.kind = kind;
+    this.startEpochNanos = startEpochNanos;
+    this.endEpochNanos = endEpochNanos;
+    this.ended = ended;
+    this.attributes = attributes;
+    this.totalAttributeCount = totalAttributeCount;
+    this.events = events;
+    this.totalRecordedEvents = totalRecordedEvents;
+    this.links = links;
+    this.totalRecordedLinks = totalRecordedLinks;
+    this.status = status;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public SpanKind getKind() {
+    return kind;
+  }
+
+  @Override
+  public SpanContext getSpanContext() {
+    return spanContext;
+  }
+
+  @Override
+  public SpanContext getParentSpanContext() {
+    return parentSpanContext;
+  }
+
+  @Override
+  public StatusData getStatus() {
+    return status;
+  }
+
+  @Override
+  public long getStartEpochNanos() {
+    return startEpochNanos;
+  }
+
+  @Override
+  public Attributes getAttributes() {
+    return attributes;
+  }
+
+  @Override
+  public List<EventData> getEvents() {
+    return events;
+  }
+
+  @Override
+  public List<LinkData> getLinks() {
+    return links;
+  }
+
+  @Override
+  public long getEndEpochNanos() {
+    return endEpochNanos;
+  }
+
+  @Override
+  public boolean hasEnded() {
+    return ended;
+  }
+
+  @Override
+  public int getTotalRecordedEvents() {
+    return totalRecordedEvents;
+  }
+
+  @Override
+  public int getTotalRecordedLinks() {
+    return totalRecordedLinks;
+  }
+
+  @Override
+  public int getTotalAttributeCount() {
+    return totalAttributeCount;
+  }
+
+  @Override
+  public InstrumentationLibraryInfo getInstrumentationLibraryInfo() {
+    return instrumentationLibraryInfo;
+  }
+
+  @Override
+  public Resource getResource() {
+    return resource;
+  }
+
+  @Override
+  public String toString() {
+    return "DeserializedSpanData{name=" + name + ", spanContext=" + spanContext + "}";
+  }
+}
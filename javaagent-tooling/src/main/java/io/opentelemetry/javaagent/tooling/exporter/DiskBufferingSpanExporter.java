@@ -0,0 +1,226 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.exporter;
+
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers the batches of spans that a delegate exporter fails to export, e.g. while the collector
+ * is unavailable, on local disk in a bounded {@link SegmentLog}, and replays them once the delegate
+ * exports again. When the buffer is full, the oldest batches are dropped.
+ *
+ * <p>The delegate exports one batch at a time: while there are batches on disk, or while the
+ * delegate is exporting, new batches are appended to the buffer instead of being exported, so that
+ * spans are exported in order and a collector that is down isn't called for every batch. Each
+ * export replays the oldest batch, and once one is replayed the rest of the buffer is replayed
+ * right away. A batch that is spilled to disk is reported as exported to the span processor, so
+ * that its queue keeps being drained during outages.
+ *
+ * <p>The state of the buffer is reported with the metrics {@code disk_buffer.spilled}, {@code
+ * disk_buffer.replayed} and {@code disk_buffer.dropped}, the numbers of spans appended to, replayed
+ * from and dropped from the buffer, and {@code disk_buffer.pending} and {@code disk_buffer.size},
+ * the number of spans and bytes waiting in the buffer.
+ */
+public final class DiskBufferingSpanExporter implements SpanExporter {
+  private static final Logger logger = LoggerFactory.getLogger(DiskBufferingSpanExporter.class);
+
+  private final SpanExporter delegate;
+  private final SegmentLog log;
+  // set while the delegate exports a batch, regular or replayed
+  private final AtomicBoolean exporting = new AtomicBoolean();
+  private final AtomicBoolean shutdown = new AtomicBoolean();
+  private final LongAdder spilledSpans = new LongAdder();
+  private final LongAdder replayedSpans = new LongAdder();
+  private final LongAdder droppedSpans = new LongAdder();
+
+  /**
+   * Returns an exporter that buffers the batches {@code delegate} fails to export in {@code
+   * directory}, in at most {@code segmentCount} files of {@code segmentSize} bytes, and reports the
+   * metrics of the buffer with {@code meter}. The batches left in {@code directory} by a previous
+   * process are replayed too.
+   *
+   * @throws IOException if the buffer can't be created, or if {@code directory} is used by another
+   *     process
+   */
+  public static DiskBufferingSpanExporter create(
+      SpanExporter delegate, File directory, int segmentSize, int segmentCount, Meter meter)
+      throws IOException {
+    return new DiskBufferingSpanExporter(
+        delegate, SegmentLog.open(directory, segmentSize, segmentCount), meter);
+  }
+
+  private DiskBufferingSpanExporter(SpanExporter delegate, SegmentLog log, Meter meter) {
+    this.delegate = delegate;
+    this.log = log;
+
+    meter
+        .counterBuilder("disk_buffer.spilled")
+        .setDescription("The number of spans appended to the disk buffer")
+        .setUnit("spans")
+        .buildWithCallback(measurement -> measurement.observe(spilledSpans.sum()));
+    meter
+        .counterBuilder("disk_buffer.replayed")
+        .setDescription("The number of spans replayed from the disk buffer")
+        .setUnit("spans")
+        .buildWithCallback(measurement -> measurement.observe(replayedSpans.sum()));
+    meter
+        .counterBuilder("disk_buffer.dropped")
+        .setDescription("The number of spans dropped because the disk buffer was full")
+        .setUnit("spans")
+        .buildWithCallback(measurement -> measurement.observe(droppedSpans.sum()));
+    meter
+        .upDownCounterBuilder("disk_buffer.pending")
+        .setDescription("The number of spans waiting in the disk buffer")
+        .setUnit("spans")
+        .buildWithCallback(measurement -> measurement.observe(log.pendingSpans()));
+    meter
+        .upDownCounterBuilder("disk_buffer.size")
+        .setDescription("The size of the batches waiting in the disk buffer")
+        .setUnit("bytes")
+        .buildWithCallback(measurement -> measurement.observe(log.pendingBytes()));
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<SpanData> spans) {
+    if (shutdown.get()) {
+      return CompletableResultCode.ofFailure();
+    }
+    if (!log.isEmpty() || !exporting.compareAndSet(false, true)) {
+      boolean spilled = spill(spans);
+      replay();
+      return spilled ? CompletableResultCode.ofSuccess() : CompletableResultCode.ofFailure();
+    }
+
+    // the span processor may reuse the collection once the export times out
+    List<SpanData> batch = new ArrayList<>(spans);
+    CompletableResultCode exported = delegate.export(batch);
+    CompletableResultCode result = new CompletableResultCode();
+    exported.whenComplete(
+        () -> {
+          boolean success = exported.isSuccess();
+          boolean spilled = !success && spill(batch);
+          exporting.set(false);
+          if (success) {
+            // the batches spilled while the delegate was exporting
+            replay();
+          }
+          if (success || spilled) {
+            result.succeed();
+          } else {
+            result.fail();
+          }
+        });
+    return result;
+  }
+
+  // returns whether the spans were appended to the buffer
+  private boolean spill(Collection<SpanData> spans) {
+    if (spans.isEmpty() || shutdown.get()) {
+      return false;
+    }
+    byte[] record = SpanDataSerializer.serialize(spans);
+    if (record.length > log.maxRecordSize()) {
+      logger.debug("Dropping a batch of {} bytes, larger than the disk buffer", record.length);
+      droppedSpans.add(spans.size());
+      return false;
+    }
+    droppedSpans.add(log.append(record, spans.size()));
+    spilledSpans.add(spans.size());
+    return true;
+  }
+
+  // replays the buffered batches, from the oldest, until one fails
+  private void replay() {
+    if (!log.isEmpty() && exporting.compareAndSet(false, true)) {
+      replayNext();
+    }
+  }
+
+  // called while exporting is set, clears it once the buffer is replayed or a batch fails
+  private void replayNext() {
+    while (true) {
+      SegmentLog.Record record = shutdown.get() ? null : log.peek();
+      if (record == null) {
+        exporting.set(false);
+        // a batch may have been spilled after the buffer was found empty
+        if (shutdown.get() || log.isEmpty() || !exporting.compareAndSet(false, true)) {
+          return;
+        }
+        continue;
+      }
+      List<SpanData> spans;
+      try {
+        spans = SpanDataSerializer.deserialize(record.data);
+      } catch (IllegalArgumentException e) {
+        logger.debug("Dropping a batch of the disk buffer that can't be read", e);
+        log.remove(record);
+        droppedSpans.add(record.spanCount);
+        continue;
+      }
+      CompletableResultCode result = delegate.export(spans);
+      if (!result.isDone()) {
+        result.whenComplete(
+            () -> {
+              if (replayed(record, result)) {
+                replayNext();
+              }
+            });
+        return;
+      }
+      // don't recurse through whenComplete() when the delegate exports synchronously
+      if (!replayed(record, result)) {
+        return;
+      }
+    }
+  }
+
+  // the spans of a batch are either replayed or dropped, even if the buffer discarded the batch to
+  // make room while it was replayed
+  private boolean replayed(SegmentLog.Record record, CompletableResultCode result) {
+    if (!result.isSuccess()) {
+      if (log.release(record)) {
+        droppedSpans.add(record.spanCount);
+      }
+      exporting.set(false);
+      return false;
+    }
+    log.remove(record);
+    replayedSpans.add(record.spanCount);
+    return true;
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    replay();
+    return delegate.flush();
+  }
+
+  /** Shuts down the delegate, the batches that weren't replayed stay on disk. */
+  @Override
+  public CompletableResultCode shutdown() {
+    if (!shutdown.compareAndSet(false, true)) {
+      return CompletableResultCode.ofSuccess();
+    }
+    try {
+      log.close();
+    } catch (IOException e) {
+      logger.debug("Failed to close the disk buffer", e);
+    }
+    return delegate.shutdown();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.exporter;
+
+import com.google.auto.service.AutoService;
+import io.opentelemetry.api.metrics.GlobalMeterProvider;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporterBuilder;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigurationException;
+import io.opentelemetry.sdk.autoconfigure.spi.traces.ConfigurableSpanExporterProvider;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides the OTLP gRPC exporter wrapped in a {@link DiskBufferingSpanExporter} with {@code
+ * otel.traces.exporter=otlp_disk_buffered}. The OTLP exporter is configured with the endpoint,
+ * headers, compression, timeout and certificate of the {@code otel.exporter.otlp} properties, and
+ * the buffer with:
+ *
+ * <ul>
+ *   <li>{@code otel.javaagent.experimental.exporter.disk-buffer.directory}, by default {@code
+ *       opentelemetry-javaagent-spans} in the temporary directory
+ *   <li>{@code otel.javaagent.experimental.exporter.disk-buffer.max-size}, the maximum size of the
+ *       buffer in bytes, 64MB by default
+ * </ul>
+ *
+ * <p>If the buffer can't be created, e.g. because the directory is used by another process, the
+ * spans are exported without it.
+ */
+@AutoService(ConfigurableSpanExporterProvider.class)
+public class DiskBufferingSpanExporterProvider implements ConfigurableSpanExporterProvider {
+  private static final Logger logger =
+      LoggerFactory.getLogger(DiskBufferingSpanExporterProvider.class);
+
+  private static final String DIRECTORY_CONFIG =
+      "otel.javaagent.experimental.exporter.disk-buffer.directory";
+  private static final String MAX_SIZE_CONFIG =
+      "otel.javaagent.experimental.exporter.disk-buffer.max-size";
+  private static final long DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+  private static final int SEGMENT_COUNT = 8;
+
+  @Override
+  public SpanExporter createExporter(ConfigProperties config) {
+    SpanExporter otlpExporter = createOtlpExporter(config);
+
+    String directory = config.getString(DIRECTORY_CONFIG);
+    File bufferDirectory =
+        directory != null
+            ? new File(directory)
+            : new File(System.getProperty("java.io.tmpdir"), "opentelemetry-javaagent-spans");
+    Long maxSize = config.getLong(MAX_SIZE_CONFIG);
+    long segmentSize = (maxSize == null ? DEFAULT_MAX_SIZE : maxSize) / SEGMENT_COUNT;
+    try {
+      return DiskBufferingSpanExporter.create(
+          otlpExporter,
+          bufferDirectory,
+          (int) Math.min(segmentSize, Integer.MAX_VALUE),
+          SEGMENT_COUNT,
+          GlobalMeterProvider.get().get("io.opentelemetry.javaagent.disk-buffer"));
+    } catch (IOException e) {
+      logger.warn(
+          "Failed to create the disk buffer in {}, spans will be exported without it",
+          bufferDirectory,
+          e);
+      return otlpExporter;
+    }
+  }
+
+  // the properties of the OTLP exporter of the autoconfiguration, which isn't exposed
+  private static SpanExporter createOtlpExporter(ConfigProperties config) {
+    OtlpGrpcSpanExporterBuilder builder = OtlpGrpcSpanExporter.builder();
+    String endpoint = config.getString("otel.exporter.otlp.traces.endpoint");
+    if (endpoint == null) {
+      endpoint = config.getString("otel.exporter.otlp.endpoint");
+    }
+    if (endpoint != null) {
+      builder.setEndpoint(endpoint);
+    }
+    Map<String, String> headers = config.getMap("otel.exporter.otlp.traces.headers");
+    if (headers.isEmpty()) {
+      headers = config.getMap("otel.exporter.otlp.headers");
+    }
+    headers.forEach(builder::addHeader);
+    String compression = config.getString("otel.exporter.otlp.traces.compression");
+    if (compression == null) {
+      compression = config.getString("otel.exporter.otlp.compression");
+    }
+    if (compression != null) {
+      builder.setCompression(compression);
+    }
+    Duration timeout = config.getDuration("otel.exporter.otlp.traces.timeout");
+    if (timeout == null) {
+      timeout = config.getDuration("otel.exporter.otlp.timeout");
+    }
+    if (timeout != null) {
+      builder.setTimeout(timeout);
+    }
+    String certificate = config.getString("otel.exporter.otlp.traces.certificate");
+    if (certificate == null) {
+      certificate = config.getString("otel.exporter.otlp.certificate");
+    }
+    if (certificate != null) {
+      builder.setTrustedCertificates(readCertificate(Paths.get(certificate)));
+    }
+    return builder.build();
+  }
+
+  private static byte[] readCertificate(Path path) {
+    if (!Files.exists(path)) {
+      throw new ConfigurationException("Invalid OTLP certificate path: " + path);
+    }
+    try {
+      return Files.readAllBytes(path);
+    } catch (IOException e) {
+      throw new ConfigurationException("Error reading OTLP certificate.", e);
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "otlp_disk_buffered";
+  }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.exporter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded log of records, in a fixed number of memory mapped segment files of a fixed size that
+ * are reused in turn. Records are appended to the newest segment and read from the oldest one; when
+ * all the segments are in use, the oldest one is discarded to make room for new records.
+ *
+ * <p>The positions of the records are kept in the header of each segment, so that the records that
+ * weren't read survive a restart of the process. The segments are not forced to disk when records
+ * are appended, they may be lost if the operating system crashes.
+ */
+final class SegmentLog implements Closeable {
+
+  // the header of a segment: its sequence number, 0 when the segment is free, and the positions of
+  // the next record to read and to write
+  private static final int SEQUENCE_OFFSET = 0;
+  private static final int READ_POSITION_OFFSET = 8;
+  private static final int WRITE_POSITION_OFFSET = 12;
+  private static final int HEADER_SIZE = 16;
+  // the header of a record: the length of its data and the number of spans it contains
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  private final RandomAccessFile lockFile;
+  private final FileLock lock;
+  private final MappedByteBuffer[] segments;
+  private final int segmentSize;
+  private long nextSequence;
+  // the segment records are appended to, -1 if there is none yet
+  private int writeSegment = -1;
+  private long pendingBytes;
+  private long pendingSpans;
+  // the record returned by peek() until it is removed or released; it stays pending when its
+  // segment
+  // is discarded meanwhile, so that the caller accounts for it either way
+  @Nullable private Record peeked;
+  private boolean peekedDiscarded;
+
+  private SegmentLog(
+      RandomAccessFile lockFile, FileLock lock, MappedByteBuffer[] segments, int segmentSize) {
+    this.lockFile = lockFile;
+    this.lock = lock;
+    this.segments = segments;
+    this.segmentSize = segmentSize;
+    long newestSequence = 0;
+    for (int i = 0; i < segments.length; i++) {
+      long sequence = recover(segments[i]);
+      if (sequence > newestSequence) {
+        newestSequence = sequence;
+        writeSegment = i;
+      }
+    }
+    nextSequence = newestSequence + 1;
+    for (int i = 0; i < segments.length; i++) {
+      ByteBuffer segment = segments[i];
+      if (i != writeSegment
+          && segment.getInt(READ_POSITION_OFFSET) == segment.getInt(WRITE_POSITION_OFFSET)) {
+        free(segment);
+      }
+    }
+  }
+
+  /**
+   * Opens the log in {@code directory}, with the records left by a previous process that used the
+   * same segment size.
+   *
+   * @throws IOException if the segments can't be mapped, or if the directory is used by another
+   *     log, e.g. of another process
+   */
+  static SegmentLog open(File directory, int segmentSize, int segmentCount) throws IOException {
+    if (segmentCount < 2) {
+      throw new IllegalArgumentException("At least two segments are needed: " + segmentCount);
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Could not create directory " + directory);
+    }
+    RandomAccessFile lockFile = new RandomAccessFile(new File(directory, "lock"), "rw");
+    try {
+      FileLock lock = tryLock(lockFile.getChannel());
+      if (lock == null) {
+        throw new IOException("Directory " + directory + " is used by another process");
+      }
+      MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+        segments[i] = map(new File(directory, "segment-" + i), segmentSize);
+      }
+      return new SegmentLog(lockFile, lock, segments, segmentSize);
+    } catch (IOException | RuntimeException e) {
+      lockFile.close();
+      throw e;
+    }
+  }
+
+  @Nullable
+  private static FileLock tryLock(FileChannel channel) throws IOException {
+    try {
+      return channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // locked by this process
+      return null;
+    }
+  }
+
+  private static MappedByteBuffer map(File file, int segmentSize) throws IOException {
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      boolean resized = randomAccessFile.length() != segmentSize;
+      if (resized) {
+        randomAccessFile.setLength(segmentSize);
+      }
+      // the mapping stays valid after the file is closed
+      MappedByteBuffer segment =
+          randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+      if (resized) {
+        // written with another segment size, the records can't be recovered
+        free(segment);
+      }
+      return segment;
+    }
+  }
+
+  // validates the header and records of a segment left by a previous process, returns its sequence
+  private long recover(ByteBuffer segment) {
+    long sequence = segment.getLong(SEQUENCE_OFFSET);
+    int readPosition = segment.getInt(READ_POSITION_OFFSET);
+    int writePosition = segment.getInt(WRITE_POSITION_OFFSET);
+    if (sequence <= 0
+        || readPosition < HEADER_SIZE
+        || writePosition < readPosition
+        || writePosition > segmentSize) {
+      free(segment);
+      return 0;
+    }
+    int position = readPosition;
+    while (position < writePosition) {
+      int length = segment.getInt(position);
+      int end = position + RECORD_HEADER_SIZE + length;
+      if (length < 0 || end > writePosition) {
+        // drop the records from the first invalid one
+        segment.putInt(WRITE_POSITION_OFFSET, position);
+        break;
+      }
+      pendingBytes += RECORD_HEADER_SIZE + length;
+      pendingSpans += segment.getInt(position + 4);
+      position = end;
+    }
+    return sequence;
+  }
+
+  /** Returns the size of the largest record that can be appended. */
+  int maxRecordSize() {
+    return segmentSize - HEADER_SIZE - RECORD_HEADER_SIZE;
+  }
+
+  synchronized boolean isEmpty() {
+    return pendingBytes == 0;
+  }
+
+  /** Returns the size of the records that weren't read, with their headers. */
+  synchronized long pendingBytes() {
+    return pendingBytes;
+  }
+
+  /** Returns the number of spans of the records that weren't read. */
+  synchronized long pendingSpans() {
+    return pendingSpans;
+  }
+
+  /**
+   * Appends a record of {@code spanCount} spans, no larger than {@link #maxRecordSize()}. Returns
+   * the number of spans of the records that were discarded to make room for it.
+   */
+  synchronized long append(byte[] data, int spanCount) {
+    int size = RECORD_HEADER_SIZE + data.length;
+    long discardedSpans = 0;
+    if (writeSegment == -1
+        || segmentSize - segments[writeSegment].getInt(WRITE_POSITION_OFFSET) < size) {
+      if (writeSegment != -1) {
+        ByteBuffer previous = segments[writeSegment];
+        if (previous.getInt(READ_POSITION_OFFSET) == previous.getInt(WRITE_POSITION_OFFSET)) {
+          free(previous);
+        }
+      }
+      int segment = findFreeSegment();
+      if (segment == -1) {
+        segment = findOldestSegment();
+        discardedSpans = discard(segment);
+      }
+      ByteBuffer header = segments[segment];
+      header.putLong(SEQUENCE_OFFSET, nextSequence++);
+      header.putInt(READ_POSITION_OFFSET, HEADER_SIZE);
+      header.putInt(WRITE_POSITION_OFFSET, HEADER_SIZE);
+      writeSegment = segment;
+    }
+
+    MappedByteBuffer segment = segments[writeSegment];
+    int position = segment.getInt(WRITE_POSITION_OFFSET);
+    segment.putInt(position, data.length);
+    segment.putInt(position + 4, spanCount);
+    ByteBuffer buffer = segment.duplicate();
+    buffer.position(position + RECORD_HEADER_SIZE);
+    buffer.put(data);
+    // the record is only visible once it is completely written
+    segment.putInt(WRITE_POSITION_OFFSET, position + size);
+    pendingBytes += size;
+    pendingSpans += spanCount;
+    return discardedSpans;
+  }
+
+  /**
+   * Returns the oldest record that wasn't read, or {@code null} if there is none. The record must
+   * be passed to {@link #remove(Record)} or {@link #release(Record)} before the next call.
+   */
+  @Nullable
+  synchronized Record peek() {
+    int oldest = findOldestSegment();
+    if (oldest == -1) {
+      return null;
+    }
+    MappedByteBuffer segment = segments[oldest];
+    int position = segment.getInt(READ_POSITION_OFFSET);
+    if (position == segment.getInt(WRITE_POSITION_OFFSET)) {
+      return null;
+    }
+    byte[] data = new byte[segment.getInt(position)];
+    ByteBuffer buffer = segment.duplicate();
+    buffer.position(position + RECORD_HEADER_SIZE);
+    buffer.get(data);
+    peeked =
+        new Record(segment.getLong(SEQUENCE_OFFSET), position, data, segment.getInt(position + 4));
+    return peeked;
+  }
+
+  /**
+   * Marks a record returned by {@link #peek()} as read, including when its segment was discarded in
+   * the meantime.
+   */
+  synchronized void remove(Record record) {
+    if (release(record)) {
+      return;
+    }
+    for (int i = 0; i < segments.length; i++) {
+      MappedByteBuffer segment = segments[i];
+      if (segment.getLong(SEQUENCE_OFFSET) != record.sequence
+          || segment.getInt(READ_POSITION_OFFSET) != record.position) {
+        continue;
+      }
+      int readPosition = record.position + RECORD_HEADER_SIZE + record.data.length;
+      pendingBytes -= RECORD_HEADER_SIZE + record.data.length;
+      pendingSpans -= record.spanCount;
+      if (readPosition < segment.getInt(WRITE_POSITION_OFFSET)) {
+        segment.putInt(READ_POSITION_OFFSET, readPosition);
+      } else if (i == writeSegment) {
+        // keep appending to it, from the start
+        segment.putInt(READ_POSITION_OFFSET, HEADER_SIZE);
+        segment.putInt(WRITE_POSITION_OFFSET, HEADER_SIZE);
+      } else {
+        free(segment);
+      }
+      return;
+    }
+  }
+
+  /**
+   * Leaves a record returned by {@link #peek()} in the log, to be returned again by the next call.
+   * Returns whether its segment was discarded in the meantime, in which case the record is lost.
+   */
+  synchronized boolean release(Record record) {
+    if (record != peeked) {
+      return false;
+    }
+    peeked = null;
+    if (!peekedDiscarded) {
+      return false;
+    }
+    peekedDiscarded = false;
+    pendingBytes -= RECORD_HEADER_SIZE + record.data.length;
+    pendingSpans -= record.spanCount;
+    return true;
+  }
+
+  private int findFreeSegment() {
+    for (int i = 0; i < segments.length; i++) {
+      if (segments[i].getLong(SEQUENCE_OFFSET) == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int findOldestSegment() {
+    int oldest = -1;
+    long oldestSequence = Long.MAX_VALUE;
+    for (int i = 0; i < segments.length; i++) {
+      long sequence = segments[i].getLong(SEQUENCE_OFFSET);
+      if (sequence != 0 && sequence < oldestSequence) {
+        oldest = i;
+        oldestSequence = sequence;
+      }
+    }
+    return oldest;
+  }
+
+  // frees the segment, returns the number of spans of the records that weren't read, except the
+  // peeked one
+  private long discard(int index) {
+    MappedByteBuffer segment = segments[index];
+    long sequence = segment.getLong(SEQUENCE_OFFSET);
+    long discardedSpans = 0;
+    int position = segment.getInt(READ_POSITION_OFFSET);
+    int writePosition = segment.getInt(WRITE_POSITION_OFFSET);
+    while (position < writePosition) {
+      int length = segment.getInt(position);
+      if (peeked != null && peeked.sequence == sequence && peeked.position == position) {
+        peekedDiscarded = true;
+      } else {
+        discardedSpans += segment.getInt(position + 4);
+        pendingBytes -= RECORD_HEADER_SIZE + length;
+      }
+      position += RECORD_HEADER_SIZE + length;
+    }
+    pendingSpans -= discardedSpans;
+    free(segment);
+    return discardedSpans;
+  }
+
+  private static void free(ByteBuffer segment) {
+    segment.putLong(SEQUENCE_OFFSET, 0);
+    segment.putInt(READ_POSITION_OFFSET, HEADER_SIZE);
+    segment.putInt(WRITE_POSITION_OFFSET, HEADER_SIZE);
+  }
+
+  /** Writes the segments to disk and releases the directory. */
+  @Override
+  public synchronized void close() throws IOException {
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+    try {
+      lock.release();
+    } finally {
+      lockFile.close();
+    }
+  }
+
+  static final class Record {
+    final long sequence;
+    final int position;
+    final byte[] data;
+    final int spanCount;
+
+    Record(long sequence, int position, byte[] data, int spanCount) {
+      this.sequence = sequence;
+      this.position = position;
+      this.data = data;
+      this.spanCount = spanCount;
+    }
+  }
+}
@@ -0,0 +1,548 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.exporter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributeType;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.TraceStateBuilder;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Serializes batches of {@link SpanData} to bytes and back. The resources and instrumentation
+ * libraries, which are usually shared by all the spans of a batch, are only written once per batch.
+ */
+final class SpanDataSerializer {
+
+  // the enums are written as fixed codes, so that the batches stay readable when constants are
+  // added to them
+  private static final byte VERSION = 2;
+
+  static byte[] serialize(Collection<SpanData> spans) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(spans.size() * 256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      new Writer(out).writeSpans(spans);
+    } catch (IOException e) {
+      // not thrown by a ByteArrayOutputStream
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns the spans of a batch serialized by {@link #serialize(Collection)}.
+   *
+   * @throws IllegalArgumentException if the bytes are not a serialized batch
+   */
+  static List<SpanData> deserialize(byte[] bytes) {
+    try {
+      return new Reader(ByteBuffer.wrap(bytes)).readSpans();
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated span batch", e);
+    }
+  }
+
+  private static final class Writer {
+    private final DataOutputStream out;
+    private final Map<Resource, Integer> resources = new IdentityHashMap<>();
+    private final Map<InstrumentationLibraryInfo, Integer> libraries = new IdentityHashMap<>();
+
+    Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    void writeSpans(Collection<SpanData> spans) throws IOException {
+      out.writeByte(VERSION);
+      out.writeInt(spans.size());
+      for (SpanData span : spans) {
+        writeSpan(span);
+      }
+    }
+
+    private void writeSpan(SpanData span) throws IOException {
+      writeResource(span.getResource());
+      writeLibrary(span.getInstrumentationLibraryInfo());
+      writeSpanContext(span.getSpanContext());
+      writeSpanContext(span.getParentSpanContext());
+      writeString(span.getName());
+      out.writeByte(spanKindCode(span.getKind()));
+      out.writeLong(span.getStartEpochNanos());
+      out.writeLong(span.getEndEpochNanos());
+      out.writeBoolean(span.hasEnded());
+      writeAttributes(span.getAttributes());
+      out.writeInt(span.getTotalAttributeCount());
+
+      List<EventData> events = span.getEvents();
+      out.writeInt(events.size());
+      for (EventData event : events) {
+        out.writeLong(event.getEpochNanos());
+        writeString(event.getName());
+        writeAttributes(event.getAttributes());
+        out.writeInt(event.getTotalAttributeCount());
+      }
+      out.writeInt(span.getTotalRecordedEvents());
+
+      List<LinkData> links = span.getLinks();
+      out.writeInt(links.size());
+      for (LinkData link : links) {
+        writeSpanContext(link.getSpanContext());
+        writeAttributes(link.getAttributes());
+        out.writeInt(link.getTotalAttributeCount());
+      }
+      out.writeInt(span.getTotalRecordedLinks());
+
+      StatusData status = span.getStatus();
+      out.writeByte(statusCodeCode(status.getStatusCode()));
+      writeNullableString(status.getDescription());
+    }
+
+    // the index of the resource in the batch, followed by the resource the first time
+    private void writeResource(Resource resource) throws IOException {
+      Integer index = resources.get(resource);
+      if (index != null) {
+        out.writeInt(index);
+        return;
+      }
+      out.writeInt(resources.size());
+      resources.put(resource, resources.size());
+      writeNullableString(resource.getSchemaUrl());
+      writeAttributes(resource.getAttributes());
+    }
+
+    private void writeLibrary(InstrumentationLibraryInfo library) throws IOException {
+      Integer index = libraries.get(library);
+      if (index != null) {
+        out.writeInt(index);
+        return;
+      }
+      out.writeInt(libraries.size());
+      libraries.put(library, libraries.size());
+      writeString(library.getName());
+      writeNullableString(library.getVersion());
+      writeNullableString(library.getSchemaUrl());
+    }
+
+    private void writeSpanContext(SpanContext spanContext) throws IOException {
+      writeString(spanContext.getTraceId());
+      writeString(spanContext.getSpanId());
+      out.writeByte(spanContext.getTraceFlags().asByte());
+      out.writeBoolean(spanContext.isRemote());
+      TraceState traceState = spanContext.getTraceState();
+      out.writeInt(traceState.size());
+      for (Map.Entry<String, String> entry : traceState.asMap().entrySet()) {
+        writeString(entry.getKey());
+        writeString(entry.getValue());
+      }
+    }
+
+    private void writeAttributes(Attributes attributes) throws IOException {
+      out.writeInt(attributes.size());
+      for (Map.Entry<AttributeKey<?>, Object> entry : attributes.asMap().entrySet()) {
+        AttributeKey<?> key = entry.getKey();
+        writeString(key.getKey());
+        out.writeByte(attributeTypeCode(key.getType()));
+        writeAttributeValue(key.getType(), entry.getValue());
+      }
+    }
+
+    private void writeAttributeValue(AttributeType type, Object value) throws IOException {
+      switch (type) {
+        case STRING:
+          writeString((String) value);
+          return;
+        case BOOLEAN:
+          out.writeBoolean((Boolean) value);
+          return;
+        case LONG:
+          out.writeLong((Long) value);
+          return;
+        case DOUBLE:
+          out.writeDouble((Double) value);
+          return;
+        case STRING_ARRAY:
+        case BOOLEAN_ARRAY:
+        case LONG_ARRAY:
+        case DOUBLE_ARRAY:
+          List<?> values = (List<?>) value;
+          out.writeInt(values.size());
+          for (Object element : values) {
+            writeAttributeValue(elementType(type), element);
+          }
+          return;
+      }
+      throw new IllegalStateException("Unknown attribute type " + type);
+    }
+
+    private void writeNullableString(@Nullable String value) throws IOException {
+      out.writeBoolean(value != null);
+      if (value != null) {
+        writeString(value);
+      }
+    }
+
+    // unlike DataOutputStream.writeUTF(), not limited to 64KB
+    private void writeString(String value) throws IOException {
+      byte[] bytes = value.getBytes(UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static final class Reader {
+    private final ByteBuffer in;
+    private final List<Resource> resources = new ArrayList<>();
+    private final List<InstrumentationLibraryInfo> libraries = new ArrayList<>();
+
+    Reader(ByteBuffer in) {
+      this.in = in;
+    }
+
+    List<SpanData> readSpans() {
+      byte version = in.get();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported span batch version " + version);
+      }
+      int size = in.getInt();
+      List<SpanData> spans = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        spans.add(readSpan());
+      }
+      return spans;
+    }
+
+    private SpanData readSpan() {
+      Resource resource = readResource();
+      InstrumentationLibraryInfo library = readLibrary();
+      SpanContext spanContext = readSpanContext();
+      SpanContext parentSpanContext = readSpanContext();
+      String name = readString();
+      SpanKind kind = spanKind(in.get());
+      long startEpochNanos = in.getLong();
+      long endEpochNanos = in.getLong();
+      boolean ended = readBoolean();
+      Attributes attributes = readAttributes();
+      int totalAttributeCount = in.getInt();
+
+      int eventCount = in.getInt();
+      List<EventData> events = new ArrayList<>(eventCount);
+      for (int i = 0; i < eventCount; i++) {
+        long epochNanos = in.getLong();
+        String eventName = readString();
+        Attributes eventAttributes = readAttributes();
+        events.add(EventData.create(epochNanos, eventName, eventAttributes, in.getInt()));
+      }
+      int totalRecordedEvents = in.getInt();
+
+      int linkCount = in.getInt();
+      List<LinkData> links = new ArrayList<>(linkCount);
+      for (int i = 0; i < linkCount; i++) {
+        SpanContext linkSpanContext = readSpanContext();
+        Attributes linkAttributes = readAttributes();
+        links.add(LinkData.create(linkSpanContext, linkAttributes, in.getInt()));
+      }
+      int totalRecordedLinks = in.getInt();
+
+      StatusCode statusCode = statusCode(in.get());
+      StatusData status = StatusData.create(statusCode, readNullableString());
+
+      return new DeserializedSpanData(
+          resource,
+          library,
+          spanContext,
+          parentSpanContext,
+          name,
+          kind,
+          startEpochNanos,
+          endEpochNanos,
+          ended,
+          attributes,
+          totalAttributeCount,
+          events,
+          totalRecordedEvents,
+          links,
+          totalRecordedLinks,
+          status);
+    }
+
+    private Resource readResource() {
+      int index = in.getInt();
+      if (index < resources.size()) {
+        return resources.get(index);
+      }
+      String schemaUrl = readNullableString();
+      Resource resource = Resource.create(readAttributes(), schemaUrl);
+      resources.add(resource);
+      return resource;
+    }
+
+    private InstrumentationLibraryInfo readLibrary() {
+      int index = in.getInt();
+      if (index < libraries.size()) {
+        return libraries.get(index);
+      }
+      String name = readString();
+      String version = readNullableString();
+      InstrumentationLibraryInfo library =
+          InstrumentationLibraryInfo.create(name, version, readNullableString());
+      libraries.add(library);
+      return library;
+    }
+
+    private SpanContext readSpanContext() {
+      String traceId = readString();
+      String spanId = readString();
+      TraceFlags traceFlags = TraceFlags.fromByte(in.get());
+      boolean remote = readBoolean();
+      int traceStateSize = in.getInt();
+      TraceState traceState = TraceState.getDefault();
+      if (traceStateSize > 0) {
+        TraceStateBuilder builder = TraceState.builder();
+        for (int i = 0; i < traceStateSize; i++) {
+          builder.put(readString(), readString());
+        }
+        traceState = builder.build();
+      }
+      return remote
+          ? SpanContext.createFromRemoteParent(traceId, spanId, traceFlags, traceState)
+          : SpanContext.create(traceId, spanId, traceFlags, traceState);
+    }
+
+    private Attributes readAttributes() {
+      int size = in.getInt();
+      if (size == 0) {
+        return Attributes.empty();
+      }
+      AttributesBuilder builder = Attributes.builder();
+      for (int i = 0; i < size; i++) {
+        String key = readString();
+        AttributeType type = attributeType(in.get());
+        putAttribute(builder, key, type);
+      }
+      return builder.build();
+    }
+
+    private void putAttribute(AttributesBuilder builder, String key, AttributeType type) {
+      switch (type) {
+        case STRING:
+          builder.put(AttributeKey.stringKey(key), readString());
+          return;
+        case BOOLEAN:
+          builder.put(AttributeKey.booleanKey(key), readBoolean());
+          return;
+        case LONG:
+          builder.put(AttributeKey.longKey(key), in.getLong());
+          return;
+        case DOUBLE:
+          builder.put(AttributeKey.doubleKey(key), in.getDouble());
+          return;
+        case STRING_ARRAY:
+          builder.put(AttributeKey.stringArrayKey(key), readList(type));
+          return;
+        case BOOLEAN_ARRAY:
+          builder.put(AttributeKey.booleanArrayKey(key), readList(type));
+          return;
+        case LONG_ARRAY:
+          builder.put(AttributeKey.longArrayKey(key), readList(type));
+          return;
+        case DOUBLE_ARRAY:
+          builder.put(AttributeKey.doubleArrayKey(key), readList(type));
+          return;
+      }
+      throw new IllegalArgumentException("Unknown attribute type " + type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> readList(AttributeType arrayType) {
+      int size = in.getInt();
+      List<Object> values = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        values.add(readValue(elementType(arrayType)));
+      }
+      return (List<T>) values;
+    }
+
+    private Object readValue(AttributeType type) {
+      switch (type) {
+        case STRING:
+          return readString();
+        case BOOLEAN:
+          return readBoolean();
+        case LONG:
+          return in.getLong();
+        case DOUBLE:
+          return in.getDouble();
+        default:
+          throw new IllegalArgumentException("Unknown attribute type " + type);
+      }
+    }
+
+    private boolean readBoolean() {
+      return in.get() != 0;
+    }
+
+    @Nullable
+    private String readNullableString() {
+      return readBoolean() ? readString() : null;
+    }
+
+    private String readString() {
+      int length = in.getInt();
+      if (length < 0 || length > in.remaining()) {
+        throw new IllegalArgumentException("Invalid string length " + length);
+      }
+      String value = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+      in.position(in.position() + length);
+      return value;
+    }
+  }
+
+  private static AttributeType elementType(AttributeType arrayType) {
+    switch (arrayType) {
+      case STRING_ARRAY:
+        return AttributeType.STRING;
+      case BOOLEAN_ARRAY:
+        return AttributeType.BOOLEAN;
+      case LONG_ARRAY:
+        return AttributeType.LONG;
+      case DOUBLE_ARRAY:
+        return AttributeType.DOUBLE;
+      default:
+        throw new IllegalArgumentException("Not an array attribute type " + arrayType);
+    }
+  }
+
+  // the codes of the span kinds in OTLP
+  private static int spanKindCode(SpanKind kind) {
+    switch (kind) {
+      case INTERNAL:
+        return 1;
+      case SERVER:
+        return 2;
+      case CLIENT:
+        return 3;
+      case PRODUCER:
+        return 4;
+      case CONSUMER:
+        return 5;
+    }
+    throw new IllegalStateException("Unknown span kind " + kind);
+  }
+
+  private static SpanKind spanKind(int code) {
+    switch (code) {
+      case 1:
+        return SpanKind.INTERNAL;
+      case 2:
+        return SpanKind.SERVER;
+      case 3:
+        return SpanKind.CLIENT;
+      case 4:
+        return SpanKind.PRODUCER;
+      case 5:
+        return SpanKind.CONSUMER;
+      default:
+        throw new IllegalArgumentException("Unknown span kind " + code);
+    }
+  }
+
+  // the codes of the status codes in OTLP
+  private static int statusCodeCode(StatusCode statusCode) {
+    switch (statusCode) {
+      case UNSET:
+        return 0;
+      case OK:
+        return 1;
+      case ERROR:
+        return 2;
+    }
+    throw new IllegalStateException("Unknown status code " + statusCode);
+  }
+
+  private static StatusCode statusCode(int code) {
+    switch (code) {
+      case 0:
+        return StatusCode.UNSET;
+      case 1:
+        return StatusCode.OK;
+      case 2:
+        return StatusCode.ERROR;
+      default:
+        throw new IllegalArgumentException("Unknown status code " + code);
+    }
+  }
+
+  private static int attributeTypeCode(AttributeType type) {
+    switch (type) {
+      case STRING:
+        return 1;
+      case BOOLEAN:
+        return 2;
+      case LONG:
+        return 3;
+      case DOUBLE:
+        return 4;
+      case STRING_ARRAY:
+        return 5;
+      case BOOLEAN_ARRAY:
+        return 6;
+      case LONG_ARRAY:
+        return 7;
+      case DOUBLE_ARRAY:
+        return 8;
+    }
+    throw new IllegalStateException("Unknown attribute type " + type);
+  }
+
+  private static AttributeType attributeType(int code) {
+    switch (code) {
+      case 1:
+        return AttributeType.STRING;
+      case 2:
+        return AttributeType.BOOLEAN;
+      case 3:
+        return AttributeType.LONG;
+      case 4:
+        return AttributeType.DOUBLE;
+      case 5:
+        return AttributeType.STRING_ARRAY;
+      case 6:
+        return AttributeType.BOOLEAN_ARRAY;
+      case 7:
+        return AttributeType.LONG_ARRAY;
+      case 8:
+        return AttributeType.DOUBLE_ARRAY;
+      default:
+        throw new IllegalArgumentException("Unknown attribute type " + code);
+    }
+  }
+
+  private SpanDataSerializer() {}
+}
@@ -21,6 +21,7 @@ import java.lang.instrument.Instrumentation;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import net.bytebuddy.ByteBuddy;
@@ -162,7 +163,7 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
 
   @Override
   public AgentBuilder.Identified.Extendable injectFields(
-      AgentBuilder.Identified.Extendable builder) {
+      AgentBuilder.Identified.Extendable builder, List<AgentBuilder.RawMatcher> typeMatchers) {
 
     if (FIELD_INJECTION_ENABLED) {
       for (Map.Entry<String, String> entry : virtualFieldMappings.entrySet()) {
@@ -186,12 +187,10 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
            * For each virtual field defined in a current instrumentation we create an agent builder
            * that injects necessary fields.
            */
-          builder =
-              builder
-                  .type(not(isAbstract()).and(hasSuperType(named(entry.getKey()))))
-                  .and(safeToInjectFieldsMatcher())
-                  .and(InstrumentationModuleInstaller.NOT_DECORATOR_MATCHER)
-                  .transform(NoOpTransformer.INSTANCE);
+          // the classes that already have the fields have to be discovered for retransformation
+          AgentBuilder.RawMatcher typeMatcher = fieldInjectionMatcher(entry.getKey());
+          typeMatchers.add(typeMatcher);
+          builder = builder.type(typeMatcher).transform(NoOpTransformer.INSTANCE);
 
           /*
            * We inject helpers here as well as when instrumentation is applied to ensure that
@@ -211,6 +210,21 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
     return builder;
   }
 
+  // visible for testing
+  static AgentBuilder.RawMatcher fieldInjectionMatcher(String typeName) {
+    AgentBuilder.RawMatcher safeToInjectFieldsMatcher = safeToInjectFieldsMatcher();
+    AgentBuilder.RawMatcher typeMatcher =
+        new AgentBuilder.RawMatcher.ForElementMatchers(
+            not(isAbstract())
+                .and(hasSuperType(named(typeName)))
+                .and(InstrumentationModuleInstaller.NOT_DECORATOR_MATCHER));
+    return (typeDescription, classLoader, module, classBeingRedefined, protectionDomain) ->
+        safeToInjectFieldsMatcher.matches(
+                typeDescription, classLoader, module, classBeingRedefined, protectionDomain)
+            && typeMatcher.matches(
+                typeDescription, classLoader, module, classBeingRedefined, protectionDomain);
+  }
+
   private static AgentBuilder.RawMatcher safeToInjectFieldsMatcher() {
     return (typeDescription, classLoader, module, classBeingRedefined, protectionDomain) -> {
       /*
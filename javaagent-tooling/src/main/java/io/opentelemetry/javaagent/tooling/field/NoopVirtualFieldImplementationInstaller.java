@@ -5,6 +5,8 @@
 
 package io.opentelemetry.javaagent.tooling.field;
 
+import java.util.List;
+import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.agent.builder.AgentBuilder.Identified.Extendable;
 
 final class NoopVirtualFieldImplementationInstaller implements VirtualFieldImplementationInstaller {
@@ -20,7 +22,7 @@ final class NoopVirtualFieldImplementationInstaller implements VirtualFieldImple
   }
 
   @Override
-  public Extendable injectFields(Extendable builder) {
+  public Extendable injectFields(Extendable builder, List<AgentBuilder.RawMatcher> typeMatchers) {
     return builder;
   }
 }
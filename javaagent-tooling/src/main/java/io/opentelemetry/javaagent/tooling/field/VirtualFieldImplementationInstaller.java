@@ -6,6 +6,7 @@
 package io.opentelemetry.javaagent.tooling.field;
 
 import io.opentelemetry.instrumentation.api.field.VirtualField;
+import java.util.List;
 import net.bytebuddy.agent.builder.AgentBuilder;
 
 public interface VirtualFieldImplementationInstaller {
@@ -18,6 +19,10 @@ public interface VirtualFieldImplementationInstaller {
   AgentBuilder.Identified.Extendable rewriteVirtualFieldsCalls(
       AgentBuilder.Identified.Extendable builder);
 
-  /** Injects actual fields in classes referenced by {@link VirtualField} usages. */
-  AgentBuilder.Identified.Extendable injectFields(AgentBuilder.Identified.Extendable builder);
+  /**
+   * Injects actual fields in classes referenced by {@link VirtualField} usages, and adds the
+   * matchers of the classes that it transforms to {@code typeMatchers}.
+   */
+  AgentBuilder.Identified.Extendable injectFields(
+      AgentBuilder.Identified.Extendable builder, List<AgentBuilder.RawMatcher> typeMatchers);
 }
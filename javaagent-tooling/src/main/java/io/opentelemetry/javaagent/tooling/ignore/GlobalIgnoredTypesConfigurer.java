@@ -108,6 +108,22 @@ public class GlobalIgnoredTypesConfigurer implements IgnoredTypesConfigurer {
         // is no common prefix for its proxies other than "$". ByteBuddy fails to instrument this
         // proxy, and as there is no reason why it should be instrumented anyway, exclude it.
         .ignoreClass("$HttpServletRequest_");
+
+    // generated classes, bytecode proxies that have $$ in their name are handled by
+    // IgnoredTypesMatcher
+    builder
+        .ignoreClassesContaining("$JaxbAccessor")
+        .ignoreClassesContaining("CGLIB$$")
+        .ignoreClassesContaining("javassist")
+        .ignoreClassesContaining(".asm.")
+        .ignoreClassesContaining("$__sisu")
+        .ignoreClassesContaining("$$EnhancerByProxool$$")
+        // glassfish ejb proxy
+        // We skip instrumenting these because some instrumentations e.g. jax-rs instrument methods
+        // that are annotated with @Path in an interface implemented by the class. We don't really
+        // want to instrument these methods in generated classes as this would create spans that
+        // have the generated class name in them instead of the actual class that handles the call.
+        .ignoreClassesContaining("__EJB31_Generated__");
   }
 
   private static void configureIgnoredClassLoaders(IgnoredTypesBuilder builder) {
@@ -6,10 +6,13 @@
 package io.opentelemetry.javaagent.tooling.ignore;
 
 import io.opentelemetry.javaagent.extension.ignore.IgnoredTypesBuilder;
+import io.opentelemetry.javaagent.tooling.util.SubstringMatcher;
 import io.opentelemetry.javaagent.tooling.util.Trie;
 
 public class IgnoredTypesBuilderImpl implements IgnoredTypesBuilder {
   private final Trie.Builder<IgnoreAllow> ignoredTypesTrie = Trie.builder();
+  private final SubstringMatcher.Builder ignoredTypesSubstrings =
+      IgnoredTypesMatcher.substringMatcherBuilder();
   private final Trie.Builder<IgnoreAllow> ignoredClassLoadersTrie = Trie.builder();
   private final Trie.Builder<Boolean> ignoredTasksTrie = Trie.builder();
 
@@ -25,6 +28,12 @@ public class IgnoredTypesBuilderImpl implements IgnoredTypesBuilder {
     return this;
   }
 
+  @Override
+  public IgnoredTypesBuilder ignoreClassesContaining(String substring) {
+    ignoredTypesSubstrings.put(substring, IgnoredTypesMatcher.IGNORED_SUBSTRING);
+    return this;
+  }
+
   @Override
   public IgnoredTypesBuilder ignoreClassLoader(String classNameOrPrefix) {
     ignoredClassLoadersTrie.put(classNameOrPrefix, IgnoreAllow.IGNORE);
@@ -47,6 +56,10 @@ public class IgnoredTypesBuilderImpl implements IgnoredTypesBuilder {
     return ignoredTypesTrie.build();
   }
 
+  public IgnoredTypesMatcher buildIgnoredTypesMatcher() {
+    return new IgnoredTypesMatcher(buildIgnoredTypesTrie(), ignoredTypesSubstrings.build());
+  }
+
   public Trie<IgnoreAllow> buildIgnoredClassLoadersTrie() {
     return ignoredClassLoadersTrie.build();
   }
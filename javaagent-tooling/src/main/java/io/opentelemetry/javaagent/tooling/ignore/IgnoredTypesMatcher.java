@@ -5,16 +5,36 @@
 
 package io.opentelemetry.javaagent.tooling.ignore;
 
+import io.opentelemetry.javaagent.tooling.util.SubstringMatcher;
 import io.opentelemetry.javaagent.tooling.util.Trie;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
 
 public class IgnoredTypesMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
 
+  static final int IGNORED_SUBSTRING = 1;
+  private static final int PROXY = 1 << 1;
+  private static final int LAMBDA = 1 << 2;
+  private static final int SCALA_ANONYMOUS_CLASS = 1 << 3;
+
   private final Trie<IgnoreAllow> ignoredTypes;
+  private final SubstringMatcher ignoredSubstrings;
 
-  public IgnoredTypesMatcher(Trie<IgnoreAllow> ignoredTypes) {
+  public IgnoredTypesMatcher(Trie<IgnoreAllow> ignoredTypes, SubstringMatcher ignoredSubstrings) {
     this.ignoredTypes = ignoredTypes;
+    this.ignoredSubstrings = ignoredSubstrings;
+  }
+
+  /**
+   * Returns a builder that already contains the patterns used to recognize bytecode proxies; the
+   * substrings passed to {@code ignoreClassesContaining()} are added to it with the {@link
+   * #IGNORED_SUBSTRING} flag.
+   */
+  static SubstringMatcher.Builder substringMatcherBuilder() {
+    return SubstringMatcher.builder()
+        .put("$$", PROXY)
+        .put("$$Lambda$", LAMBDA)
+        .put("$$anon$", SCALA_ANONYMOUS_CLASS);
   }
 
   @Override
@@ -28,24 +48,16 @@ public class IgnoredTypesMatcher extends ElementMatcher.Junction.AbstractBase<Ty
       return true;
     }
 
+    // all the substrings are found in a single pass over the name
+    int found = ignoredSubstrings.match(name);
+
     // bytecode proxies typically have $$ in their name
-    if (name.contains("$$") && !name.contains("$$Lambda$")) {
+    if ((found & PROXY) != 0 && (found & LAMBDA) == 0) {
       // allow scala anonymous classes
-      return !name.contains("$$anon$");
+      return (found & SCALA_ANONYMOUS_CLASS) == 0;
     }
 
-    if (name.contains("$JaxbAccessor")
-        || name.contains("CGLIB$$")
-        || name.contains("javassist")
-        || name.contains(".asm.")
-        || name.contains("$__sisu")
-        || name.contains("$$EnhancerByProxool$$")
-        // glassfish ejb proxy
-        // We skip instrumenting these because some instrumentations e.g. jax-rs instrument methods
-        // that are annotated with @Path in an interface implemented by the class. We don't really
-        // want to instrument these methods in generated classes as this would create spans that
-        // have the generated class name in them instead of the actual class that handles the call.
-        || name.contains("__EJB31_Generated__")) {
+    if ((found & IGNORED_SUBSTRING) != 0) {
       return true;
     }
 
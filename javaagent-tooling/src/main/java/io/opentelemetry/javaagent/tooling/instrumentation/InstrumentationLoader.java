@@ -11,6 +11,7 @@ import com.google.auto.service.AutoService;
 import io.opentelemetry.javaagent.bootstrap.InstrumentationHolder;
 import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
 import io.opentelemetry.javaagent.tooling.AgentExtension;
+import java.util.List;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +47,11 @@ public class InstrumentationLoader implements AgentExtension {
     return agentBuilder;
   }
 
+  /** Returns the matchers of the classes transformed by the installed instrumentations. */
+  public List<AgentBuilder.RawMatcher> typeMatchers() {
+    return instrumentationModuleInstaller.getTypeMatchers();
+  }
+
   @Override
   public String extensionName() {
     return "instrumentation-loader";
@@ -11,6 +11,7 @@ import static net.bytebuddy.matcher.ElementMatchers.named;
 import static net.bytebuddy.matcher.ElementMatchers.not;
 
 import io.opentelemetry.instrumentation.api.caching.Cache;
+import io.opentelemetry.instrumentation.api.config.Config;
 import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
 import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
 import io.opentelemetry.javaagent.tooling.HelperInjector;
@@ -25,8 +26,11 @@ import io.opentelemetry.javaagent.tooling.muzzle.Mismatch;
 import io.opentelemetry.javaagent.tooling.muzzle.ReferenceMatcher;
 import java.lang.instrument.Instrumentation;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
+import javax.annotation.Nullable;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.description.annotation.AnnotationSource;
 import net.bytebuddy.description.type.TypeDescription;
@@ -45,9 +49,20 @@ public final class InstrumentationModuleInstaller {
   public static final ElementMatcher.Junction<AnnotationSource> NOT_DECORATOR_MATCHER =
       not(isAnnotatedWith(named("javax.decorator.Decorator")));
 
+  // Experimental: keep the type matchers of modules dormant until their required classes are loaded
+  private static final boolean LAZY_MODULE_ACTIVATION =
+      Config.get().getBoolean("otel.javaagent.experimental.lazy-module-activation.enabled", false);
+
+  // Experimental: keep the muzzle verdicts on disk, so that they survive restarts
+  @Nullable
+  private static final MuzzleVerdictCache muzzleVerdictCache =
+      MuzzleVerdictCache.create(Config.get());
+
   private final Instrumentation instrumentation;
   private final VirtualFieldImplementationInstallerFactory virtualFieldInstallerFactory =
       new VirtualFieldImplementationInstallerFactory();
+  private final List<AgentBuilder.RawMatcher> typeMatchers = new ArrayList<>();
+  @Nullable private Set<String> loadedClassNames;
 
   public InstrumentationModuleInstaller(Instrumentation instrumentation) {
     this.instrumentation = instrumentation;
@@ -86,21 +101,48 @@ public final class InstrumentationModuleInstaller {
             instrumentation);
     VirtualFieldImplementationInstaller contextProvider =
         virtualFieldInstallerFactory.create(instrumentationModule);
+    LazyModuleActivation activation =
+        LAZY_MODULE_ACTIVATION
+            ? LazyModuleActivation.create(
+                instrumentationModule,
+                moduleClassLoaderMatcher,
+                instrumentation,
+                this::getLoadedClassNames)
+            : null;
 
     AgentBuilder agentBuilder = parentAgentBuilder;
     for (TypeInstrumentation typeInstrumentation : typeInstrumentations) {
+      ElementMatcher<TypeDescription> typeMatcher =
+          new LoggingFailSafeMatcher<>(
+              typeInstrumentation.typeMatcher(),
+              "Instrumentation type matcher unexpected exception: "
+                  + typeInstrumentation.typeMatcher());
+      ElementMatcher<ClassLoader> classLoaderMatcher =
+          new LoggingFailSafeMatcher<>(
+              moduleClassLoaderMatcher.and(typeInstrumentation.classLoaderOptimization()),
+              "Instrumentation class loader matcher unexpected exception: "
+                  + moduleClassLoaderMatcher.and(typeInstrumentation.classLoaderOptimization()));
+      AgentBuilder.Identified.Narrowable narrowable =
+          activation == null
+              ? agentBuilder.type(typeMatcher, classLoaderMatcher)
+              // checked first, so that a dormant module costs a single volatile read per class
+              : agentBuilder.type(activation).and(typeMatcher, classLoaderMatcher);
+      typeMatchers.add(
+          (typeDescription, classLoader, module, classBeingRedefined, protectionDomain) ->
+              (activation == null
+                      || activation.matches(
+                          typeDescription,
+                          classLoader,
+                          module,
+                          classBeingRedefined,
+                          protectionDomain))
+                  && classLoaderMatcher.matches(classLoader)
+                  && typeMatcher.matches(typeDescription)
+                  && NOT_DECORATOR_MATCHER.matches(typeDescription)
+                  && muzzleMatcher.matches(
+                      typeDescription, classLoader, module, classBeingRedefined, protectionDomain));
       AgentBuilder.Identified.Extendable extendableAgentBuilder =
-          agentBuilder
-              .type(
-                  new LoggingFailSafeMatcher<>(
-                      typeInstrumentation.typeMatcher(),
-                      "Instrumentation type matcher unexpected exception: "
-                          + typeInstrumentation.typeMatcher()),
-                  new LoggingFailSafeMatcher<>(
-                      moduleClassLoaderMatcher.and(typeInstrumentation.classLoaderOptimization()),
-                      "Instrumentation class loader matcher unexpected exception: "
-                          + moduleClassLoaderMatcher.and(
-                              typeInstrumentation.classLoaderOptimization())))
+          narrowable
               .and(NOT_DECORATOR_MATCHER)
               .and(muzzleMatcher)
               .transform(ConstantAdjuster.instance())
@@ -109,7 +151,7 @@ public final class InstrumentationModuleInstaller {
       TypeTransformerImpl typeTransformer = new TypeTransformerImpl(extendableAgentBuilder);
       typeInstrumentation.transform(typeTransformer);
       extendableAgentBuilder = typeTransformer.getAgentBuilder();
-      extendableAgentBuilder = contextProvider.injectFields(extendableAgentBuilder);
+      extendableAgentBuilder = contextProvider.injectFields(extendableAgentBuilder, typeMatchers);
 
       agentBuilder = extendableAgentBuilder;
     }
@@ -117,6 +159,24 @@ public final class InstrumentationModuleInstaller {
     return agentBuilder;
   }
 
+  /**
+   * Returns the matchers of all the installed type instrumentations and virtual field injections, a
+   * class that none of them matches is not transformed.
+   */
+  List<AgentBuilder.RawMatcher> getTypeMatchers() {
+    return typeMatchers;
+  }
+
+  private Set<String> getLoadedClassNames() {
+    if (loadedClassNames == null) {
+      loadedClassNames = new HashSet<>();
+      for (Class<?> clazz : instrumentation.getAllLoadedClasses()) {
+        loadedClassNames.add(clazz.getName());
+      }
+    }
+    return loadedClassNames;
+  }
+
   /**
    * A ByteBuddy matcher that decides whether this instrumentation should be applied. Calls
    * generated {@link ReferenceMatcher}: if any mismatch with the passed {@code classLoader} is
@@ -124,7 +184,6 @@ public final class InstrumentationModuleInstaller {
    */
   private static class MuzzleMatcher implements AgentBuilder.RawMatcher {
     private final InstrumentationModule instrumentationModule;
-    private final AtomicBoolean initialized = new AtomicBoolean(false);
     private final Cache<ClassLoader, Boolean> matchCache = Cache.builder().setWeakKeys().build();
     private volatile ReferenceMatcher referenceMatcher;
 
@@ -146,6 +205,13 @@ public final class InstrumentationModuleInstaller {
     }
 
     private boolean doesMatch(ClassLoader classLoader) {
+      if (muzzleVerdictCache != null) {
+        Boolean cachedMatch = muzzleVerdictCache.get(instrumentationModule, classLoader);
+        if (cachedMatch != null) {
+          return cachedMatch ? logMatch(classLoader) : logCachedMismatch(classLoader);
+        }
+      }
+
       ReferenceMatcher muzzle = getReferenceMatcher();
       boolean isMatch = muzzle.matches(classLoader);
 
@@ -163,25 +229,53 @@ public final class InstrumentationModuleInstaller {
           }
         }
       } else {
-        if (logger.isDebugEnabled()) {
-          logger.debug(
-              "Applying instrumentation: {} [class {}] on {}",
-              instrumentationModule.instrumentationName(),
-              instrumentationModule.getClass().getName(),
-              classLoader);
-        }
+        logMatch(classLoader);
       }
 
+      if (muzzleVerdictCache != null) {
+        muzzleVerdictCache.put(instrumentationModule, classLoader, isMatch);
+      }
       return isMatch;
     }
 
+    private boolean logMatch(ClassLoader classLoader) {
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            "Applying instrumentation: {} [class {}] on {}",
+            instrumentationModule.instrumentationName(),
+            instrumentationModule.getClass().getName(),
+            classLoader);
+      }
+      return true;
+    }
+
+    private boolean logCachedMismatch(ClassLoader classLoader) {
+      MuzzleFailureCounter.inc();
+      if (muzzleLogger.isWarnEnabled()) {
+        muzzleLogger.warn(
+            "Instrumentation skipped, mismatched references were found by a previous run: {}"
+                + " [class {}] on {}",
+            instrumentationModule.instrumentationName(),
+            instrumentationModule.getClass().getName(),
+            classLoader);
+      }
+      return false;
+    }
+
     // ReferenceMatcher is lazily created to avoid unnecessarily loading the muzzle references from
     // the module during the agent setup
     private ReferenceMatcher getReferenceMatcher() {
-      if (initialized.compareAndSet(false, true)) {
-        referenceMatcher = ReferenceMatcher.of(instrumentationModule);
+      ReferenceMatcher muzzle = referenceMatcher;
+      if (muzzle == null) {
+        synchronized (this) {
+          muzzle = referenceMatcher;
+          if (muzzle == null) {
+            muzzle = ReferenceMatcher.of(instrumentationModule);
+            referenceMatcher = muzzle;
+          }
+        }
       }
-      return referenceMatcher;
+      return muzzle;
     }
   }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
+import io.opentelemetry.javaagent.extension.matcher.ClassLoaderRequiringClassesMatcher;
+import io.opentelemetry.javaagent.tooling.AgentInstaller;
+import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.utility.JavaModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the type matchers of an instrumentation module dormant until one of the classes required by
+ * its {@link InstrumentationModule#classLoaderMatcher()} is loaded. When that happens the already
+ * loaded classes that the module instruments are retransformed, as some of them (e.g. subclasses of
+ * the required class) may have been loaded before the module was activated.
+ *
+ * <p>A module only stays dormant when its class loader matcher is (or starts with) {@code
+ * hasClassesNamed()}, as the required classes of other matchers are not known.
+ */
+final class LazyModuleActivation implements AgentBuilder.RawMatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(LazyModuleActivation.class);
+
+  // retransformation can't happen inside of the ClassFileTransformer that notices the class load
+  private static final ExecutorService retransformExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "lazy-module-activation");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final InstrumentationModule instrumentationModule;
+  private final ElementMatcher<ClassLoader> moduleClassLoaderMatcher;
+  private final Instrumentation instrumentation;
+  private final AtomicBoolean active = new AtomicBoolean();
+
+  private LazyModuleActivation(
+      InstrumentationModule instrumentationModule,
+      ElementMatcher<ClassLoader> moduleClassLoaderMatcher,
+      Instrumentation instrumentation) {
+    this.instrumentationModule = instrumentationModule;
+    this.moduleClassLoaderMatcher = moduleClassLoaderMatcher;
+    this.instrumentation = instrumentation;
+  }
+
+  /**
+   * Returns the activation of the module, which is already active if one of the classes that it
+   * requires is loaded, or {@code null} if the classes that the module requires are not known.
+   */
+  @Nullable
+  static LazyModuleActivation create(
+      InstrumentationModule instrumentationModule,
+      ElementMatcher<ClassLoader> moduleClassLoaderMatcher,
+      Instrumentation instrumentation,
+      Supplier<Set<String>> loadedClassNames) {
+    return create(
+        instrumentationModule,
+        moduleClassLoaderMatcher,
+        instrumentation,
+        loadedClassNames,
+        AgentInstaller::registerClassLoadCallback);
+  }
+
+  // visible for testing
+  @Nullable
+  static LazyModuleActivation create(
+      InstrumentationModule instrumentationModule,
+      ElementMatcher<ClassLoader> moduleClassLoaderMatcher,
+      Instrumentation instrumentation,
+      Supplier<Set<String>> loadedClassNames,
+      BiConsumer<String, Runnable> classLoadCallbackRegistry) {
+    if (!(moduleClassLoaderMatcher instanceof ClassLoaderRequiringClassesMatcher)) {
+      return null;
+    }
+    Set<String> requiredClassNames =
+        ((ClassLoaderRequiringClassesMatcher) moduleClassLoaderMatcher).requiredClassNames();
+    if (requiredClassNames.isEmpty()) {
+      return null;
+    }
+
+    LazyModuleActivation activation =
+        new LazyModuleActivation(instrumentationModule, moduleClassLoaderMatcher, instrumentation);
+    // registered before looking at the loaded classes, so that a required class is either among
+    // them or reported to the callback: by the transformer, or by the retransformation that
+    // installs it for classes loaded in between
+    for (String className : requiredClassNames) {
+      classLoadCallbackRegistry.accept(className, activation::activate);
+    }
+    for (String className : requiredClassNames) {
+      if (loadedClassNames.get().contains(className)) {
+        // the transformer isn't installed yet, installing it transforms the loaded classes
+        activation.active.set(true);
+        break;
+      }
+    }
+    return activation;
+  }
+
+  @Override
+  public boolean matches(
+      TypeDescription typeDescription,
+      ClassLoader classLoader,
+      JavaModule module,
+      Class<?> classBeingRedefined,
+      ProtectionDomain protectionDomain) {
+    return active.get();
+  }
+
+  private void activate() {
+    if (!active.compareAndSet(false, true)) {
+      return;
+    }
+    logger.debug("Activating instrumentation {}", instrumentationModule.instrumentationName());
+    retransformExecutor.execute(this::retransformLoadedClasses);
+  }
+
+  private void retransformLoadedClasses() {
+    List<TypeInstrumentation> typeInstrumentations = instrumentationModule.typeInstrumentations();
+    List<Class<?>> classes = new ArrayList<>();
+    for (Class<?> clazz : instrumentation.getAllLoadedClasses()) {
+      if (instrumentation.isModifiableClass(clazz) && isInstrumented(clazz, typeInstrumentations)) {
+        classes.add(clazz);
+      }
+    }
+    if (classes.isEmpty()) {
+      return;
+    }
+    try {
+      instrumentation.retransformClasses(classes.toArray(new Class<?>[0]));
+    } catch (Throwable t) {
+      logger.debug(
+          "Failed to retransform classes of instrumentation {}",
+          instrumentationModule.instrumentationName(),
+          t);
+    }
+  }
+
+  private boolean isInstrumented(Class<?> clazz, List<TypeInstrumentation> typeInstrumentations) {
+    try {
+      ClassLoader classLoader = clazz.getClassLoader();
+      if (classLoader == null || !moduleClassLoaderMatcher.matches(classLoader)) {
+        return false;
+      }
+      TypeDescription type = TypeDescription.ForLoadedType.of(clazz);
+      for (TypeInstrumentation typeInstrumentation : typeInstrumentations) {
+        if (typeInstrumentation.classLoaderOptimization().matches(classLoader)
+            && typeInstrumentation.typeMatcher().matches(type)) {
+          return true;
+        }
+      }
+    } catch (Throwable t) {
+      // same as the type matchers during transformation, a failing match is not a match
+    }
+    return false;
+  }
+}
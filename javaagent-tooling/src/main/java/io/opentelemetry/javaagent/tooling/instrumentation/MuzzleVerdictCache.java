@@ -0,0 +1,345 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.opentelemetry.instrumentation.api.InstrumentationVersion;
+import io.opentelemetry.instrumentation.api.caching.Cache;
+import io.opentelemetry.instrumentation.api.config.Config;
+import io.opentelemetry.javaagent.bootstrap.AgentClassLoader.BootstrapClassLoaderProxy;
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.instrumentation.api.internal.ClassLoaderMatcherCacheHolder;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the muzzle verdicts of the instrumentation modules on disk, so that a restarted application
+ * doesn't have to match the muzzle references of every module against its class loaders again.
+ *
+ * <p>The verdicts of a class loader are stored in one file, named after a fingerprint of the agent
+ * version, the JVM and the class path of the class loader and all of its parents: the URL, size and
+ * last modification time of each of their jars. Verdicts are only cached for class loaders whose
+ * class path is known, i.e. {@link URLClassLoader}s, the system and platform class loaders and the
+ * bootstrap class loader, and that only consists of jars: the classes in a directory can change
+ * without changing the size or modification time of the directory itself. The verdict of a module
+ * is also keyed by a fingerprint of the jar it was loaded from, which invalidates the verdicts of
+ * extension modules when the extension changes.
+ *
+ * <p>Several JVMs may share the cache directory: files are written to a temporary file which is
+ * then atomically moved in place, so readers never see a partially written file, and a writer
+ * merges its verdicts with the ones already written by other JVMs. A verdict that is lost when two
+ * JVMs write the same file at the same time is computed again on the next start.
+ */
+final class MuzzleVerdictCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(MuzzleVerdictCache.class);
+
+  private static final String FILE_PREFIX = "muzzle-";
+  // verdicts arrive one module at a time while classes load, write them in batches
+  private static final long FLUSH_DELAY_MILLIS = 1_000;
+
+  private final Path directory;
+  private final String jvmDescription;
+  private final Cache<ClassLoader, Verdicts> verdicts = Cache.builder().setWeakKeys().build();
+  private final ConcurrentMap<String, String> moduleFingerprints = new ConcurrentHashMap<>();
+  private final Queue<Verdicts> pendingWrites = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  @Nullable private final ScheduledExecutorService writer;
+
+  /**
+   * Returns the cache of the directory configured by {@code
+   * otel.javaagent.experimental.muzzle-cache.directory}, or {@code null} if the cache is disabled.
+   */
+  @Nullable
+  static MuzzleVerdictCache create(Config config) {
+    String directory = config.getString("otel.javaagent.experimental.muzzle-cache.directory");
+    if (directory == null || directory.isEmpty()) {
+      return null;
+    }
+    try {
+      Path path = Files.createDirectories(Paths.get(directory));
+      ScheduledExecutorService writer =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "muzzle-verdict-cache-writer");
+                thread.setDaemon(true);
+                return thread;
+              });
+      MuzzleVerdictCache cache = new MuzzleVerdictCache(path, writer);
+      // short lived applications exit before the first scheduled write
+      Runtime.getRuntime()
+          .addShutdownHook(new Thread(cache::flush, "muzzle-verdict-cache-shutdown"));
+      return cache;
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Unable to use the muzzle cache directory {}", directory, e);
+      return null;
+    }
+  }
+
+  // verdicts are only written by flush() when writer is null
+  MuzzleVerdictCache(Path directory, @Nullable ScheduledExecutorService writer) {
+    this.directory = directory;
+    this.writer = writer;
+    this.jvmDescription = describeJvm();
+    ClassLoaderMatcherCacheHolder.addCache(verdicts);
+  }
+
+  /**
+   * Returns the cached verdict of {@code instrumentationModule} for {@code classLoader}, or {@code
+   * null} if there is none.
+   */
+  @Nullable
+  Boolean get(InstrumentationModule instrumentationModule, ClassLoader classLoader) {
+    Verdicts classLoaderVerdicts = verdicts.computeIfAbsent(classLoader, this::load);
+    if (classLoaderVerdicts.file == null) {
+      return null;
+    }
+    String verdict = classLoaderVerdicts.entries.get(instrumentationModule.getClass().getName());
+    if (verdict == null) {
+      return null;
+    }
+    String prefix = moduleFingerprint(instrumentationModule) + ' ';
+    if (verdict.equals(prefix + true)) {
+      return Boolean.TRUE;
+    }
+    if (verdict.equals(prefix + false)) {
+      return Boolean.FALSE;
+    }
+    return null;
+  }
+
+  void put(InstrumentationModule instrumentationModule, ClassLoader classLoader, boolean matches) {
+    Verdicts classLoaderVerdicts = verdicts.computeIfAbsent(classLoader, this::load);
+    if (classLoaderVerdicts.file == null) {
+      return;
+    }
+    classLoaderVerdicts.entries.put(
+        instrumentationModule.getClass().getName(),
+        moduleFingerprint(instrumentationModule) + ' ' + matches);
+    if (classLoaderVerdicts.dirty.compareAndSet(false, true)) {
+      pendingWrites.add(classLoaderVerdicts);
+      if (writer != null && flushScheduled.compareAndSet(false, true)) {
+        writer.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /** Writes the verdicts that were added since the last write. */
+  void flush() {
+    flushScheduled.set(false);
+    Verdicts classLoaderVerdicts;
+    while ((classLoaderVerdicts = pendingWrites.poll()) != null) {
+      classLoaderVerdicts.dirty.set(false);
+      try {
+        write(classLoaderVerdicts);
+      } catch (IOException | RuntimeException e) {
+        logger.debug("Failed to write muzzle verdicts to {}", classLoaderVerdicts.file, e);
+      }
+    }
+  }
+
+  private Verdicts load(ClassLoader classLoader) {
+    StringBuilder description = new StringBuilder(jvmDescription);
+    for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+      if (!describeClassLoader(loader, description)) {
+        return new Verdicts(null);
+      }
+    }
+    Verdicts classLoaderVerdicts =
+        new Verdicts(directory.resolve(FILE_PREFIX + sha256(description) + ".properties"));
+    try {
+      read(classLoaderVerdicts.file, classLoaderVerdicts.entries);
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Failed to read muzzle verdicts from {}", classLoaderVerdicts.file, e);
+    }
+    return classLoaderVerdicts;
+  }
+
+  private void write(Verdicts classLoaderVerdicts) throws IOException {
+    Path file = classLoaderVerdicts.file;
+    // keep the verdicts written by other JVMs in the meantime
+    Map<String, String> entries = new ConcurrentHashMap<>();
+    try {
+      read(file, entries);
+    } catch (IOException | RuntimeException e) {
+      // overwrite the unreadable file
+    }
+    entries.putAll(classLoaderVerdicts.entries);
+    Properties properties = new Properties();
+    properties.putAll(entries);
+
+    Path tempFile = Files.createTempFile(directory, FILE_PREFIX, ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(tempFile)) {
+        properties.store(out, "muzzle verdicts of " + InstrumentationVersion.VERSION);
+      }
+      try {
+        Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static void read(Path file, Map<String, String> entries) throws IOException {
+    if (!Files.exists(file)) {
+      return;
+    }
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      properties.load(in);
+    }
+    for (String name : properties.stringPropertyNames()) {
+      entries.put(name, properties.getProperty(name));
+    }
+  }
+
+  private String moduleFingerprint(InstrumentationModule instrumentationModule) {
+    Class<?> moduleClass = instrumentationModule.getClass();
+    return moduleFingerprints.computeIfAbsent(
+        moduleClass.getName(),
+        unused -> {
+          StringBuilder description = new StringBuilder(moduleClass.getName()).append('\n');
+          CodeSource codeSource = moduleClass.getProtectionDomain().getCodeSource();
+          if (codeSource != null && codeSource.getLocation() != null) {
+            describeUrl(codeSource.getLocation(), description);
+          }
+          return sha256(description);
+        });
+  }
+
+  private static String describeJvm() {
+    StringBuilder description = new StringBuilder();
+    description.append(InstrumentationVersion.VERSION).append('\n');
+    for (String property :
+        new String[] {
+          "java.home",
+          "java.runtime.version",
+          "java.vm.version",
+          // the boot class path on java 8, and its -Xbootclasspath/a: on 9+
+          "sun.boot.class.path",
+          "jdk.boot.class.path.append"
+        }) {
+      description.append(property).append('=').append(System.getProperty(property)).append('\n');
+    }
+    return description.toString();
+  }
+
+  private static boolean describeClassLoader(ClassLoader classLoader, StringBuilder description) {
+    if (classLoader instanceof BootstrapClassLoaderProxy) {
+      // the bootstrap class path is part of the JVM description
+      return true;
+    }
+    description.append(classLoader.getClass().getName()).append('\n');
+    if (classLoader instanceof URLClassLoader) {
+      for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+        if (!describeUrl(url, description)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+    if (classLoader == systemClassLoader) {
+      for (String path : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+        if (!describeFile(path, new File(path), description)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    // the platform class loader of java 9+, whose classes are part of the JVM description
+    return classLoader == systemClassLoader.getParent();
+  }
+
+  private static boolean describeUrl(URL url, StringBuilder description) {
+    String path = url.toExternalForm();
+    // e.g. the nested jars of spring boot, jar:file:/app.jar!/BOOT-INF/lib/library.jar!/
+    if (path.startsWith("jar:")) {
+      int separator = path.indexOf("!/");
+      path = path.substring("jar:".length(), separator == -1 ? path.length() : separator);
+    }
+    if (!path.startsWith("file:")) {
+      return false;
+    }
+    try {
+      return describeFile(
+          url.toExternalForm(), Paths.get(new URL(path).toURI()).toFile(), description);
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  // returns false for directories, whose size and modification time don't cover their classes
+  private static boolean describeFile(String name, File file, StringBuilder description) {
+    if (file.isDirectory()) {
+      return false;
+    }
+    description
+        .append(name)
+        .append(' ')
+        .append(file.length())
+        .append(' ')
+        .append(file.lastModified())
+        .append('\n');
+    return true;
+  }
+
+  private static String sha256(CharSequence description) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(description.toString().getBytes(UTF_8));
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // every java platform implements SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // not holding the class loader, this is the value of a weak key cache
+  private static final class Verdicts {
+    // null when the class path of the class loader is unknown
+    @Nullable final Path file;
+    final ConcurrentMap<String, String> entries = new ConcurrentHashMap<>();
+    final AtomicBoolean dirty = new AtomicBoolean();
+
+    Verdicts(@Nullable Path file) {
+      this.file = file;
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.sampler;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Samples at most a number of spans per second for each route, so that a few high traffic routes
+ * (e.g. health checks or static assets) don't crowd out the traces of the other ones. The route is
+ * the {@code http.route} attribute of the span when it is known at span start, or its name.
+ *
+ * <p>Each route has its own token bucket, that holds up to one second of spans and is refilled
+ * continuously. A bucket is a single {@link AtomicLong}, so sampling is lock free. Once there are
+ * {@code maxRoutes} routes, the spans of the other routes share a bucket.
+ */
+public final class PerRouteRateLimitingSampler implements Sampler {
+
+  private static final SamplingResult SAMPLE = SamplingResult.recordAndSample();
+  private static final SamplingResult DROP = SamplingResult.drop();
+
+  private final double spansPerSecond;
+  private final int maxRoutes;
+  private final long nanosPerSpan;
+  private final long burstNanos;
+  private final LongSupplier nanoTime;
+  private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+  private final TokenBucket otherRoutes;
+
+  public PerRouteRateLimitingSampler(double spansPerSecond, int maxRoutes) {
+    this(spansPerSecond, maxRoutes, System::nanoTime);
+  }
+
+  // visible for testing
+  PerRouteRateLimitingSampler(double spansPerSecond, int maxRoutes, LongSupplier nanoTime) {
+    if (spansPerSecond <= 0) {
+      throw new IllegalArgumentException("spansPerSecond must be positive: " + spansPerSecond);
+    }
+    this.spansPerSecond = spansPerSecond;
+    this.maxRoutes = maxRoutes;
+    this.nanosPerSpan = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / spansPerSecond));
+    // a bucket holds a second of spans, and at least one
+    this.burstNanos = Math.max(TimeUnit.SECONDS.toNanos(1), nanosPerSpan);
+    this.nanoTime = nanoTime;
+    this.otherRoutes = new TokenBucket(nanoTime.getAsLong());
+  }
+
+  @Override
+  public SamplingResult shouldSample(
+      Context parentContext,
+      String traceId,
+      String name,
+      SpanKind spanKind,
+      Attributes attributes,
+      List<LinkData> parentLinks) {
+    String route = attributes.get(SemanticAttributes.HTTP_ROUTE);
+    if (route == null) {
+      route = name;
+    }
+    return getBucket(route).tryAcquire(nanoTime.getAsLong()) ? SAMPLE : DROP;
+  }
+
+  private TokenBucket getBucket(String route) {
+    TokenBucket bucket = buckets.get(route);
+    if (bucket != null) {
+      return bucket;
+    }
+    if (buckets.size() >= maxRoutes) {
+      return otherRoutes;
+    }
+    return buckets.computeIfAbsent(route, r -> new TokenBucket(nanoTime.getAsLong()));
+  }
+
+  @Override
+  public String getDescription() {
+    return "PerRouteRateLimitingSampler{" + spansPerSecond + "/s, maxRoutes=" + maxRoutes + "}";
+  }
+
+  @Override
+  public String toString() {
+    return getDescription();
+  }
+
+  /**
+   * A token bucket that stores the time at which it will be full again, instead of the number of
+   * tokens and the time of the last refill, so that acquiring a token is a single compare and set.
+   */
+  private final class TokenBucket {
+    private final AtomicLong fullAt;
+
+    private TokenBucket(long fullAt) {
+      this.fullAt = new AtomicLong(fullAt);
+    }
+
+    boolean tryAcquire(long now) {
+      while (true) {
+        long current = fullAt.get();
+        // a bucket that has been full for a while doesn't hold more than a burst
+        long next = Math.max(current, now) + nanosPerSpan;
+        if (next - now > burstNanos) {
+          return false;
+        }
+        if (fullAt.compareAndSet(current, next)) {
+          return true;
+        }
+      }
+    }
+  }
+}
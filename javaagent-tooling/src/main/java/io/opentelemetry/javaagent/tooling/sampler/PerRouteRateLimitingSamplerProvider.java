@@ -0,0 +1,40 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.sampler;
+
+import com.google.auto.service.AutoService;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.traces.ConfigurableSamplerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * Provides the {@link PerRouteRateLimitingSampler} with {@code
+ * otel.traces.sampler=parentbased_per_route_rate_limiting}. Spans with a parent follow the sampling
+ * decision of their parent; {@code otel.traces.sampler.arg} is the number of root spans per second
+ * sampled for each route.
+ */
+@AutoService(ConfigurableSamplerProvider.class)
+public class PerRouteRateLimitingSamplerProvider implements ConfigurableSamplerProvider {
+
+  private static final double DEFAULT_SPANS_PER_SECOND = 10;
+  private static final int DEFAULT_MAX_ROUTES = 1024;
+
+  @Override
+  public Sampler createSampler(ConfigProperties config) {
+    Double spansPerSecond = config.getDouble("otel.traces.sampler.arg");
+    Integer maxRoutes =
+        config.getInt("otel.javaagent.experimental.sampler.per-route-rate-limiting.max-routes");
+    return Sampler.parentBased(
+        new PerRouteRateLimitingSampler(
+            spansPerSecond == null ? DEFAULT_SPANS_PER_SECOND : spansPerSecond,
+            maxRoutes == null ? DEFAULT_MAX_ROUTES : maxRoutes));
+  }
+
+  @Override
+  public String getName() {
+    return "parentbased_per_route_rate_limiting";
+  }
+}
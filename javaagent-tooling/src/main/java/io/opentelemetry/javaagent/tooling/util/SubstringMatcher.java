@@ -0,0 +1,152 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds all the patterns occurring in a string in a single pass over it, using the Aho-Corasick
+ * algorithm. Each pattern is associated with bit flags, and {@link #match(CharSequence)} returns
+ * the union of the flags of all the patterns found.
+ */
+public final class SubstringMatcher {
+
+  private static final int ROOT = 0;
+
+  // outgoing edges of each state, sorted by char
+  private final char[][] chars;
+  private final int[][] targets;
+  private final int[] failure;
+  // flags of all the patterns ending in each state, including the ones reached through failure
+  private final int[] output;
+
+  private SubstringMatcher(char[][] chars, int[][] targets, int[] failure, int[] output) {
+    this.chars = chars;
+    this.targets = targets;
+    this.failure = failure;
+    this.output = output;
+  }
+
+  /** Start building a matcher. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the union of the flags of all the patterns that occur in {@code str}, or {@code 0} if
+   * none of them does.
+   */
+  public int match(CharSequence str) {
+    int flags = 0;
+    int state = ROOT;
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      int next = next(state, c);
+      while (next < 0 && state != ROOT) {
+        state = failure[state];
+        next = next(state, c);
+      }
+      state = next < 0 ? ROOT : next;
+      flags |= output[state];
+    }
+    return flags;
+  }
+
+  private int next(int state, char c) {
+    int index = Arrays.binarySearch(chars[state], c);
+    return index < 0 ? -1 : targets[state][index];
+  }
+
+  public static final class Builder {
+
+    private final List<Map<Character, Integer>> edges = new ArrayList<>();
+    private final List<Integer> flags = new ArrayList<>();
+
+    private Builder() {
+      newState();
+    }
+
+    /**
+     * Associate {@code flags} with the {@code pattern}; if the pattern was already added the flags
+     * are combined.
+     */
+    public Builder put(CharSequence pattern, int flags) {
+      if (pattern.length() == 0) {
+        throw new IllegalArgumentException("pattern must not be empty");
+      }
+      int state = ROOT;
+      for (int i = 0; i < pattern.length(); i++) {
+        Integer next = edges.get(state).get(pattern.charAt(i));
+        if (next == null) {
+          next = newState();
+          edges.get(state).put(pattern.charAt(i), next);
+        }
+        state = next;
+      }
+      this.flags.set(state, this.flags.get(state) | flags);
+      return this;
+    }
+
+    public SubstringMatcher build() {
+      int size = edges.size();
+      char[][] chars = new char[size][];
+      int[][] targets = new int[size][];
+      for (int state = 0; state < size; state++) {
+        Map<Character, Integer> stateEdges = edges.get(state);
+        chars[state] = new char[stateEdges.size()];
+        targets[state] = new int[stateEdges.size()];
+        int i = 0;
+        for (Character c : stateEdges.keySet().stream().sorted().toArray(Character[]::new)) {
+          chars[state][i] = c;
+          targets[state][i++] = stateEdges.get(c);
+        }
+      }
+
+      int[] failure = new int[size];
+      int[] output = new int[size];
+      // breadth first, so that the failure state is always computed before it is used
+      Queue<Integer> queue = new ArrayDeque<>();
+      for (int child : targets[ROOT]) {
+        output[child] = flags.get(child);
+        queue.add(child);
+      }
+      while (!queue.isEmpty()) {
+        int state = queue.remove();
+        for (int i = 0; i < chars[state].length; i++) {
+          char c = chars[state][i];
+          int child = targets[state][i];
+          int fallback = failure[state];
+          int fallbackNext = find(chars, targets, fallback, c);
+          while (fallbackNext < 0 && fallback != ROOT) {
+            fallback = failure[fallback];
+            fallbackNext = find(chars, targets, fallback, c);
+          }
+          failure[child] = fallbackNext < 0 ? ROOT : fallbackNext;
+          output[child] = flags.get(child) | output[failure[child]];
+          queue.add(child);
+        }
+      }
+      return new SubstringMatcher(chars, targets, failure, output);
+    }
+
+    private int newState() {
+      edges.add(new HashMap<>());
+      flags.add(0);
+      return edges.size() - 1;
+    }
+
+    private static int find(char[][] chars, int[][] targets, int state, char c) {
+      int index = Arrays.binarySearch(chars[state], c);
+      return index < 0 ? -1 : targets[state][index];
+    }
+  }
+}
@@ -56,6 +56,36 @@ class HelperInjectionTest extends Specification {
     null == ref.get()
   }
 
+  def "helpers injected in order into several classloaders"() {
+    setup:
+    String helperClassName = HelperInjectionTest.getPackage().getName() + '.HelperClass'
+    String helperSubclassName = HelperInjectionTest.getPackage().getName() + '.HelperSubclass'
+    HelperInjector injector = new HelperInjector("test", [helperClassName, helperSubclassName], [], this.class.classLoader, null)
+    // shares the helpers with the first injector, e.g. another instrumentation module
+    HelperInjector otherInjector = new HelperInjector("other", [helperClassName, helperSubclassName], [], this.class.classLoader, null)
+    URLClassLoader firstLoader = new URLClassLoader(new URL[0], (ClassLoader) null)
+    URLClassLoader secondLoader = new URLClassLoader(new URL[0], (ClassLoader) null)
+
+    when:
+    otherInjector.transform(null, null, secondLoader, null)
+    injector.transform(null, null, firstLoader, null)
+    injector.transform(null, null, secondLoader, null)
+    Class<?> firstSubclass = firstLoader.loadClass(helperSubclassName)
+    Class<?> secondSubclass = secondLoader.loadClass(helperSubclassName)
+
+    then:
+    firstSubclass.getClassLoader() == firstLoader
+    firstSubclass.getSuperclass() == firstLoader.loadClass(helperClassName)
+    secondSubclass.getClassLoader() == secondLoader
+    secondSubclass.getSuperclass() == secondLoader.loadClass(helperClassName)
+    HelperInjector.isInjectedClass(firstSubclass)
+    HelperInjector.isInjectedClass(secondSubclass)
+
+    cleanup:
+    firstLoader.close()
+    secondLoader.close()
+  }
+
   def "helpers injected on bootstrap classloader"() {
     setup:
     ByteBuddyAgent.install()
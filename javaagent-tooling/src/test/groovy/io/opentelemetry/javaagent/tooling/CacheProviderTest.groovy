@@ -7,106 +7,41 @@ package io.opentelemetry.javaagent.tooling
 
 import io.opentelemetry.javaagent.tooling.muzzle.AgentCachingPoolStrategy
 import net.bytebuddy.description.type.TypeDescription
-import net.bytebuddy.dynamic.ClassFileLocator
 import net.bytebuddy.pool.TypePool
 import spock.lang.Specification
 
-import java.lang.ref.WeakReference
+import java.util.function.LongSupplier
 
 class CacheProviderTest extends Specification {
-  def "key bootstrap equivalence"() {
-    // def loader = null
-    def loaderHash = AgentCachingPoolStrategy.BOOTSTRAP_HASH
-    def loaderRef = null
 
-    def key1 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-    def key2 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-
-    expect:
-    key1.hashCode() == key2.hashCode()
-    key1.equals(key2)
-  }
-
-  def "key same ref equivalence"() {
-    setup:
-    def loader = newClassLoader()
-    def loaderHash = loader.hashCode()
-    def loaderRef = new WeakReference<ClassLoader>(loader)
-
-    def key1 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-    def key2 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-
-    expect:
-    key1.hashCode() == key2.hashCode()
-    key1.equals(key2)
-  }
-
-  def "key different ref equivalence"() {
+  def "test basic caching"() {
     setup:
-    def loader = newClassLoader()
-    def loaderHash = loader.hashCode()
-    def loaderRef1 = new WeakReference<ClassLoader>(loader)
-    def loaderRef2 = new WeakReference<ClassLoader>(loader)
-
-    def key1 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef1, "foo")
-    def key2 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef2, "foo")
-
-    expect:
-    loaderRef1 != loaderRef2
-
-    key1.hashCode() == key2.hashCode()
-    key1.equals(key2)
-  }
+    def poolStrat = new AgentCachingPoolStrategy()
 
-  def "key mismatch -- same loader - diff name"() {
-    setup:
     def loader = newClassLoader()
-    def loaderHash = loader.hashCode()
-    def loaderRef = new WeakReference<ClassLoader>(loader)
-    def fooKey = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-    def barKey = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "bar")
-
-    expect:
-    // not strictly guaranteed -- but important for performance
-    fooKey.hashCode() != barKey.hashCode()
-    !fooKey.equals(barKey)
-  }
-
-  def "key mismatch -- same name - diff loader"() {
-    setup:
-    def loader1 = newClassLoader()
-    def loader1Hash = loader1.hashCode()
-    def loaderRef1 = new WeakReference<ClassLoader>(loader1)
 
-    def loader2 = newClassLoader()
-    def loader2Hash = loader2.hashCode()
-    def loaderRef2 = new WeakReference<ClassLoader>(loader2)
+    def cacheProvider = poolStrat.createCacheProvider(loader)
 
-    def fooKey1 = new AgentCachingPoolStrategy.TypeCacheKey(loader1Hash, loaderRef1, "foo")
-    def fooKey2 = new AgentCachingPoolStrategy.TypeCacheKey(loader2Hash, loaderRef2, "foo")
+    when:
+    cacheProvider.register("foo", new TypePool.Resolution.Simple(TypeDescription.VOID))
 
-    expect:
-    // not strictly guaranteed -- but important for performance
-    fooKey1.hashCode() != fooKey2.hashCode()
-    !fooKey1.equals(fooKey2)
+    then:
+    // not strictly guaranteed, but fine for this test
+    cacheProvider.find("foo") != null
   }
 
-  def "test basic caching"() {
+  def "test bootstrap caching"() {
     setup:
     def poolStrat = new AgentCachingPoolStrategy()
 
-    def loader = newClassLoader()
-    def loaderHash = loader.hashCode()
-    def loaderRef = new WeakReference<ClassLoader>(loader)
-
-    def cacheProvider = poolStrat.createCacheProvider(loaderHash, loaderRef)
+    def cacheProvider = poolStrat.createCacheProvider(null)
 
     when:
-    cacheProvider.register("foo", new TypePool.Resolution.Simple(TypeDescription.VOID))
+    cacheProvider.register("foo", newVoid())
 
     then:
-    // not strictly guaranteed, but fine for this test
-    cacheProvider.find("foo") != null
+    poolStrat.createCacheProvider(null).find("foo") != null
+    poolStrat.createCacheProvider(newClassLoader()).find("foo") == null
   }
 
   def "test loader equivalence"() {
@@ -114,12 +49,9 @@ class CacheProviderTest extends Specification {
     def poolStrat = new AgentCachingPoolStrategy()
 
     def loader1 = newClassLoader()
-    def loaderHash1 = loader1.hashCode()
-    def loaderRef1A = new WeakReference<ClassLoader>(loader1)
-    def loaderRef1B = new WeakReference<ClassLoader>(loader1)
 
-    def cacheProvider1A = poolStrat.createCacheProvider(loaderHash1, loaderRef1A)
-    def cacheProvider1B = poolStrat.createCacheProvider(loaderHash1, loaderRef1B)
+    def cacheProvider1A = poolStrat.createCacheProvider(loader1)
+    def cacheProvider1B = poolStrat.createCacheProvider(loader1)
 
     when:
     cacheProvider1A.register("foo", newVoid())
@@ -137,15 +69,10 @@ class CacheProviderTest extends Specification {
     def poolStrat = new AgentCachingPoolStrategy()
 
     def loader1 = newClassLoader()
-    def loaderHash1 = loader1.hashCode()
-    def loaderRef1 = new WeakReference<ClassLoader>(loader1)
-
     def loader2 = newClassLoader()
-    def loaderHash2 = loader2.hashCode()
-    def loaderRef2 = new WeakReference<ClassLoader>(loader2)
 
-    def cacheProvider1 = poolStrat.createCacheProvider(loaderHash1, loaderRef1)
-    def cacheProvider2 = poolStrat.createCacheProvider(loaderHash2, loaderRef2)
+    def cacheProvider1 = poolStrat.createCacheProvider(loader1)
+    def cacheProvider2 = poolStrat.createCacheProvider(loader2)
 
     when:
     cacheProvider1.register("foo", newVoid())
@@ -159,6 +86,137 @@ class CacheProviderTest extends Specification {
     !cacheProvider1.find("foo").is(cacheProvider2.find("foo"))
   }
 
+  def "test capacity shrinks after bursts"() {
+    setup:
+    def clock = new TestClock()
+    def poolStrat = new AgentCachingPoolStrategy(clock)
+    def cacheProvider = poolStrat.createCacheProvider(newClassLoader())
+
+    when:
+    (0..<1000).each { cacheProvider.register("type" + it, newVoid()) }
+
+    then:
+    cacheProvider.capacity.get() == AgentCachingPoolStrategy.BURST_TYPE_CAPACITY
+    cacheProvider.inBurst()
+    // the types resolved once the burst was detected are all kept
+    (AgentCachingPoolStrategy.BURST_RESOLUTIONS..<1000).every { cacheProvider.find("type" + it) != null }
+
+    when:
+    // the first of the elapsed windows was the burst
+    clock.nanos += (AgentCachingPoolStrategy.BURST_QUIET_WINDOWS + 1) * AgentCachingPoolStrategy.WINDOW_NANOS
+    cacheProvider.register("foo", newVoid())
+
+    then:
+    cacheProvider.capacity.get() == AgentCachingPoolStrategy.TYPE_CAPACITY
+    !cacheProvider.inBurst()
+    found(cacheProvider, 1000) <= AgentCachingPoolStrategy.TYPE_CAPACITY
+  }
+
+  def "test burst lasts until quiet windows"() {
+    setup:
+    def clock = new TestClock()
+    def poolStrat = new AgentCachingPoolStrategy(clock)
+    def cacheProvider = poolStrat.createCacheProvider(newClassLoader())
+
+    when:
+    (0..<1000).each { cacheProvider.register("type" + it, newVoid()) }
+    clock.nanos += AgentCachingPoolStrategy.BURST_QUIET_WINDOWS * AgentCachingPoolStrategy.WINDOW_NANOS
+    cacheProvider.find("type999")
+
+    then:
+    // the first of the elapsed windows was the burst
+    cacheProvider.inBurst()
+
+    when:
+    clock.nanos += AgentCachingPoolStrategy.WINDOW_NANOS
+    cacheProvider.find("type999")
+
+    then:
+    !cacheProvider.inBurst()
+  }
+
+  def "test capacity grows on burst"() {
+    setup:
+    def clock = new TestClock()
+    def poolStrat = new AgentCachingPoolStrategy(clock)
+    def cacheProvider = poolStrat.createCacheProvider(newClassLoader())
+
+    expect:
+    cacheProvider.capacity.get() == AgentCachingPoolStrategy.TYPE_CAPACITY
+
+    when:
+    (0..<AgentCachingPoolStrategy.BURST_RESOLUTIONS).each {
+      cacheProvider.register("type" + it, newVoid())
+    }
+
+    then:
+    cacheProvider.capacity.get() == AgentCachingPoolStrategy.BURST_TYPE_CAPACITY
+
+    when:
+    (0..<1000).each { cacheProvider.register("other" + it, newVoid()) }
+
+    then:
+    (0..<1000).every { cacheProvider.find("other" + it) != null }
+  }
+
+  def "test shrinking partition of other loader"() {
+    setup:
+    def clock = new TestClock()
+    def poolStrat = new AgentCachingPoolStrategy(clock)
+    def idleProvider = poolStrat.createCacheProvider(newClassLoader())
+    def activeProvider = poolStrat.createCacheProvider(newClassLoader())
+
+    when:
+    (0..<1000).each { idleProvider.register("type" + it, newVoid()) }
+    clock.nanos += 10 * AgentCachingPoolStrategy.WINDOW_NANOS
+    activeProvider.register("foo", newVoid())
+
+    then:
+    !idleProvider.inBurst()
+    found(idleProvider, 1000) <= AgentCachingPoolStrategy.TYPE_CAPACITY
+  }
+
+  def "test partitions start at steady state capacity"() {
+    setup:
+    def clock = new TestClock()
+    def poolStrat = new AgentCachingPoolStrategy(clock)
+    def cacheProvider = poolStrat.createCacheProvider(newClassLoader())
+
+    when:
+    (0..<AgentCachingPoolStrategy.BURST_RESOLUTIONS - 1).each {
+      cacheProvider.register("type" + it, newVoid())
+    }
+
+    then:
+    cacheProvider.capacity.get() == AgentCachingPoolStrategy.TYPE_CAPACITY
+    !cacheProvider.inBurst()
+    found(cacheProvider, AgentCachingPoolStrategy.BURST_RESOLUTIONS - 1) <= AgentCachingPoolStrategy.TYPE_CAPACITY
+  }
+
+  def "test burst only grows partition of bursting loader"() {
+    setup:
+    def clock = new TestClock()
+    def poolStrat = new AgentCachingPoolStrategy(clock)
+    def burstingProvider = poolStrat.createCacheProvider(newClassLoader())
+    def otherProvider = poolStrat.createCacheProvider(newClassLoader())
+
+    when:
+    (0..<1000).each { burstingProvider.register("type" + it, newVoid()) }
+    (0..<100).each { otherProvider.register("type" + it, newVoid()) }
+
+    then:
+    burstingProvider.capacity.get() == AgentCachingPoolStrategy.BURST_TYPE_CAPACITY
+    burstingProvider.inBurst()
+    otherProvider.capacity.get() == AgentCachingPoolStrategy.TYPE_CAPACITY
+    !otherProvider.inBurst()
+    found(otherProvider, 100) <= AgentCachingPoolStrategy.TYPE_CAPACITY
+  }
+
+  // the number of types type0 to type<count - 1> that are still cached
+  static found(cacheProvider, int count) {
+    return (0..<count).count { cacheProvider.find("type" + it) != null }
+  }
+
   static newVoid() {
     return new TypePool.Resolution.Simple(TypeDescription.VOID)
   }
@@ -167,16 +225,12 @@ class CacheProviderTest extends Specification {
     return new URLClassLoader([] as URL[], (ClassLoader) null)
   }
 
-  static newLocator() {
-    return new ClassFileLocator() {
-      @Override
-      ClassFileLocator.Resolution locate(String name) throws IOException {
-        return null
-      }
+  static class TestClock implements LongSupplier {
+    long nanos
 
-      @Override
-      void close() throws IOException {
-      }
+    @Override
+    long getAsLong() {
+      return nanos
     }
   }
 }
@@ -8,6 +8,7 @@ package io.opentelemetry.javaagent.tooling
 import io.opentelemetry.api.GlobalOpenTelemetry
 import io.opentelemetry.extension.noopapi.NoopOpenTelemetry
 import io.opentelemetry.instrumentation.api.config.Config
+import java.util.concurrent.CompletableFuture
 import spock.lang.Specification
 
 class OpenTelemetryInstallerTest extends Specification {
@@ -58,4 +59,29 @@ class OpenTelemetryInstallerTest extends Specification {
     GlobalOpenTelemetry.getTracerProvider() != NoopOpenTelemetry.getInstance().getTracerProvider()
   }
 
+  def "should run the actions once the SDK is initialized in the background"() {
+    given:
+    def sdkFuture = new CompletableFuture()
+    def threads = []
+
+    when:
+    OpenTelemetryInstaller.whenComplete(sdkFuture) { threads.add(Thread.currentThread()) }
+
+    then:
+    threads.isEmpty()
+
+    when:
+    def initializer = new Thread({ sdkFuture.complete(null) })
+    initializer.start()
+    initializer.join()
+
+    then:
+    threads == [initializer]
+
+    when:
+    OpenTelemetryInstaller.whenComplete(sdkFuture) { threads.add(Thread.currentThread()) }
+
+    then:
+    threads == [initializer, Thread.currentThread()]
+  }
 }
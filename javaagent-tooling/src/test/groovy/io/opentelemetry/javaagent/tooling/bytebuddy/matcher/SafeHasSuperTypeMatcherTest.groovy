@@ -16,7 +16,9 @@ import net.bytebuddy.description.type.TypeList
 import spock.lang.Shared
 import spock.lang.Specification
 
+import static io.opentelemetry.javaagent.extension.matcher.AgentElementMatchers.extendsClass
 import static io.opentelemetry.javaagent.extension.matcher.AgentElementMatchers.hasSuperType
+import static io.opentelemetry.javaagent.extension.matcher.AgentElementMatchers.implementsInterface
 import static net.bytebuddy.matcher.ElementMatchers.named
 
 class SafeHasSuperTypeMatcherTest extends Specification {
@@ -86,4 +88,28 @@ class SafeHasSuperTypeMatcherTest extends Specification {
     1 * typeGeneric.asErasure() >> { throw new Exception("asErasure exception") }
     1 * typeGeneric.getTypeName() >> "typeGeneric-name"
   }
+
+  def "test type hierarchy is walked once for all matchers"() {
+    setup:
+    def type = Mock(TypeDescription)
+    def typeGeneric = Mock(TypeDescription.Generic)
+    def matchers = [
+      hasSuperType(named(A.name)),
+      hasSuperType(named(B.name)),
+      implementsInterface(named(F.name)),
+      extendsClass(named(G.name))
+    ]
+
+    when:
+    def results = matchers.collect { it.matches(type) }
+
+    then:
+    results == [false, false, false, false]
+    _ * type.asGenericType() >> typeGeneric
+    _ * typeGeneric.asErasure() >> type
+    _ * type.getActualName() >> "type-name"
+    _ * type.getModifiers() >> 0
+    1 * type.getInterfaces() >> new TypeList.Generic.Empty()
+    1 * type.getSuperClass() >> null
+  }
 }
@@ -0,0 +1,9 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.test;
+
+/** Used by {@link HelperInjectionTest}. */
+class HelperSubclass extends HelperClass {}
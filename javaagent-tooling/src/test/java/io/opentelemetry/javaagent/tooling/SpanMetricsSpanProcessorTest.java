@@ -0,0 +1,212 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.instrumentation.api.config.Config;
+import io.opentelemetry.javaagent.tooling.config.ConfigPropertiesAdapter;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.DoubleHistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.testing.InMemoryMetricReader;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class SpanMetricsSpanProcessorTest {
+
+  private static final long START_MILLIS = 1_000_000;
+
+  private final InMemoryMetricReader metricReader = new InMemoryMetricReader();
+  private final InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+
+  @Test
+  void aggregatesServerAndClientSpans() {
+    Tracer tracer = tracer(Sampler.alwaysOn(), 10);
+
+    endSpan(tracer, SpanKind.SERVER, "/orders/{id}", 20, StatusCode.UNSET);
+    endSpan(tracer, SpanKind.SERVER, "/orders/{id}", 200, StatusCode.ERROR);
+    endSpan(tracer, SpanKind.SERVER, "/health", 1, StatusCode.UNSET);
+    endSpan(tracer, SpanKind.CLIENT, null, 7, StatusCode.UNSET);
+    endSpan(tracer, SpanKind.INTERNAL, null, 7, StatusCode.UNSET);
+
+    Collection<MetricData> metrics = metricReader.collectAllMetrics();
+
+    Map<String, DoubleHistogramPointData> serverDurations =
+        histograms(metrics, "span.server.duration");
+    assertThat(serverDurations).containsOnlyKeys("/orders/{id}", "/health");
+    DoubleHistogramPointData orders = serverDurations.get("/orders/{id}");
+    assertThat(orders.getCount()).isEqualTo(2);
+    assertThat(orders.getSum()).isEqualTo(220);
+    assertThat(countUnder(orders, 10)).isEqualTo(0);
+    assertThat(countUnder(orders, 25)).isEqualTo(1);
+    assertThat(countUnder(orders, 250)).isEqualTo(2);
+    assertThat(longSums(metrics, "span.server.errors")).containsOnly(entry("/orders/{id}", 1L));
+
+    DoubleHistogramPointData client = histograms(metrics, "span.client.duration").get("null");
+    assertThat(client.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void aggregatesOperationsOverMaxWithoutAttributes() {
+    Tracer tracer = tracer(Sampler.alwaysOn(), 2);
+
+    endSpan(tracer, SpanKind.SERVER, "/first", 1, StatusCode.UNSET);
+    endSpan(tracer, SpanKind.SERVER, "/second", 1, StatusCode.UNSET);
+    endSpan(tracer, SpanKind.SERVER, "/third", 1, StatusCode.UNSET);
+    endSpan(tracer, SpanKind.SERVER, "/fourth", 1, StatusCode.UNSET);
+
+    Map<String, Long> counts = new HashMap<>();
+    histograms(metricReader.collectAllMetrics(), "span.server.duration")
+        .forEach((route, point) -> counts.put(route, point.getCount()));
+    assertThat(counts).containsOnly(entry("/first", 1L), entry("/second", 1L), entry("null", 2L));
+  }
+
+  @Test
+  void aggregatesTheSpansThatAreNotSampled() {
+    Tracer tracer = tracer(new SpanMetricsSampler(Sampler.alwaysOff()), 10);
+
+    for (int i = 0; i < 100; i++) {
+      endSpan(tracer, SpanKind.SERVER, "/orders/{id}", 20, StatusCode.UNSET);
+      endSpan(tracer, SpanKind.CLIENT, null, 5, StatusCode.ERROR);
+    }
+    Span internal = tracer.spanBuilder("internal").startSpan();
+    internal.end();
+
+    Collection<MetricData> metrics = metricReader.collectAllMetrics();
+    assertThat(histograms(metrics, "span.server.duration").get("/orders/{id}").getCount())
+        .isEqualTo(100);
+    assertThat(histograms(metrics, "span.client.duration").get("null").getCount()).isEqualTo(100);
+    assertThat(longSums(metrics, "span.client.errors")).containsOnly(entry("null", 100L));
+    // the spans are only recorded for the metrics, they are neither exported nor propagated
+    assertThat(spanExporter.getFinishedSpanItems()).isEmpty();
+    assertThat(internal.isRecording()).isFalse();
+  }
+
+  @Test
+  void aggregatesAllSpansWithRatioSampler() {
+    Tracer tracer = tracer(new SpanMetricsSampler(Sampler.traceIdRatioBased(0.01)), 10);
+
+    for (int i = 0; i < 1000; i++) {
+      Span span =
+          tracer
+              .spanBuilder("GET")
+              .setSpanKind(SpanKind.SERVER)
+              .setAttribute(SemanticAttributes.HTTP_ROUTE, "/orders/{id}")
+              .startSpan();
+      assertThat(span.isRecording()).isTrue();
+      span.end();
+    }
+
+    assertThat(
+            histograms(metricReader.collectAllMetrics(), "span.server.duration")
+                .get("/orders/{id}")
+                .getCount())
+        .isEqualTo(1000);
+    assertThat(spanExporter.getFinishedSpanItems().size()).isLessThan(100);
+  }
+
+  @Test
+  void wrapsTheConfiguredSampler() {
+    Sampler sampler =
+        AgentTracerProviderConfigurer.configuredSampler(
+            new ConfigPropertiesAdapter(
+                Config.builder()
+                    .readProperties(Collections.singletonMap("otel.traces.sampler", "always_off"))
+                    .build()));
+
+    assertThat(sampler).isEqualTo(Sampler.alwaysOff());
+    assertThat(
+            AgentTracerProviderConfigurer.configuredSampler(
+                    new ConfigPropertiesAdapter(Config.builder().build()))
+                .getDescription())
+        .isEqualTo(Sampler.parentBased(Sampler.alwaysOn()).getDescription());
+  }
+
+  private Tracer tracer(Sampler sampler, int maxOperations) {
+    SdkMeterProvider meterProvider =
+        SdkMeterProvider.builder().registerMetricReader(metricReader).build();
+    return SdkTracerProvider.builder()
+        .setSampler(sampler)
+        .addSpanProcessor(new SpanMetricsSpanProcessor(meterProvider.get("test"), maxOperations))
+        .addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+        .build()
+        .get("test");
+  }
+
+  private static void endSpan(
+      Tracer tracer, SpanKind kind, String route, long durationMillis, StatusCode status) {
+    Span span =
+        tracer
+            .spanBuilder("span")
+            .setSpanKind(kind)
+            .setStartTimestamp(START_MILLIS, TimeUnit.MILLISECONDS)
+            .startSpan();
+    if (route != null) {
+      span.setAttribute(SemanticAttributes.HTTP_ROUTE, route);
+    }
+    span.setStatus(status);
+    span.end(START_MILLIS + durationMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private static long countUnder(DoubleHistogramPointData point, double bound) {
+    long count = 0;
+    for (int i = 0; i < point.getBoundaries().size(); i++) {
+      if (point.getBoundaries().get(i) > bound) {
+        break;
+      }
+      count += point.getCounts().get(i);
+    }
+    return count;
+  }
+
+  // by route
+  private static Map<String, DoubleHistogramPointData> histograms(
+      Collection<MetricData> metrics, String name) {
+    Map<String, DoubleHistogramPointData> points = new HashMap<>();
+    for (DoubleHistogramPointData point :
+        findMetric(metrics, name).getDoubleHistogramData().getPoints()) {
+      points.put(route(point.getAttributes()), point);
+    }
+    return points;
+  }
+
+  // by route
+  private static Map<String, Long> longSums(Collection<MetricData> metrics, String name) {
+    Map<String, Long> sums = new HashMap<>();
+    for (LongPointData point : findMetric(metrics, name).getLongSumData().getPoints()) {
+      sums.put(route(point.getAttributes()), point.getValue());
+    }
+    return sums;
+  }
+
+  private static String route(Attributes attributes) {
+    return String.valueOf(attributes.get(SemanticAttributes.HTTP_ROUTE));
+  }
+
+  private static MetricData findMetric(Collection<MetricData> metrics, String name) {
+    return metrics.stream()
+        .filter(metric -> metric.getName().equals(name))
+        .findFirst()
+        .orElseThrow(() -> new AssertionError("No metric " + name));
+  }
+}
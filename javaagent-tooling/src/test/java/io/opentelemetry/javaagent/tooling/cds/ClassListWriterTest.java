@@ -0,0 +1,145 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.cds;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.javaagent.bootstrap.AgentClassLoader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.implementation.StubMethod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClassListWriterTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void listsAgentClassesWithTheirSuperTypesAndSource() throws Exception {
+    Map<String, byte[]> classes = new HashMap<>();
+    classes.put(
+        "test.Service", new ByteBuddy().makeInterface().name("test.Service").make().getBytes());
+    classes.put(
+        "test.Base",
+        new ByteBuddy()
+            .subclass(Object.class)
+            .name("test.Base")
+            .modifiers(Visibility.PUBLIC)
+            .make()
+            .getBytes());
+    File agentJar = createAgentJar(classes);
+    AgentClassLoader agentClassLoader = new AgentClassLoader(agentJar, "inst", null);
+    Class<?> service = agentClassLoader.loadClass("test.Service");
+    Class<?> base = agentClassLoader.loadClass("test.Base");
+
+    Instrumentation inst = mock(Instrumentation.class);
+    when(inst.getAllLoadedClasses())
+        .thenReturn(new Class<?>[] {base, String.class, service, int[].class, int.class});
+    new ClassListWriter(inst, directory).write();
+
+    Path classesJar = directory.resolve(ClassListWriter.CLASSES_JAR_FILE).toAbsolutePath();
+    List<String> lines = Files.readAllLines(directory.resolve(ClassListWriter.CLASS_LIST_FILE));
+    assertThat(lines)
+        .containsExactly(
+            "java/lang/Object id: 0",
+            "test/Base id: 1 super: 0 source: " + classesJar,
+            "java/lang/String id: 2",
+            "test/Service id: 3 super: 0 source: " + classesJar);
+
+    // the JVM matches the bytes that the agent class loader defines with the archived classes
+    try (JarFile jar = new JarFile(classesJar.toFile())) {
+      assertThat(read(jar, "test/Base.class")).isEqualTo(classes.get("test.Base"));
+      assertThat(read(jar, "test/Service.class")).isEqualTo(classes.get("test.Service"));
+      assertThat(jar.size()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void listsInterfacesOfAgentClasses() throws Exception {
+    Map<String, byte[]> classes = new HashMap<>();
+    classes.put(
+        "test.Task",
+        new ByteBuddy()
+            .subclass(Object.class)
+            .implement(Runnable.class)
+            .name("test.Task")
+            .defineMethod("run", void.class, Visibility.PUBLIC)
+            .intercept(StubMethod.INSTANCE)
+            .make()
+            .getBytes());
+    AgentClassLoader agentClassLoader = new AgentClassLoader(createAgentJar(classes), "inst", null);
+    Class<?> task = agentClassLoader.loadClass("test.Task");
+
+    Instrumentation inst = mock(Instrumentation.class);
+    when(inst.getAllLoadedClasses()).thenReturn(new Class<?>[] {task});
+    new ClassListWriter(inst, directory).write();
+
+    Path classesJar = directory.resolve(ClassListWriter.CLASSES_JAR_FILE).toAbsolutePath();
+    assertThat(Files.readAllLines(directory.resolve(ClassListWriter.CLASS_LIST_FILE)))
+        .containsExactly(
+            "java/lang/Object id: 0",
+            "java/lang/Runnable id: 1",
+            "test/Task id: 2 super: 0 interfaces: 1 source: " + classesJar);
+  }
+
+  @Test
+  void skipsClassesOfOtherClassLoaders() throws IOException {
+    Class<?> generated =
+        new ByteBuddy()
+            .subclass(Object.class)
+            .name("test.Generated")
+            .make()
+            .load(new ClassLoader(null) {})
+            .getLoaded();
+
+    Instrumentation inst = mock(Instrumentation.class);
+    when(inst.getAllLoadedClasses()).thenReturn(new Class<?>[] {generated});
+    new ClassListWriter(inst, directory).write();
+
+    assertThat(Files.readAllLines(directory.resolve(ClassListWriter.CLASS_LIST_FILE))).isEmpty();
+  }
+
+  // the classes of the agent class loader are stored as .classdata entries under inst/
+  private File createAgentJar(Map<String, byte[]> classes) throws IOException {
+    File agentJar = directory.resolve("agent.jar").toFile();
+    try (JarOutputStream jar =
+        new JarOutputStream(Files.newOutputStream(agentJar.toPath()), new Manifest())) {
+      for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+        jar.putNextEntry(new ZipEntry("inst/" + entry.getKey().replace('.', '/') + ".classdata"));
+        jar.write(entry.getValue());
+        jar.closeEntry();
+      }
+    }
+    return agentJar;
+  }
+
+  private static byte[] read(JarFile jar, String name) throws IOException {
+    try (InputStream in = jar.getInputStream(jar.getEntry(name))) {
+      byte[] bytes = new byte[(int) jar.getEntry(name).getSize()];
+      int offset = 0;
+      while (offset < bytes.length) {
+        offset += in.read(bytes, offset, bytes.length - offset);
+      }
+      return bytes;
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.deferred;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.instrumentation.api.internal.EpochNanos;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeferredOpenTelemetryTest {
+
+  static {
+    // the noop api on the class path provides a context storage too, like the agent selects
+    System.setProperty("io.opentelemetry.context.contextStorageProvider", "default");
+  }
+
+  private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+  private OpenTelemetrySdk sdk;
+
+  @BeforeEach
+  void setUp() {
+    sdk =
+        OpenTelemetrySdk.builder()
+            .setTracerProvider(
+                SdkTracerProvider.builder()
+                    .setIdGenerator(HandoverIdGenerator.getInstance())
+                    .setSampler(new HandoverSampler(Sampler.parentBased(Sampler.alwaysOn())))
+                    .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                    .build())
+            .build();
+  }
+
+  @Test
+  void handsEndedSpansOverWithTheirIdsAndTimestamps() {
+    DeferredOpenTelemetry openTelemetry =
+        new DeferredOpenTelemetry(10, Sampler.parentBased(Sampler.alwaysOn()));
+    Tracer tracer = openTelemetry.getTracerProvider().get("test", "1.0");
+
+    Span parent =
+        tracer
+            .spanBuilder("parent")
+            .setSpanKind(SpanKind.SERVER)
+            .setAttribute("key", "value")
+            .startSpan();
+    Span child;
+    try (Scope ignored = parent.makeCurrent()) {
+      child = tracer.spanBuilder("child").startSpan();
+      child.addEvent("event");
+      child.recordException(new IllegalStateException("failure"));
+      child.end();
+    }
+    parent.end(EpochNanos.now(), TimeUnit.NANOSECONDS);
+    assertThat(child.getSpanContext().getTraceId()).isEqualTo(parent.getSpanContext().getTraceId());
+
+    openTelemetry.setDelegate(sdk);
+
+    List<SpanData> spans = exporter.getFinishedSpanItems();
+    assertThat(spans).hasSize(2);
+    // handed over in the order that they were started
+    SpanData parentData = spans.get(0);
+    assertThat(parentData.getName()).isEqualTo("parent");
+    assertThat(parentData.getKind()).isEqualTo(SpanKind.SERVER);
+    assertThat(parentData.getAttributes().get(stringKey("key"))).isEqualTo("value");
+    assertThat(parentData.getSpanContext()).isEqualTo(parent.getSpanContext());
+    assertThat(parentData.getParentSpanContext().isValid()).isFalse();
+    assertThat(parentData.getInstrumentationLibraryInfo().getName()).isEqualTo("test");
+    assertThat(parentData.getInstrumentationLibraryInfo().getVersion()).isEqualTo("1.0");
+
+    SpanData childData = spans.get(1);
+    assertThat(childData.getName()).isEqualTo("child");
+    assertThat(childData.getSpanContext()).isEqualTo(child.getSpanContext());
+    assertThat(childData.getParentSpanId()).isEqualTo(parentData.getSpanId());
+    assertThat(childData.getStartEpochNanos())
+        .isGreaterThanOrEqualTo(parentData.getStartEpochNanos());
+    assertThat(childData.getEndEpochNanos()).isGreaterThanOrEqualTo(childData.getStartEpochNanos());
+    // the timestamps of the buffered span, not those of the hand over
+    assertThat(childData.getEndEpochNanos()).isLessThanOrEqualTo(parentData.getEndEpochNanos());
+
+    List<EventData> events = childData.getEvents();
+    assertThat(events).hasSize(2);
+    assertThat(events.get(0).getName()).isEqualTo("event");
+    assertThat(events.get(1).getName()).isEqualTo("exception");
+    assertThat(events.get(1).getAttributes().get(stringKey("exception.type")))
+        .isEqualTo(IllegalStateException.class.getName());
+    assertThat(events.get(1).getEpochNanos()).isLessThanOrEqualTo(childData.getEndEpochNanos());
+  }
+
+  @Test
+  void delegatesToSpansThatAreHandedOverBeforeTheyEnd() {
+    DeferredOpenTelemetry openTelemetry =
+        new DeferredOpenTelemetry(10, Sampler.parentBased(Sampler.alwaysOn()));
+    Tracer tracer = openTelemetry.getTracerProvider().tracerBuilder("test").build();
+
+    Span span = tracer.spanBuilder("span").startSpan();
+    SpanContext spanContext = span.getSpanContext();
+    openTelemetry.setDelegate(sdk);
+    assertThat(exporter.getFinishedSpanItems()).isEmpty();
+
+    // the children that are started after the hand over are started by the SDK
+    Span child = tracer.spanBuilder("child").setParent(Context.current().with(span)).startSpan();
+    assertThat(child).isNotInstanceOf(BufferedSpan.class);
+    child.end();
+    span.setAttribute("key", "value");
+    span.end();
+
+    List<SpanData> spans = exporter.getFinishedSpanItems();
+    assertThat(spans).hasSize(2);
+    // the same ids, sampled by the SDK
+    assertThat(span.getSpanContext().getTraceId()).isEqualTo(spanContext.getTraceId());
+    assertThat(span.getSpanContext().getSpanId()).isEqualTo(spanContext.getSpanId());
+    assertThat(span.getSpanContext().isSampled()).isTrue();
+    assertThat(spans.get(0).getParentSpanContext()).isEqualTo(span.getSpanContext());
+    assertThat(spans.get(1).getSpanContext()).isEqualTo(span.getSpanContext());
+    assertThat(spans.get(1).getAttributes().get(stringKey("key"))).isEqualTo("value");
+  }
+
+  @Test
+  void keepsTheSamplingDecisionsThatWerePropagated() {
+    DeferredOpenTelemetry openTelemetry =
+        new DeferredOpenTelemetry(10, Sampler.parentBased(sampling("sampled")));
+    Tracer tracer = openTelemetry.getTracerProvider().get("test");
+
+    Span sampled = tracer.spanBuilder("sampled").startSpan();
+    Span sampledChild =
+        tracer.spanBuilder("sampled child").setParent(Context.root().with(sampled)).startSpan();
+    Span dropped = tracer.spanBuilder("dropped").startSpan();
+    Span droppedChild =
+        tracer.spanBuilder("dropped child").setParent(Context.root().with(dropped)).startSpan();
+    // the decisions are propagated before the hand over
+    assertThat(sampled.getSpanContext().isSampled()).isTrue();
+    assertThat(sampledChild.getSpanContext().isSampled()).isTrue();
+    assertThat(dropped.getSpanContext().isSampled()).isFalse();
+    assertThat(droppedChild.getSpanContext().isSampled()).isFalse();
+    sampledChild.end();
+    sampled.end();
+    droppedChild.end();
+    dropped.end();
+
+    // the sampler of the SDK decides otherwise
+    OpenTelemetrySdk sdk =
+        OpenTelemetrySdk.builder()
+            .setTracerProvider(
+                SdkTracerProvider.builder()
+                    .setIdGenerator(HandoverIdGenerator.getInstance())
+                    .setSampler(new HandoverSampler(sampling("dropped")))
+                    .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                    .build())
+            .build();
+    openTelemetry.setDelegate(sdk);
+
+    assertThat(exporter.getFinishedSpanItems())
+        .extracting(SpanData::getName)
+        .containsExactly("sampled", "sampled child");
+    assertThat(sampled.getSpanContext().isSampled()).isTrue();
+    assertThat(sampledChild.getSpanContext().isSampled()).isTrue();
+    assertThat(dropped.getSpanContext().isSampled()).isFalse();
+    assertThat(droppedChild.getSpanContext().isSampled()).isFalse();
+    // the spans that are started afterwards are sampled by the SDK
+    assertThat(tracer.spanBuilder("sampled").startSpan().getSpanContext().isSampled()).isFalse();
+  }
+
+  @Test
+  void propagatesTheParentOfDroppedSpans() {
+    DeferredOpenTelemetry openTelemetry =
+        new DeferredOpenTelemetry(1, Sampler.parentBased(Sampler.alwaysOn()));
+    Tracer tracer = openTelemetry.getTracerProvider().get("test");
+
+    Span parent = tracer.spanBuilder("parent").startSpan();
+    Span dropped = tracer.spanBuilder("dropped").setParent(Context.root().with(parent)).startSpan();
+    assertThat(dropped.getSpanContext()).isEqualTo(parent.getSpanContext());
+    assertThat(dropped.isRecording()).isFalse();
+    dropped.end();
+    parent.end();
+
+    openTelemetry.setDelegate(sdk);
+    assertThat(exporter.getFinishedSpanItems())
+        .extracting(SpanData::getName)
+        .containsExactly("parent");
+  }
+
+  // samples the spans with the name, and drops the others
+  private static Sampler sampling(String spanName) {
+    return new Sampler() {
+      @Override
+      public SamplingResult shouldSample(
+          Context parentContext,
+          String traceId,
+          String name,
+          SpanKind spanKind,
+          Attributes attributes,
+          List<LinkData> parentLinks) {
+        return SamplingResult.create(
+            name.equals(spanName) ? SamplingDecision.RECORD_AND_SAMPLE : SamplingDecision.DROP);
+      }
+
+      @Override
+      public String getDescription() {
+        return "sampling " + spanName;
+      }
+    };
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.instrumentation.api.config.Config;
+import io.opentelemetry.javaagent.tooling.config.ConfigPropertiesAdapter;
+import io.opentelemetry.proto.collector.trace.v1.ExportTraceServiceRequest;
+import io.opentelemetry.proto.collector.trace.v1.ExportTraceServiceResponse;
+import io.opentelemetry.proto.collector.trace.v1.TraceServiceGrpc;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskBufferingSpanExporterProviderTest {
+
+  @TempDir File directory;
+
+  private final List<String> collectedNames = Collections.synchronizedList(new ArrayList<>());
+  private int port;
+  private Server collector;
+  private SpanExporter exporter;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (exporter != null) {
+      exporter.shutdown().join(10, TimeUnit.SECONDS);
+    }
+    if (collector != null) {
+      collector.shutdownNow();
+    }
+  }
+
+  @Test
+  void replaysSpansOnceTheCollectorComesUp() throws IOException {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("otel.exporter.otlp.traces.endpoint", "http://localhost:" + port);
+    properties.put("otel.exporter.otlp.compression", "gzip");
+    properties.put("otel.exporter.otlp.timeout", "5s");
+    properties.put(
+        "otel.javaagent.experimental.exporter.disk-buffer.directory", directory.getPath());
+    exporter =
+        new DiskBufferingSpanExporterProvider()
+            .createExporter(
+                new ConfigPropertiesAdapter(Config.builder().readProperties(properties).build()));
+
+    // nothing listens on the port yet, the spans are reported as exported and kept on disk
+    assertThat(exporter.export(spans("first")).join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+
+    collector = ServerBuilder.forPort(port).addService(new Collector()).build().start();
+
+    assertThat(exporter.export(spans("second")).join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    // the channel may still be backing off from the failed connection
+    await()
+        .atMost(Duration.ofSeconds(30))
+        .untilAsserted(
+            () -> {
+              exporter.flush().join(10, TimeUnit.SECONDS);
+              assertThat(collectedNames).containsExactly("first", "second");
+            });
+  }
+
+  private static List<SpanData> spans(String... names) {
+    InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+    Tracer tracer =
+        SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+            .build()
+            .get("test");
+    for (String name : names) {
+      tracer.spanBuilder(name).startSpan().end();
+    }
+    return spanExporter.getFinishedSpanItems();
+  }
+
+  private class Collector extends TraceServiceGrpc.TraceServiceImplBase {
+
+    @Override
+    public void export(
+        ExportTraceServiceRequest request,
+        StreamObserver<ExportTraceServiceResponse> responseObserver) {
+      request
+          .getResourceSpansList()
+          .forEach(
+              resourceSpans ->
+                  resourceSpans
+                      .getInstrumentationLibrarySpansList()
+                      .forEach(
+                          librarySpans ->
+                              librarySpans
+                                  .getSpansList()
+                                  .forEach(span -> collectedNames.add(span.getName()))));
+      responseObserver.onNext(ExportTraceServiceResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+  }
+}
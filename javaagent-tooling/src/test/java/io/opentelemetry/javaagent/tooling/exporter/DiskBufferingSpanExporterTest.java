@@ -0,0 +1,329 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.testing.InMemoryMetricReader;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskBufferingSpanExporterTest {
+
+  @TempDir File directory;
+
+  private final Receiver receiver = new Receiver();
+  private InMemoryMetricReader metricReader;
+  private SdkMeterProvider meterProvider;
+
+  @BeforeEach
+  void setUp() {
+    metricReader = new InMemoryMetricReader();
+    meterProvider = SdkMeterProvider.builder().registerMetricReader(metricReader).build();
+  }
+
+  @Test
+  void exportsWhileReceiverIsAvailable() throws IOException {
+    SpanExporter exporter = createExporter(64 * 1024);
+
+    assertThat(exporter.export(spans("first", "second")).isSuccess()).isTrue();
+
+    assertThat(receiver.names()).containsExactly("first", "second");
+    assertThat(metric("disk_buffer.spilled")).isZero();
+    assertThat(metric("disk_buffer.pending")).isZero();
+  }
+
+  @Test
+  void spillsDuringOutageAndReplaysInOrder() throws IOException {
+    SpanExporter exporter = createExporter(64 * 1024);
+
+    receiver.available = false;
+    // reported as exported, the spans are on disk
+    assertThat(exporter.export(spans("first")).isSuccess()).isTrue();
+    assertThat(exporter.export(spans("second", "third")).isSuccess()).isTrue();
+    assertThat(receiver.names()).isEmpty();
+    assertThat(metric("disk_buffer.spilled")).isEqualTo(3);
+    assertThat(metric("disk_buffer.pending")).isEqualTo(3);
+    assertThat(metric("disk_buffer.size")).isPositive();
+
+    receiver.available = true;
+    exporter.export(spans("fourth"));
+
+    assertThat(receiver.names()).containsExactly("first", "second", "third", "fourth");
+    assertThat(metric("disk_buffer.replayed")).isEqualTo(4);
+    assertThat(metric("disk_buffer.pending")).isZero();
+    assertThat(metric("disk_buffer.size")).isZero();
+  }
+
+  @Test
+  void replaysSpansWithAllTheirData() throws IOException {
+    SpanExporter exporter = createExporter(64 * 1024);
+    InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+    Tracer tracer = tracerProvider(spanExporter).get("test", "1.0");
+    SpanContext linked =
+        SpanContext.createFromRemoteParent(
+            "0123456789abcdef0123456789abcdef",
+            "0123456789abcdef",
+            TraceFlags.getSampled(),
+            TraceState.builder().put("key", "value").build());
+    Span parent = tracer.spanBuilder("parent").startSpan();
+    tracer
+        .spanBuilder("child")
+        .setParent(Context.current().with(parent))
+        .setSpanKind(SpanKind.CLIENT)
+        .addLink(linked, Attributes.of(AttributeKey.longKey("index"), 1L))
+        .setAttribute("string", "value")
+        .setAttribute("long", 42L)
+        .setAttribute("double", 0.5)
+        .setAttribute("boolean", true)
+        .setAttribute(AttributeKey.stringArrayKey("strings"), Arrays.asList("a", "b"))
+        .setAttribute(AttributeKey.longArrayKey("longs"), Arrays.asList(1L, 2L))
+        .startSpan()
+        .addEvent("event", Attributes.of(AttributeKey.booleanKey("flag"), false))
+        .setStatus(StatusCode.ERROR, "failed")
+        .end();
+    parent.end();
+    List<SpanData> spans = spanExporter.getFinishedSpanItems();
+
+    receiver.available = false;
+    exporter.export(spans);
+    receiver.available = true;
+    exporter.flush();
+
+    assertThat(receiver.spans).hasSize(2);
+    for (int i = 0; i < spans.size(); i++) {
+      SpanData expected = spans.get(i);
+      SpanData actual = receiver.spans.get(i);
+      assertThat(actual.getName()).isEqualTo(expected.getName());
+      assertThat(actual.getKind()).isEqualTo(expected.getKind());
+      assertThat(actual.getSpanContext()).isEqualTo(expected.getSpanContext());
+      assertThat(actual.getParentSpanContext()).isEqualTo(expected.getParentSpanContext());
+      assertThat(actual.getStartEpochNanos()).isEqualTo(expected.getStartEpochNanos());
+      assertThat(actual.getEndEpochNanos()).isEqualTo(expected.getEndEpochNanos());
+      assertThat(actual.hasEnded()).isEqualTo(expected.hasEnded());
+      // the attributes of the sdk spans are not comparable with other attributes
+      assertThat(actual.getAttributes().asMap()).isEqualTo(expected.getAttributes().asMap());
+      assertThat(actual.getTotalAttributeCount()).isEqualTo(expected.getTotalAttributeCount());
+      assertThat(actual.getEvents()).isEqualTo(expected.getEvents());
+      assertThat(actual.getTotalRecordedEvents()).isEqualTo(expected.getTotalRecordedEvents());
+      assertThat(actual.getLinks()).isEqualTo(expected.getLinks());
+      assertThat(actual.getTotalRecordedLinks()).isEqualTo(expected.getTotalRecordedLinks());
+      assertThat(actual.getStatus()).isEqualTo(expected.getStatus());
+      assertThat(actual.getResource()).isEqualTo(expected.getResource());
+      assertThat(actual.getInstrumentationLibraryInfo())
+          .isEqualTo(expected.getInstrumentationLibraryInfo());
+    }
+  }
+
+  @Test
+  void dropsOldestBatchesWhenFull() throws IOException {
+    // room for a couple of batches in each segment
+    SpanExporter exporter = createExporter(1024);
+
+    receiver.available = false;
+    for (int i = 0; i < 20; i++) {
+      exporter.export(spans("span" + i));
+    }
+    receiver.available = true;
+    exporter.flush();
+
+    long dropped = metric("disk_buffer.dropped");
+    assertThat(dropped).isPositive();
+    assertThat(metric("disk_buffer.replayed")).isEqualTo(20 - dropped);
+    assertThat(receiver.names()).endsWith("span18", "span19").doesNotContain("span0");
+  }
+
+  @Test
+  void exportsOneBatchAtATime() throws IOException {
+    SpanExporter exporter = createExporter(64 * 1024);
+    receiver.available = false;
+    exporter.export(spans("first"));
+    exporter.export(spans("second"));
+
+    receiver.available = true;
+    receiver.async = true;
+    // replays the first batch, the others are spilled while it is exported
+    exporter.export(spans("third"));
+    exporter.export(spans("fourth"));
+    while (receiver.completeNext()) {}
+
+    assertThat(receiver.names()).containsExactly("first", "second", "third", "fourth");
+
+    // the buffer is empty, but the delegate is still exporting
+    exporter.export(spans("fifth"));
+    exporter.export(spans("sixth"));
+    while (receiver.completeNext()) {}
+
+    assertThat(receiver.names()).endsWith("fifth", "sixth");
+    assertThat(receiver.maxPending).isEqualTo(1);
+    assertThat(metric("disk_buffer.pending")).isZero();
+  }
+
+  @Test
+  void countsBatchDiscardedWhileReplayedOnce() throws IOException {
+    SpanExporter exporter = createExporter(1024);
+    receiver.available = false;
+    exporter.export(spans("span0"));
+    exporter.export(spans("span1"));
+
+    receiver.available = true;
+    receiver.async = true;
+    // replays span0, whose segment is discarded by the batches spilled meanwhile
+    for (int i = 2; i < 20; i++) {
+      exporter.export(spans("span" + i));
+    }
+    while (receiver.completeNext()) {}
+
+    assertThat(receiver.names()).startsWith("span0").endsWith("span18", "span19");
+    long dropped = metric("disk_buffer.dropped");
+    assertThat(dropped).isPositive();
+    assertThat(metric("disk_buffer.replayed"))
+        .isEqualTo(receiver.spans.size())
+        .isEqualTo(20 - dropped);
+    assertThat(metric("disk_buffer.pending")).isZero();
+  }
+
+  @Test
+  void replaysBatchesLeftByPreviousProcess() throws IOException {
+    SpanExporter exporter = createExporter(64 * 1024);
+    receiver.available = false;
+    exporter.export(spans("first"));
+    exporter.export(spans("second"));
+    exporter.shutdown();
+    assertThat(receiver.names()).isEmpty();
+
+    receiver.available = true;
+    SpanExporter restarted = createExporter(64 * 1024);
+    restarted.flush();
+
+    assertThat(receiver.names()).containsExactly("first", "second");
+  }
+
+  @Test
+  void directoryIsNotSharedByExporters() throws IOException {
+    createExporter(64 * 1024);
+
+    try {
+      createExporter(64 * 1024);
+      throw new AssertionError("The directory was shared");
+    } catch (IOException expected) {
+      assertThat(expected).hasMessageContaining("is used by another process");
+    }
+  }
+
+  private SpanExporter createExporter(int segmentSize) throws IOException {
+    return DiskBufferingSpanExporter.create(
+        receiver, directory, segmentSize, 2, meterProvider.get("test"));
+  }
+
+  private static List<SpanData> spans(String... names) {
+    InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+    Tracer tracer = tracerProvider(spanExporter).get("test");
+    for (String name : names) {
+      tracer.spanBuilder(name).startSpan().end();
+    }
+    return spanExporter.getFinishedSpanItems();
+  }
+
+  private static SdkTracerProvider tracerProvider(InMemorySpanExporter spanExporter) {
+    return SdkTracerProvider.builder()
+        .setResource(Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "test")))
+        .addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+        .build();
+  }
+
+  private long metric(String name) {
+    for (MetricData metric : metricReader.collectAllMetrics()) {
+      if (metric.getName().equals(name)) {
+        return metric.getLongSumData().getPoints().iterator().next().getValue();
+      }
+    }
+    throw new AssertionError("No metric " + name);
+  }
+
+  // a stand-in for the collector, that fails the exports while it isn't available, and completes
+  // them when the test calls completeNext() while it is async
+  private static class Receiver implements SpanExporter {
+    volatile boolean available = true;
+    volatile boolean async;
+    final List<SpanData> spans = Collections.synchronizedList(new ArrayList<>());
+    private final Deque<CompletableResultCode> pending = new ArrayDeque<>();
+    int maxPending;
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+      if (!available) {
+        return CompletableResultCode.ofFailure();
+      }
+      this.spans.addAll(spans);
+      if (!async) {
+        return CompletableResultCode.ofSuccess();
+      }
+      CompletableResultCode result = new CompletableResultCode();
+      synchronized (pending) {
+        pending.add(result);
+        maxPending = Math.max(maxPending, pending.size());
+      }
+      return result;
+    }
+
+    boolean completeNext() {
+      CompletableResultCode result;
+      synchronized (pending) {
+        result = pending.poll();
+      }
+      if (result == null) {
+        return false;
+      }
+      result.succeed();
+      return true;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    List<String> names() {
+      return spans.stream().map(SpanData::getName).collect(Collectors.toList());
+    }
+  }
+}
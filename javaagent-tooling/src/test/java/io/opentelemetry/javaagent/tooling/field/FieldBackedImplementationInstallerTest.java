@@ -0,0 +1,78 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.field;
+
+import static net.bytebuddy.matcher.ElementMatchers.none;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.javaagent.bootstrap.VirtualFieldInstalledMarker;
+import io.opentelemetry.javaagent.tooling.muzzle.VirtualFieldMappingsBuilderImpl;
+import java.util.ArrayList;
+import java.util.List;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import org.junit.jupiter.api.Test;
+
+class FieldBackedImplementationInstallerTest {
+
+  @Test
+  void reportsTheClassesThatFieldsAreInjectedInto() {
+    VirtualFieldMappingsBuilderImpl mappings = new VirtualFieldMappingsBuilderImpl();
+    mappings.register(Reported.class.getName(), String.class.getName());
+    FieldBackedImplementationInstaller installer =
+        new FieldBackedImplementationInstaller(
+            FieldBackedImplementationInstallerTest.class, mappings.build());
+
+    List<AgentBuilder.RawMatcher> typeMatchers = new ArrayList<>();
+    installer.injectFields(
+        new AgentBuilder.Default()
+            .type(none())
+            .transform((builder, type, loader, module) -> builder),
+        typeMatchers);
+
+    // the parallel discovery of the loaded classes only keeps the classes that these match
+    assertThat(typeMatchers).hasSize(1);
+    assertThat(matches(typeMatchers.get(0), ReportedImpl.class, null)).isTrue();
+  }
+
+  @Test
+  void matchesLoadedClassesThatAlreadyHaveTheFields() {
+    AgentBuilder.RawMatcher matcher =
+        FieldBackedImplementationInstaller.fieldInjectionMatcher(Task.class.getName());
+
+    // when the classes are loaded
+    assertThat(matches(matcher, PlainTask.class, null)).isTrue();
+    assertThat(matches(matcher, AbstractTask.class, null)).isFalse();
+    assertThat(matches(matcher, Object.class, null)).isFalse();
+
+    // when the classes are retransformed, the fields have to be injected again
+    assertThat(matches(matcher, TaskWithFields.class, TaskWithFields.class)).isTrue();
+    // fields can't be added to a class that was loaded without them
+    assertThat(matches(matcher, PlainTask.class, PlainTask.class)).isFalse();
+  }
+
+  private static boolean matches(
+      AgentBuilder.RawMatcher matcher, Class<?> type, Class<?> classBeingRedefined) {
+    return matcher.matches(
+        TypeDescription.ForLoadedType.of(type),
+        type.getClassLoader(),
+        null,
+        classBeingRedefined,
+        type.getProtectionDomain());
+  }
+
+  interface Reported {}
+
+  static class ReportedImpl implements Reported {}
+
+  interface Task {}
+
+  static class PlainTask implements Task {}
+
+  abstract static class AbstractTask implements Task {}
+
+  static class TaskWithFields implements Task, VirtualFieldInstalledMarker {}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.ignore;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.opentelemetry.instrumentation.api.config.Config;
+import net.bytebuddy.description.type.TypeDescription;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IgnoredTypesMatcherTest {
+
+  static IgnoredTypesMatcher matcher;
+
+  @BeforeAll
+  static void setUp() {
+    IgnoredTypesBuilderImpl builder = new IgnoredTypesBuilderImpl();
+    new GlobalIgnoredTypesConfigurer().configure(Config.builder().build(), builder);
+    builder.allowClass("com.example.allowed.").ignoreClassesContaining("$$Generated");
+    matcher = builder.buildIgnoredTypesMatcher();
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "com.example.Service$$EnhancerBySpringCGLIB$$1a2b3c",
+        "com.example.Entity$HibernateProxy$$abc",
+        "com.example.Model$JaxbAccessorF_name",
+        "org.javassist.tmp.java.lang.Object_$$_javassist_0",
+        "org.objectweb.asm.ClassWriter",
+        "com.example.Module$__sisu1",
+        "com.example.Service$$Lambda$1/CGLIB$$",
+        "com.example.__EJB31_Generated__Bean__Intf____Bean__",
+        "com.mchange.v2.c3p0.impl.NewProxyConnectionProxy",
+        "com.example.Foo$$Generated",
+        "java.lang.String"
+      })
+  void shouldIgnore(String className) {
+    assertTrue(matcher.matches(new TypeDescription.Latent(className, 0, null)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "com.example.Main",
+        "com.example.Service$Inner",
+        "com.example.Service$$Lambda$123",
+        "com.example.Foo$$anon$1",
+        "com.example.allowed.Foo$$EnhancerBySpringCGLIB$$1a2b3c",
+        "java.util.concurrent.ThreadPoolExecutor"
+      })
+  void shouldNotIgnore(String className) {
+    assertFalse(matcher.matches(new TypeDescription.Latent(className, 0, null)));
+  }
+
+  @Test
+  void shouldNotIgnoreScalaAnonymousClassEvenWhenOtherSubstringMatches() {
+    assertFalse(
+        matcher.matches(new TypeDescription.Latent("com.example.Foo$$anon$1$javassist", 0, null)));
+  }
+}
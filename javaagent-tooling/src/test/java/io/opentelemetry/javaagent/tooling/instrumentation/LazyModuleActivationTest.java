@@ -0,0 +1,131 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static io.opentelemetry.javaagent.extension.matcher.AgentElementMatchers.hasClassesNamed;
+import static net.bytebuddy.matcher.ElementMatchers.isBootstrapClassLoader;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeTransformer;
+import java.lang.instrument.Instrumentation;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.junit.jupiter.api.Test;
+
+class LazyModuleActivationTest {
+
+  private static final String REQUIRED_CLASS = Required.class.getName();
+
+  private final Instrumentation instrumentation = mock(Instrumentation.class);
+  private final Map<String, Runnable> callbacks = new HashMap<>();
+
+  @Test
+  void staysDormantUntilTheRequiredClassIsLoaded() throws Exception {
+    when(instrumentation.getAllLoadedClasses())
+        .thenReturn(new Class<?>[] {Instrumented.class, NotInstrumented.class});
+    when(instrumentation.isModifiableClass(any())).thenReturn(true);
+
+    LazyModuleActivation activation = create(Collections.emptySet());
+    assertThat(activation).isNotNull();
+    assertThat(matches(activation)).isFalse();
+    assertThat(callbacks).containsOnlyKeys(REQUIRED_CLASS);
+
+    callbacks.get(REQUIRED_CLASS).run();
+    assertThat(matches(activation)).isTrue();
+    // the instrumented class was loaded before the module was activated
+    verify(instrumentation, timeout(5000)).retransformClasses(Instrumented.class);
+
+    // activating again doesn't retransform again
+    callbacks.get(REQUIRED_CLASS).run();
+    Thread.sleep(100);
+    verify(instrumentation).retransformClasses(any());
+  }
+
+  @Test
+  void isActiveWhenTheRequiredClassIsAlreadyLoaded() throws Exception {
+    LazyModuleActivation activation = create(Collections.singleton(REQUIRED_CLASS));
+    assertThat(activation).isNotNull();
+    assertThat(matches(activation)).isTrue();
+    // registered before looking at the loaded classes, and harmless once active
+    assertThat(callbacks).containsOnlyKeys(REQUIRED_CLASS);
+
+    callbacks.get(REQUIRED_CLASS).run();
+    Thread.sleep(100);
+    verify(instrumentation, never()).retransformClasses(any());
+  }
+
+  @Test
+  void isNotCreatedWithoutRequiredClasses() {
+    LazyModuleActivation activation =
+        LazyModuleActivation.create(
+            new TestModule(),
+            isBootstrapClassLoader(),
+            instrumentation,
+            Collections::emptySet,
+            callbacks::put);
+    assertThat(activation).isNull();
+    assertThat(callbacks).isEmpty();
+  }
+
+  private LazyModuleActivation create(Set<String> loadedClassNames) {
+    return LazyModuleActivation.create(
+        new TestModule(),
+        hasClassesNamed(REQUIRED_CLASS),
+        instrumentation,
+        () -> loadedClassNames,
+        callbacks::put);
+  }
+
+  private static boolean matches(LazyModuleActivation activation) {
+    return activation.matches(
+        TypeDescription.ForLoadedType.of(Instrumented.class),
+        LazyModuleActivationTest.class.getClassLoader(),
+        null,
+        null,
+        null);
+  }
+
+  static class Required {}
+
+  static class Instrumented {}
+
+  static class NotInstrumented {}
+
+  static class TestModule extends InstrumentationModule {
+
+    TestModule() {
+      super("test");
+    }
+
+    @Override
+    public List<TypeInstrumentation> typeInstrumentations() {
+      return Collections.singletonList(
+          new TypeInstrumentation() {
+            @Override
+            public ElementMatcher<TypeDescription> typeMatcher() {
+              return named(Instrumented.class.getName());
+            }
+
+            @Override
+            public void transform(TypeTransformer transformer) {}
+          });
+    }
+  }
+}
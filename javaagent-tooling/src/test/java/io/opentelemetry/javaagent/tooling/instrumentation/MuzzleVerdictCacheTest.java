@@ -0,0 +1,130 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MuzzleVerdictCacheTest {
+
+  @TempDir Path tempDir;
+
+  private Path cacheDir;
+  private Path jar;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    cacheDir = Files.createDirectory(tempDir.resolve("cache"));
+    jar = Files.write(tempDir.resolve("library.jar"), new byte[] {1, 2, 3});
+  }
+
+  @Test
+  void shouldKeepVerdictsAcrossRestarts() throws IOException {
+    MuzzleVerdictCache cache = new MuzzleVerdictCache(cacheDir, null);
+    cache.put(new FirstModule(), classLoader(), false);
+    cache.put(new SecondModule(), classLoader(), true);
+    cache.flush();
+
+    MuzzleVerdictCache restarted = new MuzzleVerdictCache(cacheDir, null);
+    assertThat(restarted.get(new FirstModule(), classLoader())).isFalse();
+    assertThat(restarted.get(new SecondModule(), classLoader())).isTrue();
+    assertThat(restarted.get(new ThirdModule(), classLoader())).isNull();
+  }
+
+  @Test
+  void shouldNotUseVerdictsOfChangedJars() throws IOException {
+    MuzzleVerdictCache cache = new MuzzleVerdictCache(cacheDir, null);
+    cache.put(new FirstModule(), classLoader(), true);
+    cache.flush();
+
+    Files.write(jar, new byte[] {1, 2, 3, 4});
+
+    MuzzleVerdictCache restarted = new MuzzleVerdictCache(cacheDir, null);
+    assertThat(restarted.get(new FirstModule(), classLoader())).isNull();
+  }
+
+  @Test
+  void shouldNotCacheClassLoadersWithUnknownClassPath() throws IOException {
+    ClassLoader classLoader = new ClassLoader(null) {};
+    MuzzleVerdictCache cache = new MuzzleVerdictCache(cacheDir, null);
+    cache.put(new FirstModule(), classLoader, true);
+    cache.flush();
+
+    assertThat(cache.get(new FirstModule(), classLoader)).isNull();
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      assertThat(files).isEmpty();
+    }
+  }
+
+  @Test
+  void shouldNotCacheClassLoadersWithDirectories() throws IOException {
+    Path classes = Files.createDirectory(tempDir.resolve("classes"));
+    ClassLoader classLoader =
+        new URLClassLoader(new URL[] {jar.toUri().toURL(), classes.toUri().toURL()}, null);
+    MuzzleVerdictCache cache = new MuzzleVerdictCache(cacheDir, null);
+    cache.put(new FirstModule(), classLoader, true);
+    cache.flush();
+
+    assertThat(cache.get(new FirstModule(), classLoader)).isNull();
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      assertThat(files).isEmpty();
+    }
+  }
+
+  @Test
+  void shouldMergeVerdictsOfConcurrentJvms() throws IOException {
+    MuzzleVerdictCache first = new MuzzleVerdictCache(cacheDir, null);
+    MuzzleVerdictCache second = new MuzzleVerdictCache(cacheDir, null);
+    // both caches read the (missing) file before either writes it
+    assertThat(first.get(new FirstModule(), classLoader())).isNull();
+    assertThat(second.get(new SecondModule(), classLoader())).isNull();
+    first.put(new FirstModule(), classLoader(), true);
+    second.put(new SecondModule(), classLoader(), false);
+    first.flush();
+    second.flush();
+
+    MuzzleVerdictCache restarted = new MuzzleVerdictCache(cacheDir, null);
+    assertThat(restarted.get(new FirstModule(), classLoader())).isTrue();
+    assertThat(restarted.get(new SecondModule(), classLoader())).isFalse();
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      // no temporary files are left behind
+      assertThat(files).hasSize(1);
+    }
+  }
+
+  // a new class loader on each call, like a restarted application
+  private ClassLoader classLoader() throws IOException {
+    return new URLClassLoader(new URL[] {jar.toUri().toURL()}, null);
+  }
+
+  private static class FirstModule extends InstrumentationModule {
+    FirstModule() {
+      super("first");
+    }
+
+    @Override
+    public List<TypeInstrumentation> typeInstrumentations() {
+      return emptyList();
+    }
+  }
+
+  private static class SecondModule extends FirstModule {}
+
+  private static class ThirdModule extends FirstModule {}
+}
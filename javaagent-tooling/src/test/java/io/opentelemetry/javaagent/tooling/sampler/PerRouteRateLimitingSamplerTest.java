@@ -0,0 +1,89 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.sampler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PerRouteRateLimitingSamplerTest {
+
+  private long nanoTime = TimeUnit.HOURS.toNanos(1);
+
+  @Test
+  void limitsEachRouteSeparately() {
+    PerRouteRateLimitingSampler sampler = new PerRouteRateLimitingSampler(5, 10, () -> nanoTime);
+
+    assertThat(sampled(sampler, "/health", 100)).isEqualTo(5);
+    assertThat(sampled(sampler, "/orders/{id}", 100)).isEqualTo(5);
+  }
+
+  @Test
+  void refillsOverTime() {
+    PerRouteRateLimitingSampler sampler = new PerRouteRateLimitingSampler(5, 10, () -> nanoTime);
+
+    assertThat(sampled(sampler, "/health", 100)).isEqualTo(5);
+
+    nanoTime += TimeUnit.MILLISECONDS.toNanos(400);
+    assertThat(sampled(sampler, "/health", 100)).isEqualTo(2);
+
+    // an idle route doesn't accumulate more than a second of spans
+    nanoTime += TimeUnit.SECONDS.toNanos(10);
+    assertThat(sampled(sampler, "/health", 100)).isEqualTo(5);
+  }
+
+  @Test
+  void sharesBucketOverMaxRoutes() {
+    PerRouteRateLimitingSampler sampler = new PerRouteRateLimitingSampler(5, 2, () -> nanoTime);
+
+    assertThat(sampled(sampler, "/first", 100)).isEqualTo(5);
+    assertThat(sampled(sampler, "/second", 100)).isEqualTo(5);
+    assertThat(sampled(sampler, "/third", 3)).isEqualTo(3);
+    assertThat(sampled(sampler, "/fourth", 100)).isEqualTo(2);
+  }
+
+  @Test
+  void usesSpanNameWithoutRoute() {
+    PerRouteRateLimitingSampler sampler = new PerRouteRateLimitingSampler(1, 10, () -> nanoTime);
+
+    assertThat(sample(sampler, "HTTP GET", Attributes.empty())).isTrue();
+    assertThat(sample(sampler, "HTTP GET", Attributes.empty())).isFalse();
+    assertThat(sample(sampler, "HTTP GET", Attributes.of(SemanticAttributes.HTTP_ROUTE, "/orders")))
+        .isTrue();
+  }
+
+  private static int sampled(PerRouteRateLimitingSampler sampler, String route, int spans) {
+    int sampled = 0;
+    for (int i = 0; i < spans; i++) {
+      if (sample(sampler, "HTTP GET", Attributes.of(SemanticAttributes.HTTP_ROUTE, route))) {
+        sampled++;
+      }
+    }
+    return sampled;
+  }
+
+  private static boolean sample(
+      PerRouteRateLimitingSampler sampler, String name, Attributes attributes) {
+    return sampler
+            .shouldSample(
+                Context.root(),
+                TraceId.getInvalid(),
+                name,
+                SpanKind.SERVER,
+                attributes,
+                Collections.emptyList())
+            .getDecision()
+        == SamplingDecision.RECORD_AND_SAMPLE;
+  }
+}
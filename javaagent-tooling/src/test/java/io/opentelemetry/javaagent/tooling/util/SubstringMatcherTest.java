@@ -0,0 +1,66 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class SubstringMatcherTest {
+  @Test
+  void shouldReturnZeroWhenNothingMatches() {
+    SubstringMatcher matcher = SubstringMatcher.builder().put("abc", 1).build();
+
+    assertEquals(0, matcher.match(""));
+    assertEquals(0, matcher.match("ab"));
+    assertEquals(0, matcher.match("acbacb"));
+  }
+
+  @Test
+  void shouldMatchAnywhereInString() {
+    SubstringMatcher matcher = SubstringMatcher.builder().put("abc", 1).build();
+
+    assertEquals(1, matcher.match("abc"));
+    assertEquals(1, matcher.match("xxabc"));
+    assertEquals(1, matcher.match("xxabcxx"));
+    assertEquals(1, matcher.match("ababc"));
+  }
+
+  @Test
+  void shouldCombineFlagsOfAllMatchedPatterns() {
+    SubstringMatcher matcher =
+        SubstringMatcher.builder().put("he", 1).put("she", 2).put("his", 4).put("hers", 8).build();
+
+    assertEquals(1 | 2, matcher.match("ushe"));
+    assertEquals(1 | 2 | 8, matcher.match("ushers"));
+    assertEquals(4, matcher.match("this"));
+    assertEquals(1 | 2 | 4, matcher.match("hishe"));
+  }
+
+  @Test
+  void shouldFindPatternContainedInAnotherPattern() {
+    SubstringMatcher matcher =
+        SubstringMatcher.builder().put("$$", 1).put("$$Lambda$", 2).put("CGLIB$$", 4).build();
+
+    assertEquals(1, matcher.match("Foo$$Bar"));
+    assertEquals(1 | 2, matcher.match("Foo$$Lambda$1"));
+    assertEquals(1 | 4, matcher.match("Foo$$EnhancerBySpringCGLIB$$1a2b"));
+    assertEquals(1, matcher.match("Foo$$Lambda"));
+  }
+
+  @Test
+  void shouldCombineFlagsOfSamePattern() {
+    SubstringMatcher matcher = SubstringMatcher.builder().put("abc", 1).put("abc", 2).build();
+
+    assertEquals(1 | 2, matcher.match("abc"));
+  }
+
+  @Test
+  void shouldRejectEmptyPattern() {
+    assertThrows(IllegalArgumentException.class, () -> SubstringMatcher.builder().put("", 1));
+  }
+}
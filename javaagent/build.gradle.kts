@@ -229,6 +229,61 @@ tasks {
     dependsOn(shadowJar, slimShadowJar, baseJavaagentJar)
   }
 
+  // builds a static class data sharing archive of the classes loaded while the agent starts, e.g.
+  //  ./gradlew :javaagent:cdsArchive -Pcds.javaVersion=17
+  // the archive only works with the JVM that built it, and the agent jar at the same path on the
+  // bootstrap class path:
+  //  java -XX:SharedArchiveFile=opentelemetry-javaagent.jsa -Xbootclasspath/a:<agent jar>
+  //    -javaagent:<agent jar> ...
+  val cdsJavaVersion = gradle.startParameter.projectProperties["cds.javaVersion"]
+  val cdsClassListDir = file("$buildDir/cds/classlist")
+
+  // runs the agent once to write the class list of the archive, the main class of the agent only
+  // prints its version
+  val cdsClassList by registering(JavaExec::class) {
+    dependsOn(shadowJar)
+    val agentJar = shadowJar.get().archiveFile.get().asFile
+    inputs.file(agentJar)
+    outputs.dir(cdsClassListDir)
+
+    mainClass.set("io.opentelemetry.javaagent.OpenTelemetryAgent")
+    jvmArgs(
+      "-Xbootclasspath/a:$agentJar",
+      "-javaagent:$agentJar",
+      "-Dotel.javaagent.experimental.cds.training-directory=$cdsClassListDir",
+      "-Dotel.traces.exporter=none",
+      "-Dotel.metrics.exporter=none"
+    )
+    if (cdsJavaVersion != null) {
+      javaLauncher.set(javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of(cdsJavaVersion))
+      })
+    }
+  }
+
+  val cdsArchive by registering(JavaExec::class) {
+    dependsOn(cdsClassList)
+    val agentJar = shadowJar.get().archiveFile.get().asFile
+    val classList = file("$cdsClassListDir/opentelemetry-javaagent.classlist")
+    val archive = file("$buildDir/cds/opentelemetry-javaagent.jsa")
+    inputs.file(classList)
+    outputs.file(archive)
+
+    // the main class is ignored when the archive is dumped
+    mainClass.set("io.opentelemetry.javaagent.OpenTelemetryAgent")
+    jvmArgs(
+      "-Xshare:dump",
+      "-XX:SharedClassListFile=$classList",
+      "-XX:SharedArchiveFile=$archive",
+      "-Xbootclasspath/a:$agentJar"
+    )
+    if (cdsJavaVersion != null) {
+      javaLauncher.set(javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of(cdsJavaVersion))
+      })
+    }
+  }
+
   withType<Test>().configureEach {
     dependsOn(shadowJar)
     inputs.file(shadowJar.get().archiveFile)
@@ -11,6 +11,7 @@ import io.opentelemetry.javaagent.tooling.muzzle.HelperResource;
 import java.io.File;
 import java.io.IOException;
 import java.lang.instrument.Instrumentation;
+import java.lang.invoke.MethodHandles;
 import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.nio.file.Files;
@@ -68,6 +69,8 @@ public class HelperInjector implements Transformer {
   @Nullable private final ClassLoader helpersSource;
   @Nullable private final Instrumentation instrumentation;
   private final Map<String, byte[]> dynamicTypeMap = new LinkedHashMap<>();
+  // the helper bytes are read once, when they are first injected, and shared by all classloaders
+  @Nullable private volatile Map<String, byte[]> helperMap;
 
   private final Cache<ClassLoader, Boolean> injectedClassLoaders =
       Cache.builder().setWeakKeys().build();
@@ -118,7 +121,8 @@ public class HelperInjector implements Transformer {
       String requestingName,
       Collection<DynamicType.Unloaded<?>> helpers,
       Instrumentation instrumentation) {
-    Map<String, byte[]> bytes = new HashMap<>(helpers.size());
+    // keep the order of the helpers, interfaces have to be injected before their implementations
+    Map<String, byte[]> bytes = new LinkedHashMap<>(helpers.size());
     for (DynamicType.Unloaded<?> helper : helpers) {
       bytes.put(helper.getTypeDescription().getName(), helper.getBytes());
     }
@@ -126,8 +130,14 @@ public class HelperInjector implements Transformer {
   }
 
   private Map<String, byte[]> getHelperMap() throws IOException {
-    if (dynamicTypeMap.isEmpty()) {
-      Map<String, byte[]> classnameToBytes = new LinkedHashMap<>();
+    if (!dynamicTypeMap.isEmpty()) {
+      return dynamicTypeMap;
+    }
+    Map<String, byte[]> classnameToBytes = helperMap;
+    if (classnameToBytes == null) {
+      // concurrent injections into different classloaders may both read the bytes, which is
+      // harmless
+      classnameToBytes = new LinkedHashMap<>();
 
       ClassFileLocator locator = ClassFileLocator.ForClassLoader.of(helpersSource);
 
@@ -136,10 +146,10 @@ public class HelperInjector implements Transformer {
         classnameToBytes.put(helperClassName, classBytes);
       }
 
-      return classnameToBytes;
-    } else {
-      return dynamicTypeMap;
+      classnameToBytes = Collections.unmodifiableMap(classnameToBytes);
+      helperMap = classnameToBytes;
     }
+    return classnameToBytes;
   }
 
   @Override
@@ -189,7 +199,8 @@ public class HelperInjector implements Transformer {
     }
     if (classLoader == BOOTSTRAP_CLASSLOADER_PLACEHOLDER && instrumentation == null) {
       logger.error(
-          "Cannot inject helpers into bootstrap classloader without an instance of Instrumentation. Programmer error!");
+          "Cannot inject helpers into bootstrap classloader without an instance of Instrumentation."
+              + " Programmer error!");
       return;
     }
 
@@ -218,7 +229,8 @@ public class HelperInjector implements Transformer {
             }
           } catch (Exception e) {
             logger.error(
-                "Error preparing helpers while processing {} for {}. Failed to inject helper classes into instance {}",
+                "Error preparing helpers while processing {} for {}. Failed to inject helper"
+                    + " classes into instance {}",
                 typeDescription,
                 requestingName,
                 cl,
@@ -237,6 +249,15 @@ public class HelperInjector implements Transformer {
       return ClassInjector.UsingUnsafe.ofBootLoader().injectRaw(classnameToBytes);
     }
 
+    // only the first helper of each package needs a temp jar, the others are defined through a
+    // lookup of the first one
+    return injectInPackageBatches(
+        BOOTSTRAP_CLASSLOADER_PLACEHOLDER, classnameToBytes, this::injectBootstrapClassLoaderJar);
+  }
+
+  private Map<String, Class<?>> injectBootstrapClassLoaderJar(Map<String, byte[]> classnameToBytes)
+      throws IOException {
+
     // Mar 2020: Since we're proactively cleaning up tempDirs, we cannot share dirs per thread.
     // If this proves expensive, we could do a per-process tempDir with
     // a reference count -- but for now, starting simple.
@@ -254,8 +275,96 @@ public class HelperInjector implements Transformer {
   }
 
   private static Map<String, Class<?>> injectClassLoader(
-      ClassLoader classLoader, Map<String, byte[]> classnameToBytes) {
-    return new ClassInjector.UsingReflection(classLoader).injectRaw(classnameToBytes);
+      ClassLoader classLoader, Map<String, byte[]> classnameToBytes) throws IOException {
+    ClassInjector injector = new ClassInjector.UsingReflection(classLoader);
+    return injectInPackageBatches(classLoader, classnameToBytes, injector::injectRaw);
+  }
+
+  /**
+   * Injects the helpers in the order of {@code classnameToBytes}. On Java 9+, only the first helper
+   * of each package is injected by {@code fallback}; the following helpers of that package are
+   * defined with {@code MethodHandles.Lookup#defineClass} on a private lookup of the first one,
+   * which skips the reflective {@code ClassLoader#defineClass} call (or the temp jar for the
+   * bootstrap classloader).
+   */
+  // visible for testing
+  static Map<String, Class<?>> injectInPackageBatches(
+      ClassLoader classLoader, Map<String, byte[]> classnameToBytes, Injection fallback)
+      throws IOException {
+    if (!ClassInjector.UsingLookup.isAvailable()) {
+      return fallback.inject(classnameToBytes);
+    }
+
+    Map<String, Class<?>> classes = new LinkedHashMap<>();
+    Map<String, Class<?>> packageAnchors = new HashMap<>();
+    Map<String, byte[]> batch = new LinkedHashMap<>();
+    Class<?> batchAnchor = null;
+    for (Map.Entry<String, byte[]> entry : classnameToBytes.entrySet()) {
+      Class<?> anchor = packageAnchors.get(packageName(entry.getKey()));
+      if (!batch.isEmpty() && anchor != batchAnchor) {
+        classes.putAll(injectWithLookup(classLoader, batch, batchAnchor, fallback));
+        batch.clear();
+      }
+      if (anchor == null) {
+        // a lookup can only define classes into a package that already has a class in the
+        // classloader, so the first helper of the package becomes the anchor of the others
+        Map<String, Class<?>> injected =
+            fallback.inject(Collections.singletonMap(entry.getKey(), entry.getValue()));
+        for (Class<?> clazz : injected.values()) {
+          packageAnchors.putIfAbsent(packageName(clazz.getName()), clazz);
+        }
+        classes.putAll(injected);
+      } else {
+        batch.put(entry.getKey(), entry.getValue());
+        batchAnchor = anchor;
+      }
+    }
+    if (!batch.isEmpty()) {
+      classes.putAll(injectWithLookup(classLoader, batch, batchAnchor, fallback));
+    }
+    return classes;
+  }
+
+  private static Map<String, Class<?>> injectWithLookup(
+      ClassLoader classLoader,
+      Map<String, byte[]> classnameToBytes,
+      Class<?> anchor,
+      Injection fallback)
+      throws IOException {
+    ClassInjector injector;
+    try {
+      injector = ClassInjector.UsingLookup.of(MethodHandles.lookup()).in(anchor);
+    } catch (RuntimeException e) {
+      logger.debug("Unable to get a private lookup of {}", anchor, e);
+      return fallback.inject(classnameToBytes);
+    }
+    Map<String, Class<?>> classes = new LinkedHashMap<>();
+    for (Map.Entry<String, byte[]> entry : classnameToBytes.entrySet()) {
+      String className = entry.getKey();
+      try {
+        classes.putAll(injector.injectRaw(Collections.singletonMap(className, entry.getValue())));
+      } catch (LinkageError e) {
+        // unlike the other injectors, the lookup doesn't return helpers that were already injected
+        // (e.g. by another instrumentation module that shares them)
+        classes.put(className, loadInjectedClass(classLoader, className, e));
+      }
+    }
+    return classes;
+  }
+
+  private static Class<?> loadInjectedClass(
+      ClassLoader classLoader, String className, LinkageError error) {
+    try {
+      return Class.forName(
+          className, false, classLoader == BOOTSTRAP_CLASSLOADER_PLACEHOLDER ? null : classLoader);
+    } catch (ClassNotFoundException e) {
+      throw error;
+    }
+  }
+
+  private static String packageName(String className) {
+    int lastDot = className.lastIndexOf('.');
+    return lastDot == -1 ? "" : className.substring(0, lastDot);
   }
 
   // JavaModule.equals doesn't work for some reason
@@ -301,4 +410,9 @@ public class HelperInjector implements Transformer {
   public static boolean isInjectedClass(Class<?> c) {
     return Boolean.TRUE.equals(injectedClasses.get(c));
   }
+
+  @FunctionalInterface
+  interface Injection {
+    Map<String, Class<?>> inject(Map<String, byte[]> classnameToBytes) throws IOException;
+  }
 }
@@ -5,8 +5,19 @@
 
 package io.opentelemetry.javaagent.tooling.muzzle;
 
+import static io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics.CounterNames.TYPE_RESOLUTION_CACHE_HIT;
+import static io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics.CounterNames.TYPE_RESOLUTION_CACHE_MISS;
+
 import io.opentelemetry.instrumentation.api.caching.Cache;
+import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics;
 import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.description.annotation.AnnotationList;
 import net.bytebuddy.description.method.MethodDescription;
@@ -17,61 +28,69 @@ import net.bytebuddy.dynamic.ClassFileLocator;
 import net.bytebuddy.pool.TypePool;
 
 /**
+ * A pool strategy that caches the type resolutions of each class loader in its own partition, so
+ * that resolving lots of types in one class loader doesn't evict the resolutions of the others.
  *
+ * <p>The capacity of each partition adapts to the load of its class loader: it starts small, grows
+ * while types are being resolved in bursts in that class loader (e.g. during application startup,
+ * when thousands of classes and their super types are matched), and shrinks back once type
+ * resolution has calmed down there. The partitions of idle class loaders are shrunk when types are
+ * resolved in the other partitions, so they don't keep their burst capacity.
  *
- * <ul>
- *   There two core parts to the cache...
- *   <li>a cache of ClassLoader to WeakReference&lt;ClassLoader&gt;
- *   <li>a single cache of TypeResolutions for all ClassLoaders - keyed by a custom composite key of
- *       ClassLoader and class name
- * </ul>
- *
- * <p>This design was chosen to create a single limited size cache that can be adjusted for the
- * entire application -- without having to create a large number of WeakReference objects.
+ * <p>The partitions are bounded concurrent caches, which are read without locking from the threads
+ * that match types in parallel.
  *
- * <p>Eviction is handled through a size restriction
+ * <p>The partitions are weakly keyed by class loader. The class file locators of the agent only
+ * reference class loaders weakly, so the cached resolutions don't keep their class loader alive.
  */
 public class AgentCachingPoolStrategy implements AgentBuilder.PoolStrategy {
 
   // Many things are package visible for testing purposes --
   // others to avoid creation of synthetic accessors
 
+  /** Capacity of each partition once type resolution has calmed down. */
   static final int TYPE_CAPACITY = 64;
 
-  static final int BOOTSTRAP_HASH = 7236344; // Just a random number
+  /** Capacity of each partition during bursts of type resolutions. */
+  static final int BURST_TYPE_CAPACITY = 4096;
 
-  /**
-   * Cache of recent ClassLoader WeakReferences; used to...
-   *
-   * <ul>
-   *   <li>Reduced number of WeakReferences created
-   *   <li>Allow for quick fast path equivalence check of composite keys
-   * </ul>
-   */
-  final Cache<ClassLoader, WeakReference<ClassLoader>> loaderRefCache =
+  /** Type resolutions in a window that make it a burst. */
+  static final int BURST_RESOLUTIONS = 200;
+
+  /** Quiet windows after which a burst is over. */
+  static final int BURST_QUIET_WINDOWS = 5;
+
+  static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  final Cache<ClassLoader, ResolutionCacheProvider> cacheProviders =
       Cache.builder().setWeakKeys().build();
 
-  /**
-   * Single shared Type.Resolution cache -- uses a composite key -- conceptually of loader & name
-   */
-  final Cache<TypeCacheKey, TypePool.Resolution> sharedResolutionCache =
-      Cache.builder().setMaximumSize(TYPE_CAPACITY).build();
+  // all the partitions, to also shrink the ones that aren't used anymore
+  private final Queue<WeakReference<ResolutionCacheProvider>> allCacheProviders =
+      new ConcurrentLinkedQueue<>();
+
+  private final LongSupplier nanoTime;
+  private final Object windowLock = new Object();
+  private volatile long windowStart;
 
   // fast path for bootstrap
-  final SharedResolutionCacheAdapter bootstrapCacheProvider =
-      new SharedResolutionCacheAdapter(BOOTSTRAP_HASH, null, sharedResolutionCache);
+  final ResolutionCacheProvider bootstrapCacheProvider;
 
-  @Override
-  public final TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
-    if (classLoader == null) {
-      return createCachingTypePool(bootstrapCacheProvider, classFileLocator);
-    }
+  public AgentCachingPoolStrategy() {
+    this(System::nanoTime);
+  }
 
-    WeakReference<ClassLoader> loaderRef =
-        loaderRefCache.computeIfAbsent(classLoader, WeakReference::new);
+  // visible for testing
+  AgentCachingPoolStrategy(LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+    windowStart = nanoTime.getAsLong();
+    bootstrapCacheProvider = newCacheProvider();
+  }
 
-    int loaderHash = classLoader.hashCode();
-    return createCachingTypePool(loaderHash, loaderRef, classFileLocator);
+  @Override
+  public final TypePool typePool(ClassFileLocator classFileLocator, ClassLoader classLoader) {
+    return new TypePool.Default.WithLazyResolution(
+        createCacheProvider(classLoader), classFileLocator, TypePool.Default.ReaderMode.FAST);
   }
 
   @Override
@@ -80,139 +99,122 @@ public class AgentCachingPoolStrategy implements AgentBuilder.PoolStrategy {
     return typePool(classFileLocator, classLoader);
   }
 
-  private TypePool.CacheProvider createCacheProvider(
-      int loaderHash, WeakReference<ClassLoader> loaderRef) {
-    return new SharedResolutionCacheAdapter(loaderHash, loaderRef, sharedResolutionCache);
-  }
-
-  private TypePool createCachingTypePool(
-      int loaderHash, WeakReference<ClassLoader> loaderRef, ClassFileLocator classFileLocator) {
-    return new TypePool.Default.WithLazyResolution(
-        createCacheProvider(loaderHash, loaderRef),
-        classFileLocator,
-        TypePool.Default.ReaderMode.FAST);
+  ResolutionCacheProvider createCacheProvider(@Nullable ClassLoader classLoader) {
+    if (classLoader == null) {
+      return bootstrapCacheProvider;
+    }
+    return cacheProviders.computeIfAbsent(classLoader, unused -> newCacheProvider());
   }
 
-  private static TypePool createCachingTypePool(
-      TypePool.CacheProvider cacheProvider, ClassFileLocator classFileLocator) {
-    return new TypePool.Default.WithLazyResolution(
-        cacheProvider, classFileLocator, TypePool.Default.ReaderMode.FAST);
+  private ResolutionCacheProvider newCacheProvider() {
+    ResolutionCacheProvider cacheProvider = new ResolutionCacheProvider(this::onAccess);
+    allCacheProviders.add(new WeakReference<>(cacheProvider));
+    return cacheProvider;
   }
 
   /**
-   * TypeCacheKey is key for the sharedResolutionCache. Conceptually, it is a mix of ClassLoader &
-   * class name.
-   *
-   * <p>For efficiency & GC purposes, it is actually composed of loaderHash &
-   * WeakReference&lt;ClassLoader&gt;
-   *
-   * <p>The loaderHash exists to avoid calling get & strengthening the Reference.
+   * Rolls the windows of all the partitions over once a {@link #WINDOW_NANOS} has elapsed. There is
+   * no background thread, the windows are only rolled over when types are resolved, or looked up in
+   * a partition during its burst.
    */
-  static final class TypeCacheKey {
-    private final int loaderHash;
-    private final WeakReference<ClassLoader> loaderRef;
-    private final String className;
-
-    private final int hashCode;
-
-    TypeCacheKey(int loaderHash, WeakReference<ClassLoader> loaderRef, String className) {
-      this.loaderHash = loaderHash;
-      this.loaderRef = loaderRef;
-      this.className = className;
-
-      hashCode = 31 * loaderHash + className.hashCode();
+  private void onAccess() {
+    long now = nanoTime.getAsLong();
+    if (now - windowStart < WINDOW_NANOS) {
+      return;
     }
-
-    @Override
-    public boolean equals(Object obj) {
-      if (obj == this) {
-        return true;
+    synchronized (windowLock) {
+      long windows = (now - windowStart) / WINDOW_NANOS;
+      if (windows == 0) {
+        // another thread rolled the window over
+        return;
       }
-      if (!(obj instanceof TypeCacheKey)) {
-        return false;
-      }
-
-      TypeCacheKey other = (TypeCacheKey) obj;
-
-      if (loaderHash != other.loaderHash) {
-        return false;
+      windowStart = now;
+      for (Iterator<WeakReference<ResolutionCacheProvider>> it = allCacheProviders.iterator();
+          it.hasNext(); ) {
+        ResolutionCacheProvider cacheProvider = it.next().get();
+        if (cacheProvider == null) {
+          // the class loader was collected
+          it.remove();
+        } else {
+          cacheProvider.rollWindows(windows);
+        }
       }
+    }
+  }
 
-      if (!className.equals(other.className)) {
-        return false;
-      }
+  /**
+   * Tracks the rate of type resolutions of a partition in windows of {@link #WINDOW_NANOS}. The
+   * capacity starts at {@link #TYPE_CAPACITY}, grows to {@link #BURST_TYPE_CAPACITY} as soon as a
+   * window reaches {@link #BURST_RESOLUTIONS}, and goes back to {@link #TYPE_CAPACITY} after {@link
+   * #BURST_QUIET_WINDOWS} quiet windows.
+   */
+  static final class AdaptiveCapacity {
+    private final AtomicInteger windowResolutions = new AtomicInteger();
+    // guarded by the window lock of the strategy
+    private long quietWindows;
+    private volatile boolean burst;
+
+    /** Returns the current capacity of the partition. */
+    int get() {
+      return burst ? BURST_TYPE_CAPACITY : TYPE_CAPACITY;
+    }
 
-      // Fastpath loaderRef equivalence -- works because of WeakReference cache used
-      // Also covers the bootstrap null loaderRef case
-      if (loaderRef == other.loaderRef) {
-        return true;
+    /** Records a type resolution, returns whether the partition is in a burst. */
+    boolean onResolution() {
+      if (!burst && windowResolutions.incrementAndGet() >= BURST_RESOLUTIONS) {
+        burst = true;
       }
+      return burst;
+    }
 
-      // need to perform a deeper loader check -- requires calling Reference.get
-      // which can strengthen the Reference, so deliberately done last
-
-      // If either reference has gone null, they aren't considered equivalent
-      // Technically, this is a bit of violation of equals semantics, since
-      // two equivalent references can become not equivalent.
-
-      // In this case, it is fine because that means the ClassLoader is no
-      // longer live, so the entries will never match anyway and will fall
-      // out of the cache.
-      ClassLoader thisLoader = loaderRef.get();
-      if (thisLoader == null) {
-        return false;
+    /** Rolls the given number of windows over, returns whether the partition is in a burst. */
+    boolean rollWindows(long windows) {
+      // only the first of the elapsed windows may have been a burst
+      if (windowResolutions.getAndSet(0) >= BURST_RESOLUTIONS) {
+        quietWindows = windows - 1;
+      } else {
+        quietWindows += windows;
       }
-
-      ClassLoader otherLoader = other.loaderRef.get();
-      if (otherLoader == null) {
-        return false;
+      if (burst && quietWindows >= BURST_QUIET_WINDOWS) {
+        burst = false;
       }
-
-      return thisLoader == otherLoader;
-    }
-
-    @Override
-    public final int hashCode() {
-      return hashCode;
-    }
-
-    @Override
-    public String toString() {
-      return "TypeCacheKey{"
-          + "loaderHash="
-          + loaderHash
-          + ", loaderRef="
-          + loaderRef
-          + ", className='"
-          + className
-          + '\''
-          + '}';
+      return burst;
     }
   }
 
-  static final class SharedResolutionCacheAdapter implements TypePool.CacheProvider {
+  /** The partition of the type resolution cache of a single class loader. */
+  static final class ResolutionCacheProvider implements TypePool.CacheProvider {
     private static final String OBJECT_NAME = "java.lang.Object";
     private static final TypePool.Resolution OBJECT_RESOLUTION =
         new TypePool.Resolution.Simple(new CachingTypeDescription(TypeDescription.OBJECT));
 
-    private final int loaderHash;
-    private final WeakReference<ClassLoader> loaderRef;
-    private final Cache<TypeCacheKey, TypePool.Resolution> sharedResolutionCache;
-
-    SharedResolutionCacheAdapter(
-        int loaderHash,
-        WeakReference<ClassLoader> loaderRef,
-        Cache<TypeCacheKey, TypePool.Resolution> sharedResolutionCache) {
-      this.loaderHash = loaderHash;
-      this.loaderRef = loaderRef;
-      this.sharedResolutionCache = sharedResolutionCache;
+    private final Runnable onAccess;
+    final AdaptiveCapacity capacity = new AdaptiveCapacity();
+
+    // the steady state capacity, which keeps the resolutions that are still used after a burst
+    private final Cache<String, TypePool.Resolution> resolutions =
+        Cache.builder().setMaximumSize(TYPE_CAPACITY).build();
+
+    // the rest of the burst capacity, only while the class loader is in a burst
+    @Nullable private volatile Cache<String, TypePool.Resolution> burstResolutions;
+
+    ResolutionCacheProvider(Runnable onAccess) {
+      this.onAccess = onAccess;
     }
 
     @Override
     public TypePool.Resolution find(String className) {
-      TypePool.Resolution existingResolution =
-          sharedResolutionCache.get(new TypeCacheKey(loaderHash, loaderRef, className));
+      TypePool.Resolution existingResolution = resolutions.get(className);
+      Cache<String, TypePool.Resolution> burstResolutions = this.burstResolutions;
+      if (burstResolutions != null) {
+        // the clock is only read on lookups while resolving types in bursts
+        onAccess.run();
+        if (existingResolution == null) {
+          existingResolution = burstResolutions.get(className);
+        }
+      }
       if (existingResolution != null) {
+        SupportabilityMetrics.instance().incrementCounter(TYPE_RESOLUTION_CACHE_HIT);
         return existingResolution;
       }
 
@@ -220,6 +222,7 @@ public class AgentCachingPoolStrategy implements AgentBuilder.PoolStrategy {
         return OBJECT_RESOLUTION;
       }
 
+      SupportabilityMetrics.instance().incrementCounter(TYPE_RESOLUTION_CACHE_MISS);
       return null;
     }
 
@@ -231,10 +234,39 @@ public class AgentCachingPoolStrategy implements AgentBuilder.PoolStrategy {
 
       resolution = new CachingResolution(resolution);
 
-      sharedResolutionCache.put(new TypeCacheKey(loaderHash, loaderRef, className), resolution);
+      onAccess.run();
+      resolutions.put(className, resolution);
+      if (capacity.onResolution()) {
+        Cache<String, TypePool.Resolution> burstResolutions = this.burstResolutions;
+        if (burstResolutions == null) {
+          burstResolutions = startBurst();
+        }
+        burstResolutions.put(className, resolution);
+      }
       return resolution;
     }
 
+    private synchronized Cache<String, TypePool.Resolution> startBurst() {
+      Cache<String, TypePool.Resolution> burstResolutions = this.burstResolutions;
+      if (burstResolutions == null) {
+        burstResolutions =
+            Cache.builder().setMaximumSize(BURST_TYPE_CAPACITY - TYPE_CAPACITY).build();
+        this.burstResolutions = burstResolutions;
+      }
+      return burstResolutions;
+    }
+
+    void rollWindows(long windows) {
+      if (!capacity.rollWindows(windows)) {
+        burstResolutions = null;
+      }
+    }
+
+    // visible for testing
+    boolean inBurst() {
+      return burstResolutions != null;
+    }
+
     @Override
     public void clear() {
       // Allowing the high-level eviction policy make the clearing decisions
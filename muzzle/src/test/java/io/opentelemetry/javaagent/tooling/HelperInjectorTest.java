@@ -0,0 +1,67 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassInjector;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import org.junit.jupiter.api.Test;
+
+class HelperInjectorTest {
+
+  @Test
+  void definesFollowingHelpersOfPackageThroughLookup() throws IOException {
+    assumeTrue(ClassInjector.UsingLookup.isAvailable());
+
+    DynamicType.Unloaded<?> base = helper("helpers.first.Base", TypeDescription.OBJECT);
+    Map<String, byte[]> helpers = new LinkedHashMap<>();
+    helpers.put("helpers.first.Base", base.getBytes());
+    helpers.put(
+        "helpers.first.Sub", helper("helpers.first.Sub", base.getTypeDescription()).getBytes());
+    helpers.put(
+        "helpers.second.Other", helper("helpers.second.Other", TypeDescription.OBJECT).getBytes());
+    helpers.put(
+        "helpers.first.Last", helper("helpers.first.Last", TypeDescription.OBJECT).getBytes());
+
+    ClassLoader classLoader = new ClassLoader(null) {};
+    ClassInjector injector = new ClassInjector.UsingReflection(classLoader);
+    List<String> injectedByFallback = new ArrayList<>();
+    Map<String, Class<?>> classes =
+        HelperInjector.injectInPackageBatches(
+            classLoader,
+            helpers,
+            classnameToBytes -> {
+              injectedByFallback.addAll(classnameToBytes.keySet());
+              return injector.injectRaw(classnameToBytes);
+            });
+
+    // only the first helper of each package needs the fallback
+    assertThat(injectedByFallback).containsExactly("helpers.first.Base", "helpers.second.Other");
+    assertThat(classes).containsOnlyKeys(helpers.keySet());
+    for (Class<?> clazz : classes.values()) {
+      assertThat(clazz.getClassLoader()).isSameAs(classLoader);
+    }
+    assertThat(classes.get("helpers.first.Sub").getSuperclass())
+        .isSameAs(classes.get("helpers.first.Base"));
+  }
+
+  private static DynamicType.Unloaded<?> helper(String name, TypeDescription superClass) {
+    return new ByteBuddy()
+        .subclass(superClass, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+        .name(name)
+        .make();
+  }
+}